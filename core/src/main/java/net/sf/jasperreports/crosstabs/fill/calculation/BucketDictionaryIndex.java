@@ -0,0 +1,245 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.crosstabs.fill.calculation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.sf.jasperreports.crosstabs.fill.calculation.BucketDefinition.Bucket;
+import net.sf.jasperreports.engine.util.LongIntHashMap;
+
+/**
+ * Index of bucket value combinations that encodes bucket values as <code>int</code> ids.
+ * 
+ * <p>
+ * Each bucket has a dictionary that assigns ids to distinct bucket values in the order in 
+ * which they are first seen.
+ * A combination of bucket values is identified level by level, by looking up the id of 
+ * the combination of the previous levels and the bucket value id, packed as a <code>long</code> key.
+ * The ids of the last level identify the complete combinations, which are numbered in the
+ * order in which they are first seen.
+ * </p>
+ * <p>
+ * Values of sorted buckets that are equal according to the bucket comparator, 
+ * such as <code>BigDecimal</code> values that only differ in scale, receive the same id, 
+ * as they share an entry in the bucket maps.
+ * </p>
+ * <p>
+ * {@link Bucket} objects are only created once per distinct value of each bucket.
+ * </p>
+ * 
+ * @see BucketingService#PROPERTY_DICTIONARY_BUCKETING
+ */
+public class BucketDictionaryIndex
+{
+	
+	protected static class BucketDictionary
+	{
+		private final BucketDefinition bucketDefinition;
+		private final Map<Object, Integer> ids = new HashMap<>();
+		// ids by comparator for sorted buckets
+		private final Map<Bucket, Integer> sortedIds;
+		private final List<Bucket> buckets = new ArrayList<>();
+		private final List<Object> values = new ArrayList<>();
+		
+		protected BucketDictionary(BucketDefinition bucketDefinition)
+		{
+			this.bucketDefinition = bucketDefinition;
+			this.sortedIds = bucketDefinition.isSorted() ? new TreeMap<>() : null;
+		}
+		
+		public int getId(Object value)
+		{
+			// order decorators are compared by the decorated value, as buckets are
+			Object key = value instanceof BucketValueOrderDecorator<?> ? bucketDefinition.create(value) : value;
+			Integer id = ids.get(key);
+			if (id == null)
+			{
+				Bucket bucket = key instanceof Bucket ? (Bucket) key : bucketDefinition.create(value);
+				if (sortedIds != null)
+				{
+					// the value might be equal to a different value according to the comparator
+					id = sortedIds.get(bucket);
+				}
+				
+				if (id == null)
+				{
+					id = buckets.size();
+					buckets.add(bucket);
+					values.add(value);
+					if (sortedIds != null)
+					{
+						sortedIds.put(bucket, id);
+					}
+				}
+				
+				ids.put(key, id);
+			}
+			return id;
+		}
+		
+		public Bucket getBucket(int id)
+		{
+			return buckets.get(id);
+		}
+		
+		public Object getValue(int id)
+		{
+			return values.get(id);
+		}
+		
+		public int size()
+		{
+			return buckets.size();
+		}
+	}
+	
+	private final BucketDictionary[] dictionaries;
+	// combination ids per level, the first level uses the dictionary ids
+	private final LongIntHashMap[] levelIds;
+	private final int[] levelCounts;
+	private final int[] valueIds;
+	
+	private int[] combinations;
+	private int combinationCount;
+	
+	public BucketDictionaryIndex(BucketDefinition[] buckets)
+	{
+		int levels = buckets.length;
+		dictionaries = new BucketDictionary[levels];
+		levelIds = new LongIntHashMap[levels];
+		for (int i = 0; i < levels; ++i)
+		{
+			dictionaries[i] = new BucketDictionary(buckets[i]);
+			if (i > 0)
+			{
+				levelIds[i] = new LongIntHashMap();
+			}
+		}
+		levelCounts = new int[levels];
+		valueIds = new int[levels];
+		combinations = new int[16 * levels];
+	}
+	
+	/**
+	 * Adds a combination of bucket values to the index.
+	 * 
+	 * @param bucketValues the bucket values
+	 * @return the id of the combination, equal to the previous {@link #size()} 
+	 * if the combination was not already present
+	 */
+	public int add(Object[] bucketValues)
+	{
+		int levels = dictionaries.length;
+		int id = 0;
+		for (int i = 0; i < levels; ++i)
+		{
+			int valueId = dictionaries[i].getId(bucketValues[i]);
+			valueIds[i] = valueId;
+			
+			if (i == 0)
+			{
+				id = valueId;
+				levelCounts[0] = dictionaries[0].size();
+			}
+			else
+			{
+				long key = ((long) id << 32) | valueId;
+				id = levelIds[i].putIfAbsent(key, levelCounts[i]);
+				if (id == levelCounts[i])
+				{
+					++levelCounts[i];
+				}
+			}
+		}
+		
+		if (id == combinationCount)
+		{
+			int offset = combinationCount * levels;
+			if (offset + levels > combinations.length)
+			{
+				combinations = Arrays.copyOf(combinations, combinations.length << 1);
+			}
+			System.arraycopy(valueIds, 0, combinations, offset, levels);
+			++combinationCount;
+		}
+		return id;
+	}
+	
+	/**
+	 * Returns the id of a bucket value, adding the value to the bucket dictionary if not already present.
+	 * 
+	 * @param level the bucket index
+	 * @param value the bucket value
+	 * @return the value id, which is the same for values that share an entry in the bucket maps
+	 */
+	public int getValueId(int level, Object value)
+	{
+		return dictionaries[level].getId(value);
+	}
+	
+	/**
+	 * Returns the first value added to the bucket dictionary that has the same id as a bucket value.
+	 * 
+	 * @param level the bucket index
+	 * @param value the bucket value
+	 * @return the first value with the same id
+	 * @see #getValueId(int, Object)
+	 */
+	public Object getCanonicalValue(int level, Object value)
+	{
+		BucketDictionary dictionary = dictionaries[level];
+		return dictionary.getValue(dictionary.getId(value));
+	}
+	
+	/**
+	 * Returns the number of distinct bucket value combinations.
+	 */
+	public int size()
+	{
+		return combinationCount;
+	}
+	
+	/**
+	 * Creates the buckets for a combination of values.
+	 * 
+	 * @param id the combination id
+	 * @return the buckets for the combination
+	 */
+	public Bucket[] getBuckets(int id)
+	{
+		int levels = dictionaries.length;
+		Bucket[] buckets = new Bucket[levels];
+		for (int i = 0, offset = id * levels; i < levels; ++i, ++offset)
+		{
+			buckets[i] = dictionaries[i].getBucket(combinations[offset]);
+		}
+		return buckets;
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.crosstabs.fill.calculation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
+
+/**
+ * Crosstab records written to temporary files, in a fixed number of partitions.
+ * 
+ * <p>
+ * The bucket and measure values of the records are serialized using the virtualization 
+ * serializers. 
+ * Each partition is written to a separate file, and the records of a partition are read
+ * back in the order in which they were written.
+ * </p>
+ * 
+ * @see BucketingService#PROPERTY_BUCKETING_SPILL_THRESHOLD
+ */
+public class BucketSpillPartitions
+{
+	
+	private static final Log log = LogFactory.getLog(BucketSpillPartitions.class);
+	
+	public static final String EXCEPTION_MESSAGE_KEY_SPILL_WRITE_ERROR = "crosstabs.bucket.spill.write.error";
+	public static final String EXCEPTION_MESSAGE_KEY_SPILL_READ_ERROR = "crosstabs.bucket.spill.read.error";
+	
+	/**
+	 * Receives the records read from a partition.
+	 */
+	public interface SpilledRecordHandler
+	{
+		void handleRecord(long record, Object[] bucketValues, Object[] measureValues) throws JRException;
+	}
+	
+	private final JRVirtualizationContext virtualizationContext;
+	private final File[] files;
+	private final VirtualizationOutput[] outputs;
+	private final int[] recordCounts;
+	private long spilledRecordCount;
+	
+	public BucketSpillPartitions(JasperReportsContext jasperReportsContext, int partitionCount)
+	{
+		this.virtualizationContext = new JRVirtualizationContext(jasperReportsContext);
+		this.files = new File[partitionCount];
+		this.outputs = new VirtualizationOutput[partitionCount];
+		this.recordCounts = new int[partitionCount];
+	}
+	
+	public int getPartitionCount()
+	{
+		return files.length;
+	}
+	
+	/**
+	 * Returns the total number of records written to the partitions.
+	 */
+	public long getSpilledRecordCount()
+	{
+		return spilledRecordCount;
+	}
+	
+	/**
+	 * Writes a record to a partition.
+	 * 
+	 * @param partition the partition index
+	 * @param record the record sequence number
+	 * @param bucketValues the bucket values
+	 * @param measureValues the measure values
+	 * @throws JRException
+	 */
+	public void write(int partition, long record, Object[] bucketValues, Object[] measureValues) throws JRException
+	{
+		try
+		{
+			VirtualizationOutput output = outputs[partition];
+			if (output == null)
+			{
+				File file = File.createTempFile("jr_crosstab_", ".spill");
+				// setting the file first so that it's deleted on failure
+				files[partition] = file;
+				output = new VirtualizationOutput(
+						new BufferedOutputStream(new FileOutputStream(file)), virtualizationContext);
+				outputs[partition] = output;
+				
+				if (log.isDebugEnabled())
+				{
+					log.debug("created crosstab spill file " + file);
+				}
+			}
+			
+			output.writeLong(record);
+			for (Object value : bucketValues)
+			{
+				output.writeJRObject(value, false, false);
+			}
+			for (Object value : measureValues)
+			{
+				output.writeJRObject(value, false, false);
+			}
+			// releasing the object handles
+			output.reset();
+		}
+		catch (IOException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_SPILL_WRITE_ERROR,
+					new Object[]{files[partition]}, 
+					e);
+		}
+		
+		++recordCounts[partition];
+		++spilledRecordCount;
+	}
+	
+	/**
+	 * Reads the records of a partition and deletes the partition file.
+	 * 
+	 * @param partition the partition index
+	 * @param bucketCount the number of bucket values in a record
+	 * @param measureCount the number of measure values in a record
+	 * @param handler the handler that receives the records
+	 * @throws JRException
+	 */
+	public void read(int partition, int bucketCount, int measureCount, SpilledRecordHandler handler) throws JRException
+	{
+		File file = files[partition];
+		if (file == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			outputs[partition].close();
+			outputs[partition] = null;
+			
+			try (VirtualizationInput input = new VirtualizationInput(
+					new BufferedInputStream(new FileInputStream(file)), virtualizationContext))
+			{
+				for (int i = 0; i < recordCounts[partition]; ++i)
+				{
+					long record = input.readLong();
+					Object[] bucketValues = new Object[bucketCount];
+					for (int j = 0; j < bucketCount; ++j)
+					{
+						bucketValues[j] = input.readJRObject(false);
+					}
+					Object[] measureValues = new Object[measureCount];
+					for (int j = 0; j < measureCount; ++j)
+					{
+						measureValues[j] = input.readJRObject(false);
+					}
+					handler.handleRecord(record, bucketValues, measureValues);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_SPILL_READ_ERROR,
+					new Object[]{file}, 
+					e);
+		}
+		
+		deleteFile(partition);
+	}
+	
+	/**
+	 * Closes and deletes all partition files.
+	 */
+	public void dispose()
+	{
+		for (int i = 0; i < files.length; ++i)
+		{
+			if (outputs[i] != null)
+			{
+				try
+				{
+					outputs[i].close();
+				}
+				catch (IOException e)
+				{
+					log.warn("Error closing crosstab spill file " + files[i], e);
+				}
+				outputs[i] = null;
+			}
+			
+			deleteFile(i);
+		}
+	}
+	
+	protected void deleteFile(int partition)
+	{
+		File file = files[partition];
+		if (file != null)
+		{
+			if (file.exists() && !file.delete())
+			{
+				if (log.isWarnEnabled())
+				{
+					log.warn("could not delete crosstab spill file " + file);
+				}
+			}
+			files[partition] = null;
+		}
+	}
+}
@@ -24,13 +24,24 @@
 package net.sf.jasperreports.crosstabs.fill.calculation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import net.sf.jasperreports.annotations.properties.Property;
 import net.sf.jasperreports.annotations.properties.PropertyScope;
@@ -41,6 +52,8 @@ import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.fill.JRCalculable;
 import net.sf.jasperreports.engine.type.CalculationEnum;
+import net.sf.jasperreports.engine.util.DaemonThreadFactory;
+import net.sf.jasperreports.engine.util.IndexSort;
 import net.sf.jasperreports.properties.PropertyConstants;
 
 /**
@@ -51,6 +64,8 @@ import net.sf.jasperreports.properties.PropertyConstants;
 public abstract class BucketingService
 {
 	
+	private static final Log log = LogFactory.getLog(BucketingService.class);
+	
 	public static final String EXCEPTION_MESSAGE_KEY_BUCKET_MEASURE_LIMIT = "crosstabs.bucket.measure.limit";
 	public static final String EXCEPTION_MESSAGE_KEY_BUCKET_DATA_PROCESSED = "crosstabs.bucket.data.processed";
 	
@@ -63,6 +78,78 @@ public abstract class BucketingService
 			)
 	public static final String PROPERTY_BUCKET_MEASURE_LIMIT = JRPropertiesUtil.PROPERTY_PREFIX + "crosstab.bucket.measure.limit";
 	
+	/**
+	 * Flag property that enables dictionary encoded bucketing for data that is not presorted.
+	 * <p>
+	 * When enabled, bucket values are encoded as <code>int</code> ids as data is added, and
+	 * measure values are accumulated per combination of ids.
+	 * The bucket maps are only created when the data is processed.
+	 * </p>
+	 * 
+	 * @see BucketDictionaryIndex
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_CROSSTAB,
+			valueType = Boolean.class,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1
+			)
+	public static final String PROPERTY_DICTIONARY_BUCKETING = JRPropertiesUtil.PROPERTY_PREFIX + "crosstab.dictionary.bucketing";
+	
+	/**
+	 * Property that specifies the number of partitions in which data that is not presorted 
+	 * is aggregated in parallel.
+	 * <p>
+	 * Records are assigned to partitions by their bucket values, so that all the records of
+	 * a crosstab cell, including values that are only equal according to the bucket comparator, 
+	 * are aggregated by the same partition.
+	 * The partitions are processed in batches by a thread pool that is created for the crosstab,
+	 * with one thread per partition, and are merged when the data is processed.
+	 * Values lower than 2 disable parallel aggregation.
+	 * </p>
+	 * <p>
+	 * Measure incrementers need to be thread safe when parallel aggregation is enabled.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_CROSSTAB,
+			valueType = Integer.class,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1
+			)
+	public static final String PROPERTY_BUCKETING_PARTITIONS = JRPropertiesUtil.PROPERTY_PREFIX + "crosstab.bucketing.partitions";
+	
+	protected static final int PARTITION_BATCH_SIZE = 1024;
+	
+	/**
+	 * Property that specifies the number of bucket measures kept in memory while data 
+	 * that is not presorted is added, after which the records of new bucket value combinations
+	 * are written to temporary files.
+	 * <p>
+	 * The records are partitioned by their bucket values, and are aggregated partition by partition 
+	 * when the data is processed.
+	 * The bucket measures are counted in the same way as for {@link #PROPERTY_BUCKET_MEASURE_LIMIT}, 
+	 * and the limit still applies to the total number of bucket measures.
+	 * A value of 0 disables spilling.
+	 * </p>
+	 * <p>
+	 * This does not apply when {@link #PROPERTY_BUCKETING_PARTITIONS parallel} or 
+	 * {@link #PROPERTY_DICTIONARY_BUCKETING dictionary} bucketing is enabled.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_CROSSTAB,
+			valueType = Integer.class,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1
+			)
+	public static final String PROPERTY_BUCKETING_SPILL_THRESHOLD = JRPropertiesUtil.PROPERTY_PREFIX + "crosstab.bucketing.spill.threshold";
+	
+	protected static final int SPILL_PARTITIONS = 16;
+	
 	protected static final byte DIMENSION_ROW = 0;
 
 	protected static final byte DIMENSION_COLUMN = 1;
@@ -100,6 +187,19 @@ public abstract class BucketingService
 	protected final int bucketMeasureLimit;
 	private int runningBucketMeasureCount;
 	
+	protected final boolean dictionaryBucketing;
+	protected BucketDictionaryIndex bucketIndex;
+	protected List<MeasureValue[]> indexedMeasureValues;
+	
+	protected final int partitionCount;
+	protected BucketPartition[] partitions;
+	protected BucketDictionaryIndex partitionRouter;
+	protected ExecutorService partitionExecutor;
+	
+	protected final int spillThreshold;
+	protected BucketSpillPartitions spillPartitions;
+	protected BucketDictionaryIndex spillRouter;
+	
 	/**
 	 * Creates a crosstab bucketing engine.
 	 * 
@@ -162,7 +262,42 @@ public abstract class BucketingService
 		zeroMeasureValues = initMeasureValues();
 		zeroUserMeasureValues = initUserMeasureValues();
 		
-		bucketMeasureLimit = JRPropertiesUtil.getInstance(serviceContext.getJasperReportsContext()).getIntegerProperty(PROPERTY_BUCKET_MEASURE_LIMIT, 0);
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(serviceContext.getJasperReportsContext());
+		bucketMeasureLimit = propertiesUtil.getIntegerProperty(PROPERTY_BUCKET_MEASURE_LIMIT, 0);
+		
+		int partitionsProperty = propertiesUtil.getIntegerProperty(PROPERTY_BUCKETING_PARTITIONS, 0);
+		partitionCount = !sorted && partitionsProperty > 1 ? partitionsProperty : 0;
+		dictionaryBucketing = !sorted && propertiesUtil.getBooleanProperty(PROPERTY_DICTIONARY_BUCKETING);
+		spillThreshold = sorted ? 0 : propertiesUtil.getIntegerProperty(PROPERTY_BUCKETING_SPILL_THRESHOLD, 0);
+		initDataStructures();
+	}
+	
+	protected void initDataStructures()
+	{
+		if (partitionCount > 0)
+		{
+			initPartitions();
+		}
+		else if (dictionaryBucketing)
+		{
+			initBucketIndex();
+		}
+	}
+	
+	protected void initPartitions()
+	{
+		partitionRouter = new BucketDictionaryIndex(allBuckets);
+		partitions = new BucketPartition[partitionCount];
+		for (int i = 0; i < partitionCount; ++i)
+		{
+			partitions[i] = new BucketPartition();
+		}
+	}
+	
+	protected void initBucketIndex()
+	{
+		bucketIndex = new BucketDictionaryIndex(allBuckets);
+		indexedMeasureValues = new ArrayList<>();
 	}
 
 
@@ -248,6 +383,10 @@ public abstract class BucketingService
 		processed = false;
 		dataCount = 0;
 		runningBucketMeasureCount = 0;
+		
+		disposeSpilledData();
+		disposePartitions();
+		initDataStructures();
 	}
 	
 	protected BucketMap createBucketMap(int level)
@@ -335,17 +474,515 @@ public abstract class BucketingService
 		
 		++dataCount;
 		
+		if (partitions != null)
+		{
+			addPartitionData(bucketValues, measureValues);
+			return;
+		}
+		
+		if (bucketIndex != null)
+		{
+			addIndexedData(bucketValues, measureValues);
+			return;
+		}
+		
 		Bucket[] bucketVals = getBucketValues(bucketValues);
+		
+		if (spillThreshold > 0 
+				&& (spillPartitions != null || runningBucketMeasureCount + origMeasureCount > spillThreshold))
+		{
+			addSpillingData(bucketVals, bucketValues, measureValues);
+			return;
+		}
 
 		MeasureValue[] values = bucketValueMap.insertMeasureValues(bucketVals, true, 0);
+		addMeasureValues(values, measureValues);
+		
+		// collect column bucket values
+		columnBucketMap.insertMeasureValues(bucketVals, false, rowBucketCount);
+	}
+	
+	protected void addIndexedData(Object[] bucketValues, Object[] measureValues) throws JRException
+	{
+		int id = bucketIndex.add(bucketValues);
+		MeasureValue[] values;
+		if (id == indexedMeasureValues.size())
+		{
+			values = initMeasureValues();
+			bucketMeasuresCreated();
+			indexedMeasureValues.add(values);
+		}
+		else
+		{
+			values = indexedMeasureValues.get(id);
+		}
+		
+		addMeasureValues(values, measureValues);
+	}
+	
+	protected void addPartitionData(Object[] bucketValues, Object[] measureValues) throws JRException
+	{
+		BucketPartition partition = partitions[partitionIndex(partitionRouter, bucketValues, partitions.length)];
+		partition.add(dataCount, bucketValues, measureValues);
+	}
+	
+	/**
+	 * Assigns records to partitions by the ids of their bucket values, 
+	 * so that values that share an entry in the bucket maps are assigned to the same partition.
+	 */
+	protected static int partitionIndex(BucketDictionaryIndex router, Object[] bucketValues, int partitionCount)
+	{
+		int hash = 0;
+		for (int i = 0; i < bucketValues.length; ++i)
+		{
+			hash = 31 * hash + router.getValueId(i, bucketValues[i]);
+		}
+		hash ^= hash >>> 16;
+		return (hash & 0x7fffffff) % partitionCount;
+	}
+	
+	protected void addSpillingData(Bucket[] bucketVals, Object[] bucketValues, Object[] measureValues) throws JRException
+	{
+		MeasureValue[] values = getMeasureValues(bucketVals);
+		if (values != null)
+		{
+			// the combination is already in memory
+			addMeasureValues(values, measureValues);
+			return;
+		}
+		
+		if (spillPartitions == null)
+		{
+			spillPartitions = new BucketSpillPartitions(serviceContext.getJasperReportsContext(), SPILL_PARTITIONS);
+			spillRouter = new BucketDictionaryIndex(allBuckets);
+		}
+		
+		// values that are equal according to the bucket comparator are written as the first such value,
+		// so that they are assigned to the same partition and create a single bucket map entry
+		Object[] spilledValues = new Object[bucketValues.length];
+		for (int i = 0; i < bucketValues.length; ++i)
+		{
+			spilledValues[i] = spillRouter.getCanonicalValue(i, bucketValues[i]);
+		}
+		
+		spillPartitions.write(partitionIndex(spillRouter, spilledValues, SPILL_PARTITIONS), dataCount, 
+				spilledValues, measureValues);
+	}
+	
+	/**
+	 * Aggregates the spilled records partition by partition and adds the results to the bucket maps.
+	 * <p>
+	 * Each partition is merged into the bucket maps before the next one is read.
+	 * The spilled combinations first appear after the ones in memory; the entries of the maps
+	 * that are not sorted are reordered by the first record of each entry after all partitions 
+	 * have been merged, which results in the same map entries order as inserting the data directly.
+	 */
+	protected void createSpilledBucketMaps() throws JRException
+	{
+		if (log.isDebugEnabled())
+		{
+			log.debug("aggregating " + spillPartitions.getSpilledRecordCount() + " spilled crosstab records");
+		}
+		
+		BucketMapMap valueMap = (BucketMapMap) bucketValueMap;
+		BucketMapMap columnMap = (BucketMapMap) columnBucketMap;
+		SpilledEntriesOrder entriesOrder = null;
+		for (BucketDefinition bucket : allBuckets)
+		{
+			if (!bucket.isSorted())
+			{
+				entriesOrder = new SpilledEntriesOrder();
+				entriesOrder.addExistingEntries(valueMap);
+				entriesOrder.addExistingEntries(columnMap);
+				break;
+			}
+		}
+		
+		for (int p = 0; p < spillPartitions.getPartitionCount(); ++p)
+		{
+			SpilledCombinations combinations = new SpilledCombinations();
+			spillPartitions.read(p, allBuckets.length, origMeasureCount, combinations);
+			
+			for (int id = 0; id < combinations.index.size(); ++id)
+			{
+				Bucket[] bucketVals = combinations.index.getBuckets(id);
+				valueMap.putMeasureValues(bucketVals, combinations.measureValues.get(id));
+				columnMap.insertMeasureValues(bucketVals, false, rowBucketCount);
+				
+				if (entriesOrder != null)
+				{
+					long firstRecord = combinations.firstRecords[id];
+					entriesOrder.addEntries(valueMap, bucketVals, 0, firstRecord);
+					entriesOrder.addEntries(columnMap, bucketVals, rowBucketCount, firstRecord);
+				}
+			}
+			// the partition data is released here
+		}
+		
+		if (entriesOrder != null)
+		{
+			entriesOrder.reorder();
+		}
+		
+		spillRouter = null;
+	}
+	
+	/**
+	 * Aggregates the spilled records of a partition.
+	 */
+	protected class SpilledCombinations implements BucketSpillPartitions.SpilledRecordHandler
+	{
+		final BucketDictionaryIndex index = new BucketDictionaryIndex(allBuckets);
+		final List<MeasureValue[]> measureValues = new ArrayList<>();
+		long[] firstRecords = new long[16];
+
+		@Override
+		public void handleRecord(long record, Object[] bucketValues, Object[] recordMeasureValues) throws JRException
+		{
+			int id = index.add(bucketValues);
+			MeasureValue[] values;
+			if (id == measureValues.size())
+			{
+				values = initMeasureValues();
+				bucketMeasuresCreated();
+				measureValues.add(values);
+				
+				if (id == firstRecords.length)
+				{
+					firstRecords = Arrays.copyOf(firstRecords, id << 1);
+				}
+				firstRecords[id] = record;
+			}
+			else
+			{
+				values = measureValues.get(id);
+			}
+			
+			addMeasureValues(values, recordMeasureValues);
+		}
+	}
+	
+	/**
+	 * Keeps the first record of the entries of bucket maps that are not sorted,
+	 * and reorders the entries after the spilled combinations have been merged.
+	 */
+	protected class SpilledEntriesOrder
+	{
+		// entries that exist before merging the spilled data are marked with -1
+		private final Map<BucketMapMap, Map<Bucket, Long>> firstRecords = new IdentityHashMap<>();
+		
+		void addExistingEntries(BucketMapMap bucketMap)
+		{
+			Map<Bucket, Long> mapRecords = bucketMap.isSortedMap() ? null 
+					: firstRecords.computeIfAbsent(bucketMap, k -> new HashMap<>());
+			for (Map.Entry<Bucket, Object> entry : bucketMap.map.entrySet())
+			{
+				if (mapRecords != null)
+				{
+					mapRecords.put(entry.getKey(), -1L);
+				}
+				
+				if (entry.getValue() instanceof BucketMapMap)
+				{
+					addExistingEntries((BucketMapMap) entry.getValue());
+				}
+			}
+		}
+		
+		void addEntries(BucketMapMap bucketMap, Bucket[] bucketValues, int offset, long record)
+		{
+			BucketMapMap levelMap = bucketMap;
+			for (int i = offset; i < bucketValues.length; ++i)
+			{
+				if (!levelMap.isSortedMap())
+				{
+					firstRecords.computeIfAbsent(levelMap, k -> new HashMap<>())
+							.merge(bucketValues[i], record, Math::min);
+				}
+				
+				if (i < bucketValues.length - 1)
+				{
+					levelMap = (BucketMapMap) levelMap.get(bucketValues[i]);
+				}
+			}
+		}
+		
+		void reorder()
+		{
+			for (Map.Entry<BucketMapMap, Map<Bucket, Long>> mapEntry : firstRecords.entrySet())
+			{
+				BucketMapMap bucketMap = mapEntry.getKey();
+				Map<Bucket, Long> mapRecords = mapEntry.getValue();
+				
+				List<Bucket> keys = new ArrayList<>(bucketMap.map.keySet());
+				// stable sort, the existing entries keep their order
+				keys.sort((k1, k2) -> Long.compare(mapRecords.getOrDefault(k1, -1L), mapRecords.getOrDefault(k2, -1L)));
+				
+				Map<Bucket, Object> entries = new LinkedHashMap<>(bucketMap.map);
+				bucketMap.map.clear();
+				for (Bucket key : keys)
+				{
+					bucketMap.map.put(key, entries.get(key));
+				}
+			}
+		}
+	}
+	
+	protected void disposeSpilledData()
+	{
+		if (spillPartitions != null)
+		{
+			spillPartitions.dispose();
+			spillPartitions = null;
+		}
+		spillRouter = null;
+	}
+	
+	protected void addMeasureValues(MeasureValue[] values, Object[] measureValues) throws JRException
+	{
 		for (int i = 0; i < measures.length; ++i)
 		{
 			Object measureValue = measureValues[measureIndexes[i]];
 			values[i].addValue(measureValue);
 		}
+	}
+	
+	/**
+	 * Creates the bucket maps for the data accumulated by dictionary encoded bucketing.
+	 * <p>
+	 * Combinations are inserted in the order in which they were first added,
+	 * which results in the same map entries order as inserting the data directly.
+	 */
+	protected void createIndexedBucketMaps() throws JRException
+	{
+		BucketMapMap valueMap = (BucketMapMap) bucketValueMap;
+		for (int id = 0; id < bucketIndex.size(); ++id)
+		{
+			Bucket[] bucketVals = bucketIndex.getBuckets(id);
+			valueMap.putMeasureValues(bucketVals, indexedMeasureValues.get(id));
+			columnBucketMap.insertMeasureValues(bucketVals, false, rowBucketCount);
+		}
 		
-		// collect column bucket values
-		columnBucketMap.insertMeasureValues(bucketVals, false, rowBucketCount);
+		bucketIndex = null;
+		indexedMeasureValues = null;
+	}
+	
+	/**
+	 * Waits for the partitions to aggregate the data and creates the bucket maps.
+	 * <p>
+	 * Combinations are inserted in the order of their first record,
+	 * which results in the same map entries order as inserting the data directly.
+	 */
+	protected void createPartitionedBucketMaps() throws JRException
+	{
+		for (BucketPartition partition : partitions)
+		{
+			partition.submitBatch();
+		}
+		
+		int count = 0;
+		try
+		{
+			for (BucketPartition partition : partitions)
+			{
+				partition.await();
+				count += partition.index.size();
+			}
+		}
+		finally
+		{
+			// the partitions are no longer processed
+			shutdownPartitionExecutor();
+		}
+		
+		int[] partitionIndexes = new int[count];
+		int[] ids = new int[count];
+		long[] firstRecords = new long[count];
+		for (int p = 0, c = 0; p < partitions.length; ++p)
+		{
+			BucketPartition partition = partitions[p];
+			for (int id = 0; id < partition.index.size(); ++id, ++c)
+			{
+				partitionIndexes[c] = p;
+				ids[c] = id;
+				firstRecords[c] = partition.firstRecords[id];
+			}
+		}
+		
+		int[] order = IndexSort.identity(count);
+		IndexSort.sort(order, (i1, i2) -> Long.compare(firstRecords[i1], firstRecords[i2]));
+		
+		BucketMapMap valueMap = (BucketMapMap) bucketValueMap;
+		for (int c : order)
+		{
+			BucketPartition partition = partitions[partitionIndexes[c]];
+			Bucket[] bucketVals = partition.index.getBuckets(ids[c]);
+			valueMap.putMeasureValues(bucketVals, partition.measureValues.get(ids[c]));
+			columnBucketMap.insertMeasureValues(bucketVals, false, rowBucketCount);
+		}
+		
+		partitions = null;
+		partitionRouter = null;
+	}
+	
+	protected ExecutorService getPartitionExecutor()
+	{
+		if (partitionExecutor == null)
+		{
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(partitionCount, partitionCount, 
+					60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), 
+					new DaemonThreadFactory("crosstab bucketing"));
+			executor.allowCoreThreadTimeOut(true);
+			partitionExecutor = executor;
+		}
+		return partitionExecutor;
+	}
+	
+	protected void shutdownPartitionExecutor()
+	{
+		if (partitionExecutor != null)
+		{
+			partitionExecutor.shutdown();
+			partitionExecutor = null;
+		}
+	}
+	
+	protected void disposePartitions()
+	{
+		if (partitionExecutor != null)
+		{
+			// discarding pending batches
+			partitionExecutor.shutdownNow();
+			partitionExecutor = null;
+		}
+		partitions = null;
+		partitionRouter = null;
+	}
+	
+	/**
+	 * Partition of data aggregated in parallel.
+	 * <p>
+	 * Records are added in batches, and the batches of a partition are processed sequentially.
+	 */
+	protected class BucketPartition
+	{
+		final BucketDictionaryIndex index = new BucketDictionaryIndex(allBuckets);
+		final List<MeasureValue[]> measureValues = new ArrayList<>();
+		long[] firstRecords = new long[16];
+		
+		private Object[][] batchBucketValues;
+		private Object[][] batchMeasureValues;
+		private long[] batchRecords;
+		private int batchSize;
+		
+		private CompletableFuture<Void> processing = CompletableFuture.completedFuture(null);
+		
+		void add(long record, Object[] bucketValues, Object[] measureValues) throws JRException
+		{
+			if (batchBucketValues == null)
+			{
+				if (processing.isCompletedExceptionally())
+				{
+					// fail early
+					await();
+				}
+				
+				batchBucketValues = new Object[PARTITION_BATCH_SIZE][];
+				batchMeasureValues = new Object[PARTITION_BATCH_SIZE][];
+				batchRecords = new long[PARTITION_BATCH_SIZE];
+			}
+			
+			// the value arrays are reused by the caller
+			batchBucketValues[batchSize] = bucketValues.clone();
+			batchMeasureValues[batchSize] = measureValues.clone();
+			batchRecords[batchSize] = record;
+			++batchSize;
+			
+			if (batchSize == PARTITION_BATCH_SIZE)
+			{
+				submitBatch();
+			}
+		}
+		
+		void submitBatch()
+		{
+			if (batchSize == 0)
+			{
+				return;
+			}
+			
+			Object[][] bucketValues = batchBucketValues;
+			Object[][] measureValues = batchMeasureValues;
+			long[] records = batchRecords;
+			int size = batchSize;
+			
+			batchBucketValues = null;
+			batchMeasureValues = null;
+			batchRecords = null;
+			batchSize = 0;
+			
+			processing = processing.thenRunAsync(
+					() -> process(bucketValues, measureValues, records, size), 
+					getPartitionExecutor());
+		}
+		
+		void process(Object[][] bucketValues, Object[][] measureValues, long[] records, int size)
+		{
+			try
+			{
+				for (int i = 0; i < size; ++i)
+				{
+					int id = index.add(bucketValues[i]);
+					MeasureValue[] values;
+					if (id == this.measureValues.size())
+					{
+						values = initMeasureValues();
+						synchronized (BucketingService.this)
+						{
+							bucketMeasuresCreated();
+						}
+						this.measureValues.add(values);
+						
+						if (id == firstRecords.length)
+						{
+							firstRecords = Arrays.copyOf(firstRecords, id << 1);
+						}
+						firstRecords[id] = records[i];
+					}
+					else
+					{
+						values = this.measureValues.get(id);
+					}
+					
+					addMeasureValues(values, measureValues[i]);
+				}
+			}
+			catch (JRException e)
+			{
+				throw new CompletionException(e);
+			}
+		}
+		
+		void await() throws JRException
+		{
+			try
+			{
+				processing.join();
+			}
+			catch (CompletionException e)
+			{
+				Throwable cause = e.getCause();
+				if (cause instanceof JRException)
+				{
+					throw (JRException) cause;
+				}
+				if (cause instanceof RuntimeException)
+				{
+					throw (RuntimeException) cause;
+				}
+				throw e;
+			}
+		}
 	}
 	
 	protected void bucketMeasuresCreated()
@@ -354,6 +991,11 @@ public abstract class BucketingService
 		
 		checkBucketMeasureCount(runningBucketMeasureCount);
 	}
+	
+	protected void bucketMeasuresMerged()
+	{
+		runningBucketMeasureCount -= origMeasureCount;
+	}
 
 	protected Bucket[] getBucketValues(Object[] bucketValues)
 	{
@@ -433,6 +1075,26 @@ public abstract class BucketingService
 	{
 		if (!processed)
 		{
+			if (partitions != null)
+			{
+				createPartitionedBucketMaps();
+			}
+			else if (bucketIndex != null)
+			{
+				createIndexedBucketMaps();
+			}
+			else if (spillPartitions != null)
+			{
+				try
+				{
+					createSpilledBucketMaps();
+				}
+				finally
+				{
+					disposeSpilledData();
+				}
+			}
+			
 			if (dataCount > 0)
 			{
 				if (allBuckets[rowBucketCount - 1].computeTotal() || allBuckets[allBuckets.length - 1].computeTotal())
@@ -702,6 +1364,11 @@ public abstract class BucketingService
 			this.map = sortedMap ? new TreeMap<>() : new LinkedHashMap<>();
 		}
 		
+		boolean isSortedMap()
+		{
+			return map instanceof TreeMap;
+		}
+		
 		@Override
 		void clear()
 		{
@@ -720,8 +1387,7 @@ public abstract class BucketingService
 			return map.get(key);
 		}
 
-		@Override
-		MeasureValue[] insertMeasureValues(Bucket[] bucketValues, boolean createValues, int offset)
+		BucketMapMap lastLevelMap(Bucket[] bucketValues, int offset)
 		{
 			BucketMapMap levelMap = this;
 			for (int i = offset; i < bucketValues.length - 1; i++)
@@ -735,6 +1401,13 @@ public abstract class BucketingService
 
 				levelMap = nextMap;
 			}
+			return levelMap;
+		}
+
+		@Override
+		MeasureValue[] insertMeasureValues(Bucket[] bucketValues, boolean createValues, int offset)
+		{
+			BucketMapMap levelMap = lastLevelMap(bucketValues, offset);
 
 			MeasureValue[] values = (MeasureValue[]) levelMap.get(bucketValues[bucketValues.length - 1]);
 			if (values == null)
@@ -755,6 +1428,28 @@ public abstract class BucketingService
 			return values;
 		}
 
+		/**
+		 * Adds the measure values accumulated for a combination of bucket values.
+		 * <p>
+		 * If the map already contains an entry for an equal combination, as determined by the map 
+		 * (i.e. by the bucket comparator for sorted buckets), the values are added to the existing entry.
+		 */
+		void putMeasureValues(Bucket[] bucketValues, MeasureValue[] values) throws JRException
+		{
+			BucketMapMap levelMap = lastLevelMap(bucketValues, 0);
+			Bucket lastValue = bucketValues[bucketValues.length - 1];
+			MeasureValue[] existingValues = (MeasureValue[]) levelMap.get(lastValue);
+			if (existingValues == null)
+			{
+				levelMap.map.put(lastValue, values);
+			}
+			else
+			{
+				sumVals(existingValues, values);
+				bucketMeasuresMerged();
+			}
+		}
+
 		@Override
 		public int size()
 		{
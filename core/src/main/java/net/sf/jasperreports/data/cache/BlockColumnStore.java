@@ -37,11 +37,25 @@ public class BlockColumnStore implements ColumnStore
 	private static final Log log = LogFactory.getLog(BlockColumnStore.class);
 	
 	private final BufferColumnStore bufferStore;
+	private final ColumnDictionary dictionary;
 	private LinkedList<ColumnValues> previousBlocks;
 	
 	public BlockColumnStore(BufferColumnStore bufferStore)
+	{
+		this(bufferStore, null);
+	}
+	
+	/**
+	 * Creates a block store that dictionary encodes blocks when more compact.
+	 * 
+	 * @param bufferStore the buffer store
+	 * @param dictionary the dictionary shared by the blocks, only used when the buffer store
+	 * is a {@link DictionaryEncodableStore}
+	 */
+	public BlockColumnStore(BufferColumnStore bufferStore, ColumnDictionary dictionary)
 	{
 		this.bufferStore = bufferStore;
+		this.dictionary = bufferStore instanceof DictionaryEncodableStore ? dictionary : null;
 	}
 
 	@Override
@@ -59,7 +73,7 @@ public class BlockColumnStore implements ColumnStore
 				previousBlocks = new LinkedList<>();
 			}
 			
-			ColumnValues currentValues = bufferStore.createValues();
+			ColumnValues currentValues = createBlockValues();
 			previousBlocks.add(currentValues);
 			
 			bufferStore.resetValues();
@@ -76,7 +90,7 @@ public class BlockColumnStore implements ColumnStore
 	@Override
 	public ColumnValues createValues()
 	{
-		ColumnValues currentValues = bufferStore.createValues();
+		ColumnValues currentValues = createBlockValues();
 		if (previousBlocks == null)
 		{
 			return currentValues;
@@ -93,6 +107,21 @@ public class BlockColumnStore implements ColumnStore
 		return blockColumnValues;
 	}
 
+	protected ColumnValues createBlockValues()
+	{
+		if (dictionary != null)
+		{
+			// choosing the dictionary encoding per block
+			ColumnValues dictionaryValues = ((DictionaryEncodableStore) bufferStore).createDictionaryValues(dictionary);
+			if (dictionaryValues != null)
+			{
+				return dictionaryValues;
+			}
+		}
+		
+		return bufferStore.createValues();
+	}
+
 	@Override
 	public String toString()
 	{
@@ -32,7 +32,7 @@ import net.sf.jasperreports.engine.JRConstants;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class BlockColumnValues implements ColumnValues, Serializable
+public class BlockColumnValues implements AggregatableColumnValues, Serializable
 {
 
 	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
@@ -80,6 +80,16 @@ public class BlockColumnValues implements ColumnValues, Serializable
 		return size;
 	}
 
+	@Override
+	public boolean aggregate(ColumnValuesAggregator aggregator)
+	{
+		for (ColumnValues block : blocks)
+		{
+			aggregator.aggregate(block);
+		}
+		return true;
+	}
+
 	@Override
 	public ColumnValuesIterator iterator()
 	{
@@ -31,7 +31,7 @@ import net.sf.jasperreports.engine.JRConstants;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class ByteArrayValues implements ColumnValues, Serializable
+public class ByteArrayValues implements AggregatableColumnValues, Serializable
 {
 
 	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
@@ -78,6 +78,18 @@ public class ByteArrayValues implements ColumnValues, Serializable
 		return values.length;
 	}
 
+	@Override
+	public boolean aggregate(ColumnValuesAggregator aggregator)
+	{
+		if (!aggregator.isIntegral())
+		{
+			return false;
+		}
+		
+		aggregator.addUnsignedBytes(values, linearFactor, linearOffset);
+		return true;
+	}
+
 	@Override
 	public ColumnValuesIterator iterator()
 	{
@@ -109,6 +109,7 @@ public class ColumnDataCacheHandler implements DataCacheHandler
 	protected ColumnStore createColumnStore(Class<?> type)
 	{
 		BufferColumnStore bufferStore = null;
+		ColumnDictionary dictionary = null;
 		if (Integer.class.equals(type))
 		{
 			bufferStore = new LongArrayStore(bufferStoreSize, NumberToIntegerTransformer.instance());
@@ -139,7 +140,9 @@ public class ColumnDataCacheHandler implements DataCacheHandler
 		}
 		else if (String.class.equals(type))
 		{
-			bufferStore = new ObjectArrayStore<String>(String.class, bufferStoreSize); 
+			bufferStore = new ObjectArrayStore<String>(String.class, bufferStoreSize);
+			// strings are frequently repeated, sharing values between blocks
+			dictionary = new ColumnDictionary();
 		}
 		else if (java.sql.Date.class.isAssignableFrom(type))//allow subclasses
 		{
@@ -173,7 +176,7 @@ public class ColumnDataCacheHandler implements DataCacheHandler
 		ColumnStore store = null;
 		if (bufferStore != null)
 		{
-			store = new BlockColumnStore(bufferStore);
+			store = new BlockColumnStore(bufferStore, dictionary);
 			
 			if (log.isDebugEnabled())
 			{
@@ -25,6 +25,7 @@ package net.sf.jasperreports.data.cache;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -108,6 +109,14 @@ public class ColumnDataSnapshot implements DataSnapshot, Serializable
 		return dataset;
 	}
 
+	/**
+	 * Returns the cached data of all datasets, keyed by dataset position.
+	 */
+	public Map<Object, ColumnCacheData> getCachedDataMap()
+	{
+		return Collections.unmodifiableMap(cachedData);
+	}
+
 	public void addCachedData(Object key, ColumnCacheData data)
 	{
 		cachedData.put(key, data);
@@ -0,0 +1,149 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.jasperreports.engine.JRConstants;
+
+/**
+ * Dictionary of distinct column values shared by the dictionary encoded blocks of a column.
+ * 
+ * @see DictionaryColumnValues
+ */
+public class ColumnDictionary implements Serializable
+{
+
+	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+	
+	public static final int DEFAULT_MAX_SIZE = 1 << 16;
+	
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Object[] values;
+	private int size;
+	
+	private transient int maxSize;
+	private transient Map<Object, Integer> codes;
+	
+	public ColumnDictionary()
+	{
+		this(DEFAULT_MAX_SIZE);
+	}
+	
+	public ColumnDictionary(int maxSize)
+	{
+		this.maxSize = maxSize;
+		this.values = new Object[INITIAL_CAPACITY];
+		this.size = 0;
+		this.codes = new HashMap<>();
+	}
+	
+	private void writeObject(java.io.ObjectOutputStream out) throws IOException
+	{
+		out.writeInt(size);
+		for (int i = 0; i < size; i++)
+		{
+			out.writeObject(values[i]);
+		}
+	}
+	
+	private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		size = in.readInt();
+		values = new Object[size];
+		for (int i = 0; i < size; i++)
+		{
+			values[i] = in.readObject();
+		}
+		
+		// no values are added after deserialization
+		maxSize = size;
+	}
+	
+	/**
+	 * Returns the code of a value, adding the value to the dictionary if not already present.
+	 * 
+	 * @param value the value, not <code>null</code>
+	 * @return the code of the value, or -1 if the value is not present and the dictionary is full
+	 */
+	public int encode(Object value)
+	{
+		Integer code = codes == null ? null : codes.get(value);
+		if (code != null)
+		{
+			return code;
+		}
+		
+		if (size >= maxSize)
+		{
+			return -1;
+		}
+		
+		if (size == values.length)
+		{
+			values = Arrays.copyOf(values, Math.min(values.length << 1, maxSize));
+		}
+		
+		int newCode = size;
+		values[newCode] = value;
+		++size;
+		codes.put(value, newCode);
+		return newCode;
+	}
+	
+	/**
+	 * Removes the values added after the dictionary had the specified size.
+	 */
+	public void truncate(int newSize)
+	{
+		for (int i = newSize; i < size; i++)
+		{
+			codes.remove(values[i]);
+			values[i] = null;
+		}
+		size = Math.min(size, newSize);
+	}
+	
+	public Object get(int code)
+	{
+		return values[code];
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ColumnDictionary@" + hashCode();
+	}
+	
+}
@@ -0,0 +1,330 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+/**
+ * Computes the count, sum, minimum and maximum of numeric column values.
+ * 
+ * <p>
+ * Values are accumulated either as <code>long</code> or as <code>double</code> values,
+ * in record order, so that the results are the same as those obtained by adding the values 
+ * one by one.
+ * Null values are counted separately and do not contribute to the aggregates.
+ * Columns that implement {@link AggregatableColumnValues} add their values from primitive
+ * arrays, or per run for run-length encoded values.
+ * </p>
+ */
+public class ColumnValuesAggregator
+{
+	
+	private final boolean integral;
+	
+	private int count;
+	private int nullCount;
+	
+	private long longSum;
+	private long longMin = Long.MAX_VALUE;
+	private long longMax = Long.MIN_VALUE;
+	
+	private double doubleSum;
+	private double doubleMin = Double.NaN;
+	private double doubleMax = Double.NaN;
+	
+	/**
+	 * @param integral whether values are accumulated as <code>long</code> values, or as <code>double</code> values
+	 */
+	public ColumnValuesAggregator(boolean integral)
+	{
+		this.integral = integral;
+	}
+
+	public boolean isIntegral()
+	{
+		return integral;
+	}
+	
+	/**
+	 * Adds column values.
+	 * 
+	 * @param values the values
+	 */
+	public void aggregate(ColumnValues values)
+	{
+		if (values instanceof AggregatableColumnValues
+				&& ((AggregatableColumnValues) values).aggregate(this))
+		{
+			return;
+		}
+		
+		ColumnValuesIterator iterator = values.iterator();
+		while (iterator.next())
+		{
+			addValue(iterator.get(), 1);
+		}
+	}
+	
+	/**
+	 * Adds a value a number of times.
+	 * 
+	 * @param value the value, <code>null</code> or a <code>Number</code>
+	 * @param repeatCount the number of times to add the value
+	 */
+	public void addValue(Object value, int repeatCount)
+	{
+		if (value == null)
+		{
+			nullCount += repeatCount;
+		}
+		else if (integral)
+		{
+			addLong(((Number) value).longValue(), repeatCount);
+		}
+		else
+		{
+			addDouble(((Number) value).doubleValue(), repeatCount);
+		}
+	}
+	
+	public void addNulls(int nulls)
+	{
+		nullCount += nulls;
+	}
+	
+	public void addLong(long value, int repeatCount)
+	{
+		// the sum wraps around as it would when adding one by one
+		longSum += value * repeatCount;
+		longMin = Math.min(longMin, value);
+		longMax = Math.max(longMax, value);
+		count += repeatCount;
+	}
+	
+	public void addDouble(double value, int repeatCount)
+	{
+		double sum = doubleSum;
+		for (int i = 0; i < repeatCount; i++)
+		{
+			sum += value;
+		}
+		doubleSum = sum;
+		
+		if (count == 0)
+		{
+			doubleMin = value;
+			doubleMax = value;
+		}
+		else
+		{
+			// same ordering as Double.compareTo
+			if (Double.compare(value, doubleMin) < 0)
+			{
+				doubleMin = value;
+			}
+			if (Double.compare(value, doubleMax) > 0)
+			{
+				doubleMax = value;
+			}
+		}
+		count += repeatCount;
+	}
+	
+	/**
+	 * Adds <code>values[i] * linearFactor + linearOffset</code> for all values.
+	 */
+	public void addLongs(long[] values, long linearFactor, long linearOffset)
+	{
+		if (values.length == 0)
+		{
+			return;
+		}
+		
+		// the stored values can wrap around when the value range exceeds Long.MAX_VALUE, 
+		// the minimum and maximum are therefore computed on the transformed values
+		long sum = 0;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (long value : values)
+		{
+			sum += value;
+			long transformed = value * linearFactor + linearOffset;
+			min = Math.min(min, transformed);
+			max = Math.max(max, transformed);
+		}
+		longSum += sum * linearFactor + values.length * linearOffset;
+		longMin = Math.min(longMin, min);
+		longMax = Math.max(longMax, max);
+		count += values.length;
+	}
+	
+	/**
+	 * Adds <code>unsigned(values[i]) * linearFactor + linearOffset</code> for all values.
+	 */
+	public void addUnsignedInts(int[] values, long linearFactor, long linearOffset)
+	{
+		long sum = 0;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int value : values)
+		{
+			long unsigned = value & 0xFFFFFFFFL;
+			sum += unsigned;
+			min = Math.min(min, unsigned);
+			max = Math.max(max, unsigned);
+		}
+		addLinear(values.length, sum, min, max, linearFactor, linearOffset);
+	}
+	
+	/**
+	 * Adds <code>unsigned(values[i]) * linearFactor + linearOffset</code> for all values.
+	 */
+	public void addUnsignedShorts(short[] values, long linearFactor, long linearOffset)
+	{
+		long sum = 0;
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (short value : values)
+		{
+			int unsigned = value & 0xFFFF;
+			sum += unsigned;
+			min = Math.min(min, unsigned);
+			max = Math.max(max, unsigned);
+		}
+		addLinear(values.length, sum, min, max, linearFactor, linearOffset);
+	}
+	
+	/**
+	 * Adds <code>unsigned(values[i]) * linearFactor + linearOffset</code> for all values.
+	 */
+	public void addUnsignedBytes(byte[] values, long linearFactor, long linearOffset)
+	{
+		long sum = 0;
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (byte value : values)
+		{
+			int unsigned = value & 0xFF;
+			sum += unsigned;
+			min = Math.min(min, unsigned);
+			max = Math.max(max, unsigned);
+		}
+		addLinear(values.length, sum, min, max, linearFactor, linearOffset);
+	}
+	
+	protected void addLinear(int valueCount, long sum, long min, long max, long linearFactor, long linearOffset)
+	{
+		if (valueCount == 0)
+		{
+			return;
+		}
+		
+		longSum += sum * linearFactor + valueCount * linearOffset;
+		
+		long transformedMin = min * linearFactor + linearOffset;
+		long transformedMax = max * linearFactor + linearOffset;
+		if (linearFactor < 0)
+		{
+			long swap = transformedMin;
+			transformedMin = transformedMax;
+			transformedMax = swap;
+		}
+		longMin = Math.min(longMin, transformedMin);
+		longMax = Math.max(longMax, transformedMax);
+		count += valueCount;
+	}
+	
+	public void addDoubles(double[] values)
+	{
+		if (values.length == 0)
+		{
+			return;
+		}
+		
+		double sum = doubleSum;
+		double min = count == 0 ? values[0] : doubleMin;
+		double max = count == 0 ? values[0] : doubleMax;
+		for (double value : values)
+		{
+			sum += value;
+			if (Double.compare(value, min) < 0)
+			{
+				min = value;
+			}
+			if (Double.compare(value, max) > 0)
+			{
+				max = value;
+			}
+		}
+		doubleSum = sum;
+		doubleMin = min;
+		doubleMax = max;
+		count += values.length;
+	}
+
+	/**
+	 * Returns the number of non null values.
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the number of null values.
+	 */
+	public int getNullCount()
+	{
+		return nullCount;
+	}
+
+	public long getLongSum()
+	{
+		return longSum;
+	}
+
+	public long getLongMin()
+	{
+		return longMin;
+	}
+
+	public long getLongMax()
+	{
+		return longMax;
+	}
+
+	public double getDoubleSum()
+	{
+		return doubleSum;
+	}
+
+	public double getDoubleMin()
+	{
+		return doubleMin;
+	}
+
+	public double getDoubleMax()
+	{
+		return doubleMax;
+	}
+	
+}
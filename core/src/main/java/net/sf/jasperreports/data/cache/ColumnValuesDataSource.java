@@ -29,18 +29,21 @@ import java.util.Map;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRField;
 import net.sf.jasperreports.engine.JRRewindableDataSource;
+import net.sf.jasperreports.engine.data.BatchDataSource;
 import net.sf.jasperreports.engine.data.IndexedDataSource;
+import net.sf.jasperreports.engine.util.ClassUtils;
 
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class ColumnValuesDataSource implements JRRewindableDataSource, IndexedDataSource
+public class ColumnValuesDataSource implements JRRewindableDataSource, IndexedDataSource, BatchDataSource
 {
 	public static final String EXCEPTION_MESSAGE_KEY_INVALID_SNAPSHOT_FIELD_TYPE = "data.cache.invalid.snapshot.field.type";
 	public static final String EXCEPTION_MESSAGE_KEY_NO_SUCH_SNAPSHOT_FIELD = "data.cache.no.such.snapshot.field";
 
 	private int size;
 	private int iteratorIndex;
+	private Map<String, ColumnValues> columns;
 	private Map<String, ColumnValuesIterator> iterators;
 	
 	public ColumnValuesDataSource(String[] fieldNames, int size, ColumnValues[] values)
@@ -50,6 +53,7 @@ public class ColumnValuesDataSource implements JRRewindableDataSource, IndexedDa
 			throw new IllegalArgumentException();
 		}
 		
+		columns = new LinkedHashMap<>();
 		iterators = new LinkedHashMap<>();
 		
 		this.size = size;
@@ -60,12 +64,32 @@ public class ColumnValuesDataSource implements JRRewindableDataSource, IndexedDa
 				throw new IllegalArgumentException();
 			}
 			
+			columns.put(fieldNames[i], values[i]);
 			iterators.put(fieldNames[i], values[i].iterator());
 		}
 		
 		iteratorIndex = 0;
 	}
 	
+	/**
+	 * Returns the total number of records in the data source.
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the values of a field, independently of the data source position.
+	 * 
+	 * @param fieldName the field name
+	 * @return the field values, or <code>null</code> if the data source does not contain the field
+	 */
+	public ColumnValues getColumnValues(String fieldName)
+	{
+		return columns.get(fieldName);
+	}
+	
 	@Override
 	public boolean next() throws JRException
 	{
@@ -85,6 +109,97 @@ public class ColumnValuesDataSource implements JRRewindableDataSource, IndexedDa
 
 	@Override
 	public Object getFieldValue(JRField field) throws DataSnapshotException
+	{
+		ColumnValuesIterator iterator = getIterator(field);
+		Object value = iterator.get();
+		checkValueType(field, value);
+		return value;
+	}
+
+	/**
+	 * Returns <code>false</code> for subclasses that override {@link #next()} or {@link #getFieldValue(JRField)},
+	 * as batches read the values directly from the column iterators.
+	 */
+	@Override
+	public boolean isBatchReadSupported()
+	{
+		return !ClassUtils.overridesMethod(getClass(), ColumnValuesDataSource.class, "next")
+				&& !ClassUtils.overridesMethod(getClass(), ColumnValuesDataSource.class, 
+						"getFieldValue", JRField.class);
+	}
+
+	@Override
+	public int nextBatch(JRField[] fields, Object[][] values, int maxCount) throws DataSnapshotException
+	{
+		int count = Math.min(maxCount, size - iteratorIndex);
+		if (count <= 0)
+		{
+			return 0;
+		}
+		
+		ColumnValuesIterator[] fieldIterators = new ColumnValuesIterator[fields.length];
+		for (int i = 0; i < fields.length; i++)
+		{
+			fieldIterators[i] = getIterator(fields[i]);
+		}
+		
+		// advancing each column separately, the iterators are independent
+		for (ColumnValuesIterator iterator : iterators.values())
+		{
+			int fieldIndex = indexOf(fieldIterators, iterator);
+			if (fieldIndex < 0)
+			{
+				for (int j = 0; j < count; j++)
+				{
+					iterator.next();
+				}
+			}
+			else
+			{
+				JRField field = fields[fieldIndex];
+				Object[] fieldValues = values[fieldIndex];
+				for (int j = 0; j < count; j++)
+				{
+					iterator.next();
+					Object value = iterator.get();
+					checkValueType(field, value);
+					fieldValues[j] = value;
+				}
+			}
+		}
+		
+		// the same field might be requested more than once
+		for (int i = 0; i < fields.length; i++)
+		{
+			int fieldIndex = indexOf(fieldIterators, fieldIterators[i]);
+			if (fieldIndex != i)
+			{
+				// the duplicate field might have a different value class
+				for (int j = 0; j < count; j++)
+				{
+					checkValueType(fields[i], values[fieldIndex][j]);
+				}
+				System.arraycopy(values[fieldIndex], 0, values[i], 0, count);
+			}
+		}
+		
+		iteratorIndex += count;
+		return count;
+	}
+
+	private static int indexOf(ColumnValuesIterator[] fieldIterators, ColumnValuesIterator iterator)
+	{
+		for (int i = 0; i < fieldIterators.length; i++)
+		{
+			if (fieldIterators[i] == iterator)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	protected ColumnValuesIterator getIterator(JRField field) throws DataSnapshotException
 	{
 		ColumnValuesIterator iterator = iterators.get(field.getName());
 		if (iterator == null)
@@ -94,9 +209,11 @@ public class ColumnValuesDataSource implements JRRewindableDataSource, IndexedDa
 					EXCEPTION_MESSAGE_KEY_NO_SUCH_SNAPSHOT_FIELD,
 					new Object[]{field.getName()});
 		}
-		
-		Object value = iterator.get();
-		
+		return iterator;
+	}
+
+	protected void checkValueType(JRField field, Object value) throws DataSnapshotException
+	{
 		if (value != null && !field.getValueClass().isInstance(value))
 		{
 			throw 
@@ -104,8 +221,6 @@ public class ColumnValuesDataSource implements JRRewindableDataSource, IndexedDa
 					EXCEPTION_MESSAGE_KEY_INVALID_SNAPSHOT_FIELD_TYPE,
 					new Object[]{field.getName(), field.getValueClassName(), value.getClass().getName()});
 		}
-		
-		return value;
 	}
 
 	@Override
@@ -31,7 +31,7 @@ import net.sf.jasperreports.engine.JRConstants;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class ConstantColumnValue implements ColumnValues, Serializable
+public class ConstantColumnValue implements AggregatableColumnValues, Serializable
 {
 
 	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
@@ -63,6 +63,13 @@ public class ConstantColumnValue implements ColumnValues, Serializable
 		return size;
 	}
 
+	@Override
+	public boolean aggregate(ColumnValuesAggregator aggregator)
+	{
+		aggregator.addValue(value, size);
+		return true;
+	}
+
 	@Override
 	public ColumnValuesIterator iterator()
 	{
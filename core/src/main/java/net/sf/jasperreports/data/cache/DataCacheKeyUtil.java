@@ -0,0 +1,105 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRPropertiesMap;
+import net.sf.jasperreports.engine.JRPropertyExpression;
+
+/**
+ * Creates the parts of data cache keys that are shared by the query result cache 
+ * and the data snapshot store.
+ */
+public final class DataCacheKeyUtil
+{
+	
+	private DataCacheKeyUtil()
+	{
+	}
+	
+	/**
+	 * Creates a key that identifies the values read for a list of fields.
+	 * 
+	 * <p>
+	 * Besides the field name and value class, the key includes the field description and properties, 
+	 * since data sources can use these to map fields to data, for instance via
+	 * <code>net.sf.jasperreports.sql.field.column.name</code> or JSON and XPath expressions.
+	 * </p>
+	 * 
+	 * @param fields the fields, can be <code>null</code>
+	 * @return a serializable list that can be compared by equality
+	 */
+	public static ArrayList<Object> fieldsKey(JRField[] fields)
+	{
+		ArrayList<Object> key = new ArrayList<>();
+		if (fields != null)
+		{
+			for (JRField field : fields)
+			{
+				key.add(fieldKey(field));
+			}
+		}
+		return key;
+	}
+	
+	private static List<Object> fieldKey(JRField field)
+	{
+		ArrayList<Object> key = new ArrayList<>();
+		key.add(field.getName());
+		key.add(field.getValueClassName());
+		key.add(field.getDescription());
+		
+		ArrayList<String> properties = new ArrayList<>();
+		JRPropertiesMap propertiesMap = field.hasProperties() ? field.getPropertiesMap() : null;
+		if (propertiesMap != null)
+		{
+			for (String name : propertiesMap.getPropertyNames())
+			{
+				properties.add(name);
+				properties.add(propertiesMap.getProperty(name));
+			}
+		}
+		key.add(properties);
+		
+		// the values of the property expressions are not known outside the fill
+		ArrayList<String> propertyExpressions = new ArrayList<>();
+		JRPropertyExpression[] expressions = field.getPropertyExpressions();
+		if (expressions != null)
+		{
+			for (JRPropertyExpression expression : expressions)
+			{
+				propertyExpressions.add(expression.getName());
+				JRExpression valueExpression = expression.getValueExpression();
+				propertyExpressions.add(valueExpression == null ? null : valueExpression.getText());
+			}
+		}
+		key.add(propertyExpressions);
+		return key;
+	}
+	
+}
@@ -0,0 +1,108 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import net.sf.jasperreports.engine.JRConstants;
+
+/**
+ * Column values stored as codes in a {@link ColumnDictionary}.
+ * 
+ * <p>
+ * The codes are stored as number values of the shortest length that fits the dictionary size,
+ * and the dictionary is shared by all blocks of a column.
+ * </p>
+ */
+public class DictionaryColumnValues implements ColumnValues, Serializable
+{
+
+	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+
+	private ColumnValues codes;
+	private ColumnDictionary dictionary;
+	
+	public DictionaryColumnValues(ColumnValues codes, ColumnDictionary dictionary)
+	{
+		this.codes = codes;
+		this.dictionary = dictionary;
+	}
+	
+	private void writeObject(java.io.ObjectOutputStream out) throws IOException
+	{
+		out.writeUnshared(codes);
+		// the dictionary is shared between blocks
+		out.writeObject(dictionary);
+	}
+	
+	private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		this.codes = (ColumnValues) in.readUnshared();
+		this.dictionary = (ColumnDictionary) in.readObject();
+	}
+
+	@Override
+	public int size()
+	{
+		return codes.size();
+	}
+
+	@Override
+	public ColumnValuesIterator iterator()
+	{
+		return new DictionaryIterator();
+	}
+
+	protected class DictionaryIterator implements ColumnValuesIterator
+	{
+		private final ColumnValuesIterator codesIterator;
+
+		public DictionaryIterator()
+		{
+			codesIterator = codes.iterator();
+		}
+		
+		@Override
+		public void moveFirst()
+		{
+			codesIterator.moveFirst();
+		}
+
+		@Override
+		public boolean next()
+		{
+			return codesIterator.next();
+		}
+
+		@Override
+		public Object get()
+		{
+			int code = ((Number) codesIterator.get()).intValue();
+			return dictionary.get(code);
+		}
+		
+	}
+	
+}
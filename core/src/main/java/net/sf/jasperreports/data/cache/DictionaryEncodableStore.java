@@ -0,0 +1,41 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+/**
+ * Buffer store that can encode its values using a {@link ColumnDictionary}.
+ */
+public interface DictionaryEncodableStore extends BufferColumnStore
+{
+
+	/**
+	 * Creates dictionary encoded values for the current buffer, if dictionary encoding
+	 * is more compact than the default values.
+	 * 
+	 * @param dictionary the column dictionary
+	 * @return the encoded values, or <code>null</code> if the values should not be encoded
+	 */
+	ColumnValues createDictionaryValues(ColumnDictionary dictionary);
+	
+}
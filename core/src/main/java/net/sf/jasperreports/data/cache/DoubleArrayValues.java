@@ -32,7 +32,7 @@ import net.sf.jasperreports.engine.JRConstants;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class DoubleArrayValues implements ColumnValues, Serializable
+public class DoubleArrayValues implements AggregatableColumnValues, Serializable
 {
 
 	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
@@ -69,6 +69,18 @@ public class DoubleArrayValues implements ColumnValues, Serializable
 		return values.length;
 	}
 
+	@Override
+	public boolean aggregate(ColumnValuesAggregator aggregator)
+	{
+		if (aggregator.isIntegral())
+		{
+			return false;
+		}
+		
+		aggregator.addDoubles(values);
+		return true;
+	}
+
 	@Override
 	public ColumnValuesIterator iterator()
 	{
@@ -0,0 +1,143 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.data.IndexedDataSource;
+import net.sf.jasperreports.engine.util.ByteBufferInputStream;
+
+/**
+ * Data snapshot read from a file written by {@link FileDataSnapshotStore}.
+ * 
+ * The column data of a dataset is deserialized from the memory-mapped file 
+ * the first time the dataset is requested, accepting only the classes allowed
+ * by {@link SnapshotObjectInputStream}.
+ */
+public class FileDataSnapshot implements DataSnapshot
+{
+	
+	private static final Log log = LogFactory.getLog(FileDataSnapshot.class);
+	
+	public static final String EXCEPTION_MESSAGE_KEY_SNAPSHOT_READ_ERROR = "data.cache.snapshot.file.read.error";
+
+	private final File file;
+	private final Map<Object, ByteBuffer> entries;
+	private final Collection<String> allowedClasses;
+	private final Map<Object, ColumnCacheData> loadedData;
+	
+	protected FileDataSnapshot(File file, Map<Object, ByteBuffer> entries, Collection<String> allowedClasses)
+	{
+		this.file = file;
+		this.entries = entries;
+		this.allowedClasses = allowedClasses;
+		this.loadedData = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public boolean hasCachedData(Object key)
+	{
+		return entries.containsKey(key);
+	}
+
+	@Override
+	public CachedDataset getCachedData(Object key) throws DataSnapshotException
+	{
+		ColumnCacheData cacheData = loadCacheData(key);
+		if (cacheData == null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("No cached data exists for " + key);
+			}
+			
+			return null;
+		}
+		
+		IndexedDataSource dataSource = cacheData.createDataSource();
+		return new StandardCachedDataset(dataSource, cacheData.getParameters());
+	}
+	
+	protected ColumnCacheData loadCacheData(Object key) throws DataSnapshotException
+	{
+		ColumnCacheData cacheData = loadedData.get(key);
+		if (cacheData != null)
+		{
+			return cacheData;
+		}
+		
+		ByteBuffer entry = entries.get(key);
+		if (entry == null)
+		{
+			return null;
+		}
+		
+		// reading from a duplicate so that the data can be read concurrently
+		try (ObjectInputStream in = new SnapshotObjectInputStream(
+				new ByteBufferInputStream(entry.duplicate()), allowedClasses))
+		{
+			cacheData = (ColumnCacheData) in.readObject();
+		}
+		catch (IOException | ClassNotFoundException e)
+		{
+			throw 
+				new DataSnapshotException(
+					EXCEPTION_MESSAGE_KEY_SNAPSHOT_READ_ERROR,
+					new Object[]{key, file},
+					e);
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("Read cached data of " + cacheData.size() + " records for " + key + " from " + file);
+		}
+		
+		ColumnCacheData existingData = loadedData.putIfAbsent(key, cacheData);
+		return existingData == null ? cacheData : existingData;
+	}
+
+	/**
+	 * Returns <code>false</code> as the snapshot is already persisted in a file.
+	 */
+	@Override
+	public boolean isPersistable()
+	{
+		return false;
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+	
+}
@@ -0,0 +1,881 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRPropertiesMap;
+import net.sf.jasperreports.engine.JRQuery;
+import net.sf.jasperreports.engine.JRSubreport;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.ByteBufferInputStream;
+import net.sf.jasperreports.engine.util.JRElementsVisitor;
+import net.sf.jasperreports.engine.util.JRVisitorSupport;
+
+/**
+ * Store that persists data snapshots as files in a directory, so that they can be
+ * reused by fills that run in different report contexts or processes.
+ * 
+ * <p>
+ * Snapshots are keyed by the report datasets, their properties and query texts, the subreport expressions,
+ * the report parameter values, the report locale and time zone, and the identity of the report connection.
+ * Fills whose data cannot be identified, e.g. fills that receive a data source object or a connection
+ * that does not provide its URL, are not cached unless the caller passes a scope that identifies the data.
+ * </p>
+ * <p>
+ * Each file contains the serialized column data of every dataset in the snapshot followed by 
+ * an index of the dataset positions; the column data is memory-mapped and deserialized 
+ * only when a dataset is filled. Only the classes accepted by {@link SnapshotObjectInputStream}
+ * are deserialized from snapshot files.
+ * </p>
+ * <p>
+ * Snapshot files expire after a configurable time to live, and the least recently used
+ * files are deleted when the total size of the files exceeds the configured maximum size.
+ * The store keeps an index of the snapshot files, built from the files present in the directory
+ * when the store is first used and updated as snapshots are stored, used and evicted.
+ * </p>
+ * 
+ * @see #createCacheHandler(JasperReport, Map, String)
+ */
+public class FileDataSnapshotStore
+{
+	
+	private static final Log log = LogFactory.getLog(FileDataSnapshotStore.class);
+	
+	protected static final int FILE_MAGIC = 0x4A524453;// JRDS
+	protected static final int FILE_VERSION = 1;
+	protected static final int HEADER_SIZE = 16;
+	protected static final String FILE_SUFFIX = ".jrds";
+	
+	/**
+	 * System parameters whose values do not affect the report data.
+	 */
+	private static final Set<String> IGNORED_SYSTEM_PARAMETERS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			JRParameter.REPORT_PARAMETERS_MAP,
+			JRParameter.JASPER_REPORTS_CONTEXT,
+			JRParameter.JASPER_REPORT,
+			JRParameter.REPORT_SCRIPTLET,
+			JRParameter.REPORT_RESOURCE_BUNDLE,
+			JRParameter.REPORT_VIRTUALIZER,
+			JRParameter.REPORT_CLASS_LOADER,
+			JRParameter.REPORT_FORMAT_FACTORY,
+			JRParameter.IS_IGNORE_PAGINATION,
+			JRParameter.REPORT_TEMPLATES,
+			JRParameter.REPORT_CONTEXT,
+			JRParameter.REPOSITORY_CONTEXT,
+			// written separately
+			JRParameter.REPORT_LOCALE,
+			JRParameter.REPORT_TIME_ZONE
+			)));
+	
+	private final File directory;
+	private final long timeToLive;
+	private final long maxSize;
+	private final Set<String> allowedClasses = new CopyOnWriteArraySet<>();
+	
+	/**
+	 * Snapshot files in least recently used order.
+	 */
+	private final LinkedHashMap<String, SnapshotFileInfo> index = new LinkedHashMap<>(16, 0.75f, true);
+	private boolean indexLoaded;
+	private long totalSize;
+	
+	/**
+	 * Creates a snapshot store.
+	 * 
+	 * @param directory the directory where snapshot files are written
+	 * @param timeToLive the time in milliseconds after which a snapshot expires, 0 for no expiry
+	 * @param maxSize the maximum total size in bytes of the snapshot files, 0 for no limit
+	 */
+	public FileDataSnapshotStore(File directory, long timeToLive, long maxSize)
+	{
+		this.directory = directory;
+		this.timeToLive = timeToLive;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Allows a class to be deserialized from snapshot files, 
+	 * e.g. a custom field value or dataset parameter type.
+	 * 
+	 * @param className the class name, or a package name followed by <code>.*</code>
+	 * @see SnapshotObjectInputStream
+	 */
+	public void addAllowedClass(String className)
+	{
+		allowedClasses.add(className);
+	}
+
+	/**
+	 * Creates a data cache handler that uses a stored snapshot for the report fill if one is available,
+	 * and stores the recorded snapshot otherwise.
+	 * 
+	 * @see #createCacheHandler(JasperReport, Map, String)
+	 */
+	public DataCacheHandler createCacheHandler(JasperReport report, Map<String, ?> parameterValues)
+	{
+		return createCacheHandler(report, parameterValues, null);
+	}
+
+	/**
+	 * Creates a data cache handler that uses a stored snapshot for the report fill if one is available,
+	 * and stores the recorded snapshot otherwise.
+	 * 
+	 * The handler is to be set as the {@link DataCacheHandler#PARAMETER_DATA_CACHE_HANDLER} report
+	 * context parameter.
+	 * 
+	 * @param report the report
+	 * @param parameterValues the fill parameter values
+	 * @param scope the scope of the data read by the fill, e.g. a tenant or user identifier;
+	 * if not <code>null</code>, the scope is included in the snapshot key and is assumed to identify
+	 * the data sources and connections that are otherwise not identifiable
+	 */
+	public DataCacheHandler createCacheHandler(JasperReport report, Map<String, ?> parameterValues, String scope)
+	{
+		String key = createKey(report, parameterValues, scope);
+		return new PersistentDataCacheHandler(this, key);
+	}
+	
+	/**
+	 * Computes the key of a report fill with no scope.
+	 * 
+	 * @see #createKey(JasperReport, Map, String)
+	 */
+	public String createKey(JasperReport report, Map<String, ?> parameterValues)
+	{
+		return createKey(report, parameterValues, null);
+	}
+	
+	/**
+	 * Computes the key of a report fill.
+	 * 
+	 * @param report the report
+	 * @param parameterValues the fill parameter values
+	 * @param scope the scope of the data read by the fill, can be <code>null</code>
+	 * @return the key, or <code>null</code> if the fill data cannot be identified
+	 */
+	public String createKey(JasperReport report, Map<String, ?> parameterValues, String scope)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			OutputStream digestOut = new OutputStream()
+			{
+				@Override
+				public void write(int b)
+				{
+					digest.update((byte) b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len)
+				{
+					digest.update(b, off, len);
+				}
+			};
+			
+			try (ObjectOutputStream out = new ObjectOutputStream(digestOut))
+			{
+				out.writeObject(scope);
+				out.writeObject(report.getName());
+				writeDatasetKey(out, report.getMainDataset());
+				JRDataset[] datasets = report.getDatasets();
+				if (datasets != null)
+				{
+					for (JRDataset dataset : datasets)
+					{
+						writeDatasetKey(out, dataset);
+					}
+				}
+				writeSubreportsKey(out, report);
+				
+				Locale locale = parameterValues == null ? null : (Locale) parameterValues.get(JRParameter.REPORT_LOCALE);
+				out.writeObject((locale == null ? Locale.getDefault() : locale).toString());
+				TimeZone timeZone = parameterValues == null ? null : (TimeZone) parameterValues.get(JRParameter.REPORT_TIME_ZONE);
+				out.writeObject((timeZone == null ? TimeZone.getDefault() : timeZone).getID());
+				
+				JRParameter[] parameters = report.getParameters();
+				if (parameters != null)
+				{
+					for (JRParameter parameter : parameters)
+					{
+						Object value = parameterValues == null ? null : parameterValues.get(parameter.getName());
+						boolean identified = parameter.isSystemDefined() 
+								? writeSystemParameterKey(out, parameter, value, scope != null)
+								: writeParameterKey(out, parameter, value);
+						if (!identified)
+						{
+							return null;
+						}
+					}
+				}
+			}
+			
+			return toHex(digest.digest());
+		}
+		catch (NoSuchAlgorithmException | IOException | RuntimeException e)
+		{
+			log.warn("Failed to compute data snapshot key for report " + report.getName(), e);
+			return null;
+		}
+	}
+	
+	protected void writeDatasetKey(ObjectOutputStream out, JRDataset dataset) throws IOException
+	{
+		out.writeObject(dataset.getName());
+		
+		// properties such as the data adapter location
+		JRPropertiesMap properties = dataset.getPropertiesMap();
+		if (properties != null)
+		{
+			for (String name : properties.getPropertyNames())
+			{
+				out.writeObject(name);
+				out.writeObject(properties.getProperty(name));
+			}
+		}
+		
+		JRQuery query = dataset.getQuery();
+		out.writeObject(query == null ? null : query.getLanguage());
+		out.writeObject(query == null ? null : query.getText());
+		
+		// descriptions and properties can map the fields to different data
+		out.writeObject(DataCacheKeyUtil.fieldsKey(dataset.getFields()));
+	}
+	
+	/**
+	 * Writes the expressions of the subreports, whose queries are not part of the report.
+	 */
+	protected void writeSubreportsKey(ObjectOutputStream out, JasperReport report) throws IOException
+	{
+		List<String> subreportExpressions = new ArrayList<>();
+		JRElementsVisitor.visitReport(report, new JRVisitorSupport()
+		{
+			@Override
+			public void visitSubreport(JRSubreport subreport)
+			{
+				subreportExpressions.add(expressionText(subreport.getExpression()));
+				subreportExpressions.add(expressionText(subreport.getConnectionExpression()));
+				subreportExpressions.add(expressionText(subreport.getDataSourceExpression()));
+			}
+		});
+		
+		out.writeInt(subreportExpressions.size());
+		for (String expression : subreportExpressions)
+		{
+			out.writeObject(expression);
+		}
+	}
+	
+	protected static String expressionText(JRExpression expression)
+	{
+		return expression == null ? null : expression.getText();
+	}
+	
+	protected boolean writeParameterKey(ObjectOutputStream out, JRParameter parameter, Object value) throws IOException
+	{
+		if (value != null && !(value instanceof Serializable))
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("parameter " + parameter.getName() + " has unserializable value of type " 
+						+ value.getClass().getName() + ", not using stored snapshots");
+			}
+			return false;
+		}
+		
+		out.writeObject(parameter.getName());
+		out.writeObject(value);
+		return true;
+	}
+	
+	protected boolean writeSystemParameterKey(ObjectOutputStream out, JRParameter parameter, Object value, 
+			boolean scoped) throws IOException
+	{
+		String name = parameter.getName();
+		if (IGNORED_SYSTEM_PARAMETERS.contains(name) || value == null)
+		{
+			return true;
+		}
+		
+		if (JRParameter.REPORT_CONNECTION.equals(name) && value instanceof Connection)
+		{
+			String[] identity = connectionIdentity((Connection) value);
+			if (identity != null)
+			{
+				out.writeObject(name);
+				out.writeObject(identity[0]);
+				out.writeObject(identity[1]);
+				return true;
+			}
+		}
+		else if (!JRParameter.REPORT_DATA_SOURCE.equals(name) && value instanceof Serializable)
+		{
+			out.writeObject(name);
+			out.writeObject(value);
+			return true;
+		}
+		
+		if (scoped)
+		{
+			// the data is identified by the scope
+			return true;
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("parameter " + name + " value of type " + value.getClass().getName() 
+					+ " cannot be identified, not using stored snapshots");
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the URL and user name of a connection.
+	 * 
+	 * @return the URL and user name, or <code>null</code> if the connection URL is not available
+	 */
+	protected String[] connectionIdentity(Connection connection)
+	{
+		try
+		{
+			DatabaseMetaData metaData = connection.getMetaData();
+			String url = metaData == null ? null : metaData.getURL();
+			if (url == null)
+			{
+				return null;
+			}
+			return new String[]{url, metaData.getUserName()};
+		}
+		catch (SQLException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to read connection metadata", e);
+			}
+			return null;
+		}
+	}
+	
+	protected static String toHex(byte[] bytes)
+	{
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+		{
+			hex.append(Character.forDigit((b & 0xf0) >>> 4, 16));
+			hex.append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+	
+	protected File snapshotFile(String key)
+	{
+		return new File(directory, key + FILE_SUFFIX);
+	}
+	
+	/**
+	 * Loads a stored snapshot.
+	 * 
+	 * @param key the snapshot key
+	 * @return the snapshot, or <code>null</code> if no valid snapshot is stored for the key
+	 */
+	public DataSnapshot load(String key)
+	{
+		File file = snapshotFile(key);
+		if (!file.isFile())
+		{
+			removeIndex(key);
+			return null;
+		}
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE + Long.BYTES)
+			{
+				throw new IOException("Invalid snapshot file size " + fileSize);
+			}
+			
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION)
+			{
+				throw new IOException("Invalid snapshot file header");
+			}
+			
+			long created = header.getLong();
+			if (isExpired(created))
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("snapshot " + file + " expired");
+				}
+				
+				delete(key, file);
+				return null;
+			}
+			
+			ByteBuffer indexOffsetBuffer = channel.map(FileChannel.MapMode.READ_ONLY, fileSize - Long.BYTES, Long.BYTES);
+			long indexOffset = indexOffsetBuffer.getLong();
+			ByteBuffer indexBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 
+					indexOffset, fileSize - Long.BYTES - indexOffset);
+			
+			Map<Object, ByteBuffer> entries = new LinkedHashMap<>();
+			try (ObjectInputStream keyIn = new SnapshotObjectInputStream(new ByteBufferInputStream(indexBuffer), allowedClasses))
+			{
+				int entryCount = keyIn.readInt();
+				for (int i = 0; i < entryCount; i++)
+				{
+					Object entryKey = keyIn.readObject();
+					long offset = keyIn.readLong();
+					long length = keyIn.readLong();
+					// the mapping remains valid after the channel is closed
+					entries.put(entryKey, channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+				}
+			}
+			
+			// marking the snapshot as recently used
+			file.setLastModified(System.currentTimeMillis());
+			synchronized (index)
+			{
+				ensureIndex();
+				if (index.get(key) == null)
+				{
+					// written by another store
+					putIndex(key, new SnapshotFileInfo(created, fileSize));
+				}
+			}
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("loaded snapshot " + file + " with " + entries.size() + " datasets");
+			}
+			
+			return new FileDataSnapshot(file, entries, allowedClasses);
+		}
+		catch (IOException | ClassNotFoundException | RuntimeException e)
+		{
+			log.warn("Failed to load data snapshot from " + file, e);
+			delete(key, file);
+			return null;
+		}
+	}
+	
+	/**
+	 * Writes a snapshot to a file, replacing any existing snapshot with the same key.
+	 * 
+	 * <p>
+	 * Failures to write the snapshot are logged and otherwise ignored.
+	 * </p>
+	 */
+	public void store(String key, ColumnDataSnapshot snapshot)
+	{
+		if (!snapshot.isPersistable())
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("snapshot not persistable, not storing " + key);
+			}
+			return;
+		}
+		
+		File file = snapshotFile(key);
+		File tempFile = null;
+		try
+		{
+			if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory())
+			{
+				throw new IOException("Could not create directory " + directory);
+			}
+			
+			tempFile = File.createTempFile(key, ".tmp", directory);
+			long created = writeSnapshot(tempFile, snapshot);
+			
+			try
+			{
+				Files.move(tempFile.toPath(), file.toPath(), 
+						StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			tempFile = null;
+			
+			long size = file.length();
+			synchronized (index)
+			{
+				ensureIndex();
+				putIndex(key, new SnapshotFileInfo(created, size));
+			}
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("stored snapshot " + file + " of size " + size);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.warn("Failed to store data snapshot to " + file, e);
+		}
+		finally
+		{
+			if (tempFile != null)
+			{
+				delete(tempFile);
+			}
+		}
+		
+		evict();
+	}
+	
+	/**
+	 * Writes a snapshot file.
+	 * 
+	 * @return the creation time written in the file header
+	 */
+	protected long writeSnapshot(File file, ColumnDataSnapshot snapshot) throws IOException
+	{
+		long created = System.currentTimeMillis();
+		try (CountingOutputStream out = new CountingOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file))))
+		{
+			DataOutputStream headerOut = new DataOutputStream(out);
+			headerOut.writeInt(FILE_MAGIC);
+			headerOut.writeInt(FILE_VERSION);
+			headerOut.writeLong(created);
+			headerOut.flush();
+			
+			Map<Object, ColumnCacheData> cachedData = snapshot.getCachedDataMap();
+			List<long[]> positions = new ArrayList<>(cachedData.size());
+			for (ColumnCacheData data : cachedData.values())
+			{
+				long offset = out.getCount();
+				// each dataset is written as a separate stream so that it can be read independently
+				ObjectOutputStream dataOut = new ObjectOutputStream(out);
+				dataOut.writeObject(data);
+				dataOut.flush();
+				positions.add(new long[]{offset, out.getCount() - offset});
+			}
+			
+			long indexOffset = out.getCount();
+			ObjectOutputStream indexOut = new ObjectOutputStream(out);
+			indexOut.writeInt(cachedData.size());
+			int entryIndex = 0;
+			for (Object entryKey : cachedData.keySet())
+			{
+				long[] position = positions.get(entryIndex++);
+				indexOut.writeObject(entryKey);
+				indexOut.writeLong(position[0]);
+				indexOut.writeLong(position[1]);
+			}
+			indexOut.flush();
+			
+			headerOut.writeLong(indexOffset);
+			headerOut.flush();
+		}
+		return created;
+	}
+	
+	/**
+	 * Deletes the stored snapshot for a key.
+	 */
+	public void remove(String key)
+	{
+		delete(key, snapshotFile(key));
+	}
+	
+	/**
+	 * Deletes expired snapshots, and deletes the least recently used snapshots
+	 * when the total size of the snapshot files exceeds the maximum size.
+	 */
+	public void evict()
+	{
+		synchronized (index)
+		{
+			ensureIndex();
+			
+			if (timeToLive > 0)
+			{
+				for (Iterator<Map.Entry<String, SnapshotFileInfo>> it = index.entrySet().iterator(); it.hasNext();)
+				{
+					Map.Entry<String, SnapshotFileInfo> entry = it.next();
+					if (isExpired(entry.getValue().created))
+					{
+						File file = snapshotFile(entry.getKey());
+						if (log.isDebugEnabled())
+						{
+							log.debug("evicting expired snapshot " + file);
+						}
+						
+						delete(file);
+						totalSize -= entry.getValue().size;
+						it.remove();
+					}
+				}
+			}
+			
+			if (maxSize > 0)
+			{
+				for (Iterator<Map.Entry<String, SnapshotFileInfo>> it = index.entrySet().iterator(); 
+						it.hasNext() && totalSize > maxSize;)
+				{
+					// least recently used first
+					Map.Entry<String, SnapshotFileInfo> entry = it.next();
+					File file = snapshotFile(entry.getKey());
+					if (log.isDebugEnabled())
+					{
+						log.debug("evicting snapshot " + file + " of size " + entry.getValue().size);
+					}
+					
+					delete(file);
+					totalSize -= entry.getValue().size;
+					it.remove();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Builds the index from the files present in the directory, reading the headers once.
+	 */
+	protected void ensureIndex()
+	{
+		if (indexLoaded)
+		{
+			return;
+		}
+		
+		indexLoaded = true;
+		
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+		if (files == null)
+		{
+			return;
+		}
+		
+		long[] lastModified = new long[files.length];
+		Integer[] order = new Integer[files.length];
+		for (int i = 0; i < files.length; i++)
+		{
+			lastModified[i] = files[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, (i1, i2) -> Long.compare(lastModified[i1], lastModified[i2]));
+		
+		for (int i : order)
+		{
+			File file = files[i];
+			String name = file.getName();
+			String key = name.substring(0, name.length() - FILE_SUFFIX.length());
+			if (index.containsKey(key))
+			{
+				continue;
+			}
+			
+			// invalid files are evicted first
+			putIndex(key, new SnapshotFileInfo(readCreated(file), file.length()));
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("indexed " + index.size() + " snapshots of size " + totalSize + " in " + directory);
+		}
+	}
+	
+	protected void putIndex(String key, SnapshotFileInfo info)
+	{
+		SnapshotFileInfo previous = index.put(key, info);
+		if (previous != null)
+		{
+			totalSize -= previous.size;
+		}
+		totalSize += info.size;
+	}
+	
+	protected void removeIndex(String key)
+	{
+		synchronized (index)
+		{
+			SnapshotFileInfo info = index.remove(key);
+			if (info != null)
+			{
+				totalSize -= info.size;
+			}
+		}
+	}
+	
+	protected boolean isExpired(long created)
+	{
+		return timeToLive > 0 && created + timeToLive < System.currentTimeMillis();
+	}
+	
+	protected long readCreated(File file)
+	{
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath())))
+		{
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION)
+			{
+				// invalid files are evicted
+				return 0;
+			}
+			return in.readLong();
+		}
+		catch (IOException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to read snapshot header from " + file, e);
+			}
+			return 0;
+		}
+	}
+	
+	protected boolean delete(String key, File file)
+	{
+		removeIndex(key);
+		return delete(file);
+	}
+	
+	protected boolean delete(File file)
+	{
+		boolean deleted = file.delete();
+		if (!deleted && file.exists())
+		{
+			// mapped files might not be deletable on some platforms
+			if (log.isDebugEnabled())
+			{
+				log.debug("could not delete snapshot file " + file);
+			}
+		}
+		return deleted;
+	}
+
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	public long getTimeToLive()
+	{
+		return timeToLive;
+	}
+
+	public long getMaxSize()
+	{
+		return maxSize;
+	}
+	
+	/**
+	 * Returns the total size of the indexed snapshot files.
+	 */
+	public long getTotalSize()
+	{
+		synchronized (index)
+		{
+			ensureIndex();
+			return totalSize;
+		}
+	}
+	
+	protected static class SnapshotFileInfo
+	{
+		private final long created;
+		private final long size;
+		
+		public SnapshotFileInfo(long created, long size)
+		{
+			this.created = created;
+			this.size = size;
+		}
+	}
+	
+	protected static class CountingOutputStream extends FilterOutputStream
+	{
+		private long count;
+		
+		public CountingOutputStream(OutputStream out)
+		{
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			out.write(b);
+			++count;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			out.write(b, off, len);
+			count += len;
+		}
+		
+		public long getCount()
+		{
+			return count;
+		}
+	}
+	
+}
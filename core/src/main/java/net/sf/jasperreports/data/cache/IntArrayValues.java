@@ -32,7 +32,7 @@ import net.sf.jasperreports.engine.JRConstants;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class IntArrayValues implements ColumnValues, Serializable
+public class IntArrayValues implements AggregatableColumnValues, Serializable
 {
 
 	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
@@ -79,6 +79,18 @@ public class IntArrayValues implements ColumnValues, Serializable
 		return values.length;
 	}
 
+	@Override
+	public boolean aggregate(ColumnValuesAggregator aggregator)
+	{
+		if (!aggregator.isIntegral())
+		{
+			return false;
+		}
+		
+		aggregator.addUnsignedInts(values, linearFactor, linearOffset);
+		return true;
+	}
+
 	@Override
 	public ColumnValuesIterator iterator()
 	{
@@ -31,7 +31,7 @@ import net.sf.jasperreports.engine.JRConstants;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class NullableValues implements ColumnValues, Serializable
+public class NullableValues implements AggregatableColumnValues, Serializable
 {
 
 	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
@@ -63,6 +63,14 @@ public class NullableValues implements ColumnValues, Serializable
 		return nullValues.size();
 	}
 
+	@Override
+	public boolean aggregate(ColumnValuesAggregator aggregator)
+	{
+		aggregator.addNulls(nullValues.size() - values.size());
+		aggregator.aggregate(values);
+		return true;
+	}
+
 	@Override
 	public ColumnValuesIterator iterator()
 	{
@@ -30,7 +30,7 @@ import org.apache.commons.logging.LogFactory;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class ObjectArrayStore<T> implements BufferColumnStore, ArrayStore
+public class ObjectArrayStore<T> implements DictionaryEncodableStore, ArrayStore
 {
 	
 	private static final Log log = LogFactory.getLog(ObjectArrayStore.class);
@@ -175,6 +175,64 @@ public class ObjectArrayStore<T> implements BufferColumnStore, ArrayStore
 		return finalValues;
 	}
 
+	@Override
+	public ColumnValues createDictionaryValues(ColumnDictionary dictionary)
+	{
+		if (count <= 1 || runLengthStore.getRunCount() == 1)
+		{
+			// single and constant values are more compact
+			return null;
+		}
+		
+		int originalSize = dictionary.size();
+		// not encoding blocks that contain mostly distinct values
+		int maxAdded = count / 2;
+		long[] codes = new long[count];
+		for (int i = 0; i < count; i++)
+		{
+			int code = dictionary.encode(values[i]);
+			if (code < 0 || dictionary.size() - originalSize > maxAdded)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug(this + ": not using dictionary " + dictionary + " for " + count + " values");
+				}
+				
+				dictionary.truncate(originalSize);
+				return null;
+			}
+			codes[i] = code;
+		}
+		
+		int addedCount = dictionary.size() - originalSize;
+		ValueLength codeLength = ValueLength.getNumberLength(dictionary.size() - 1);
+		int dictionaryLength = count * codeLength.byteLength() + addedCount * ValueLength.REFERENCE.byteLength();
+		
+		ValueLength runLength = ValueLength.getNumberLength(runLengthStore.getMaxRunLength() - 1);
+		int runLengthLength = runLengthStore.getRunCount() 
+				* (ValueLength.REFERENCE.byteLength() + runLength.byteLength());
+		if (runLengthLength < dictionaryLength)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug(this + ": run lengths more compact than dictionary for " + count + " values");
+			}
+			
+			dictionary.truncate(originalSize);
+			return null;
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug(this + ": creating dictionary values of size " + count 
+					+ ", code length " + codeLength + ", added " + addedCount 
+					+ " values to " + dictionary);
+		}
+		
+		ColumnValues codeValues = NumberValuesUtils.instance().toValues(count, codes, codeLength, 1, 0);
+		return new DictionaryColumnValues(codeValues, dictionary);
+	}
+
 	@Override
 	public String toString()
 	{
@@ -0,0 +1,114 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Column data cache handler that reads and writes snapshots from a {@link FileDataSnapshotStore}.
+ * 
+ * <p>
+ * If the store contains a snapshot for the handler key, the snapshot is used for the fill.
+ * Otherwise data is recorded and the resulting snapshot is written to the store.
+ * </p>
+ * 
+ * @see FileDataSnapshotStore#createCacheHandler(net.sf.jasperreports.engine.JasperReport, java.util.Map)
+ */
+public class PersistentDataCacheHandler extends ColumnDataCacheHandler
+{
+
+	private static final Log log = LogFactory.getLog(PersistentDataCacheHandler.class);
+	
+	private final FileDataSnapshotStore store;
+	private final String key;
+	private boolean storeChecked;
+	
+	/**
+	 * Creates a handler.
+	 * 
+	 * @param store the snapshot store
+	 * @param key the snapshot key, if <code>null</code> the store is not used
+	 */
+	public PersistentDataCacheHandler(FileDataSnapshotStore store, String key)
+	{
+		this.store = store;
+		this.key = key;
+	}
+	
+	protected synchronized void checkStore()
+	{
+		if (storeChecked)
+		{
+			return;
+		}
+		
+		storeChecked = true;
+		if (key != null && super.getDataSnapshot() == null)
+		{
+			DataSnapshot storedSnapshot = store.load(key);
+			if (storedSnapshot != null)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("using stored snapshot " + key);
+				}
+				
+				// not calling the overridden method, the snapshot is already stored
+				super.setDataSnapshot(storedSnapshot);
+			}
+		}
+	}
+
+	@Override
+	public boolean isSnapshotPopulated()
+	{
+		checkStore();
+		return super.isSnapshotPopulated();
+	}
+
+	@Override
+	public DataSnapshot getDataSnapshot()
+	{
+		checkStore();
+		return super.getDataSnapshot();
+	}
+
+	@Override
+	protected void setDataSnapshot(DataSnapshot snapshot)
+	{
+		super.setDataSnapshot(snapshot);
+		
+		if (key != null && snapshot instanceof ColumnDataSnapshot)
+		{
+			store.store(key, (ColumnDataSnapshot) snapshot);
+		}
+	}
+
+	public String getKey()
+	{
+		return key;
+	}
+	
+}
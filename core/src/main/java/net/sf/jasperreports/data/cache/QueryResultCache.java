@@ -0,0 +1,651 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.query.CacheableQueryExecuter;
+import net.sf.jasperreports.engine.util.LocalJasperReportsContext;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+/**
+ * Cache of query results shared by the fills that run in a JasperReports context.
+ * 
+ * <p>
+ * Query results are recorded in column stores by {@link ColumnDataCacheHandler} and shared 
+ * by fills that execute the same query with the same parameter values, as identified by
+ * {@link CacheableQueryExecuter#getResultCacheKey()}.
+ * When several fills request the same result at the same time, the query is executed once 
+ * and the other fills wait for the result.
+ * </p>
+ * <p>
+ * Results expire after a time to live, and the least recently used results are evicted 
+ * when the estimated memory size of the cached results exceeds the configured limit.
+ * A result that alone exceeds the limit is not cached; recording stops once the limit is reached 
+ * and the rest of the records are read directly from the query.
+ * If a field value cannot be cached, recording stops and the query is executed again for the fill.
+ * </p>
+ * <p>
+ * When the fill limits the number of records via {@link JRParameter#REPORT_MAX_COUNT}, 
+ * only that many records are read and the result is cached separately from the complete result.
+ * A complete cached result is also used for fills that limit the number of records.
+ * </p>
+ * 
+ * @see #PROPERTY_ENABLED
+ */
+public class QueryResultCache
+{
+	
+	private static final Log log = LogFactory.getLog(QueryResultCache.class);
+
+	public static final String EXCEPTION_MESSAGE_KEY_INTERRUPTED = "data.cache.query.result.interrupted";
+	
+	/**
+	 * Flag property that enables the query result cache for a dataset.
+	 * <p>
+	 * The results of the dataset query are shared between all fills that execute the same query 
+	 * with the same parameter values, therefore the cache should only be enabled for queries whose 
+	 * results can be seen by all users of the report.
+	 * </p>
+	 * Only query executers that implement {@link CacheableQueryExecuter}, such as the SQL query 
+	 * executer, use the cache.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_CACHE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_ENABLED = JRPropertiesUtil.PROPERTY_PREFIX + "query.result.cache.enabled";
+
+	/**
+	 * Property that specifies the time in milliseconds after which a cached query result expires.
+	 * 
+	 * @see #getInstance(JasperReportsContext)
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_CACHE,
+			defaultValue = "60000",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Long.class
+			)
+	public static final String PROPERTY_TIME_TO_LIVE = JRPropertiesUtil.PROPERTY_PREFIX + "query.result.cache.time.to.live";
+
+	/**
+	 * Property that specifies the maximum estimated memory size, in bytes, of the cached query results.
+	 * 
+	 * @see #getInstance(JasperReportsContext)
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_CACHE,
+			defaultValue = "67108864",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Long.class
+			)
+	public static final String PROPERTY_MAX_MEMORY_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "query.result.cache.max.memory.size";
+	
+	public static final long DEFAULT_TIME_TO_LIVE = 60000L;
+	public static final long DEFAULT_MAX_MEMORY_SIZE = 64L * 1024 * 1024;
+	
+	// rough estimate used to compute the memory size of results
+	protected static final int VALUE_SIZE_ESTIMATE = 16;
+	
+	private static final String CONTEXT_KEY_INSTANCE = QueryResultCache.class.getName() + ".instance";
+	
+	/**
+	 * Returns the cache instance of the default JasperReports context.
+	 * 
+	 * @see #getInstance(JasperReportsContext)
+	 */
+	public static QueryResultCache getInstance()
+	{
+		return getInstance(DefaultJasperReportsContext.getInstance());
+	}
+	
+	/**
+	 * Returns the cache instance shared by the fills that run in a JasperReports context.
+	 * <p/>
+	 * The instance is created on the first call for the context, using the {@link #PROPERTY_TIME_TO_LIVE} 
+	 * and {@link #PROPERTY_MAX_MEMORY_SIZE} values from the context.
+	 * Local contexts created for individual fills use the instance of their parent context.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @return the cache instance
+	 */
+	public static QueryResultCache getInstance(JasperReportsContext jasperReportsContext)
+	{
+		JasperReportsContext instanceContext = jasperReportsContext;
+		while (instanceContext instanceof LocalJasperReportsContext
+				&& ((SimpleJasperReportsContext) instanceContext).getParent() != null)
+		{
+			instanceContext = ((SimpleJasperReportsContext) instanceContext).getParent();
+		}
+		
+		synchronized (QueryResultCache.class)
+		{
+			QueryResultCache instance = (QueryResultCache) instanceContext.getOwnValue(CONTEXT_KEY_INSTANCE);
+			if (instance == null)
+			{
+				JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(instanceContext);
+				long timeToLive = propertiesUtil.getLongProperty(PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE);
+				long maxMemorySize = propertiesUtil.getLongProperty(PROPERTY_MAX_MEMORY_SIZE, DEFAULT_MAX_MEMORY_SIZE);
+				instance = new QueryResultCache(timeToLive, maxMemorySize);
+				instanceContext.setValue(CONTEXT_KEY_INSTANCE, instance);
+			}
+			return instance;
+		}
+	}
+	
+	/**
+	 * Key of a result read with a maximum record count.
+	 */
+	protected static class LimitedResultKey
+	{
+		private final Object resultKey;
+		private final int maxCount;
+		
+		public LimitedResultKey(Object resultKey, int maxCount)
+		{
+			this.resultKey = resultKey;
+			this.maxCount = maxCount;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * resultKey.hashCode() + maxCount;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj == this)
+			{
+				return true;
+			}
+			if (!(obj instanceof LimitedResultKey))
+			{
+				return false;
+			}
+			LimitedResultKey key = (LimitedResultKey) obj;
+			return maxCount == key.maxCount && Objects.equals(resultKey, key.resultKey);
+		}
+
+		@Override
+		public String toString()
+		{
+			return resultKey + " limited to " + maxCount;
+		}
+	}
+	
+	protected static class CacheEntry
+	{
+		private final CompletableFuture<ColumnCacheData> result = new CompletableFuture<>();
+		private long created;
+		private long memorySize;
+	}
+	
+	/**
+	 * Data source that returns the records recorded before caching stopped,
+	 * followed by the rest of the records of the query.
+	 */
+	protected static class ResumedDataSource implements JRDataSource
+	{
+		private final JRDataSource recordedDataSource;
+		private final JRDataSource dataSource;
+		private boolean recorded;
+		
+		public ResumedDataSource(JRDataSource recordedDataSource, JRDataSource dataSource)
+		{
+			this.recordedDataSource = recordedDataSource;
+			this.dataSource = dataSource;
+			this.recorded = true;
+		}
+
+		@Override
+		public boolean next() throws JRException
+		{
+			if (recorded)
+			{
+				if (recordedDataSource.next())
+				{
+					return true;
+				}
+				recorded = false;
+			}
+			return dataSource.next();
+		}
+
+		@Override
+		public Object getFieldValue(JRField jrField) throws JRException
+		{
+			return recorded ? recordedDataSource.getFieldValue(jrField) : dataSource.getFieldValue(jrField);
+		}
+	}
+	
+	private final long timeToLive;
+	private final long maxMemorySize;
+	
+	// access order for LRU eviction
+	private final LinkedHashMap<Object, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long memorySize;
+	
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong waitCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	
+	/**
+	 * @param timeToLive the time in milliseconds after which a result expires, 0 for no expiry
+	 * @param maxMemorySize the maximum estimated memory size in bytes of the cached results
+	 */
+	public QueryResultCache(long timeToLive, long maxMemorySize)
+	{
+		this.timeToLive = timeToLive;
+		this.maxMemorySize = maxMemorySize;
+	}
+	
+	/**
+	 * Returns a data source for the results of a query executer, using a cached result if available.
+	 * 
+	 * @see #getDataSource(CacheableQueryExecuter, JRField[], Integer)
+	 */
+	public JRDataSource getDataSource(CacheableQueryExecuter queryExecuter, JRField[] fields) throws JRException
+	{
+		return getDataSource(queryExecuter, fields, null);
+	}
+	
+	/**
+	 * Returns a data source for the results of a query executer, using a cached result if available.
+	 * 
+	 * <p>
+	 * If the result is not cached, the query is executed and the records are read into memory.
+	 * If the same result is being read by another thread, the method waits for the result.
+	 * </p>
+	 * 
+	 * @param queryExecuter the query executer
+	 * @param fields the dataset fields
+	 * @param maxCount the maximum number of records used by the fill, 
+	 * as specified by {@link JRParameter#REPORT_MAX_COUNT}, or <code>null</code> for no limit
+	 * @return a data source over the query result
+	 * @throws JRException
+	 */
+	public JRDataSource getDataSource(CacheableQueryExecuter queryExecuter, JRField[] fields, 
+			Integer maxCount) throws JRException
+	{
+		Object resultKey = queryExecuter.getResultCacheKey();
+		if (resultKey == null)
+		{
+			return queryExecuter.createDatasource();
+		}
+		
+		Object key = maxCount == null ? resultKey : new LimitedResultKey(resultKey, maxCount);
+		CacheEntry entry;
+		boolean execute;
+		synchronized (entries)
+		{
+			if (maxCount != null)
+			{
+				// the complete result can be used if available
+				CacheEntry completeEntry = entries.get(resultKey);
+				if (completeEntry != null && completeEntry.result.isDone() && !isExpired(completeEntry)
+						&& !completeEntry.result.isCompletedExceptionally() && completeEntry.result.getNow(null) != null)
+				{
+					hitCount.incrementAndGet();
+					return completeEntry.result.getNow(null).createDataSource();
+				}
+			}
+			
+			entry = entries.get(key);
+			if (entry != null && entry.result.isDone() && isExpired(entry))
+			{
+				removeEntry(key, entry);
+				entry = null;
+			}
+			
+			execute = entry == null;
+			if (execute)
+			{
+				entry = new CacheEntry();
+				entries.put(key, entry);
+			}
+		}
+		
+		if (execute)
+		{
+			missCount.incrementAndGet();
+			return executeQuery(key, entry, queryExecuter, fields, maxCount);
+		}
+		
+		if (entry.result.isDone())
+		{
+			hitCount.incrementAndGet();
+		}
+		else
+		{
+			waitCount.incrementAndGet();
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("waiting for query result " + key);
+			}
+		}
+		
+		ColumnCacheData data;
+		try
+		{
+			data = entry.result.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new JRException(EXCEPTION_MESSAGE_KEY_INTERRUPTED, null, e);
+		}
+		catch (ExecutionException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("shared query execution failed, executing the query", e.getCause());
+			}
+			
+			return queryExecuter.createDatasource();
+		}
+		
+		if (data == null)
+		{
+			// the result could not be cached
+			return queryExecuter.createDatasource();
+		}
+		
+		return data.createDataSource();
+	}
+	
+	protected JRDataSource executeQuery(Object key, CacheEntry entry, 
+			CacheableQueryExecuter queryExecuter, JRField[] fields, Integer maxCount) throws JRException
+	{
+		ColumnCacheData data = null;
+		JRDataSource dataSource = null;
+		boolean complete = false;
+		try
+		{
+			ColumnDataCacheHandler cacheHandler = new ColumnDataCacheHandler();
+			DatasetRecorder recorder = cacheHandler.createDataRecorder().createRecorder();
+			recorder.start(fields);
+			if (cacheHandler.isRecordingEnabled())
+			{
+				dataSource = queryExecuter.createDatasource();
+				complete = readRecords(cacheHandler, recorder, dataSource, fields, maxCount);
+				// null if recording was disabled by an unsupported value
+				data = (ColumnCacheData) recorder.end();
+				
+				if (complete && data != null)
+				{
+					// the records are in memory, releasing the query resources
+					queryExecuter.close();
+				}
+			}
+		}
+		catch (JRException | RuntimeException e)
+		{
+			synchronized (entries)
+			{
+				removeEntry(key, entry);
+			}
+			entry.result.completeExceptionally(e);
+			throw e;
+		}
+		
+		if (!complete || data == null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("query result " + key + " cannot be cached");
+			}
+			
+			synchronized (entries)
+			{
+				removeEntry(key, entry);
+			}
+			// the waiting requests execute the query themselves
+			entry.result.complete(null);
+			
+			if (data != null)
+			{
+				// the memory limit was reached, reading the rest of the records from the query
+				return new ResumedDataSource(data.createDataSource(), dataSource);
+			}
+			
+			if (dataSource != null)
+			{
+				// the records have been consumed by the recorder, executing the query again
+				queryExecuter.close();
+			}
+			return queryExecuter.createDatasource();
+		}
+		
+		long dataMemorySize = estimateMemorySize(data.size(), fields);
+		synchronized (entries)
+		{
+			entry.created = System.currentTimeMillis();
+			if (entries.get(key) == entry)
+			{
+				entry.memorySize = dataMemorySize;
+				memorySize += dataMemorySize;
+				evict();
+			}
+		}
+		entry.result.complete(data);
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("cached query result " + key + " of " + data.size() + " records");
+		}
+		
+		return data.createDataSource();
+	}
+	
+	/**
+	 * Reads records from a data source into a recorder.
+	 * 
+	 * @return <code>true</code> if all the records have been recorded, <code>false</code> if recording
+	 * stopped because the cache handler disabled recording or because the records exceed the memory limit
+	 * @throws JRException
+	 */
+	protected boolean readRecords(ColumnDataCacheHandler cacheHandler, DatasetRecorder recorder, 
+			JRDataSource dataSource, JRField[] fields, Integer maxCount) throws JRException
+	{
+		int fieldCount = fields == null ? 0 : fields.length;
+		if (dataSource != null)
+		{
+			int count = 0;
+			// not reading past the records used by the fill
+			while ((maxCount == null || count < maxCount) && dataSource.next())
+			{
+				++count;
+				Object[] values = new Object[fieldCount];
+				for (int i = 0; i < fieldCount; i++)
+				{
+					values[i] = dataSource.getFieldValue(fields[i]);
+				}
+				recorder.addRecord(values);
+				
+				if (!cacheHandler.isRecordingEnabled())
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("recording disabled after " + count + " records");
+					}
+					return false;
+				}
+				
+				if (estimateMemorySize(count, fields) > maxMemorySize)
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("records exceed the cache memory size after " + count + " records");
+					}
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	protected long estimateMemorySize(int recordCount, JRField[] fields)
+	{
+		return (long) recordCount * Math.max(fields == null ? 0 : fields.length, 1) * VALUE_SIZE_ESTIMATE;
+	}
+	
+	protected boolean isExpired(CacheEntry entry)
+	{
+		return timeToLive > 0 && entry.created + timeToLive < System.currentTimeMillis();
+	}
+	
+	// called while holding the entries lock
+	protected void removeEntry(Object key, CacheEntry entry)
+	{
+		if (entries.get(key) == entry)
+		{
+			entries.remove(key);
+			memorySize -= entry.memorySize;
+		}
+	}
+	
+	// called while holding the entries lock
+	protected void evict()
+	{
+		for (Iterator<Map.Entry<Object, CacheEntry>> it = entries.entrySet().iterator(); 
+				it.hasNext() && memorySize > maxMemorySize;)
+		{
+			Map.Entry<Object, CacheEntry> mapEntry = it.next();
+			CacheEntry entry = mapEntry.getValue();
+			if (entry.result.isDone())
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("evicting query result " + mapEntry.getKey());
+				}
+				
+				it.remove();
+				memorySize -= entry.memorySize;
+				evictionCount.incrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * Removes all cached results.
+	 */
+	public void clear()
+	{
+		synchronized (entries)
+		{
+			for (Iterator<CacheEntry> it = entries.values().iterator(); it.hasNext();)
+			{
+				CacheEntry entry = it.next();
+				if (entry.result.isDone())
+				{
+					it.remove();
+					memorySize -= entry.memorySize;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of requests served from cached results.
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of requests that executed the query.
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the number of requests that waited for the query to be executed by another request.
+	 */
+	public long getWaitCount()
+	{
+		return waitCount.get();
+	}
+
+	/**
+	 * Returns the number of results evicted due to the memory limit.
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.get();
+	}
+
+	/**
+	 * Returns the estimated memory size of the cached results.
+	 */
+	public long getMemorySize()
+	{
+		synchronized (entries)
+		{
+			return memorySize;
+		}
+	}
+	
+	public long getTimeToLive()
+	{
+		return timeToLive;
+	}
+
+	public long getMaxMemorySize()
+	{
+		return maxMemorySize;
+	}
+	
+}
@@ -31,7 +31,7 @@ import net.sf.jasperreports.engine.JRConstants;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class RunLengthColumnValues implements ColumnValues, Serializable
+public class RunLengthColumnValues implements AggregatableColumnValues, Serializable
 {
 
 	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
@@ -74,6 +74,24 @@ public class RunLengthColumnValues implements ColumnValues, Serializable
 		return size;
 	}
 
+	@Override
+	public boolean aggregate(ColumnValuesAggregator aggregator)
+	{
+		ColumnValuesIterator valuesIterator = values.iterator();
+		ColumnValuesIterator lengthsIterator = runLengths.iterator();
+		while (lengthsIterator.next())
+		{
+			if (!valuesIterator.next())
+			{
+				throw new IllegalStateException();
+			}
+			
+			int runLength = ((Number) lengthsIterator.get()).intValue();
+			aggregator.addValue(valuesIterator.get(), runLength);
+		}
+		return true;
+	}
+
 	@Override
 	public ColumnValuesIterator iterator()
 	{
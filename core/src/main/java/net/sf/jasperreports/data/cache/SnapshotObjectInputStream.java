@@ -0,0 +1,159 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Object input stream that only deserializes classes that can be part of data snapshots.
+ * 
+ * <p>
+ * Besides the classes in the <code>net.sf.jasperreports.data.cache</code> package,
+ * the stream accepts the common value types that are stored by the column data cache
+ * and the collections used for dataset parameter values.
+ * Other classes can be accepted by passing their names, or package names followed by <code>.*</code>.
+ * </p>
+ * 
+ * @see FileDataSnapshotStore#addAllowedClass(String)
+ */
+public class SnapshotObjectInputStream extends ObjectInputStream
+{
+	
+	private static final String CACHE_PACKAGE_PREFIX = ColumnValues.class.getPackage().getName() + ".";
+	
+	private static final Set<String> DEFAULT_ALLOWED_CLASSES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			"java.lang.Object",
+			"java.lang.String",
+			"java.lang.Number",
+			"java.lang.Boolean",
+			"java.lang.Byte",
+			"java.lang.Short",
+			"java.lang.Integer",
+			"java.lang.Long",
+			"java.lang.Float",
+			"java.lang.Double",
+			"java.lang.Character",
+			"java.lang.Enum",
+			"java.math.BigDecimal",
+			"java.math.BigInteger",
+			"java.util.Date",
+			"java.sql.Date",
+			"java.sql.Time",
+			"java.sql.Timestamp",
+			"java.util.UUID",
+			"java.util.Locale",
+			"java.util.ArrayList",
+			"java.util.LinkedList",
+			"java.util.Arrays$ArrayList",
+			"java.util.HashMap",
+			"java.util.LinkedHashMap",
+			"java.util.TreeMap",
+			"java.util.HashSet",
+			"java.util.LinkedHashSet",
+			"java.util.TreeSet",
+			"net.sf.jasperreports.engine.fill.FillDatasetPosition",
+			"net.sf.jasperreports.engine.util.MD5Digest"
+			)));
+	
+	private final Set<String> allowedClasses;
+
+	/**
+	 * Creates a stream that accepts the default classes.
+	 */
+	public SnapshotObjectInputStream(InputStream in) throws IOException
+	{
+		this(in, Collections.emptySet());
+	}
+
+	/**
+	 * Creates a stream that accepts the default classes and a set of additional classes.
+	 * 
+	 * @param in the input stream
+	 * @param allowedClasses additional class names, or package names followed by <code>.*</code>
+	 */
+	public SnapshotObjectInputStream(InputStream in, Collection<String> allowedClasses) throws IOException
+	{
+		super(in);
+		
+		this.allowedClasses = new HashSet<>(allowedClasses);
+	}
+
+	@Override
+	protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+	{
+		String name = desc.getName();
+		if (!isAllowed(name))
+		{
+			throw new InvalidClassException(name, "Class not allowed in data snapshots");
+		}
+		
+		return super.resolveClass(desc);
+	}
+
+	@Override
+	protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException
+	{
+		throw new InvalidClassException(Arrays.toString(interfaces), "Proxy classes not allowed in data snapshots");
+	}
+
+	protected boolean isAllowed(String name)
+	{
+		String className = name;
+		if (className.startsWith("["))
+		{
+			// arrays of primitives or of allowed classes
+			int componentStart = className.lastIndexOf('[') + 1;
+			if (className.charAt(componentStart) != 'L')
+			{
+				return true;
+			}
+			className = className.substring(componentStart + 1, className.length() - 1);
+		}
+		
+		if (className.startsWith(CACHE_PACKAGE_PREFIX) || DEFAULT_ALLOWED_CLASSES.contains(className)
+				|| allowedClasses.contains(className))
+		{
+			return true;
+		}
+		
+		for (int dotIdx = className.lastIndexOf('.'); dotIdx > 0; dotIdx = className.lastIndexOf('.', dotIdx - 1))
+		{
+			if (allowedClasses.contains(className.substring(0, dotIdx) + ".*"))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+}
@@ -31,7 +31,7 @@ import net.sf.jasperreports.engine.JRConstants;
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
-public class TransformedColumnValues implements ColumnValues, Serializable
+public class TransformedColumnValues implements AggregatableColumnValues, Serializable
 {
 
 	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
@@ -65,6 +65,20 @@ public class TransformedColumnValues implements ColumnValues, Serializable
 		return rawValues.size();
 	}
 
+	@Override
+	public boolean aggregate(ColumnValuesAggregator aggregator)
+	{
+		// the integral transformers do not change the values of the integral raw values
+		if (aggregator.isIntegral() 
+				&& (transformer instanceof NumberToLongTransformer 
+						|| transformer instanceof NumberToIntegerTransformer))
+		{
+			aggregator.aggregate(rawValues);
+			return true;
+		}
+		return false;
+	}
+
 	@Override
 	public ColumnValuesIterator iterator()
 	{
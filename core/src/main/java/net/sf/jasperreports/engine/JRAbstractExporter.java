@@ -31,12 +31,14 @@ import java.text.ParseException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
 
 import net.sf.jasperreports.annotations.properties.Property;
 import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
 import net.sf.jasperreports.engine.export.DefaultHyperlinkProducerFactory;
 import net.sf.jasperreports.engine.export.ExporterFilter;
 import net.sf.jasperreports.engine.export.ExporterFilterFactory;
@@ -603,6 +605,23 @@ public abstract class JRAbstractExporter<RC extends ReportExportConfiguration, C
 	}
 	
 
+	/**
+	 * Loads in advance the virtualized pages that follow the page being exported.
+	 * 
+	 * @param pages the list of pages being exported
+	 * @param pageIndex the index of the page being exported
+	 * @see net.sf.jasperreports.engine.fill.JRVirtualizationContext#PROPERTY_PREFETCH_PAGE_COUNT
+	 */
+	protected void prefetchPages(List<JRPrintPage> pages, int pageIndex)
+	{
+		JRPrintPage page = pages.get(pageIndex);
+		if (page instanceof JRVirtualPrintPage)
+		{
+			((JRVirtualPrintPage) page).getVirtualizationContext().prefetchPages(pages, pageIndex);
+		}
+	}
+
+
 	/**
 	 *
 	 */
@@ -470,6 +470,19 @@ public final class JRPropertiesUtil
 		return value;
 	}
 
+	/**
+	 * Creates a snapshot that resolves properties for a properties holder chain once and keeps the values
+	 * for subsequent reads.
+	 * 
+	 * @param propertiesHolder the properties holder
+	 * @return the resolved properties snapshot
+	 * @see ResolvedProperties
+	 */
+	public ResolvedProperties getResolvedProperties(JRPropertiesHolder propertiesHolder)
+	{
+		return new ResolvedProperties(this, propertiesHolder);
+	}
+
 	/**
 	 * Returns the value of a property, looking first in the supplied properties holder
 	 * and then in the system properties, using a default value if the property is not found.
@@ -53,7 +53,9 @@ import org.apache.commons.logging.LogFactory;
 
 import net.sf.jasperreports.annotations.properties.Property;
 import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.data.BatchDataSource;
 import net.sf.jasperreports.engine.query.JRJdbcQueryExecuterFactory;
+import net.sf.jasperreports.engine.util.ClassUtils;
 import net.sf.jasperreports.engine.util.JRImageLoader;
 import net.sf.jasperreports.properties.PropertyConstants;
 
@@ -71,7 +73,7 @@ import net.sf.jasperreports.properties.PropertyConstants;
 
  * @author Teodor Danciu (teodord@users.sourceforge.net)
  */
-public class JRResultSetDataSource implements JRDataSource
+public class JRResultSetDataSource implements JRDataSource, BatchDataSource
 {
 
 	private static final Log log = LogFactory.getLog(JRResultSetDataSource.class);
@@ -122,6 +124,52 @@ public class JRResultSetDataSource implements JRDataSource
 	public static final String EXCEPTION_MESSAGE_KEY_RESULT_SET_NEXT_RECORD_NOT_RETRIEVED = "data.result.set.next.record.not.retrieved";
 
 
+	private static final int VALUE_TYPE_OTHER = 0;
+	private static final int VALUE_TYPE_BOOLEAN = 1;
+	private static final int VALUE_TYPE_BYTE = 2;
+	private static final int VALUE_TYPE_DATE = 3;
+	private static final int VALUE_TYPE_TIMESTAMP = 4;
+	private static final int VALUE_TYPE_TIME = 5;
+	private static final int VALUE_TYPE_DOUBLE = 6;
+	private static final int VALUE_TYPE_FLOAT = 7;
+	private static final int VALUE_TYPE_INTEGER = 8;
+	private static final int VALUE_TYPE_INPUT_STREAM = 9;
+	private static final int VALUE_TYPE_LONG = 10;
+	private static final int VALUE_TYPE_SHORT = 11;
+	private static final int VALUE_TYPE_BIG_DECIMAL = 12;
+	private static final int VALUE_TYPE_STRING = 13;
+	private static final int VALUE_TYPE_CLOB = 14;
+	private static final int VALUE_TYPE_READER = 15;
+	private static final int VALUE_TYPE_BLOB = 16;
+	private static final int VALUE_TYPE_IMAGE = 17;
+	private static final int VALUE_TYPE_BYTES = 18;
+	private static final int VALUE_TYPE_OBJECT = 19;
+
+	private static final Map<Class<?>, Integer> VALUE_TYPES = new HashMap<>();
+	static
+	{
+		VALUE_TYPES.put(java.lang.Boolean.class, VALUE_TYPE_BOOLEAN);
+		VALUE_TYPES.put(java.lang.Byte.class, VALUE_TYPE_BYTE);
+		VALUE_TYPES.put(java.util.Date.class, VALUE_TYPE_DATE);
+		VALUE_TYPES.put(java.sql.Date.class, VALUE_TYPE_DATE);
+		VALUE_TYPES.put(java.sql.Timestamp.class, VALUE_TYPE_TIMESTAMP);
+		VALUE_TYPES.put(java.sql.Time.class, VALUE_TYPE_TIME);
+		VALUE_TYPES.put(java.lang.Double.class, VALUE_TYPE_DOUBLE);
+		VALUE_TYPES.put(java.lang.Float.class, VALUE_TYPE_FLOAT);
+		VALUE_TYPES.put(java.lang.Integer.class, VALUE_TYPE_INTEGER);
+		VALUE_TYPES.put(java.io.InputStream.class, VALUE_TYPE_INPUT_STREAM);
+		VALUE_TYPES.put(java.lang.Long.class, VALUE_TYPE_LONG);
+		VALUE_TYPES.put(java.lang.Short.class, VALUE_TYPE_SHORT);
+		VALUE_TYPES.put(java.math.BigDecimal.class, VALUE_TYPE_BIG_DECIMAL);
+		VALUE_TYPES.put(java.lang.String.class, VALUE_TYPE_STRING);
+		VALUE_TYPES.put(Clob.class, VALUE_TYPE_CLOB);
+		VALUE_TYPES.put(Reader.class, VALUE_TYPE_READER);
+		VALUE_TYPES.put(Blob.class, VALUE_TYPE_BLOB);
+		VALUE_TYPES.put(Image.class, VALUE_TYPE_IMAGE);
+		VALUE_TYPES.put(byte[].class, VALUE_TYPE_BYTES);
+		VALUE_TYPES.put(Object.class, VALUE_TYPE_OBJECT);
+	}
+
 	/**
 	 *
 	 */
@@ -209,66 +257,132 @@ public class JRResultSetDataSource implements JRDataSource
 		if (field != null && resultSet != null)
 		{
 			Integer columnIndex = getColumnIndex(field);
-			Class<?> clazz = field.getValueClass();
+			objValue = readFieldValue(field, columnIndex, getValueType(field.getValueClass()));
+		}
+		
+		return objValue;
+	}
 
-			try
+
+	/**
+	 * Returns <code>false</code> for subclasses that override {@link #getFieldValue(JRField)},
+	 * as batches read the field values directly from the result set.
+	 */
+	@Override
+	public boolean isBatchReadSupported()
+	{
+		return !ClassUtils.overridesMethod(getClass(), JRResultSetDataSource.class, 
+				"getFieldValue", JRField.class);
+	}
+
+
+	@Override
+	public int nextBatch(JRField[] fields, Object[][] values, int maxCount) throws JRException
+	{
+		if (resultSet == null)
+		{
+			return 0;
+		}
+		
+		// resolving the columns and value types once for the whole batch
+		Integer[] columnIndexes = new Integer[fields.length];
+		int[] valueTypes = new int[fields.length];
+		for (int i = 0; i < fields.length; i++)
+		{
+			columnIndexes[i] = getColumnIndex(fields[i]);
+			valueTypes[i] = getValueType(fields[i].getValueClass());
+		}
+		
+		int count = 0;
+		while (count < maxCount && next())
+		{
+			for (int i = 0; i < fields.length; i++)
 			{
-				if (clazz.equals(java.lang.Boolean.class))
+				values[i][count] = readFieldValue(fields[i], columnIndexes[i], valueTypes[i]);
+			}
+			++count;
+		}
+		return count;
+	}
+
+
+	protected static int getValueType(Class<?> valueClass)
+	{
+		Integer valueType = VALUE_TYPES.get(valueClass);
+		return valueType == null ? VALUE_TYPE_OTHER : valueType;
+	}
+
+
+	protected Object readFieldValue(JRField field, Integer columnIndex, int valueType) throws JRException
+	{
+		Object objValue = null;
+		Class<?> clazz = field.getValueClass();
+
+		try
+		{
+			switch (valueType)
+			{
+				case VALUE_TYPE_BOOLEAN :
 				{
 					objValue = resultSet.getBoolean(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(java.lang.Byte.class))
+				case VALUE_TYPE_BYTE :
 				{
 					objValue = resultSet.getByte(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (
-					clazz.equals(java.util.Date.class)
-					|| clazz.equals(java.sql.Date.class)
-					)
+				case VALUE_TYPE_DATE :
 				{
 					objValue = readDate(columnIndex, field);
+					break;
 				}
-				else if (clazz.equals(java.sql.Timestamp.class))
+				case VALUE_TYPE_TIMESTAMP :
 				{
 					objValue = readTimestamp(columnIndex, field);
+					break;
 				}
-				else if (clazz.equals(java.sql.Time.class))
+				case VALUE_TYPE_TIME :
 				{
 					objValue = readTime(columnIndex, field);
+					break;
 				}
-				else if (clazz.equals(java.lang.Double.class))
+				case VALUE_TYPE_DOUBLE :
 				{
 					objValue = resultSet.getDouble(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(java.lang.Float.class))
+				case VALUE_TYPE_FLOAT :
 				{
 					objValue = resultSet.getFloat(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(java.lang.Integer.class))
+				case VALUE_TYPE_INTEGER :
 				{
 					objValue = resultSet.getInt(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(java.io.InputStream.class))
+				case VALUE_TYPE_INPUT_STREAM :
 				{
 					byte[] bytes = readBytes(columnIndex);
 					
@@ -280,32 +394,36 @@ public class JRResultSetDataSource implements JRDataSource
 					{
 						objValue = new ByteArrayInputStream(bytes);
 					}					
+					break;
 				}
-				else if (clazz.equals(java.lang.Long.class))
+				case VALUE_TYPE_LONG :
 				{
 					objValue = resultSet.getLong(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(java.lang.Short.class))
+				case VALUE_TYPE_SHORT :
 				{
 					objValue = resultSet.getShort(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(java.math.BigDecimal.class))
+				case VALUE_TYPE_BIG_DECIMAL :
 				{
 					objValue = resultSet.getBigDecimal(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(java.lang.String.class))
+				case VALUE_TYPE_STRING :
 				{
 					int columnType = resultSet.getMetaData().getColumnType(columnIndex);
 					switch (columnType)
@@ -330,16 +448,18 @@ public class JRResultSetDataSource implements JRDataSource
 							}
 							break;
 					}
+					break;
 				}
-				else if (clazz.equals(Clob.class))
+				case VALUE_TYPE_CLOB :
 				{
 					objValue = resultSet.getClob(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(Reader.class))
+				case VALUE_TYPE_READER :
 				{
 					Reader reader = null;
 					long size = -1;
@@ -372,16 +492,18 @@ public class JRResultSetDataSource implements JRDataSource
 					{
 						objValue = getArrayReader(reader, size);
 					}
+					break;
 				}
-				else if (clazz.equals(Blob.class))
+				case VALUE_TYPE_BLOB :
 				{
 					objValue = resultSet.getBlob(columnIndex);
 					if(resultSet.wasNull())
 					{
 						objValue = null;
 					}
+					break;
 				}
-				else if (clazz.equals(Image.class))
+				case VALUE_TYPE_IMAGE :
 				{
 					byte[] bytes = readBytes(columnIndex);
 					
@@ -393,19 +515,23 @@ public class JRResultSetDataSource implements JRDataSource
 					{
 						objValue = JRImageLoader.getInstance(jasperReportsContext).loadAwtImageFromBytes(bytes);
 					}					
+					break;
 				}
-				else if (clazz.equals(byte[].class))
+				case VALUE_TYPE_BYTES :
 				{
 					objValue = readBytes(columnIndex);
+					break;
 				}
-				else if (clazz.equals(Object.class))
+				case VALUE_TYPE_OBJECT :
 				{
 					// there is no point in getting typed value when class is java.lang.Object;
 					// some drivers even fail trying to convert to java.lang.Object, if typed getObject(int, Class)
 					// getter is used as in the next else block
 					objValue = resultSet.getObject(columnIndex);
+					break;
 				}
-				else
+				case VALUE_TYPE_OTHER :
+				default :
 				{
 					if (supportsTypedGetObjectMethod == null)
 					{
@@ -431,16 +557,17 @@ public class JRResultSetDataSource implements JRDataSource
 							objValue = resultSet.getObject(columnIndex);
 						}
 					}
+					break;
 				}
 			}
-			catch (Exception e)
-			{
-				throw 
-					new JRException(
-						EXCEPTION_MESSAGE_KEY_RESULT_SET_FIELD_VALUE_NOT_RETRIEVED,
-						new Object[]{field.getName(), clazz.getName()}, 
-						e);
-			}
+		}
+		catch (Exception e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_RESULT_SET_FIELD_VALUE_NOT_RETRIEVED,
+					new Object[]{field.getName(), clazz.getName()}, 
+					e);
 		}
 		
 		return objValue;
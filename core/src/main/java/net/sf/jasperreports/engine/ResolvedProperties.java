@@ -0,0 +1,162 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the properties resolved for a properties holder chain.
+ * 
+ * <p>
+ * Property values are resolved as done by {@link JRPropertiesUtil#getProperty(JRPropertiesHolder, String)}
+ * the first time they are requested, and are then kept along with the converted boolean and integer values,
+ * so that repeated reads of a property do not walk the holder chain and the context properties again.
+ * </p>
+ * <p>
+ * The snapshot assumes that the properties of the holders in the chain are not modified after values are read.
+ * Replacing the properties map of the first holder, as fill elements do when evaluating dynamic properties,
+ * is detected by {@link #isCurrent()}, in which case a new snapshot should be created.
+ * Instances are not thread safe.
+ * </p>
+ * 
+ * @see JRPropertiesUtil#getResolvedProperties(JRPropertiesHolder)
+ */
+public class ResolvedProperties
+{
+	
+	private final JRPropertiesUtil propertiesUtil;
+	private final JRPropertiesHolder propertiesHolder;
+	private final JRPropertiesMap ownProperties;
+	private final Map<String, ResolvedProperty> properties;
+	
+	protected ResolvedProperties(JRPropertiesUtil propertiesUtil, JRPropertiesHolder propertiesHolder)
+	{
+		this.propertiesUtil = propertiesUtil;
+		this.propertiesHolder = propertiesHolder;
+		this.ownProperties = JRPropertiesUtil.getOwnProperties(propertiesHolder);
+		this.properties = new HashMap<>();
+	}
+	
+	/**
+	 * Returns the properties holder for which properties are resolved.
+	 * 
+	 * @return the properties holder
+	 */
+	public JRPropertiesHolder getPropertiesHolder()
+	{
+		return propertiesHolder;
+	}
+	
+	/**
+	 * Determines whether the properties map of the holder is the one that was used when the snapshot was created.
+	 * 
+	 * @return whether the snapshot is current
+	 */
+	public boolean isCurrent()
+	{
+		return JRPropertiesUtil.getOwnProperties(propertiesHolder) == ownProperties;
+	}
+	
+	protected ResolvedProperty resolve(String key)
+	{
+		ResolvedProperty property = properties.get(key);
+		if (property == null)
+		{
+			property = new ResolvedProperty(propertiesUtil.getProperty(propertiesHolder, key));
+			properties.put(key, property);
+		}
+		return property;
+	}
+	
+	/**
+	 * Returns the value of a property.
+	 * 
+	 * @param key the key
+	 * @return the property value
+	 * @see JRPropertiesUtil#getProperty(JRPropertiesHolder, String)
+	 */
+	public String getProperty(String key)
+	{
+		return resolve(key).value;
+	}
+	
+	/**
+	 * Returns the value of a property as a boolean.
+	 * 
+	 * @param key the key
+	 * @param defaultValue the default value used if the property is not found
+	 * @return the property value
+	 * @see JRPropertiesUtil#getBooleanProperty(JRPropertiesHolder, String, boolean)
+	 */
+	public boolean getBooleanProperty(String key, boolean defaultValue)
+	{
+		ResolvedProperty property = resolve(key);
+		if (property.value == null)
+		{
+			return defaultValue;
+		}
+		
+		if (property.booleanValue == null)
+		{
+			property.booleanValue = JRPropertiesUtil.asBoolean(property.value);
+		}
+		return property.booleanValue;
+	}
+	
+	/**
+	 * Returns the value of a property as an integer.
+	 * 
+	 * @param key the key
+	 * @param defaultValue the default value used if the property is not found
+	 * @return the property value
+	 * @see JRPropertiesUtil#getIntegerProperty(JRPropertiesHolder, String, int)
+	 */
+	public int getIntegerProperty(String key, int defaultValue)
+	{
+		ResolvedProperty property = resolve(key);
+		if (property.value == null || property.value.trim().length() == 0)
+		{
+			return defaultValue;
+		}
+		
+		if (property.integerValue == null)
+		{
+			property.integerValue = JRPropertiesUtil.asInteger(property.value);
+		}
+		return property.integerValue;
+	}
+	
+	protected static class ResolvedProperty
+	{
+		final String value;
+		Boolean booleanValue;
+		Integer integerValue;
+		
+		public ResolvedProperty(String value)
+		{
+			this.value = value;
+		}
+	}
+}
@@ -43,6 +43,7 @@ public class SimpleJasperReportsContext implements JasperReportsContext
 	private Map<String, Object> values = new ConcurrentHashMap<>(16, .75f, 1);// assume low update concurrency
 	private Map<String, String> properties;
 	private Map<Class<?>, List<?>> extensionsMap;
+	private volatile int extensionsModificationCount;
 
 	/**
 	 * Constructs a SimpleJasperReportsContext instance that has the DefaultJasperReportsContext.getInstance() as parent.
@@ -178,6 +179,7 @@ public class SimpleJasperReportsContext implements JasperReportsContext
 			extensionsMap = new HashMap<>();
 		}
 		extensionsMap.put(extensionType, extensions);
+		++extensionsModificationCount;
 	}
 	
 	/**
@@ -186,6 +188,18 @@ public class SimpleJasperReportsContext implements JasperReportsContext
 	public void setExtensions(Map<Class<?>, List<?>> extensions)
 	{
 		extensionsMap = extensions;
+		++extensionsModificationCount;
+	}
+	
+	/**
+	 * Returns a counter that is incremented each time extensions are set in this context,
+	 * so that data computed from the extensions can be checked without retrieving the extensions.
+	 * 
+	 * @return the number of times extensions were set in this context
+	 */
+	public int getExtensionsModificationCount()
+	{
+		return extensionsModificationCount;
 	}
 	
 	/**
@@ -48,6 +48,8 @@ public interface ElementStore extends VirtualizablePageElements
 	JRPrintElement remove(int index);
 	
 	void dispose();
+	
+	void prefetchVirtualData();
 
 	void updatePage(JRVirtualPrintPage page);
 	
@@ -39,6 +39,7 @@ import org.apache.commons.logging.LogFactory;
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRPrintElement;
 import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
 import net.sf.jasperreports.engine.fill.JRTemplatePrintFrame;
 import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
 import net.sf.jasperreports.engine.fill.VirtualizationObjectInputStream;
@@ -362,6 +363,24 @@ public class ElementsBlock implements JRVirtualizable<VirtualElementsData>, Elem
 		}
 	}
 
+	@Override
+	public void prefetchVirtualData()
+	{
+		lockContext();
+		try
+		{
+			// only LRU virtualizers can load the data without marking the block as used
+			if (elements == null && context.getVirtualizer() instanceof JRAbstractLRUVirtualizer)
+			{
+				((JRAbstractLRUVirtualizer) context.getVirtualizer()).prefetchData(this);
+			}
+		}
+		finally
+		{
+			unlockContext();
+		}
+	}
+
 	private void ensureData()
 	{
 		if (context.getVirtualizer() != null)
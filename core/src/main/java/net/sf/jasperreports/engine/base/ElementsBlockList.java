@@ -262,6 +262,15 @@ public class ElementsBlockList implements ElementStore, Serializable
 		}
 	}
 	
+	@Override
+	public void prefetchVirtualData()
+	{
+		for (int idx = 0; idx < blockCount; ++idx)
+		{
+			blocks[idx].prefetchVirtualData();
+		}
+	}
+	
 	protected int blockIndex(int index)
 	{
 		if (index < 0)
@@ -23,8 +23,10 @@
  */
 package net.sf.jasperreports.engine.base;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import net.sf.jasperreports.engine.JRConstants;
@@ -33,6 +35,8 @@ import net.sf.jasperreports.engine.JRGenericElementType;
 import net.sf.jasperreports.engine.JRGenericPrintElement;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.PrintElementVisitor;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
 
 /**
  * A basic implementation of {@link JRGenericPrintElement}.
@@ -48,6 +52,11 @@ public class JRBaseGenericPrintElement extends JRBasePrintElement
 	private JRGenericElementType genericType;
 	private Map<String,Object> parameters = new LinkedHashMap<>();
 
+	public JRBaseGenericPrintElement()
+	{
+		// used internally
+	}
+
 	/**
 	 * Creates a generic print element.
 	 * 
@@ -106,4 +115,49 @@ public class JRBaseGenericPrintElement extends JRBasePrintElement
 		visitor.visit(this, arg);
 	}
 
+	@Override
+	public void writeVirtualized(VirtualizationOutput out) throws IOException
+	{
+		super.writeVirtualized(out);
+		
+		if (genericType == null)
+		{
+			out.writeBoolean(false);
+		}
+		else
+		{
+			out.writeBoolean(true);
+			out.writeJRObject(genericType.getNamespace());
+			out.writeJRObject(genericType.getName());
+		}
+		
+		out.writeIntCompressed(parameters.size());
+		for (Entry<String, Object> entry : parameters.entrySet())
+		{
+			out.writeJRObject(entry.getKey());
+			out.writeJRObject(entry.getValue());
+		}
+	}
+
+	@Override
+	public void readVirtualized(VirtualizationInput in) throws IOException
+	{
+		super.readVirtualized(in);
+		
+		if (in.readBoolean())
+		{
+			String namespace = (String) in.readJRObject();
+			String name = (String) in.readJRObject();
+			genericType = new JRGenericElementType(namespace, name);
+		}
+		
+		int paramsCount = in.readIntCompressed();
+		parameters = new LinkedHashMap<>(paramsCount * 4 / 3, 0.75f);
+		for (int i = 0; i < paramsCount; i++)
+		{
+			String key = (String) in.readJRObject();
+			Object value = in.readJRObject();
+			parameters.put(key, value);
+		}
+	}
 }
@@ -24,25 +24,36 @@
 package net.sf.jasperreports.engine.base;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.UUID;
 
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRDefaultStyleProvider;
+import net.sf.jasperreports.engine.JRLineBox;
 import net.sf.jasperreports.engine.JROrigin;
+import net.sf.jasperreports.engine.JRParagraph;
+import net.sf.jasperreports.engine.JRPen;
 import net.sf.jasperreports.engine.JRPrintElement;
 import net.sf.jasperreports.engine.JRPropertiesHolder;
 import net.sf.jasperreports.engine.JRPropertiesMap;
 import net.sf.jasperreports.engine.JRStyle;
 import net.sf.jasperreports.engine.PrintElementVisitor;
+import net.sf.jasperreports.engine.TabStop;
+import net.sf.jasperreports.engine.type.LineSpacingEnum;
+import net.sf.jasperreports.engine.type.LineStyleEnum;
 import net.sf.jasperreports.engine.type.ModeEnum;
+import net.sf.jasperreports.engine.type.TabStopAlignEnum;
 import net.sf.jasperreports.engine.util.StyleResolver;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationSerializable;
 
 
 /**
  * @author Teodor Danciu (teodord@users.sourceforge.net)
  */
-public class JRBasePrintElement implements JRPrintElement, Serializable
+public class JRBasePrintElement implements JRPrintElement, Serializable, VirtualizationSerializable
 {
 	/**
 	 *
@@ -72,6 +83,11 @@ public class JRBasePrintElement implements JRPrintElement, Serializable
 	private int printElementId;
 
 	
+	public JRBasePrintElement()
+	{
+		// used internally
+	}
+	
 	/**
 	 *
 	 */
@@ -331,4 +347,152 @@ public class JRBasePrintElement implements JRPrintElement, Serializable
 	{
 		this.printElementId = printElementId;
 	}
+
+	@Override
+	public void writeVirtualized(VirtualizationOutput out) throws IOException
+	{
+		out.writeJRObject(uuid);
+		// origins, style providers and styles are shared by many elements,
+		// the object stream writes them once and then as back references
+		out.writeJRObject(origin);
+		out.writeJRObject(key);
+		writeEnum(mode, out);
+		
+		out.writeIntCompressed(sourceElementId);
+		out.writeIntCompressed(printElementId);
+		out.writeIntCompressed(x);
+		out.writeIntCompressed(y);
+		out.writeIntCompressed(height);
+		out.writeIntCompressed(width);
+		
+		out.writeJRObject(forecolor);
+		out.writeJRObject(backcolor);
+		out.writeJRObject(defaultStyleProvider);
+		out.writeJRObject(style);
+		out.writeJRObject(hasProperties() ? propertiesMap : null);
+	}
+
+	@Override
+	public void readVirtualized(VirtualizationInput in) throws IOException
+	{
+		uuid = (UUID) in.readJRObject();
+		origin = (JROrigin) in.readJRObject();
+		key = (String) in.readJRObject();
+		mode = readEnum(ModeEnum.values(), in);
+		
+		sourceElementId = in.readIntCompressed();
+		printElementId = in.readIntCompressed();
+		x = in.readIntCompressed();
+		y = in.readIntCompressed();
+		height = in.readIntCompressed();
+		width = in.readIntCompressed();
+		
+		forecolor = (Color) in.readJRObject();
+		backcolor = (Color) in.readJRObject();
+		defaultStyleProvider = (JRDefaultStyleProvider) in.readJRObject();
+		style = (JRStyle) in.readJRObject();
+		propertiesMap = (JRPropertiesMap) in.readJRObject();
+	}
+	
+	protected static void writeEnum(Enum<?> value, VirtualizationOutput out) throws IOException
+	{
+		out.writeIntCompressed(value == null ? 0 : value.ordinal() + 1);
+	}
+	
+	protected static <T extends Enum<T>> T readEnum(T[] values, VirtualizationInput in) throws IOException
+	{
+		int idx = in.readIntCompressed();
+		return idx == 0 ? null : values[idx - 1];
+	}
+	
+	protected static void writePen(JRPen pen, VirtualizationOutput out) throws IOException
+	{
+		out.writeJRObject(pen.getOwnLineWidth());
+		writeEnum(pen.getOwnLineStyle(), out);
+		out.writeJRObject(pen.getOwnLineColor());
+	}
+	
+	protected static void readPen(JRPen pen, VirtualizationInput in) throws IOException
+	{
+		pen.setLineWidth((Float) in.readJRObject());
+		pen.setLineStyle(readEnum(LineStyleEnum.values(), in));
+		pen.setLineColor((Color) in.readJRObject());
+	}
+	
+	protected static void writeLineBox(JRLineBox lineBox, VirtualizationOutput out) throws IOException
+	{
+		out.writeJRObject(lineBox.getOwnPadding());
+		out.writeJRObject(lineBox.getOwnTopPadding());
+		out.writeJRObject(lineBox.getOwnLeftPadding());
+		out.writeJRObject(lineBox.getOwnBottomPadding());
+		out.writeJRObject(lineBox.getOwnRightPadding());
+		
+		writePen(lineBox.getPen(), out);
+		writePen(lineBox.getTopPen(), out);
+		writePen(lineBox.getLeftPen(), out);
+		writePen(lineBox.getBottomPen(), out);
+		writePen(lineBox.getRightPen(), out);
+	}
+	
+	protected static void readLineBox(JRLineBox lineBox, VirtualizationInput in) throws IOException
+	{
+		lineBox.setPadding((Integer) in.readJRObject());
+		lineBox.setTopPadding((Integer) in.readJRObject());
+		lineBox.setLeftPadding((Integer) in.readJRObject());
+		lineBox.setBottomPadding((Integer) in.readJRObject());
+		lineBox.setRightPadding((Integer) in.readJRObject());
+		
+		readPen(lineBox.getPen(), in);
+		readPen(lineBox.getTopPen(), in);
+		readPen(lineBox.getLeftPen(), in);
+		readPen(lineBox.getBottomPen(), in);
+		readPen(lineBox.getRightPen(), in);
+	}
+	
+	protected static void writeParagraph(JRParagraph paragraph, VirtualizationOutput out) throws IOException
+	{
+		writeEnum(paragraph.getOwnLineSpacing(), out);
+		out.writeJRObject(paragraph.getOwnLineSpacingSize());
+		out.writeJRObject(paragraph.getOwnFirstLineIndent());
+		out.writeJRObject(paragraph.getOwnLeftIndent());
+		out.writeJRObject(paragraph.getOwnRightIndent());
+		out.writeJRObject(paragraph.getOwnSpacingBefore());
+		out.writeJRObject(paragraph.getOwnSpacingAfter());
+		out.writeJRObject(paragraph.getOwnTabStopWidth());
+		
+		TabStop[] tabStops = paragraph.getOwnTabStops();
+		if (tabStops == null)
+		{
+			out.writeIntCompressed(0);
+		}
+		else
+		{
+			out.writeIntCompressed(tabStops.length);
+			for (TabStop tabStop : tabStops)
+			{
+				out.writeIntCompressed(tabStop.getPosition());
+				writeEnum(tabStop.getAlignment(), out);
+			}
+		}
+	}
+	
+	protected static void readParagraph(JRParagraph paragraph, VirtualizationInput in) throws IOException
+	{
+		paragraph.setLineSpacing(readEnum(LineSpacingEnum.values(), in));
+		paragraph.setLineSpacingSize((Float) in.readJRObject());
+		paragraph.setFirstLineIndent((Integer) in.readJRObject());
+		paragraph.setLeftIndent((Integer) in.readJRObject());
+		paragraph.setRightIndent((Integer) in.readJRObject());
+		paragraph.setSpacingBefore((Integer) in.readJRObject());
+		paragraph.setSpacingAfter((Integer) in.readJRObject());
+		paragraph.setTabStopWidth((Integer) in.readJRObject());
+		
+		int tabStopCount = in.readIntCompressed();
+		for (int i = 0; i < tabStopCount; i++)
+		{
+			int position = in.readIntCompressed();
+			TabStopAlignEnum alignment = readEnum(TabStopAlignEnum.values(), in);
+			paragraph.addTabStop(new TabStop(position, alignment));
+		}
+	}
 }
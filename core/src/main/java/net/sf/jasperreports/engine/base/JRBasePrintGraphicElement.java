@@ -24,12 +24,15 @@
 package net.sf.jasperreports.engine.base;
 
 import java.awt.Color;
+import java.io.IOException;
 
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRDefaultStyleProvider;
 import net.sf.jasperreports.engine.JRPen;
 import net.sf.jasperreports.engine.JRPrintGraphicElement;
 import net.sf.jasperreports.engine.type.FillEnum;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
 
 
 /**
@@ -49,6 +52,11 @@ public abstract class JRBasePrintGraphicElement extends JRBasePrintElement imple
 	protected FillEnum fill;
 
 
+	public JRBasePrintGraphicElement()
+	{
+		// used internally
+	}
+
 	/**
 	 *
 	 */
@@ -105,4 +113,23 @@ public abstract class JRBasePrintGraphicElement extends JRBasePrintElement imple
 	{
 		return getForecolor();
 	}
+
+	@Override
+	public void writeVirtualized(VirtualizationOutput out) throws IOException
+	{
+		super.writeVirtualized(out);
+		
+		writePen(linePen, out);
+		writeEnum(fill, out);
+	}
+
+	@Override
+	public void readVirtualized(VirtualizationInput in) throws IOException
+	{
+		super.readVirtualized(in);
+		
+		linePen = new JRBasePen(this);
+		readPen(linePen, in);
+		fill = readEnum(FillEnum.values(), in);
+	}
 }
@@ -23,6 +23,8 @@
  */
 package net.sf.jasperreports.engine.base;
 
+import java.io.IOException;
+
 import net.sf.jasperreports.engine.JRAnchor;
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRDefaultStyleProvider;
@@ -41,6 +43,8 @@ import net.sf.jasperreports.engine.type.OnErrorTypeEnum;
 import net.sf.jasperreports.engine.type.RotationEnum;
 import net.sf.jasperreports.engine.type.ScaleImageEnum;
 import net.sf.jasperreports.engine.type.VerticalImageAlignEnum;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
 import net.sf.jasperreports.renderers.Renderable;
 
 
@@ -81,6 +85,11 @@ public class JRBasePrintImage extends JRBasePrintGraphicElement implements JRPri
 	protected int bookmarkLevel = JRAnchor.NO_BOOKMARK;
 
 	
+	public JRBasePrintImage()
+	{
+		// used internally
+	}
+
 	/**
 	 *
 	 */
@@ -388,4 +397,55 @@ public class JRBasePrintImage extends JRBasePrintGraphicElement implements JRPri
 	{
 		visitor.visit(this, arg);
 	}
+
+	@Override
+	public void writeVirtualized(VirtualizationOutput out) throws IOException
+	{
+		super.writeVirtualized(out);
+		
+		out.writeJRObject(renderable);
+		writeEnum(scaleImage, out);
+		writeEnum(rotation, out);
+		out.writeJRObject(isUsingCache);
+		writeEnum(horizontalImageAlign, out);
+		writeEnum(verticalImageAlign, out);
+		writeEnum(onErrorType, out);
+		writeLineBox(lineBox, out);
+		
+		out.writeJRObject(anchorName);
+		out.writeIntCompressed(bookmarkLevel);
+		out.writeJRObject(linkType);
+		out.writeJRObject(linkTarget);
+		out.writeJRObject(hyperlinkReference);
+		out.writeJRObject(hyperlinkAnchor);
+		out.writeJRObject(hyperlinkPage);
+		out.writeJRObject(hyperlinkTooltip);
+		out.writeJRObject(hyperlinkParameters);
+	}
+
+	@Override
+	public void readVirtualized(VirtualizationInput in) throws IOException
+	{
+		super.readVirtualized(in);
+		
+		renderable = (Renderable) in.readJRObject();
+		scaleImage = readEnum(ScaleImageEnum.values(), in);
+		rotation = readEnum(RotationEnum.values(), in);
+		isUsingCache = (Boolean) in.readJRObject();
+		horizontalImageAlign = readEnum(HorizontalImageAlignEnum.values(), in);
+		verticalImageAlign = readEnum(VerticalImageAlignEnum.values(), in);
+		onErrorType = readEnum(OnErrorTypeEnum.values(), in);
+		lineBox = new JRBaseLineBox(this);
+		readLineBox(lineBox, in);
+		
+		anchorName = (String) in.readJRObject();
+		bookmarkLevel = in.readIntCompressed();
+		linkType = (String) in.readJRObject();
+		linkTarget = (String) in.readJRObject();
+		hyperlinkReference = (String) in.readJRObject();
+		hyperlinkAnchor = (String) in.readJRObject();
+		hyperlinkPage = (Integer) in.readJRObject();
+		hyperlinkTooltip = (String) in.readJRObject();
+		hyperlinkParameters = (JRPrintHyperlinkParameters) in.readJRObject();
+	}
 }
@@ -23,11 +23,15 @@
  */
 package net.sf.jasperreports.engine.base;
 
+import java.io.IOException;
+
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRDefaultStyleProvider;
 import net.sf.jasperreports.engine.JRPrintLine;
 import net.sf.jasperreports.engine.PrintElementVisitor;
 import net.sf.jasperreports.engine.type.LineDirectionEnum;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
 
 
 /**
@@ -46,6 +50,11 @@ public class JRBasePrintLine extends JRBasePrintGraphicElement implements JRPrin
 	protected LineDirectionEnum direction = LineDirectionEnum.TOP_DOWN;
 
 
+	public JRBasePrintLine()
+	{
+		// used internally
+	}
+
 	/**
 	 *
 	 */
@@ -94,4 +103,20 @@ public class JRBasePrintLine extends JRBasePrintGraphicElement implements JRPrin
 	{
 		visitor.visit(this, arg);
 	}
+
+	@Override
+	public void writeVirtualized(VirtualizationOutput out) throws IOException
+	{
+		super.writeVirtualized(out);
+		
+		writeEnum(direction, out);
+	}
+
+	@Override
+	public void readVirtualized(VirtualizationInput in) throws IOException
+	{
+		super.readVirtualized(in);
+		
+		direction = readEnum(LineDirectionEnum.values(), in);
+	}
 }
@@ -23,10 +23,14 @@
  */
 package net.sf.jasperreports.engine.base;
 
+import java.io.IOException;
+
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRDefaultStyleProvider;
 import net.sf.jasperreports.engine.JRPrintRectangle;
 import net.sf.jasperreports.engine.PrintElementVisitor;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
 
 
 /**
@@ -46,6 +50,11 @@ public class JRBasePrintRectangle extends JRBasePrintGraphicElement implements J
 	protected Integer radius;
 
 
+	public JRBasePrintRectangle()
+	{
+		// used internally
+	}
+
 	/**
 	 *
 	 */
@@ -79,5 +88,19 @@ public class JRBasePrintRectangle extends JRBasePrintGraphicElement implements J
 		visitor.visit(this, arg);
 	}
 
+	@Override
+	public void writeVirtualized(VirtualizationOutput out) throws IOException
+	{
+		super.writeVirtualized(out);
+		
+		out.writeJRObject(radius);
+	}
 
+	@Override
+	public void readVirtualized(VirtualizationInput in) throws IOException
+	{
+		super.readVirtualized(in);
+		
+		radius = (Integer) in.readJRObject();
+	}
 }
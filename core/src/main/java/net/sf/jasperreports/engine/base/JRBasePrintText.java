@@ -24,6 +24,7 @@
 package net.sf.jasperreports.engine.base;
 
 import java.awt.Color;
+import java.io.IOException;
 
 import net.sf.jasperreports.engine.JRAnchor;
 import net.sf.jasperreports.engine.JRCommonText;
@@ -48,6 +49,8 @@ import net.sf.jasperreports.engine.type.RunDirectionEnum;
 import net.sf.jasperreports.engine.type.VerticalTextAlignEnum;
 import net.sf.jasperreports.engine.util.JRStyledText;
 import net.sf.jasperreports.engine.util.JRStyledTextParser;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
 
 
 /**
@@ -116,6 +119,11 @@ public class JRBasePrintText extends JRBasePrintElement implements JRPrintText
 	protected String localeCode;
 	protected String timeZoneId;
 	
+	public JRBasePrintText()
+	{
+		// used internally
+	}
+
 	/**
 	 *
 	 */
@@ -841,4 +849,146 @@ public class JRBasePrintText extends JRBasePrintElement implements JRPrintText
 	{
 		visitor.visit(this, arg);
 	}
+
+	@Override
+	public void writeVirtualized(VirtualizationOutput out) throws IOException
+	{
+		super.writeVirtualized(out);
+		
+		out.writeJRObject(text);
+		// the value is usually the same as the text
+		boolean hasValue = !(text == null ? value == null : (value instanceof String && text.equals(value)));
+		out.writeBoolean(hasValue);
+		if (hasValue)
+		{
+			out.writeJRObject(value);
+		}
+		out.writeJRObject(textTruncateIndex);
+		out.writeJRObject(textTruncateSuffix);
+		
+		if (lineBreakOffsets == null)
+		{
+			out.writeIntCompressed(0);
+		}
+		else
+		{
+			out.writeIntCompressed(lineBreakOffsets.length + 1);
+			for (int i = 0; i < lineBreakOffsets.length; i++)
+			{
+				out.writeIntCompressed(lineBreakOffsets[i]);
+			}
+		}
+		
+		out.writeFloat(lineSpacingFactor);
+		out.writeFloat(leadingOffset);
+		out.writeFloat(textHeight);
+		out.writeJRObject(averageCharWidth);
+		writeEnum(horizontalTextAlign, out);
+		writeEnum(verticalTextAlign, out);
+		writeEnum(rotation, out);
+		writeEnum(runDirection, out);
+		out.writeJRObject(markup);
+		out.writeJRObject(textFormat);
+		
+		out.writeJRObject(anchorName);
+		out.writeIntCompressed(bookmarkLevel);
+		out.writeJRObject(linkType);
+		out.writeJRObject(linkTarget);
+		out.writeJRObject(hyperlinkReference);
+		out.writeJRObject(hyperlinkAnchor);
+		out.writeJRObject(hyperlinkPage);
+		out.writeJRObject(hyperlinkTooltip);
+		out.writeJRObject(hyperlinkParameters);
+		
+		writeLineBox(lineBox, out);
+		writeParagraph(paragraph, out);
+		
+		out.writeJRObject(fontName);
+		out.writeJRObject(isBold);
+		out.writeJRObject(isItalic);
+		out.writeJRObject(isUnderline);
+		out.writeJRObject(isStrikeThrough);
+		out.writeJRObject(fontSize);
+		out.writeJRObject(pdfFontName);
+		out.writeJRObject(pdfEncoding);
+		out.writeJRObject(isPdfEmbedded);
+		
+		out.writeJRObject(valueClassName);
+		out.writeJRObject(pattern);
+		out.writeJRObject(formatFactoryClass);
+		out.writeJRObject(localeCode);
+		out.writeJRObject(timeZoneId);
+	}
+
+	@Override
+	public void readVirtualized(VirtualizationInput in) throws IOException
+	{
+		super.readVirtualized(in);
+		
+		text = (String) in.readJRObject();
+		boolean hasValue = in.readBoolean();
+		value = hasValue ? in.readJRObject() : text;
+		textTruncateIndex = (Integer) in.readJRObject();
+		textTruncateSuffix = (String) in.readJRObject();
+		
+		int offsetCount = in.readIntCompressed() - 1;
+		if (offsetCount < 0)
+		{
+			lineBreakOffsets = null;
+		}
+		else if (offsetCount == 0)
+		{
+			lineBreakOffsets = ZERO_LINE_BREAK_OFFSETS;
+		}
+		else
+		{
+			lineBreakOffsets = new short[offsetCount];
+			for (int i = 0; i < offsetCount; i++)
+			{
+				lineBreakOffsets[i] = (short) in.readIntCompressed();
+			}
+		}
+		
+		lineSpacingFactor = in.readFloat();
+		leadingOffset = in.readFloat();
+		textHeight = in.readFloat();
+		averageCharWidth = (Float) in.readJRObject();
+		horizontalTextAlign = readEnum(HorizontalTextAlignEnum.values(), in);
+		verticalTextAlign = readEnum(VerticalTextAlignEnum.values(), in);
+		rotation = readEnum(RotationEnum.values(), in);
+		runDirection = readEnum(RunDirectionEnum.values(), in);
+		markup = (String) in.readJRObject();
+		textFormat = (TextFormat) in.readJRObject();
+		
+		anchorName = (String) in.readJRObject();
+		bookmarkLevel = in.readIntCompressed();
+		linkType = (String) in.readJRObject();
+		linkTarget = (String) in.readJRObject();
+		hyperlinkReference = (String) in.readJRObject();
+		hyperlinkAnchor = (String) in.readJRObject();
+		hyperlinkPage = (Integer) in.readJRObject();
+		hyperlinkTooltip = (String) in.readJRObject();
+		hyperlinkParameters = (JRPrintHyperlinkParameters) in.readJRObject();
+		
+		lineBox = new JRBaseLineBox(this);
+		readLineBox(lineBox, in);
+		paragraph = new JRBaseParagraph(this);
+		readParagraph(paragraph, in);
+		
+		fontName = (String) in.readJRObject();
+		isBold = (Boolean) in.readJRObject();
+		isItalic = (Boolean) in.readJRObject();
+		isUnderline = (Boolean) in.readJRObject();
+		isStrikeThrough = (Boolean) in.readJRObject();
+		fontSize = (Float) in.readJRObject();
+		pdfFontName = (String) in.readJRObject();
+		pdfEncoding = (String) in.readJRObject();
+		isPdfEmbedded = (Boolean) in.readJRObject();
+		
+		valueClassName = (String) in.readJRObject();
+		pattern = (String) in.readJRObject();
+		formatFactoryClass = (String) in.readJRObject();
+		localeCode = (String) in.readJRObject();
+		timeZoneId = (String) in.readJRObject();
+	}
 }
@@ -262,6 +262,19 @@ public class JRVirtualPrintPage implements JRPrintPage, Serializable
 		elements.dispose();
 	}
 	
+	/**
+	 * Loads the page elements in memory ahead of the page being used.
+	 * <p>
+	 * The page is not marked as used, so that the virtualizer keeps the page that
+	 * is currently in use in memory.
+	 * 
+	 * @see JRVirtualizationContext#prefetchPages(List, int)
+	 */
+	public void prefetchVirtualData()
+	{
+		elements.prefetchVirtualData();
+	}
+	
 	public JRVirtualizationContext getVirtualizationContext()
 	{
 		return elements.getVirtualizationContext();
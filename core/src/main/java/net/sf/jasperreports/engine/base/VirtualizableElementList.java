@@ -175,6 +175,19 @@ public class VirtualizableElementList extends AbstractList<JRPrintElement> imple
 		store.dispose();
 	}
 
+	/**
+	 * Loads the elements of the list in memory, without marking them as used.
+	 */
+	public void prefetchVirtualData()
+	{
+		ElementStore currentStore;
+		synchronized (this)
+		{
+			currentStore = store;
+		}
+		currentStore.prefetchVirtualData();
+	}
+
 	public JRVirtualizationContext getVirtualizationContext()
 	{
 		return virtualizationContext;
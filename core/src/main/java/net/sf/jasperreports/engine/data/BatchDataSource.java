@@ -0,0 +1,72 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+
+/**
+ * {@link JRDataSource} extension that can read several records at once,
+ * producing an array of values for each field.
+ * <p/>
+ * Reading records in batches avoids the per record and per field calls to
+ * {@link #getFieldValue(JRField)}, and allows implementations to resolve the field
+ * columns and value types once for all the records in a batch.
+ * <p/>
+ * The records are read in the same order in which {@link #next()} would read them,
+ * and after a batch has been read the data source is positioned on the last record
+ * of the batch. {@link IndexedDataSource} implementations return the index of that
+ * record after a batch has been read.
+ * 
+ * @see net.sf.jasperreports.engine.fill.JRFillDataset#PROPERTY_DATA_BATCH_SIZE
+ */
+public interface BatchDataSource extends JRDataSource
+{
+
+	/**
+	 * Determines whether records can be read from the data source in batches.
+	 * <p/>
+	 * Implementations return <code>false</code> when batches would not produce the same 
+	 * values as reading the records one by one, e.g. for subclasses that override 
+	 * {@link #next()} or {@link #getFieldValue(JRField)}.
+	 * 
+	 * @return whether {@link #nextBatch(JRField[], Object[][], int)} can be used
+	 */
+	boolean isBatchReadSupported();
+
+	/**
+	 * Reads the next records from the data source.
+	 * 
+	 * @param fields the fields for which values are read
+	 * @param values the arrays in which the values are written, with <code>values[i][j]</code> 
+	 * being the value of field <code>i</code> in record <code>j</code>
+	 * @param maxCount the maximum number of records to read, 
+	 * which is not greater than the length of the value arrays
+	 * @return the number of records read, 0 if the data source has no more records
+	 * @throws JRException
+	 */
+	int nextBatch(JRField[] fields, Object[][] values, int maxCount) throws JRException;
+
+}
@@ -32,12 +32,13 @@ import java.util.Map;
 import net.sf.jasperreports.engine.JRField;
 import net.sf.jasperreports.engine.JRRewindableDataSource;
 import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.util.ClassUtils;
 
 
 /**
  * @author Teodor Danciu (teodord@users.sourceforge.net)
  */
-public class ListOfArrayDataSource implements JRRewindableDataSource
+public class ListOfArrayDataSource implements JRRewindableDataSource, BatchDataSource
 {
 	public static final String EXCEPTION_MESSAGE_KEY_FIELD_NOT_FOUND = "data.array.list.field.not.found";
 
@@ -90,6 +91,53 @@ public class ListOfArrayDataSource implements JRRewindableDataSource
 
 	@Override
 	public Object getFieldValue(JRField jrField)
+	{
+		return currentRecord[getFieldIndex(jrField)];
+	}
+
+
+	/**
+	 * Returns <code>false</code> for subclasses that override {@link #next()} or {@link #getFieldValue(JRField)},
+	 * as batches read the records directly from the list.
+	 */
+	@Override
+	public boolean isBatchReadSupported()
+	{
+		return !ClassUtils.overridesMethod(getClass(), ListOfArrayDataSource.class, "next")
+				&& !ClassUtils.overridesMethod(getClass(), ListOfArrayDataSource.class, 
+						"getFieldValue", JRField.class);
+	}
+
+
+	@Override
+	public int nextBatch(JRField[] fields, Object[][] values, int maxCount)
+	{
+		if (iterator == null)
+		{
+			return 0;
+		}
+		
+		int[] fieldIndexes = new int[fields.length];
+		for (int i = 0; i < fields.length; i++)
+		{
+			fieldIndexes[i] = getFieldIndex(fields[i]);
+		}
+		
+		int count = 0;
+		while (count < maxCount && iterator.hasNext())
+		{
+			currentRecord = iterator.next();
+			for (int i = 0; i < fieldIndexes.length; i++)
+			{
+				values[i][count] = currentRecord[fieldIndexes[i]];
+			}
+			++count;
+		}
+		return count;
+	}
+
+
+	protected int getFieldIndex(JRField jrField)
 	{
 		Integer fieldIndex = columnNamesMap.get(jrField.getName());
 
@@ -100,8 +148,8 @@ public class ListOfArrayDataSource implements JRRewindableDataSource
 					EXCEPTION_MESSAGE_KEY_FIELD_NOT_FOUND,
 					new Object[]{jrField.getName()});
 		}
-
-		return currentRecord[fieldIndex];
+		
+		return fieldIndex;
 	}
 
 
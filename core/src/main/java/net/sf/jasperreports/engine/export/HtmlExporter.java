@@ -365,6 +365,7 @@ public class HtmlExporter extends AbstractHtmlExporter<HtmlReportConfiguration,
 					checkInterrupted();
 
 					page = pages.get(pageIndex);
+					prefetchPages(pages, pageIndex);
 
 					/*   */
 					exportPage(page);
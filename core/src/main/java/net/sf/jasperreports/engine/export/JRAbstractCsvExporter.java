@@ -173,6 +173,7 @@ public abstract class JRAbstractCsvExporter<RC extends CsvReportConfiguration, C
 					checkInterrupted();
 				
 					JRPrintPage page = pages.get(pageIndex);
+					prefetchPages(pages, pageIndex);
 
 					/*   */
 					exportPage(page);
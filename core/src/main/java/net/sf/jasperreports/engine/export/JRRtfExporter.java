@@ -300,6 +300,7 @@ public class JRRtfExporter extends JRAbstractExporter<RtfReportConfiguration, Rt
 					checkInterrupted();
 
 					JRPrintPage page = pages.get(pageIndex);
+					prefetchPages(pages, pageIndex);
 
 					contentWriter.write("\n");
 
@@ -322,6 +322,7 @@ public class JRTextExporter extends JRAbstractExporter<TextReportConfiguration,
 					checkInterrupted();
 
 					JRPrintPage page = pages.get(pageIndex);
+					prefetchPages(pages, pageIndex);
 
 					/*   */
 					exportPage(page);
@@ -490,6 +490,7 @@ public abstract class JRXlsAbstractExporter<RC extends XlsReportConfiguration, C
 						checkInterrupted();
 
 						JRPrintPage page = pages.get(pageIndex);
+						prefetchPages(pages, pageIndex);
 						
 						pageFormat = jasperPrint.getPageFormat(pageIndex);
 						
@@ -521,6 +522,7 @@ public abstract class JRXlsAbstractExporter<RC extends XlsReportConfiguration, C
 					{
 						checkInterrupted();
 						JRPrintPage page = pages.get(pageIndex);
+						prefetchPages(pages, pageIndex);
 						pageFormat = jasperPrint.getPageFormat(pageIndex);
 						startRow = exportPage(page, xCuts, startRow, jasperPrint.getName());//FIXMEPART
  						pageExported = true;
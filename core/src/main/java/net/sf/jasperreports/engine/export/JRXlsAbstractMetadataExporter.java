@@ -184,6 +184,7 @@ public abstract class JRXlsAbstractMetadataExporter<RC extends XlsMetadataReport
 						checkInterrupted();
 
 						JRPrintPage page = pages.get(pageIndex);
+						prefetchPages(pages, pageIndex);
 
 						pageFormat = jasperPrint.getPageFormat(pageIndex);
 
@@ -226,6 +227,7 @@ public abstract class JRXlsAbstractMetadataExporter<RC extends XlsMetadataReport
 					{
 						checkInterrupted();
 						JRPrintPage page = pages.get(pageIndex);
+						prefetchPages(pages, pageIndex);
 						pageFormat = jasperPrint.getPageFormat(pageIndex);
 						exportPage(page);
 						pageExported = true;
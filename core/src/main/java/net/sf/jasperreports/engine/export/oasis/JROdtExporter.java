@@ -387,6 +387,7 @@ public class JROdtExporter extends JRAbstractExporter<OdtReportConfiguration, Od
 					}
 
 					page = pages.get(pageIndex);
+					prefetchPages(pages, pageIndex);
 
 					exportPage(page);
 				}
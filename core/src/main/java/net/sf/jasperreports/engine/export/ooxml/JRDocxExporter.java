@@ -485,6 +485,7 @@ public class JRDocxExporter extends JRAbstractExporter<DocxReportConfiguration,
 						checkInterrupted();
 
 						page = pages.get(pageIndex);
+						prefetchPages(pages, pageIndex);
 
 						
 						exportPage(page);
@@ -503,6 +503,7 @@ public class JRPptxExporter extends JRAbstractExporter<PptxReportConfiguration,
 					checkInterrupted();
 
 					JRPrintPage page = pages.get(pageIndex);
+					prefetchPages(pages, pageIndex);
 
 					createSlide(net.sf.jasperreports.engine.util.PageRange.isPageInRanges(pageIndex + 1, hideSmPageRanges));
 					
@@ -334,6 +334,7 @@ public class XlsxMetadataExporter extends ExcelAbstractExporter<XlsxMetadataRepo
 							closeSheet();
 						}
 						JRPrintPage page = pages.get(pageIndex);
+						prefetchPages(pages, pageIndex);
 						pageFormat = jasperPrint.getPageFormat(pageIndex);
 
 						sheetInfo = getSheetInfo(configuration, null);
@@ -380,6 +381,7 @@ public class XlsxMetadataExporter extends ExcelAbstractExporter<XlsxMetadataRepo
 					{
 						checkInterrupted();
 						JRPrintPage page = pages.get(pageIndex);
+						prefetchPages(pages, pageIndex);
 						pageFormat = jasperPrint.getPageFormat(pageIndex);
 						exportPage(page);
 						pageExported = true;
@@ -0,0 +1,233 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.data.cache.ColumnValues;
+import net.sf.jasperreports.data.cache.ColumnValuesAggregator;
+import net.sf.jasperreports.data.cache.ColumnValuesDataSource;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRExpressionChunk;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.type.IncrementTypeEnum;
+import net.sf.jasperreports.engine.type.ResetTypeEnum;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+/**
+ * Computes report level variables directly from cached column values.
+ * 
+ * <p>
+ * Report level variables that calculate the sum, count, lowest, highest or average 
+ * value of a numeric field are computed by aggregating the column values of the field
+ * in {@link ColumnValuesDataSource}, without evaluating the variable expressions for each record.
+ * The computed variables hold their final values while the dataset is iterated.
+ * </p>
+ * 
+ * @see #PROPERTY_AGGREGATE_VARIABLES
+ */
+public final class CachedDataVariablesUtil
+{
+	private static final Log log = LogFactory.getLog(CachedDataVariablesUtil.class);
+	
+	/**
+	 * Property that enables the computation of report level variables from cached data.
+	 * 
+	 * <p>
+	 * When set, report level variables with sum, count, lowest, highest and average
+	 * calculations, with no increment type, no initial value and no custom incrementer,
+	 * and whose expression consists of a single <code>Long</code>, <code>Integer</code> 
+	 * or <code>Double</code> field are computed at once from the cached data, 
+	 * provided that the dataset uses a cached data source and that it has no sort fields, 
+	 * filters and maximum record count.
+	 * Such variables have their final values for every record, therefore the property should 
+	 * only be set when the variables are not displayed or used with intermediate values.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_CACHE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_AGGREGATE_VARIABLES = JRPropertiesUtil.PROPERTY_PREFIX + "data.cache.aggregate.variables";
+	
+	private CachedDataVariablesUtil()
+	{
+	}
+	
+	/**
+	 * Computes the final values of the variables that can be aggregated from the cached data.
+	 * 
+	 * @param dataSource the cached data source
+	 * @param variables the dataset variables
+	 * @param fields the dataset fields, by name
+	 * @return the computed variable values
+	 */
+	public static Map<JRFillVariable, Object> aggregateVariables(ColumnValuesDataSource dataSource, 
+			JRFillVariable[] variables, Map<String, JRFillField> fields)
+	{
+		Map<JRFillVariable, Object> values = new LinkedHashMap<>();
+		if (variables == null || dataSource.getSize() == 0)
+		{
+			return values;
+		}
+		
+		for (JRFillVariable variable : variables)
+		{
+			JRFillField field = aggregatedField(variable, fields);
+			ColumnValues columnValues = field == null ? null : dataSource.getColumnValues(field.getName());
+			if (columnValues != null)
+			{
+				ColumnValuesAggregator aggregator = new ColumnValuesAggregator(
+						!Double.class.equals(field.getValueClass()));
+				aggregator.aggregate(columnValues);
+				Object value = variableValue(variable, aggregator);
+				
+				if (log.isDebugEnabled())
+				{
+					log.debug("variable " + variable.getName() + " aggregated from cached data to " + value);
+				}
+				
+				values.put(variable, value);
+			}
+		}
+		return values;
+	}
+
+	private static JRFillField aggregatedField(JRFillVariable variable, Map<String, JRFillField> fields)
+	{
+		if (variable.isSystemDefined()
+				|| variable.getResetType() != ResetTypeEnum.REPORT
+				|| variable.getIncrementType() != IncrementTypeEnum.NONE
+				|| variable.getIncrementerFactoryClassName() != null
+				|| variable.getInitialValueExpression() != null)
+		{
+			return null;
+		}
+		
+		String fieldName = singleFieldName(variable.getExpression());
+		JRFillField field = fieldName == null ? null : fields.get(fieldName);
+		if (field == null || !isAggregatedType(field.getValueClass()))
+		{
+			return null;
+		}
+		
+		Class<?> valueClass = variable.getValueClass();
+		switch (variable.getCalculation())
+		{
+		case COUNT:
+			return Long.class.equals(valueClass) || Integer.class.equals(valueClass) ? field : null;
+		case SUM:
+		case LOWEST:
+		case HIGHEST:
+		case AVERAGE:
+			return valueClass.equals(field.getValueClass()) ? field : null;
+		default:
+			return null;
+		}
+	}
+	
+	private static String singleFieldName(JRExpression expression)
+	{
+		JRExpressionChunk[] chunks = expression == null ? null : expression.getChunks();
+		if (chunks == null || chunks.length != 1 || chunks[0].getType() != JRExpressionChunk.TYPE_FIELD)
+		{
+			return null;
+		}
+		return chunks[0].getText();
+	}
+
+	private static boolean isAggregatedType(Class<?> valueClass)
+	{
+		return Long.class.equals(valueClass) || Integer.class.equals(valueClass) 
+				|| Double.class.equals(valueClass);
+	}
+	
+	private static Object variableValue(JRFillVariable variable, ColumnValuesAggregator aggregator)
+	{
+		Class<?> valueClass = variable.getValueClass();
+		int count = aggregator.getCount();
+		switch (variable.getCalculation())
+		{
+		case COUNT:
+			return Integer.class.equals(valueClass) ? (Object) count : (Object) (long) count;
+		case SUM:
+			if (count == 0)
+			{
+				return null;
+			}
+			return numberValue(valueClass, aggregator.getLongSum(), aggregator.getDoubleSum());
+		case LOWEST:
+			if (count == 0)
+			{
+				return null;
+			}
+			return numberValue(valueClass, aggregator.getLongMin(), aggregator.getDoubleMin());
+		case HIGHEST:
+			if (count == 0)
+			{
+				return null;
+			}
+			return numberValue(valueClass, aggregator.getLongMax(), aggregator.getDoubleMax());
+		case AVERAGE:
+			if (count == 0)
+			{
+				return null;
+			}
+			if (Integer.class.equals(valueClass))
+			{
+				return (int) aggregator.getLongSum() / count;
+			}
+			if (Long.class.equals(valueClass))
+			{
+				return aggregator.getLongSum() / count;
+			}
+			return aggregator.getDoubleSum() / count;
+		default:
+			throw new IllegalArgumentException(variable.getCalculation().getName());
+		}
+	}
+
+	private static Object numberValue(Class<?> valueClass, long longValue, double doubleValue)
+	{
+		if (Integer.class.equals(valueClass))
+		{
+			return (int) longValue;
+		}
+		if (Long.class.equals(valueClass))
+		{
+			return longValue;
+		}
+		return doubleValue;
+	}
+	
+}
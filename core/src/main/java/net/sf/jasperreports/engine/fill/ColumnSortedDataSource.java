@@ -0,0 +1,128 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.jasperreports.data.cache.ColumnValues;
+import net.sf.jasperreports.data.cache.ColumnValuesIterator;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.data.IndexedDataSource;
+
+/**
+ * Sorted data source that reads the records from column values stored in sort order.
+ * 
+ * @see DatasetSortUtil#PROPERTY_SORT_COLUMN_STORAGE
+ */
+public class ColumnSortedDataSource implements JRRewindableDataSource, IndexedDataSource
+{
+	
+	private final int size;
+	private final int[] originalIndexes;
+	private final ColumnValuesIterator[] iterators;
+	private final Map<String, ColumnValuesIterator> fieldIterators;
+	
+	private int currentIndex;
+	
+	/**
+	 * @param fieldNames the field names
+	 * @param sortedValues the field values, in sort order
+	 * @param originalIndexes the original indexes of the sorted records
+	 */
+	public ColumnSortedDataSource(String[] fieldNames, ColumnValues[] sortedValues, int[] originalIndexes)
+	{
+		this.size = originalIndexes.length;
+		this.originalIndexes = originalIndexes;
+		this.iterators = new ColumnValuesIterator[sortedValues.length];
+		this.fieldIterators = new HashMap<>();
+		for (int i = 0; i < sortedValues.length; i++)
+		{
+			if (sortedValues[i].size() != size)
+			{
+				throw new IllegalArgumentException("Value count " + sortedValues[i].size() 
+						+ " doesn't match record count " + size);
+			}
+			
+			iterators[i] = sortedValues[i].iterator();
+			fieldIterators.put(fieldNames[i], iterators[i]);
+		}
+		
+		this.currentIndex = 0;
+	}
+	
+	@Override
+	public boolean next()
+	{
+		if (currentIndex >= size)
+		{
+			return false;
+		}
+		
+		for (ColumnValuesIterator iterator : iterators)
+		{
+			iterator.next();
+		}
+		++currentIndex;
+		return true;
+	}
+
+	@Override
+	public Object getFieldValue(JRField jrField)
+	{
+		ColumnValuesIterator iterator = fieldIterators.get(jrField.getName());
+		if (iterator == null)
+		{
+			throw 
+				new JRRuntimeException(
+					SortedDataSource.EXCEPTION_MESSAGE_KEY_FIELD_NOT_FOUND,
+					new Object[]{jrField.getName()});
+		}
+		return iterator.get();
+	}
+
+	@Override
+	public void moveFirst()
+	{
+		currentIndex = 0;
+		for (ColumnValuesIterator iterator : iterators)
+		{
+			iterator.moveFirst();
+		}
+	}
+
+	@Override
+	public int getRecordIndex()
+	{
+		return originalIndexes[currentIndex - 1];
+	}
+
+	public int getRecordCount()
+	{
+		return size;
+	}
+	
+}
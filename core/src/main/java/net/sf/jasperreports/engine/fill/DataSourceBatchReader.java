@@ -0,0 +1,96 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.BatchDataSource;
+import net.sf.jasperreports.engine.data.IndexedDataSource;
+
+/**
+ * Reads records from a {@link BatchDataSource} in batches, and provides the records
+ * one at a time to a fill dataset.
+ */
+class DataSourceBatchReader
+{
+	private final BatchDataSource dataSource;
+	private final JRField[] fields;
+	private final int batchSize;
+	private final Object[][] values;
+	
+	private int count;
+	private int position;
+	private boolean exhausted;
+	private int lastRecordIndex;
+	
+	public DataSourceBatchReader(BatchDataSource dataSource, JRField[] fields, int batchSize)
+	{
+		this.dataSource = dataSource;
+		this.fields = fields == null ? new JRField[0] : fields;
+		this.batchSize = batchSize;
+		this.values = new Object[this.fields.length][batchSize];
+		this.count = 0;
+		this.position = -1;
+	}
+	
+	public boolean next() throws JRException
+	{
+		if (position + 1 < count)
+		{
+			++position;
+			return true;
+		}
+		
+		if (exhausted)
+		{
+			return false;
+		}
+		
+		count = dataSource.nextBatch(fields, values, batchSize);
+		if (count <= 0)
+		{
+			count = 0;
+			exhausted = true;
+			return false;
+		}
+		
+		position = 0;
+		if (dataSource instanceof IndexedDataSource)
+		{
+			// the data source is positioned on the last record of the batch
+			lastRecordIndex = ((IndexedDataSource) dataSource).getRecordIndex();
+		}
+		return true;
+	}
+	
+	public Object getFieldValue(int fieldIndex)
+	{
+		return values[fieldIndex][position];
+	}
+	
+	public int getRecordIndex()
+	{
+		return lastRecordIndex - (count - 1 - position);
+	}
+}
@@ -49,6 +49,11 @@ public class DatasetSortInfo
 			this.collatorFlag = collatorFlag;
 		}
 
+		public JRSortField getSortField()
+		{
+			return sortField;
+		}
+
 		public int getRecordIndex()
 		{
 			return recordIndex;
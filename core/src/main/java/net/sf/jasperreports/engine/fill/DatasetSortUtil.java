@@ -23,18 +23,36 @@
  */
 package net.sf.jasperreports.engine.fill;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.data.cache.ColumnDataCacheHandler;
+import net.sf.jasperreports.data.cache.ColumnStore;
+import net.sf.jasperreports.data.cache.ColumnValues;
+import net.sf.jasperreports.data.cache.ColumnValuesIterator;
+import net.sf.jasperreports.data.cache.TypedColumnStore;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRField;
 import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRScriptletException;
 import net.sf.jasperreports.engine.JRSortField;
@@ -42,8 +60,12 @@ import net.sf.jasperreports.engine.JRVariable;
 import net.sf.jasperreports.engine.design.JRDesignDatasetRun;
 import net.sf.jasperreports.engine.fill.DatasetSortInfo.RecordField;
 import net.sf.jasperreports.engine.fill.DatasetSortInfo.SortFieldInfo;
+import net.sf.jasperreports.engine.fill.ExternalSortedDataSource.SortRun;
 import net.sf.jasperreports.engine.fill.SortedDataSource.SortRecord;
 import net.sf.jasperreports.engine.type.SortFieldTypeEnum;
+import net.sf.jasperreports.engine.util.IndexSort;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
+import net.sf.jasperreports.properties.PropertyConstants;
 
 
 /**
@@ -51,8 +73,102 @@ import net.sf.jasperreports.engine.type.SortFieldTypeEnum;
  */
 public class DatasetSortUtil
 {
+	private static final Log log = LogFactory.getLog(DatasetSortUtil.class);
+	
 	public static final String EXCEPTION_MESSAGE_KEY_SORT_FIELD_NOT_FOUND = "fill.dataset.sort.field.not.found";
 	public static final String EXCEPTION_MESSAGE_KEY_SORT_VARIABLE_NOT_FOUND = "fill.dataset.sort.variable.not.found";
+	public static final String EXCEPTION_MESSAGE_KEY_SORT_RUN_WRITE_ERROR = "fill.dataset.sort.run.write.error";
+
+	/**
+	 * Property that enables external sorting for datasets with sort fields and specifies 
+	 * the maximum number of records that are sorted in memory.
+	 * <p>
+	 * When the number of records exceeds the value of this property, the records are sorted 
+	 * in runs of the specified size which are written to temporary files, and the runs are merged
+	 * while the sorted data is iterated.
+	 * If the dataset has fewer records than the run size, the records are sorted in memory.
+	 * When the records are already in sort order, the runs are written as they are and 
+	 * read one after the other without merging.
+	 * </p>
+	 * <p>
+	 * Datasets that are sorted externally are not included in data snapshots.
+	 * By default all records are sorted in memory.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_EXTERNAL_SORT_RUN_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "dataset.sort.external.run.size";
+
+	/**
+	 * Property that specifies the directory in which the sorted runs are written
+	 * when sorting datasets externally.
+	 * <p>
+	 * If the property is not set, the runs are written to the system temporary directory.
+	 * </p>
+	 * 
+	 * @see #PROPERTY_EXTERNAL_SORT_RUN_SIZE
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "System temporary directory",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1
+			)
+	public static final String PROPERTY_EXTERNAL_SORT_DIRECTORY = JRPropertiesUtil.PROPERTY_PREFIX + "dataset.sort.external.directory";
+
+	/**
+	 * Property that specifies the number of sorted records that are kept for datasets with sort fields.
+	 * <p>
+	 * When set, only the first records in the sort order are retained, using a bounded heap,
+	 * and the rest of the records are discarded while the data source is iterated.
+	 * This should be used when only the top records of the sorted dataset are displayed, for instance
+	 * via a {@link JRParameter#REPORT_MAX_COUNT maximum record count} set to the same value.
+	 * Filter expressions are applied after sorting, therefore records that do not match the
+	 * filter reduce the number of records that are displayed.
+	 * </p>
+	 * <p>
+	 * Datasets that lose records by top-N sorting are not included in data snapshots.
+	 * When the property is set, the records are not sorted externally.
+	 * By default all records are kept.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_SORT_TOP_COUNT = JRPropertiesUtil.PROPERTY_PREFIX + "dataset.sort.top.count";
+
+	/**
+	 * Flag property that specifies whether the records of datasets with sort fields are stored
+	 * column-wise while sorting.
+	 * <p>
+	 * When set, the field values are stored in the compressed column stores used for data snapshots
+	 * and only the sort key values are kept as objects for each record.
+	 * The records are sorted by index, and the field values are then rearranged one column at a time.
+	 * If the field values are not supported by the column stores, the records are sorted as objects.
+	 * </p>
+	 * <p>
+	 * Datasets sorted with column storage are not included in data snapshots.
+	 * The property is not used when {@link #PROPERTY_SORT_TOP_COUNT} is set,
+	 * and it takes precedence over {@link #PROPERTY_EXTERNAL_SORT_RUN_SIZE}.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_SORT_COLUMN_STORAGE = JRPropertiesUtil.PROPERTY_PREFIX + "dataset.sort.column.storage";
 
 
 	/**
@@ -106,31 +222,189 @@ public class DatasetSortUtil
 		) throws JRException
 	{
 		DatasetSortInfo sortInfo = createSortInfo(dataset);
+		RecordComparator comparator = new RecordComparator(sortInfo, locale);
 		
-		SortFillDatasetRun sortDatasetRun = new SortFillDatasetRun(filler, dataset, sortInfo);
+		SortFillDatasetRun sortDatasetRun = new SortFillDatasetRun(filler, dataset, sortInfo, comparator);
 		
 		List<SortedDataSource.SortRecord> records = sortDatasetRun.sort();
 		
-		// using indirect sorting in order to also preserve the original record order for data caching
-		int recordCount = records.size();
-		// we need wrapper objects for Arrays.sort with comparator
-		Integer[] indexes = new Integer[recordCount];
-		for (int i = 0; i < recordCount; i++) {
-			indexes[i] = i;
-		}
-		
-		/*   */
-		Arrays.sort(
-			indexes, 
-			new DataSourceComparator(
-				sortInfo, 
-				locale,
-				records
-				)
-			);
+		return sortRecords(sortInfo, records, comparator, sortDatasetRun.isInputOrdered());
+	}
+
+
+	/**
+	 * Creates a sorted data source for a dataset, keeping only the top records when 
+	 * {@link #PROPERTY_SORT_TOP_COUNT} is set, storing the records column-wise when
+	 * {@link #PROPERTY_SORT_COLUMN_STORAGE} is set, and sorting the records externally when 
+	 * {@link #PROPERTY_EXTERNAL_SORT_RUN_SIZE} is set and the number of records exceeds it.
+	 * 
+	 * @return a {@link SortedDataSource} when the records are sorted in memory, 
+	 * a {@link ColumnSortedDataSource} when the records are stored column-wise,
+	 * or a {@link ExternalSortedDataSource} when the records are sorted externally
+	 */
+	public static JRRewindableDataSource createSortedDataSource(
+		BaseReportFiller filler, 
+		JRFillDataset dataset, 
+		Locale locale 
+		) throws JRException
+	{
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(dataset.getJasperReportsContext());
+		int topCount = propertiesUtil.getIntegerProperty(dataset, PROPERTY_SORT_TOP_COUNT, 0);
+		if (topCount > 0)
+		{
+			return getTopSortedDataSource(filler, dataset, locale, topCount);
+		}
+		
+		if (propertiesUtil.getBooleanProperty(dataset, PROPERTY_SORT_COLUMN_STORAGE, false))
+		{
+			return getColumnSortedDataSource(filler, dataset, locale);
+		}
+		
+		int runSize = propertiesUtil.getIntegerProperty(dataset, PROPERTY_EXTERNAL_SORT_RUN_SIZE, 0);
+		if (runSize <= 0)
+		{
+			return getSortedDataSource(filler, dataset, locale);
+		}
+		
+		DatasetSortInfo sortInfo = createSortInfo(dataset);
+		RecordComparator comparator = new RecordComparator(sortInfo, locale);
+		
+		String directory = propertiesUtil.getProperty(PROPERTY_EXTERNAL_SORT_DIRECTORY);
+		
+		ExternalSortFillDatasetRun sortDatasetRun = new ExternalSortFillDatasetRun(
+				filler, dataset, sortInfo, comparator, runSize, 
+				directory == null || directory.trim().isEmpty() ? null : new File(directory));
+		
+		ExternalSortedDataSource sortedDataSource = null;
+		try
+		{
+			List<SortedDataSource.SortRecord> records = sortDatasetRun.sort();
+			if (!sortDatasetRun.hasRuns())
+			{
+				// all records fit in a single run
+				return sortRecords(sortInfo, records, comparator, sortDatasetRun.isInputOrdered());
+			}
+			
+			sortedDataSource = sortDatasetRun.createDataSource();
+		}
+		finally
+		{
+			if (sortedDataSource == null)
+			{
+				// the runs are only kept by the sorted data source
+				sortDatasetRun.dispose();
+			}
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("sorted " + sortedDataSource.getRecordCount() + " records in "
+					+ sortedDataSource.getRunCount() + (sortedDataSource.isRunsOrdered() ? " ordered" : "") 
+					+ " runs, spilled " + sortedDataSource.getSpilledBytes() + " bytes");
+		}
+		return sortedDataSource;
+	}
+	
+	
+	/**
+	 * Creates a sorted data source that contains the first records in the sort order.
+	 * 
+	 * @param topCount the maximum number of records to keep
+	 */
+	public static SortedDataSource getTopSortedDataSource(
+		BaseReportFiller filler, 
+		JRFillDataset dataset, 
+		Locale locale,
+		int topCount
+		) throws JRException
+	{
+		DatasetSortInfo sortInfo = createSortInfo(dataset);
+		RecordComparator comparator = new RecordComparator(sortInfo, locale);
+		
+		TopSortFillDatasetRun sortDatasetRun = new TopSortFillDatasetRun(
+				filler, dataset, sortInfo, comparator, topCount);
+		
+		List<SortedDataSource.SortRecord> records = sortDatasetRun.sort();
+		if (log.isDebugEnabled())
+		{
+			log.debug("kept " + records.size() + " top sorted records, discarded " 
+					+ sortDatasetRun.getDiscardedCount() + " records");
+		}
+		
+		// the kept records are in the original order, which is the sort order for ordered input
+		int[] indexes = sortDatasetRun.isInputOrdered() ? IndexSort.identity(records.size()) 
+				: sortIndexes(records, comparator);
+		return new SortedDataSource(sortInfo, records, indexes, sortDatasetRun.getDiscardedCount() > 0);
+	}
+	
+	
+	/**
+	 * Creates a sorted data source that stores the field values column-wise,
+	 * falling back to a {@link SortedDataSource} when the values are not supported by the column stores.
+	 */
+	public static JRRewindableDataSource getColumnSortedDataSource(
+		BaseReportFiller filler, 
+		JRFillDataset dataset, 
+		Locale locale
+		) throws JRException
+	{
+		DatasetSortInfo sortInfo = createSortInfo(dataset);
+		RecordComparator comparator = new RecordComparator(sortInfo, locale);
+		
+		// the sort keys only contain the sort field values
+		DatasetSortInfo keySortInfo = new DatasetSortInfo();
+		List<SortFieldInfo> sortFields = sortInfo.getSortFields();
+		for (ListIterator<SortFieldInfo> it = sortFields.listIterator(); it.hasNext();)
+		{
+			SortFieldInfo sortField = it.next();
+			keySortInfo.addSortField(sortField.getSortField(), it.previousIndex(), sortField.useCollator());
+		}
+		RecordComparator keyComparator = new RecordComparator(keySortInfo, locale);
 		
+		ColumnSortFillDatasetRun sortDatasetRun = new ColumnSortFillDatasetRun(
+				filler, dataset, sortInfo, comparator, keyComparator);
+		
+		List<SortedDataSource.SortRecord> records = sortDatasetRun.sort();
+		if (!sortDatasetRun.isColumnStorage())
+		{
+			return sortRecords(sortInfo, records, comparator, sortDatasetRun.isInputOrdered());
+		}
+		
+		return sortDatasetRun.createDataSource();
+	}
+	
+	
+	private static SortedDataSource sortRecords(DatasetSortInfo sortInfo, 
+			List<SortedDataSource.SortRecord> records, RecordComparator comparator, boolean ordered)
+	{
+		int[] indexes;
+		if (ordered)
+		{
+			// the records came in sort order, the stable sort would not change it
+			if (log.isDebugEnabled())
+			{
+				log.debug("dataset records already sorted, " + records.size() + " records");
+			}
+			
+			indexes = IndexSort.identity(records.size());
+		}
+		else
+		{
+			// using indirect sorting in order to also preserve the original record order for data caching
+			indexes = sortIndexes(records, comparator);
+		}
 		return new SortedDataSource(sortInfo, records, indexes);
 	}
+	
+	
+	protected static int[] sortIndexes(List<SortedDataSource.SortRecord> records, RecordComparator comparator)
+	{
+		int[] indexes = IndexSort.identity(records.size());
+		// assuming random access records list
+		IndexSort.sort(indexes, (idx1, idx2) -> 
+				comparator.compare(records.get(idx1).getValues(), records.get(idx2).getValues()));
+		return indexes;
+	}
 
 
 	/**
@@ -216,30 +490,23 @@ public class DatasetSortUtil
 
 
 /**
- *
+ * Compares sort record values according to the dataset sort fields.
  */
-class DataSourceComparator implements Comparator<Integer>
+class RecordComparator implements Comparator<Object[]>
 {
 	private final Collator collator;
 	private final List<SortFieldInfo> sortFields;
-	private final List<SortedDataSource.SortRecord> records;
 
-	public DataSourceComparator(DatasetSortInfo sortFieldInfo, Locale locale, 
-			List<SortedDataSource.SortRecord> records)
+	public RecordComparator(DatasetSortInfo sortFieldInfo, Locale locale)
 	{
 		this.collator = Collator.getInstance(locale);
 		this.sortFields = sortFieldInfo.getSortFields();
-		this.records = records;
 	}
 
 	@Override
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	public int compare(Integer idx1, Integer idx2)
+	public int compare(Object[] record1, Object[] record2)
 	{
-		// assuming random access records list
-		Object[] record1 = records.get(idx1).getValues();
-		Object[] record2 = records.get(idx2).getValues();
-		
 		int ret = 0;
 
 		for (SortFieldInfo info : sortFields)
@@ -290,13 +557,19 @@ class DataSourceComparator implements Comparator<Integer>
  */
 class SortFillDatasetRun extends JRFillDatasetRun
 {
+	
+	private static final Log log = LogFactory.getLog(SortFillDatasetRun.class);
 
-	private DatasetSortInfo sortInfo;
+	protected final DatasetSortInfo sortInfo;
+	protected final RecordComparator comparator;
 	private int recordIndex;
-	private List<SortedDataSource.SortRecord> records;
+	protected List<SortedDataSource.SortRecord> records;
+	private Object[] previousValues;
+	private boolean inputOrdered;
 
 	
-	public SortFillDatasetRun(BaseReportFiller filler, JRFillDataset dataset, DatasetSortInfo sortInfo) throws JRException
+	public SortFillDatasetRun(BaseReportFiller filler, JRFillDataset dataset, DatasetSortInfo sortInfo, 
+			RecordComparator comparator) throws JRException
 	{
 		super(
 			filler, 
@@ -305,6 +578,7 @@ class SortFillDatasetRun extends JRFillDatasetRun
 			);
 
 		this.sortInfo = sortInfo;
+		this.comparator = comparator;
 	}
 
 	
@@ -312,6 +586,8 @@ class SortFillDatasetRun extends JRFillDatasetRun
 	{
 		recordIndex = 0;
 		records = new ArrayList<>();
+		previousValues = null;
+		inputOrdered = true;
 
 		try
 		{
@@ -355,11 +631,51 @@ class SortFillDatasetRun extends JRFillDatasetRun
 			++index;
 		}
 		
+		checkOrder(record);
+		
 		// also store the original record index
 		SortRecord sortRecord = new SortedDataSource.SortRecord(record, recordIndex);
 		
 		++recordIndex;
 		
+		addRecord(sortRecord);
+	}
+	
+	
+	protected void checkOrder(Object[] values)
+	{
+		// comparing adjacent records until the first inversion
+		if (inputOrdered)
+		{
+			if (previousValues != null && comparator.compare(previousValues, values) > 0)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("dataset records not in sort order at record " + recordIndex);
+				}
+				
+				inputOrdered = false;
+				previousValues = null;
+			}
+			else
+			{
+				previousValues = values;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Returns whether the records read so far are already in sort order.
+	 */
+	public boolean isInputOrdered()
+	{
+		return inputOrdered;
+	}
+	
+	
+	protected void addRecord(SortRecord sortRecord) throws JRException
+	{
 		records.add(sortRecord);
 	}
 
@@ -381,4 +697,394 @@ class SortFillDatasetRun extends JRFillDatasetRun
 	}
 	
 	
-}
\ No newline at end of file
+}
+
+
+/**
+ * Sorts dataset records in runs of limited size which are written to temporary files.
+ */
+class ExternalSortFillDatasetRun extends SortFillDatasetRun
+{
+	
+	private static final Log log = LogFactory.getLog(ExternalSortFillDatasetRun.class);
+
+	private final int runSize;
+	private final File directory;
+	private final List<SortRun> runs = new ArrayList<>();
+	private JRVirtualizationContext virtualizationContext;
+	
+	
+	public ExternalSortFillDatasetRun(BaseReportFiller filler, JRFillDataset dataset, DatasetSortInfo sortInfo, 
+			RecordComparator comparator, int runSize, File directory) throws JRException
+	{
+		super(filler, dataset, sortInfo, comparator);
+		
+		this.runSize = runSize;
+		this.directory = directory;
+	}
+	
+	
+	@Override
+	protected void addRecord(SortRecord sortRecord) throws JRException
+	{
+		super.addRecord(sortRecord);
+		
+		if (records.size() >= runSize)
+		{
+			writeRun();
+		}
+	}
+	
+	
+	public boolean hasRuns()
+	{
+		return !runs.isEmpty();
+	}
+	
+	
+	/**
+	 * Creates a data source that merges the sorted runs.
+	 * 
+	 * The data source takes over the run files and the virtualization context used to write them,
+	 * which are released when the data source is disposed.
+	 */
+	public ExternalSortedDataSource createDataSource() throws JRException
+	{
+		if (!records.isEmpty())
+		{
+			writeRun();
+		}
+		
+		// runs written from ordered input follow each other and do not need merging
+		ExternalSortedDataSource dataSource = new ExternalSortedDataSource(
+				sortInfo, comparator, new ArrayList<>(runs), isInputOrdered(), virtualizationContext);
+		runs.clear();
+		virtualizationContext = null;
+		return dataSource;
+	}
+	
+	
+	protected void writeRun() throws JRException
+	{
+		// runs that precede the first inversion are already sorted
+		int[] indexes = isInputOrdered() ? IndexSort.identity(records.size()) 
+				: DatasetSortUtil.sortIndexes(records, comparator);
+		
+		if (virtualizationContext == null)
+		{
+			virtualizationContext = new JRVirtualizationContext(dataset.getJasperReportsContext());
+		}
+		
+		File file = null;
+		try
+		{
+			file = File.createTempFile("jr_sort_", ".run", directory);
+			// adding the run before writing so that the file is deleted on failure
+			runs.add(new SortRun(file, records.size()));
+			
+			try (VirtualizationOutput output = new VirtualizationOutput(
+					new BufferedOutputStream(new FileOutputStream(file)), virtualizationContext))
+			{
+				for (int index : indexes)
+				{
+					SortRecord sortRecord = records.get(index);
+					output.writeIntCompressed(sortRecord.getRecordIndex());
+					for (Object value : sortRecord.getValues())
+					{
+						// not keeping references, the run is read one record at a time
+						output.writeJRObject(value, false, false);
+					}
+					// releasing the object handles
+					output.reset();
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw 
+				new JRException(
+					DatasetSortUtil.EXCEPTION_MESSAGE_KEY_SORT_RUN_WRITE_ERROR,
+					new Object[]{file == null ? directory : file}, 
+					e);
+		}
+		
+		records = new ArrayList<>(runSize);
+	}
+	
+	
+	/**
+	 * Deletes the run files and disposes the virtualization context, 
+	 * unless they have been passed to a data source.
+	 */
+	public void dispose()
+	{
+		try
+		{
+			for (SortRun run : runs)
+			{
+				File file = run.getFile();
+				if (file.exists() && !file.delete())
+				{
+					if (log.isWarnEnabled())
+					{
+						log.warn("could not delete sort run file " + file);
+					}
+				}
+			}
+			runs.clear();
+		}
+		finally
+		{
+			if (virtualizationContext != null)
+			{
+				virtualizationContext.dispose();
+				virtualizationContext = null;
+			}
+		}
+	}
+}
+
+
+/**
+ * Keeps the first records in the sort order in a bounded heap while iterating a dataset.
+ */
+class TopSortFillDatasetRun extends SortFillDatasetRun
+{
+
+	private final int topCount;
+	private final PriorityQueue<SortRecord> topRecords;
+	private int discardedCount;
+	
+	
+	public TopSortFillDatasetRun(BaseReportFiller filler, JRFillDataset dataset, DatasetSortInfo sortInfo, 
+			RecordComparator comparator, int topCount) throws JRException
+	{
+		super(filler, dataset, sortInfo, comparator);
+		
+		this.topCount = topCount;
+		// the heap head is the last record in the sort order, 
+		// records that compare equal are ordered by their index as the sort is stable
+		this.topRecords = new PriorityQueue<>(Math.min(topCount, 1024), (record1, record2) -> 
+		{
+			int order = comparator.compare(record2.getValues(), record1.getValues());
+			return order != 0 ? order : Integer.compare(record2.getRecordIndex(), record1.getRecordIndex());
+		});
+	}
+
+	
+	@Override
+	public List<SortRecord> sort() throws JRException
+	{
+		topRecords.clear();
+		discardedCount = 0;
+		
+		super.sort();
+		
+		// preserving the original order of the kept records
+		records = new ArrayList<>(topRecords);
+		records.sort(Comparator.comparingInt(SortRecord::getRecordIndex));
+		topRecords.clear();
+		return records;
+	}
+	
+	
+	@Override
+	protected void addRecord(SortRecord sortRecord) throws JRException
+	{
+		if (topRecords.size() < topCount)
+		{
+			topRecords.add(sortRecord);
+			return;
+		}
+		
+		// the new record comes after the heap records that compare equal
+		if (comparator.compare(sortRecord.getValues(), topRecords.peek().getValues()) < 0)
+		{
+			topRecords.poll();
+			topRecords.add(sortRecord);
+		}
+		++discardedCount;
+	}
+	
+	
+	public int getDiscardedCount()
+	{
+		return discardedCount;
+	}
+}
+
+
+/**
+ * Stores the dataset field values in column stores while iterating a dataset,
+ * keeping only the sort key values as objects.
+ */
+class ColumnSortFillDatasetRun extends SortFillDatasetRun
+{
+	
+	private static final Log log = LogFactory.getLog(ColumnSortFillDatasetRun.class);
+
+	private final RecordComparator keyComparator;
+	private final JRField[] fields;
+	private final int[] keyRecordIndexes;
+	private ColumnDataCacheHandler storeHandler;
+	private ColumnStore[] columnStores;
+	private List<Object[]> keys;
+	private boolean columnStorage;
+	
+	
+	public ColumnSortFillDatasetRun(BaseReportFiller filler, JRFillDataset dataset, DatasetSortInfo sortInfo, 
+			RecordComparator comparator, RecordComparator keyComparator) throws JRException
+	{
+		super(filler, dataset, sortInfo, comparator);
+		
+		this.keyComparator = keyComparator;
+		// the sort info record starts with the dataset fields
+		this.fields = dataset.getFields() == null ? new JRField[0] : dataset.getFields();
+		
+		List<SortFieldInfo> sortFields = sortInfo.getSortFields();
+		this.keyRecordIndexes = new int[sortFields.size()];
+		for (int i = 0; i < keyRecordIndexes.length; i++)
+		{
+			keyRecordIndexes[i] = sortFields.get(i).getRecordIndex();
+		}
+	}
+
+	
+	@Override
+	public List<SortRecord> sort() throws JRException
+	{
+		// the handler is only used to create the column stores, it also signals unsupported values
+		storeHandler = new ColumnDataCacheHandler();
+		columnStores = new ColumnStore[fields.length];
+		for (int i = 0; i < fields.length; i++)
+		{
+			columnStores[i] = new TypedColumnStore(storeHandler, fields[i].getValueClass());
+		}
+		keys = new ArrayList<>();
+		columnStorage = true;
+		
+		return super.sort();
+	}
+	
+	
+	@Override
+	protected void addRecord(SortRecord sortRecord) throws JRException
+	{
+		if (!columnStorage)
+		{
+			super.addRecord(sortRecord);
+			return;
+		}
+		
+		Object[] values = sortRecord.getValues();
+		for (int i = 0; i < columnStores.length; i++)
+		{
+			columnStores[i].addValue(values[i]);
+		}
+		
+		if (!storeHandler.isRecordingEnabled())
+		{
+			// a value was not supported by the column stores
+			switchToRecords();
+			super.addRecord(sortRecord);
+			return;
+		}
+		
+		Object[] key = new Object[keyRecordIndexes.length];
+		for (int i = 0; i < keyRecordIndexes.length; i++)
+		{
+			key[i] = values[keyRecordIndexes[i]];
+		}
+		keys.add(key);
+	}
+	
+	
+	protected void switchToRecords()
+	{
+		if (log.isDebugEnabled())
+		{
+			log.debug("column storage not supported for dataset values, restoring " + keys.size() + " records");
+		}
+		
+		ColumnValuesIterator[] iterators = new ColumnValuesIterator[columnStores.length];
+		for (int i = 0; i < columnStores.length; i++)
+		{
+			iterators[i] = columnStores[i].createValues().iterator();
+		}
+		
+		int recordLength = sortInfo.getRecordFields().size();
+		for (int index = 0; index < keys.size(); index++)
+		{
+			Object[] values = new Object[recordLength];
+			for (int i = 0; i < iterators.length; i++)
+			{
+				iterators[i].next();
+				values[i] = iterators[i].get();
+			}
+			
+			// the sort keys include all sort variable values
+			Object[] key = keys.get(index);
+			for (int i = 0; i < keyRecordIndexes.length; i++)
+			{
+				values[keyRecordIndexes[i]] = key[i];
+			}
+			
+			records.add(new SortRecord(values, index));
+		}
+		
+		columnStorage = false;
+		columnStores = null;
+		keys = null;
+	}
+	
+	
+	public boolean isColumnStorage()
+	{
+		return columnStorage;
+	}
+	
+	
+	public ColumnSortedDataSource createDataSource()
+	{
+		int recordCount = keys.size();
+		int[] indexes = IndexSort.identity(recordCount);
+		if (!isInputOrdered())
+		{
+			List<Object[]> sortKeys = keys;
+			IndexSort.sort(indexes, (idx1, idx2) -> 
+					keyComparator.compare(sortKeys.get(idx1), sortKeys.get(idx2)));
+		}
+		keys = null;
+		
+		String[] fieldNames = new String[fields.length];
+		ColumnValues[] sortedValues = new ColumnValues[fields.length];
+		Object[] columnValues = new Object[recordCount];
+		for (int i = 0; i < fields.length; i++)
+		{
+			fieldNames[i] = fields[i].getName();
+			
+			// rearranging one column at a time
+			ColumnValuesIterator iterator = columnStores[i].createValues().iterator();
+			columnStores[i] = null;
+			for (int index = 0; index < recordCount; index++)
+			{
+				iterator.next();
+				columnValues[index] = iterator.get();
+			}
+			
+			ColumnStore sortedStore = new TypedColumnStore(storeHandler, fields[i].getValueClass());
+			for (int index : indexes)
+			{
+				sortedStore.addValue(columnValues[index]);
+			}
+			sortedValues[i] = sortedStore.createValues();
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("sorted " + recordCount + " records stored in " + fields.length + " columns");
+		}
+		
+		return new ColumnSortedDataSource(fieldNames, sortedValues, indexes);
+	}
+}
@@ -0,0 +1,399 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.data.IndexedDataSource;
+import net.sf.jasperreports.engine.fill.DatasetSortInfo.RecordField;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+
+/**
+ * Sorted data source that merges sorted record runs written to temporary files.
+ * 
+ * <p>
+ * The runs are produced by {@link DatasetSortUtil} when the number of records exceeds
+ * the {@link DatasetSortUtil#PROPERTY_EXTERNAL_SORT_RUN_SIZE run size}.
+ * Only the current record of each run is kept in memory while iterating.
+ * When the dataset records were already in sort order, the runs follow each other 
+ * and are read one after the other instead of being merged.
+ * The temporary files are deleted when the data source is {@link #dispose() disposed}.
+ * </p>
+ * 
+ * @see DatasetSortUtil#createSortedDataSource(BaseReportFiller, JRFillDataset, java.util.Locale)
+ */
+public class ExternalSortedDataSource implements JRRewindableDataSource, IndexedDataSource
+{
+	
+	private static final Log log = LogFactory.getLog(ExternalSortedDataSource.class);
+	
+	public static final String EXCEPTION_MESSAGE_KEY_RUN_READ_ERROR = "data.sorted.run.read.error";
+	
+	/**
+	 * Sorted records written to a file.
+	 */
+	protected static class SortRun
+	{
+		private final File file;
+		private final int recordCount;
+		
+		public SortRun(File file, int recordCount)
+		{
+			this.file = file;
+			this.recordCount = recordCount;
+		}
+
+		public File getFile()
+		{
+			return file;
+		}
+
+		public int getRecordCount()
+		{
+			return recordCount;
+		}
+	}
+	
+	private final JRVirtualizationContext virtualizationContext;
+	private final Comparator<Object[]> recordComparator;
+	private final int fieldCount;
+	private final List<SortRun> runs;
+	private final boolean runsOrdered;
+	private final Map<String, Integer> columnNamesMap = new HashMap<>();
+	
+	private List<RunReader> readers;
+	private PriorityQueue<RunReader> queue;
+	private RunReader sequentialReader;
+	private int nextRunIndex;
+	private Object[] currentValues;
+	private int currentRecordIndex;
+	
+	protected ExternalSortedDataSource(DatasetSortInfo sortInfo, 
+			Comparator<Object[]> recordComparator, List<SortRun> runs, boolean runsOrdered,
+			JRVirtualizationContext virtualizationContext)
+	{
+		this.virtualizationContext = virtualizationContext;
+		this.recordComparator = recordComparator;
+		this.fieldCount = sortInfo.getRecordFields().size();
+		this.runs = runs;
+		this.runsOrdered = runsOrdered;
+		
+		for (ListIterator<RecordField> it = sortInfo.getRecordFields().listIterator(); it.hasNext();)
+		{
+			RecordField recordField = it.next();
+			if (!recordField.isVariable())
+			{
+				columnNamesMap.put(recordField.getName(), it.previousIndex());
+			}
+		}
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		if (readers == null)
+		{
+			openRuns();
+		}
+		
+		RunReader reader = runsOrdered ? nextSequentialReader() : queue.poll();
+		if (reader == null)
+		{
+			currentValues = null;
+			return false;
+		}
+		
+		currentValues = reader.values;
+		currentRecordIndex = reader.recordIndex;
+		
+		if (reader.advance())
+		{
+			if (!runsOrdered)
+			{
+				queue.add(reader);
+			}
+		}
+		else if (runsOrdered)
+		{
+			sequentialReader = null;
+		}
+		return true;
+	}
+	
+	protected RunReader nextSequentialReader() throws JRException
+	{
+		// opening the next run when the current one is exhausted
+		while (sequentialReader == null && nextRunIndex < runs.size())
+		{
+			RunReader reader = new RunReader(runs.get(nextRunIndex));
+			++nextRunIndex;
+			readers.add(reader);
+			if (reader.advance())
+			{
+				sequentialReader = reader;
+			}
+		}
+		return sequentialReader;
+	}
+	
+	protected void openRuns() throws JRException
+	{
+		readers = new ArrayList<>(runs.size());
+		if (runsOrdered)
+		{
+			sequentialReader = null;
+			nextRunIndex = 0;
+			return;
+		}
+		
+		queue = new PriorityQueue<>(Math.max(runs.size(), 1), this::compareReaders);
+		for (SortRun run : runs)
+		{
+			RunReader reader = new RunReader(run);
+			readers.add(reader);
+			if (reader.advance())
+			{
+				queue.add(reader);
+			}
+		}
+	}
+	
+	protected int compareReaders(RunReader reader1, RunReader reader2)
+	{
+		int order = recordComparator.compare(reader1.values, reader2.values);
+		if (order == 0)
+		{
+			// keeping the sort stable, runs contain consecutive records
+			order = Integer.compare(reader1.recordIndex, reader2.recordIndex);
+		}
+		return order;
+	}
+	
+	protected void closeRuns()
+	{
+		if (readers != null)
+		{
+			for (RunReader reader : readers)
+			{
+				reader.close();
+			}
+			readers = null;
+		}
+		queue = null;
+		sequentialReader = null;
+		currentValues = null;
+	}
+
+	@Override
+	public Object getFieldValue(JRField jrField)
+	{
+		Integer fieldIndex = columnNamesMap.get(jrField.getName());
+		if (fieldIndex == null)
+		{
+			throw 
+				new JRRuntimeException(
+					SortedDataSource.EXCEPTION_MESSAGE_KEY_FIELD_NOT_FOUND,
+					new Object[]{jrField.getName()});
+		}
+		return currentValues[fieldIndex];
+	}
+
+	@Override
+	public void moveFirst()
+	{
+		closeRuns();
+	}
+
+	/**
+	 * Returns the original index of the current record.
+	 */
+	@Override
+	public int getRecordIndex()
+	{
+		return currentRecordIndex;
+	}
+	
+	/**
+	 * Closes the run files and deletes them, and disposes the virtualization context
+	 * used to read the runs.
+	 * 
+	 * The data source cannot be used after being disposed.
+	 */
+	public void dispose()
+	{
+		try
+		{
+			closeRuns();
+		}
+		finally
+		{
+			for (SortRun run : runs)
+			{
+				File file = run.getFile();
+				if (file.exists() && !file.delete())
+				{
+					if (log.isWarnEnabled())
+					{
+						log.warn("could not delete sort run file " + file);
+					}
+				}
+			}
+			
+			virtualizationContext.dispose();
+		}
+	}
+	
+	/**
+	 * Returns the number of sorted runs that are merged.
+	 */
+	public int getRunCount()
+	{
+		return runs.size();
+	}
+	
+	/**
+	 * Returns whether the runs follow each other in the sort order and are read without merging.
+	 */
+	public boolean isRunsOrdered()
+	{
+		return runsOrdered;
+	}
+	
+	/**
+	 * Returns the total size of the sorted run files.
+	 */
+	public long getSpilledBytes()
+	{
+		long size = 0;
+		for (SortRun run : runs)
+		{
+			size += run.getFile().length();
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns the total number of records.
+	 */
+	public int getRecordCount()
+	{
+		int count = 0;
+		for (SortRun run : runs)
+		{
+			count += run.getRecordCount();
+		}
+		return count;
+	}
+	
+	protected class RunReader
+	{
+		private final SortRun run;
+		private VirtualizationInput input;
+		private int readCount;
+		
+		private Object[] values;
+		private int recordIndex;
+		
+		public RunReader(SortRun run)
+		{
+			this.run = run;
+		}
+		
+		public boolean advance() throws JRException
+		{
+			if (readCount >= run.getRecordCount())
+			{
+				close();
+				return false;
+			}
+			
+			try
+			{
+				if (input == null)
+				{
+					input = new VirtualizationInput(
+							new BufferedInputStream(new FileInputStream(run.getFile())), 
+							virtualizationContext);
+				}
+				
+				recordIndex = input.readIntCompressed();
+				// new array because the previous values are still used as the current record
+				values = new Object[fieldCount];
+				for (int i = 0; i < fieldCount; i++)
+				{
+					values[i] = input.readJRObject(false);
+				}
+			}
+			catch (IOException e)
+			{
+				close();
+				throw 
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_RUN_READ_ERROR,
+						new Object[]{run.getFile()}, 
+						e);
+			}
+			
+			++readCount;
+			return true;
+		}
+		
+		public void close()
+		{
+			if (input != null)
+			{
+				try
+				{
+					input.close();
+				}
+				catch (IOException e)
+				{
+					if (log.isWarnEnabled())
+					{
+						log.warn("error closing sort run file " + run.getFile(), e);
+					}
+				}
+				input = null;
+			}
+		}
+	}
+	
+}
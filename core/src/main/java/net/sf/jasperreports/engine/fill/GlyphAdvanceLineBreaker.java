@@ -0,0 +1,131 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.awt.font.LineBreakMeasurer;
+import java.text.BreakIterator;
+
+/**
+ * Line breaker that uses a {@link GlyphAdvanceTable} to produce the same line breaks as 
+ * {@link LineBreakMeasurer} for simple texts.
+ * 
+ * @see GlyphAdvanceTable#isSupported(char[])
+ */
+public class GlyphAdvanceLineBreaker
+{
+	
+	private final GlyphAdvanceTable advanceTable;
+	private final String text;
+	private final int start;
+	private final int limit;
+	private final BreakIterator breakIterator;
+	private int position;
+	
+	/**
+	 * Creates a line breaker for a text fragment.
+	 * 
+	 * @param advanceTable the advance table of the text font
+	 * @param text the text
+	 * @param start the start index of the fragment
+	 * @param limit the limit index of the fragment
+	 * @param breakIterator the break iterator, which will be set to iterate the fragment
+	 */
+	public GlyphAdvanceLineBreaker(GlyphAdvanceTable advanceTable, String text, int start, int limit, 
+			BreakIterator breakIterator)
+	{
+		this.advanceTable = advanceTable;
+		this.text = text;
+		this.start = start;
+		this.limit = limit;
+		this.breakIterator = breakIterator;
+		this.position = start;
+		
+		breakIterator.setText(text.substring(start, limit));
+	}
+	
+	public int getPosition()
+	{
+		return position;
+	}
+	
+	public void setPosition(int position)
+	{
+		this.position = position;
+	}
+	
+	/**
+	 * Returns the position at the end of the next line, and advances the current position to it.
+	 * 
+	 * @param wrappingWidth the maximum line width
+	 * @param offsetLimit the index that the line cannot exceed
+	 * @param requireNextWord if <code>true</code>, the current position is returned
+	 * if the entire next word does not fit
+	 * @return the position at the end of the next line
+	 * @see LineBreakMeasurer#nextOffset(float, int, boolean)
+	 */
+	public int nextOffset(float wrappingWidth, int offsetLimit, boolean requireNextWord)
+	{
+		int nextOffset = position;
+		if (position < limit)
+		{
+			int charAtMaxAdvance = advanceTable.getLineBreakIndex(text, position, limit, wrappingWidth);
+			if (charAtMaxAdvance == limit)
+			{
+				nextOffset = limit;
+			}
+			else if (Character.isWhitespace(text.charAt(charAtMaxAdvance)))
+			{
+				nextOffset = breakIterator.following(charAtMaxAdvance - start) + start;
+			}
+			else
+			{
+				// break at the whitespace before the character that exceeds the width
+				int testPosition = charAtMaxAdvance + 1;
+				if (testPosition == limit)
+				{
+					breakIterator.last();
+					nextOffset = breakIterator.previous() + start;
+				}
+				else
+				{
+					nextOffset = breakIterator.preceding(testPosition - start) + start;
+				}
+				
+				if (nextOffset <= position)
+				{
+					// the first word does not fit
+					nextOffset = requireNextWord ? position : Math.max(position + 1, charAtMaxAdvance);
+				}
+			}
+		}
+		
+		if (nextOffset > offsetLimit)
+		{
+			nextOffset = offsetLimit;
+		}
+		
+		position = nextOffset;
+		return nextOffset;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Table of character advances for a font, used to measure simple texts with array arithmetic 
+ * instead of AWT text layouts.
+ * 
+ * <p>
+ * The advances of the Basic Multilingual Plane characters are computed in blocks when a character
+ * from a block is first measured.
+ * The table can only be used for fonts that have no layout attributes such as kerning or ligatures
+ * (see {@link #isSupported(Font)}) and for texts that do not require complex layout and do not 
+ * contain surrogate characters (see {@link #isSupported(char[])}), in which case the advance of
+ * a text is the sum of the advances of its characters.
+ * </p>
+ * 
+ * @see GlyphAdvanceLineBreaker
+ */
+public class GlyphAdvanceTable
+{
+	
+	private static final int BLOCK_SHIFT = 8;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+	private static final int BLOCK_COUNT = (Character.MAX_VALUE + 1) >> BLOCK_SHIFT;
+	
+	/**
+	 * Determines whether the advances of texts can be computed from character advances for a font.
+	 * 
+	 * @param font the font
+	 * @return whether a table can be used for the font
+	 */
+	public static boolean isSupported(Font font)
+	{
+		return !font.hasLayoutAttributes() && !font.isTransformed();
+	}
+	
+	/**
+	 * Determines whether the advance of a text can be computed from character advances,
+	 * assuming that the text does not require complex layout.
+	 * 
+	 * @param chars the text characters
+	 * @return whether the text does not contain surrogate characters
+	 */
+	public static boolean isSupported(char[] chars)
+	{
+		for (char c : chars)
+		{
+			if (Character.isSurrogate(c))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private final Font font;
+	private final FontRenderContext fontRenderContext;
+	private final float[][] advanceBlocks = new float[BLOCK_COUNT][];
+	private final float boundsY;
+	private final float boundsHeight;
+	
+	public GlyphAdvanceTable(Font font, FontRenderContext fontRenderContext)
+	{
+		this.font = font;
+		this.fontRenderContext = fontRenderContext;
+		
+		// the vertical bounds of simple texts only depend on the font
+		Rectangle2D bounds = font.getStringBounds(" ", fontRenderContext);
+		this.boundsY = (float) bounds.getY();
+		this.boundsHeight = (float) bounds.getHeight();
+	}
+	
+	public Font getFont()
+	{
+		return font;
+	}
+	
+	/**
+	 * Returns the advance of a character.
+	 * 
+	 * @param c the character
+	 * @return the character advance
+	 */
+	public float getAdvance(char c)
+	{
+		float[] advances = advanceBlocks[c >> BLOCK_SHIFT];
+		if (advances == null)
+		{
+			advances = createAdvanceBlock(c >> BLOCK_SHIFT);
+		}
+		return advances[c & BLOCK_MASK];
+	}
+	
+	protected float[] createAdvanceBlock(int blockIndex)
+	{
+		float[] advances = new float[BLOCK_SIZE];
+		char[] chars = new char[BLOCK_SIZE];
+		int blockStart = blockIndex << BLOCK_SHIFT;
+		for (int i = 0; i < BLOCK_SIZE; i++)
+		{
+			chars[i] = (char) (blockStart + i);
+		}
+		
+		for (int i = 0; i < BLOCK_SIZE; i++)
+		{
+			if (!Character.isSurrogate(chars[i]))
+			{
+				advances[i] = (float) font.getStringBounds(chars, i, i + 1, fontRenderContext).getWidth();
+			}
+		}
+		
+		// concurrent threads would compute the same values
+		advanceBlocks[blockIndex] = advances;
+		return advances;
+	}
+	
+	/**
+	 * Returns the advance of a text fragment.
+	 * 
+	 * @param text the text
+	 * @param start the start index of the fragment
+	 * @param end the end index of the fragment
+	 * @return the advance of the fragment
+	 */
+	public float getAdvance(String text, int start, int end)
+	{
+		// summing as floats, which is how AWT computes the advance
+		float advance = 0;
+		for (int i = start; i < end; i++)
+		{
+			advance += getAdvance(text.charAt(i));
+		}
+		return advance;
+	}
+	
+	/**
+	 * Returns the bounds of a text fragment, as computed by 
+	 * {@link Font#getStringBounds(String, int, int, FontRenderContext)}.
+	 * 
+	 * @param text the text
+	 * @param start the start index of the fragment
+	 * @param end the end index of the fragment
+	 * @return the bounds of the fragment
+	 */
+	public Rectangle2D getStringBounds(String text, int start, int end)
+	{
+		return new Rectangle2D.Float(0, boundsY, getAdvance(text, start, end), boundsHeight);
+	}
+	
+	/**
+	 * Returns the index of the first character that does not fit in a width.
+	 * 
+	 * @param text the text
+	 * @param start the start index
+	 * @param limit the limit index
+	 * @param width the width
+	 * @return the index of the first character that exceeds the width, or the limit if all characters fit
+	 */
+	public int getLineBreakIndex(String text, int start, int limit, float width)
+	{
+		float remainingWidth = width;
+		int index = start - 1;
+		while (remainingWidth >= 0 && ++index < limit)
+		{
+			remainingWidth -= getAdvance(text.charAt(index));
+		}
+		return index;
+	}
+}
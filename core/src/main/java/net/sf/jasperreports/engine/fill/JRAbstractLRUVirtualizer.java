@@ -29,6 +29,8 @@
  */
 package net.sf.jasperreports.engine.fill;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -36,20 +38,34 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections4.map.ReferenceMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRVirtualizable;
 import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.DaemonThreadFactory;
 import net.sf.jasperreports.engine.util.LocalVirtualizationSerializer;
 import net.sf.jasperreports.engine.util.VirtualizationSerializer;
+import net.sf.jasperreports.properties.PropertyConstants;
 
 
 /**
@@ -60,10 +76,32 @@ import net.sf.jasperreports.engine.util.VirtualizationSerializer;
 public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 {
 	private static final Log log = LogFactory.getLog(JRAbstractLRUVirtualizer.class);
+	
+	/**
+	 * Property that enables the write-behind mode for LRU virtualizers and specifies the maximum
+	 * number of evicted objects that wait to be written by the background thread.
+	 * <p>
+	 * The property is read from the context of the report being filled when an object is evicted
+	 * for the first time, and is only used when the virtualizer has not been explicitly configured via
+	 * {@link #setWriteBehind(int)}.
+	 * If set to 0 or negative, evicted objects are written by the filling thread.
+	 * The property has no effect for virtualizers that do not support the write-behind mode.
+	 * 
+	 * @see #isWriteBehindSupported()
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_WRITE_BEHIND_QUEUE_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "virtualizer.write.behind.queue.size";
 
 	protected static class CacheReference extends WeakReference<JRVirtualizable>
 	{
 		private final String id;
+		private long size;
 
 		public CacheReference(JRVirtualizable o, ReferenceQueue<JRVirtualizable> queue)
 		{
@@ -80,16 +118,30 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 	/**
 	 * This class keeps track of how many objects are currently in memory, and
 	 * when there are too many, it pushes the last touched one to disk.
+	 * <p/>
+	 * When a memory size limit is set, the estimated size of the objects in memory
+	 * is also checked against the limit.  The total size is updated when objects are
+	 * put in and removed from the cache, and objects that might have grown since are 
+	 * estimated again when they stop being the last used object of their context and 
+	 * when they are considered for eviction.
 	 */
 	protected class Cache
 	{
 		private final int maxSize;
+		private final long maxMemorySize;
 		private final ReferenceQueue<JRVirtualizable> refQueue;
 		private final LinkedHashMap<String, CacheReference> map;
+		private volatile long memorySize;
 
 		Cache(int maxSize)
+		{
+			this(maxSize, 0);
+		}
+
+		Cache(int maxSize, long maxMemorySize)
 		{
 			this.maxSize = maxSize;
+			this.maxMemorySize = maxMemorySize;
 			map = new LinkedHashMap<>(16, 0.75f, true);
 			refQueue = new ReferenceQueue<>();
 		}
@@ -125,7 +177,10 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 			CacheReference ref;
 			while ((ref = (CacheReference) refQueue.poll()) != null)
 			{
-				map.remove(ref.getId());
+				if (map.remove(ref.getId(), ref))
+				{
+					memorySize -= ref.size;
+				}
 			}
 		}
 
@@ -147,11 +202,55 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		{
 			purge();
 
-			return getMapValue(map.put(id, toMapValue(o)));
+			CacheReference reference = toMapValue(o);
+			if (reference != null && maxMemorySize > 0)
+			{
+				reference.size = estimateSize(o);
+				memorySize += reference.size;
+			}
+			
+			CacheReference old = map.put(id, reference);
+			if (old != null)
+			{
+				memorySize -= old.size;
+			}
+			return getMapValue(old);
+		}
+		
+		/**
+		 * Estimates again the size of an object in the cache.
+		 * 
+		 * @param id the object ID
+		 */
+		public void updateSize(String id)
+		{
+			if (maxMemorySize > 0)
+			{
+				// the lookup moves the object to the end of the LRU order, which is fine as it has just been used
+				CacheReference reference = map.get(id);
+				JRVirtualizable value = getMapValue(reference);
+				if (value != null)
+				{
+					updateSize(reference, value);
+				}
+			}
+		}
+		
+		protected long updateSize(CacheReference reference, JRVirtualizable value)
+		{
+			long size = estimateSize(value);
+			memorySize += size - reference.size;
+			reference.size = size;
+			return size;
 		}
 
 		public List<JRVirtualizable> evictionCandidates()
 		{
+			if (maxMemorySize > 0)
+			{
+				return memoryEvictionCandidates();
+			}
+			
 			if (map.size() <= maxSize)
 			{
 				return Collections.<JRVirtualizable>emptyList();
@@ -188,12 +287,70 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 			
 			return candidates;
 		}
+
+		protected List<JRVirtualizable> memoryEvictionCandidates()
+		{
+			purge();
+			
+			long totalSize = memorySize;
+			int count = map.size();
+			if (totalSize <= maxMemorySize && count <= maxSize)
+			{
+				return Collections.<JRVirtualizable>emptyList();
+			}
+			
+			List<JRVirtualizable> candidates = new ArrayList<>();
+			Iterator<Entry<String, CacheReference>> mapIterator = map.entrySet().iterator();
+			while ((totalSize > maxMemorySize || count > maxSize) && mapIterator.hasNext())
+			{
+				Entry<String, CacheReference> entry = mapIterator.next();
+				JRVirtualizable value = getMapValue(entry.getValue());
+				if (value != null && isEvictable(value))
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("LRU eviction candidate: " + entry.getKey());
+					}
+					
+					// the object might have grown since it was estimated
+					long previousSize = entry.getValue().size;
+					long size = updateSize(entry.getValue(), value);
+					totalSize += size - previousSize;
+					
+					candidates.add(value);
+					totalSize -= size;
+					--count;
+				}
+			}
+			
+			if (totalSize > maxMemorySize && log.isDebugEnabled())
+			{
+				log.debug("The objects that cannot be evicted exceed the virtualizer memory size " + maxMemorySize);
+			}
+			
+			return candidates;
+		}
+		
+		/**
+		 * Returns the estimated size of the objects in memory.
+		 * 
+		 * @return the estimated memory size of the objects in the cache
+		 */
+		public long getMemorySize()
+		{
+			return memorySize;
+		}
 		
 		public JRVirtualizable remove(String id)
 		{
 			purge();
 
-			return getMapValue(map.remove(id));
+			CacheReference reference = map.remove(id);
+			if (reference != null)
+			{
+				memorySize -= reference.size;
+			}
+			return getMapValue(reference);
 		}
 
 		public Iterator<String> idIterator()
@@ -203,6 +360,8 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 			final Iterator<CacheReference> valsIt = map.values().iterator();
 			return new Iterator<String>()
 			{
+				private CacheReference current;
+				
 				@Override
 				public boolean hasNext()
 				{
@@ -212,14 +371,15 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 				@Override
 				public String next()
 				{
-					CacheReference ref = valsIt.next();
-					return ref.getId();
+					current = valsIt.next();
+					return current.getId();
 				}
 
 				@Override
 				public void remove()
 				{
 					valsIt.remove();
+					memorySize -= current.size;
 				}
 			};
 		}
@@ -236,6 +396,11 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 	protected ReferenceMap<Object, Boolean> lastObjectSet;
 
 	private boolean readOnly;
+	
+	private Integer writeBehindQueueSize;
+	private volatile boolean pageOutExecutorResolved;
+	private volatile ThreadPoolExecutor pageOutExecutor;
+	protected final Map<String, PageOutTask> pendingPageOuts = new HashMap<>();
 
 	/**
 	 * @param maxSize
@@ -248,10 +413,22 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 	}
 
 	protected JRAbstractLRUVirtualizer(VirtualizationSerializer serializer, int maxSize)
+	{
+		this(serializer, maxSize, 0);
+	}
+
+	/**
+	 * @param serializer the serializer used to write and read virtualized data
+	 * @param maxSize the maximum size (in JRVirtualizable objects) of the paged in cache
+	 * @param maxMemorySize the maximum estimated size (in bytes) of the paged in cache, 
+	 * or 0 if only the number of objects is limited
+	 * @see #estimateSize(JRVirtualizable)
+	 */
+	protected JRAbstractLRUVirtualizer(VirtualizationSerializer serializer, int maxSize, long maxMemorySize)
 	{
 		this.serializer = serializer;
 		
-		this.pagedIn = new Cache(maxSize);
+		this.pagedIn = new Cache(maxSize, maxMemorySize);
 		this.pagedOut = new ReferenceMap<>(ReferenceMap.ReferenceStrength.HARD, ReferenceMap.ReferenceStrength.WEAK);
 		this.lastObjectRef = null;
 
@@ -298,6 +475,9 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 					if (ownerLast != null)
 					{
 						lastObjectSet.remove(ownerLast);
+						
+						// the previous object might have grown while in use
+						pagedIn.updateSize(((JRVirtualizable) ownerLast).getUID());
 					}
 					lastObjectMap.put(context, o);
 					lastObjectSet.put(o, Boolean.TRUE);
@@ -351,6 +531,143 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		return readOnly;
 	}
 
+
+	/**
+	 * Enables or disables the write-behind mode for the virtualizer.
+	 * <p/>
+	 * In write-behind mode, objects evicted from the in-memory cache are serialized by the filling
+	 * thread, and the serialized data is written to the external storage by a background thread.
+	 * The serialized data remains in memory until the write completes, and it is used to read
+	 * the object if the object is accessed in the meantime.
+	 * If an object is accessed before the background thread has started writing it,
+	 * the write is cancelled.
+	 * <p/>
+	 * At most <code>maxPendingPageOuts</code> objects wait to be written; when this limit is
+	 * reached, the filling thread writes the evicted objects itself.
+	 * <p/>
+	 * The write-behind mode is only used by virtualizers for which {@link #isWriteBehindSupported()}
+	 * returns <code>true</code>.
+	 *
+	 * @param maxPendingPageOuts the maximum number of objects waiting to be written, 
+	 * or 0 to disable the write-behind mode
+	 * @see #PROPERTY_WRITE_BEHIND_QUEUE_SIZE
+	 */
+	public synchronized void setWriteBehind(int maxPendingPageOuts)
+	{
+		shutdownPageOutExecutor();
+		writeBehindQueueSize = maxPendingPageOuts;
+	}
+
+
+	/**
+	 * Determines whether the virtualizer is in write-behind mode.
+	 * <p/>
+	 * When the mode is set via {@link #PROPERTY_WRITE_BEHIND_QUEUE_SIZE}, the method
+	 * returns <code>true</code> only after the first object has been evicted.
+	 *
+	 * @return whether the virtualizer is in write-behind mode
+	 * @see #setWriteBehind(int)
+	 */
+	public boolean isWriteBehind()
+	{
+		return pageOutExecutor != null;
+	}
+
+	/**
+	 * Determines whether the virtualizer can write serialized object data via
+	 * {@link #pageOut(JRVirtualizable, byte[])}, which is required for the write-behind mode.
+	 * <p/>
+	 * The default implementation returns <code>false</code>.
+	 * 
+	 * @return whether the write-behind mode is supported
+	 * @see #setWriteBehind(int)
+	 */
+	protected boolean isWriteBehindSupported()
+	{
+		return false;
+	}
+
+	protected ThreadPoolExecutor getPageOutExecutor(JRVirtualizationContext context)
+	{
+		if (pageOutExecutorResolved)
+		{
+			return pageOutExecutor;
+		}
+		
+		synchronized (this)
+		{
+			if (!pageOutExecutorResolved)
+			{
+				int queueSize;
+				if (writeBehindQueueSize == null)
+				{
+					JasperReportsContext jasperReportsContext = context.getJasperReportsContext();
+					if (jasperReportsContext == null)
+					{
+						jasperReportsContext = DefaultJasperReportsContext.getInstance();
+					}
+					queueSize = JRPropertiesUtil.getInstance(jasperReportsContext).getIntegerProperty(
+							PROPERTY_WRITE_BEHIND_QUEUE_SIZE, 0);
+				}
+				else
+				{
+					queueSize = writeBehindQueueSize;
+				}
+				
+				if (queueSize > 0 && !isWriteBehindSupported())
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("write-behind not supported by " + getClass().getName());
+					}
+				}
+				else if (queueSize > 0)
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("starting write-behind page outs with queue size " + queueSize);
+					}
+					
+					ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 
+							60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), 
+							new DaemonThreadFactory("virtualizer page-out"), new CallerRunsHandler());
+					executor.allowCoreThreadTimeOut(true);
+					pageOutExecutor = executor;
+				}
+				pageOutExecutorResolved = true;
+			}
+			return pageOutExecutor;
+		}
+	}
+
+	/**
+	 * Shuts down the write-behind thread, after cancelling the pending page outs and
+	 * waiting for the ones in progress.
+	 * <p/>
+	 * The write-behind thread is started again if objects are evicted after this call.
+	 */
+	protected void shutdownPageOuts()
+	{
+		completePendingPageOuts();
+		
+		synchronized (this)
+		{
+			shutdownPageOutExecutor();
+		}
+	}
+
+	private void shutdownPageOutExecutor()
+	{
+		ThreadPoolExecutor executor = pageOutExecutor;
+		if (executor != null)
+		{
+			// page outs still submitted to the executor are run by the calling thread
+			executor.shutdown();
+		}
+		pageOutExecutor = null;
+		pageOutExecutorResolved = false;
+	}
+
 	protected final boolean isReadOnly(JRVirtualizable o)
 	{
 		return readOnly || o.getContext().isReadOnly();
@@ -388,6 +705,23 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		return value.getContext().isDisposed() || !lastObjectSet.containsKey(value);
 	}
 
+	/**
+	 * Estimates the memory size of a virtualizable object, used when the virtualizer 
+	 * has a memory size limit.
+	 * <p/>
+	 * The method is called while holding the virtualizer lock, 
+	 * and it should not lock the object's context.
+	 * The default implementation returns 1 for all objects, subclasses that set a memory
+	 * size limit are expected to override it.
+	 * 
+	 * @param o the virtualizable object
+	 * @return the estimated memory size of the object, in bytes
+	 */
+	protected long estimateSize(JRVirtualizable o)
+	{
+		return 1;
+	}
+
 	protected void evict()
 	{
 		//FIXME lucianc also attempt to evict on non-put operations if the last evict was not successful 
@@ -426,7 +760,15 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 						
 						if (!o.getContext().isDisposed())
 						{
-							virtualizeData(o);
+							ThreadPoolExecutor executor = getPageOutExecutor(o.getContext());
+							if (executor == null)
+							{
+								virtualizeData(o);
+							}
+							else
+							{
+								schedulePageOut(o, executor);
+							}
 						}
 					}
 					else
@@ -462,6 +804,22 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 			log.debug("deregistering " + uid);
 		}
 		
+		PageOutTask pageOut;
+		synchronized (this)
+		{
+			pageOut = pendingPageOuts.isEmpty() ? null : pendingPageOuts.get(uid);
+			if (pageOut != null && !pageOut.release(true))
+			{
+				pageOut = null;
+			}
+		}
+		
+		if (pageOut != null)
+		{
+			// wait for the page out to complete so that we can remove the data
+			pageOut.await();
+		}
+		
 		//try to remove virtual data
 		try
 		{
@@ -531,6 +889,26 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 
 	@Override
 	public void requestData(JRVirtualizable o)
+	{
+		internalizeData(o, true);
+	}
+
+	/**
+	 * Loads the data of a paged out object in advance of the object being used.
+	 * <p/>
+	 * Unlike {@link #requestData(JRVirtualizable)}, the method does not make the object
+	 * the last used object of its context, so that the object currently in use is not 
+	 * made evictable by the prefetch.
+	 * 
+	 * @param o the object whose data is to be loaded
+	 * @see VirtualizedPagePrefetcher
+	 */
+	public void prefetchData(JRVirtualizable o)
+	{
+		internalizeData(o, false);
+	}
+
+	protected void internalizeData(JRVirtualizable o, boolean use)
 	{
 		String uid = o.getUID();
 		boolean evictRequired = false;
@@ -538,7 +916,7 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		o.getContext().lock();
 		try
 		{
-			if (isPagedOutAndTouch(o, uid))
+			if (use ? isPagedOutAndTouch(o, uid) : isPagedOut(uid))
 			{
 				if (log.isDebugEnabled())
 				{
@@ -548,7 +926,7 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 				// unvirtualize
 				try
 				{
-					pageIn(o);
+					pageInPending(o);
 				}
 				catch (IOException e)
 				{
@@ -558,7 +936,10 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 
 				synchronized (this)
 				{
-					setLastObject(o);
+					if (use)
+					{
+						setLastObject(o);
+					}
 					pagedOut.remove(uid);
 					pagedIn.put(uid, o);
 				}
@@ -579,14 +960,58 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		}
 	}
 
+	/**
+	 * Reads the data of a paged out object, either from the data of a pending page out
+	 * or from the external storage.
+	 */
+	protected void pageInPending(JRVirtualizable o) throws IOException
+	{
+		byte[] pendingData = null;
+		synchronized (this)
+		{
+			PageOutTask pageOut = pendingPageOuts.isEmpty() ? null : pendingPageOuts.get(o.getUID());
+			if (pageOut != null)
+			{
+				pendingData = pageOut.data;
+				// read-only objects keep their data in the external storage
+				pageOut.release(isReadOnly(o));
+			}
+		}
+		
+		if (pendingData == null)
+		{
+			pageIn(o);
+		}
+		else
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("reading " + o.getUID() + " from pending page out");
+			}
+			
+			readData(o, new ByteArrayInputStream(pendingData));
+		}
+	}
+
 	@Override
 	public void clearData(JRVirtualizable o)
 	{
 		String uid = o.getUID();
 		if (isPagedOutAndTouch(o, uid))
 		{
+			boolean writing;
+			synchronized (this)
+			{
+				PageOutTask pageOut = pendingPageOuts.isEmpty() ? null : pendingPageOuts.get(uid);
+				// the data is removed when the page out in progress completes
+				writing = pageOut != null && pageOut.release(false);
+			}
+			
 			// remove virtual data
-			dispose(uid);
+			if (!writing)
+			{
+				dispose(uid);
+			}
 
 			synchronized (this)
 			{
@@ -631,6 +1056,226 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		}
 	}
 
+	/**
+	 * Serializes an evicted object and schedules the write of the serialized data.
+	 * Needs to be called while holding the object's context lock.
+	 */
+	protected void schedulePageOut(JRVirtualizable o, ThreadPoolExecutor executor)
+	{
+		String uid = o.getUID();
+		PageOutTask previous;
+		synchronized (this)
+		{
+			if (isPagedOut(uid))
+			{
+				return;
+			}
+			previous = pendingPageOuts.isEmpty() ? null : pendingPageOuts.get(uid);
+		}
+		
+		if (previous != null)
+		{
+			// the previous data of the object is still being written
+			previous.await();
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("serializing " + uid + " for page out");
+		}
+		
+		o.beforeExternalization();
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream(3000);
+		writeData(o, out);
+		
+		o.afterExternalization();
+		o.removeVirtualData();
+		
+		PageOutTask task = new PageOutTask(o, out.toByteArray());
+		synchronized (this)
+		{
+			pendingPageOuts.put(uid, task);
+			pagedOut.put(uid, o);
+		}
+		
+		executor.execute(task);
+	}
+
+	/**
+	 * Waits for the pending page outs to complete.
+	 * <p/>
+	 * The method does not wait if the current thread holds the virtualizer lock,
+	 * as the page outs in progress would need the lock in order to complete.
+	 */
+	protected void completePendingPageOuts()
+	{
+		List<PageOutTask> pageOuts;
+		synchronized (this)
+		{
+			if (pendingPageOuts.isEmpty())
+			{
+				return;
+			}
+			
+			pageOuts = new ArrayList<>(pendingPageOuts.values());
+		}
+		
+		if (!Thread.holdsLock(this))
+		{
+			for (PageOutTask task : pageOuts)
+			{
+				task.await();
+			}
+		}
+	}
+
+	/**
+	 * Background task that writes the serialized data of an evicted object to the external storage.
+	 * <p/>
+	 * The task does not lock the object's context, the object's data has already been removed 
+	 * and the serialized data is kept by the task until the write completes.
+	 * If the write fails, the task keeps the serialized data in the pending page outs.
+	 */
+	protected class PageOutTask implements Runnable
+	{
+		private final JRVirtualizable object;
+		private final byte[] data;
+		private final CountDownLatch done;
+		private boolean started;
+		private boolean cancelled;
+		private boolean failed;
+		private boolean disposeWritten;
+		
+		public PageOutTask(JRVirtualizable object, byte[] data)
+		{
+			this.object = object;
+			this.data = data;
+			this.done = new CountDownLatch(1);
+		}
+
+		/**
+		 * Releases the page out when the object's data is no longer needed in the external storage, 
+		 * either because the object has been read from the serialized data or because it has been removed.
+		 * Needs to be called while holding the virtualizer lock.
+		 * 
+		 * @param keepWritten whether the data written by a page out in progress is to be kept
+		 * @return whether the page out is in progress
+		 */
+		protected boolean release(boolean keepWritten)
+		{
+			if (failed)
+			{
+				pendingPageOuts.remove(object.getUID());
+				return false;
+			}
+			
+			if (started)
+			{
+				disposeWritten = !keepWritten;
+				return true;
+			}
+			
+			if (!cancelled)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("cancelling page out for " + object.getUID());
+				}
+				
+				cancelled = true;
+				pendingPageOuts.remove(object.getUID());
+				done.countDown();
+			}
+			return false;
+		}
+
+		@Override
+		public void run()
+		{
+			String uid = object.getUID();
+			try
+			{
+				synchronized (JRAbstractLRUVirtualizer.this)
+				{
+					if (cancelled)
+					{
+						return;
+					}
+					started = true;
+				}
+				
+				boolean written = false;
+				try
+				{
+					if (!object.getContext().isDisposed())
+					{
+						if (log.isDebugEnabled())
+						{
+							log.debug("writing " + uid);
+						}
+						
+						pageOut(object, data);
+					}
+					written = true;
+				}
+				catch (IOException | RuntimeException e)
+				{
+					log.error("Error paging out " + uid + ", keeping the data in memory", e);
+				}
+				
+				boolean dispose;
+				synchronized (JRAbstractLRUVirtualizer.this)
+				{
+					if (written)
+					{
+						pendingPageOuts.remove(uid);
+					}
+					else
+					{
+						failed = true;
+					}
+					dispose = written && disposeWritten;
+				}
+				
+				if (dispose)
+				{
+					// the object has been read from the serialized data in the meantime
+					dispose(object);
+				}
+			}
+			finally
+			{
+				done.countDown();
+			}
+		}
+		
+		protected void await()
+		{
+			try
+			{
+				done.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Runs rejected page outs on the calling thread, so that the filling thread writes evicted 
+	 * objects itself when too many page outs are pending.
+	 */
+	protected static class CallerRunsHandler implements RejectedExecutionHandler
+	{
+		@Override
+		public void rejectedExecution(Runnable r, ThreadPoolExecutor executor)
+		{
+			r.run();
+		}
+	}
+
 	@Override
 	protected void finalize() throws Throwable //NOSONAR
 	{
@@ -690,6 +1335,14 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 
 	protected final void disposeAll()
 	{
+		shutdownPageOuts();
+		
+		synchronized (this)
+		{
+			// page outs that failed and kept the data in memory
+			pendingPageOuts.clear();
+		}
+		
 		// Remove all paged-out swap files.
 		for (Iterator<String> it = pagedOut.keySet().iterator(); it.hasNext();)
 		{
@@ -731,6 +1384,24 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 	protected abstract void pageOut(JRVirtualizable o) throws IOException;
 
 
+	/**
+	 * Writes the serialized data of a virtualizable object to an external storage.
+	 * <p/>
+	 * The method is called in write-behind mode by the background thread, without holding 
+	 * the object's context lock.
+	 * The default implementation throws {@link UnsupportedOperationException},
+	 * virtualizers that override it also need to override {@link #isWriteBehindSupported()}.
+	 *
+	 * @param o a virtualizable object
+	 * @param data the serialized data of the object, as produced by {@link #writeData(JRVirtualizable, OutputStream)}
+	 * @throws IOException
+	 */
+	protected void pageOut(JRVirtualizable o, byte[] data) throws IOException
+	{
+		throw new UnsupportedOperationException();
+	}
+
+
 	/**
 	 * Reads a virtualizable object's data from an external storage.
 	 *
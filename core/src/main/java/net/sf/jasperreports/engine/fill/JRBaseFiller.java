@@ -112,7 +112,7 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 	private static final int PAGE_HEIGHT_PAGINATION_IGNORED = 0x7d000000;//less than Integer.MAX_VALUE to avoid 
 	private static final int PAGE_WIDTH_IGNORED = 0x7d000000;
 	
-	private JRStyledTextParser styledTextParser = JRStyledTextParser.getInstance();
+	private JRStyledTextParser styledTextParser;
 
 	/**
 	 *
@@ -272,6 +272,8 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 	{
 		super(jasperReportsContext, reportSource, parent);
 		
+		styledTextParser = JRStyledTextParser.getInstance(jasperReportsContext);
+		
 		groups = mainDataset.groups;
 
 		createReportTemplates(factory);
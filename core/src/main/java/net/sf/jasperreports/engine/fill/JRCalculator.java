@@ -141,6 +141,17 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	}
 
 
+	/**
+	 * Sets the variables that are calculated and initialized for each record.
+	 * 
+	 * @param variables the calculated variables, a subset of the dataset variables
+	 */
+	protected void setCalculatedVariables(JRFillVariable[] variables)
+	{
+		this.variables = variables;
+	}
+
+
 	/**
 	 *
 	 */
@@ -170,14 +181,18 @@ public class JRCalculator implements JRFillExpressionEvaluator
 			{
 				JRFillVariable variable = variables[i];
 				Object expressionValue = evaluate(variable.getExpression());
-				Object newValue = variable.getIncrementer().increment(variable, expressionValue, AbstractValueProvider.getCurrentValueProvider());
-				variable.setValue(newValue);
+				JRIncrementer incrementer = variable.getIncrementer();
+				if (!incrementPrimitive(incrementer, variable, expressionValue, JRExpression.EVALUATION_DEFAULT))
+				{
+					Object newValue = incrementer.increment(variable, expressionValue, AbstractValueProvider.getCurrentValueProvider());
+					variable.setValue(newValue);
+				}
 				variable.setInitialized(false);
-				variable.setPreviousIncrementedValue(variable.getIncrementedValue());
+				variable.updatePreviousIncrementedValue();
 
 				if (variable.getIncrementType() == IncrementTypeEnum.NONE)
 				{
-					variable.setIncrementedValue(variable.getValue());
+					variable.updateIncrementedValue();
 				}
 			}
 		}
@@ -223,14 +238,26 @@ public class JRCalculator implements JRFillExpressionEvaluator
 			{
 				JRFillVariable variable = variables[i];
 				Object expressionValue = evaluateEstimated(variable.getExpression());
-				Object newValue = variable.getIncrementer().increment(variable, expressionValue,  AbstractValueProvider.getEstimatedValueProvider());
-				variable.setEstimatedValue(newValue);
+				JRIncrementer incrementer = variable.getIncrementer();
+				if (!incrementPrimitive(incrementer, variable, expressionValue, JRExpression.EVALUATION_ESTIMATED))
+				{
+					Object newValue = incrementer.increment(variable, expressionValue,  AbstractValueProvider.getEstimatedValueProvider());
+					variable.setEstimatedValue(newValue);
+				}
 				//variable.setInitialized(false);
 			}
 		}
 	}
 
 
+	private static boolean incrementPrimitive(JRIncrementer incrementer, JRFillVariable variable, 
+			Object expressionValue, byte evaluation)
+	{
+		return incrementer instanceof PrimitiveIncrementer
+				&& ((PrimitiveIncrementer) incrementer).increment(variable, expressionValue, evaluation);
+	}
+
+
 	/**
 	 * Determines group breaks based on estimated report values. 
 	 * <p>
@@ -23,9 +23,6 @@
  */
 package net.sf.jasperreports.engine.fill;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import net.sf.jasperreports.engine.type.CalculationEnum;
 
 
@@ -117,7 +114,7 @@ class JRDistinctCountExtendedIncrementer extends JRAbstractExtendedIncrementer
 	@Override
 	public Object combine(JRCalculable calculable1, JRCalculable calculable2, AbstractValueProvider valueProvider)
 	{
-		Set<Object> distinctValues = new HashSet<>();
+		DistinctValues distinctValues = new DistinctValues();
 		
 		DistinctCountHolder holder1  = (DistinctCountHolder)calculable1.getValue();
 		if (holder1 != null)
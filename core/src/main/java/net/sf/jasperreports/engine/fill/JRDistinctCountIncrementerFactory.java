@@ -28,6 +28,7 @@ import java.util.Set;
 
 import net.sf.jasperreports.engine.type.CalculationEnum;
 import net.sf.jasperreports.engine.type.ResetTypeEnum;
+import net.sf.jasperreports.engine.util.LongHashSet;
 
 
 /**
@@ -120,15 +121,15 @@ class JRDistinctCountIncrementer implements JRIncrementer
  */
 class DistinctCountHolder
 {
-	private Set<Object> distinctValues;
+	private DistinctValues distinctValues;
 	private Object lastValue;
 
 	public DistinctCountHolder()
 	{
-		distinctValues = new HashSet<>();
+		distinctValues = new DistinctValues();
 	}
 
-	public DistinctCountHolder(Set<Object> distinctValues)
+	public DistinctCountHolder(DistinctValues distinctValues)
 	{
 		this.distinctValues = distinctValues;
 	}
@@ -141,10 +142,10 @@ class DistinctCountHolder
 
 	public void init()
 	{
-		distinctValues = new HashSet<>();
+		distinctValues = new DistinctValues();
 	}
 
-	public Set<Object> getDistinctValues()
+	public DistinctValues getDistinctValues()
 	{
 		return distinctValues;
 	}
@@ -168,3 +169,145 @@ class DistinctCountHolder
 		return distinctValues.size() + (lastValue == null || distinctValues.contains(lastValue) ? 0 : 1);
 	}
 }
+
+
+/**
+ * Set of distinct values that keeps numbers of a single primitive wrapper type in a
+ * {@link LongHashSet}, and switches to a hash set of objects for other values.
+ */
+class DistinctValues
+{
+	private Class<?> numberClass;
+	private LongHashSet numberValues;
+	private Set<Object> values;
+
+	public boolean add(Object value)
+	{
+		if (values == null)
+		{
+			Class<?> valueClass = value.getClass();
+			if (numberValues == null && isPrimitiveNumber(valueClass))
+			{
+				numberClass = valueClass;
+				numberValues = new LongHashSet();
+			}
+			
+			if (valueClass == numberClass)
+			{
+				return numberValues.add(toLong(value));
+			}
+			
+			toObjectSet();
+		}
+		return values.add(value);
+	}
+
+	public boolean contains(Object value)
+	{
+		if (values != null)
+		{
+			return values.contains(value);
+		}
+		return value.getClass() == numberClass && numberValues.contains(toLong(value));
+	}
+
+	public int size()
+	{
+		if (values != null)
+		{
+			return values.size();
+		}
+		return numberValues == null ? 0 : numberValues.size();
+	}
+
+	public void addAll(DistinctValues distinctValues)
+	{
+		if (distinctValues.values != null)
+		{
+			for (Object value : distinctValues.values)
+			{
+				add(value);
+			}
+		}
+		else if (distinctValues.numberValues != null)
+		{
+			if (values == null && (numberValues == null || numberClass == distinctValues.numberClass))
+			{
+				if (numberValues == null)
+				{
+					numberClass = distinctValues.numberClass;
+					numberValues = new LongHashSet(distinctValues.size());
+				}
+				numberValues.addAll(distinctValues.numberValues);
+			}
+			else
+			{
+				Class<?> valuesClass = distinctValues.numberClass;
+				distinctValues.numberValues.forEach(value -> add(toNumber(value, valuesClass)));
+			}
+		}
+	}
+
+	private void toObjectSet()
+	{
+		values = new HashSet<>();
+		if (numberValues != null)
+		{
+			Class<?> valuesClass = numberClass;
+			numberValues.forEach(value -> values.add(toNumber(value, valuesClass)));
+			numberValues = null;
+			numberClass = null;
+		}
+	}
+
+	private static boolean isPrimitiveNumber(Class<?> valueClass)
+	{
+		return valueClass == Long.class || valueClass == Integer.class 
+				|| valueClass == Short.class || valueClass == Byte.class
+				|| valueClass == Double.class || valueClass == Float.class;
+	}
+
+	private static long toLong(Object value)
+	{
+		// the keys need to be consistent with equals()
+		if (value instanceof Double)
+		{
+			return Double.doubleToLongBits((Double) value);
+		}
+		if (value instanceof Float)
+		{
+			return Float.floatToIntBits((Float) value);
+		}
+		return ((Number) value).longValue();
+	}
+
+	private static Object toNumber(long value, Class<?> valueClass)
+	{
+		Object number;
+		if (valueClass == Long.class)
+		{
+			number = value;
+		}
+		else if (valueClass == Integer.class)
+		{
+			number = (int) value;
+		}
+		else if (valueClass == Short.class)
+		{
+			number = (short) value;
+		}
+		else if (valueClass == Byte.class)
+		{
+			number = (byte) value;
+		}
+		else if (valueClass == Double.class)
+		{
+			number = Double.longBitsToDouble(value);
+		}
+		else
+		{
+			number = Float.intBitsToFloat((int) value);
+		}
+		return number;
+	}
+}
@@ -125,7 +125,7 @@ public final class JRDoubleIncrementerFactory extends JRAbstractExtendedIncremen
 /**
  *
  */
-final class JRDoubleCountIncrementer extends JRAbstractExtendedIncrementer
+final class JRDoubleCountIncrementer extends JRAbstractExtendedIncrementer implements PrimitiveIncrementer
 {
 	/**
 	 *
@@ -169,6 +169,14 @@ final class JRDoubleCountIncrementer extends JRAbstractExtendedIncrementer
 		return value.doubleValue() + 1;
 	}
 
+	@Override
+	public boolean increment(JRFillVariable variable, Object expressionValue, byte evaluation)
+	{
+		double value = variable.isInitialized() ? 0 : variable.getIncrementedDoubleValue();
+		variable.setDoubleValue(expressionValue == null ? value : value + 1, evaluation);
+		return true;
+	}
+
 	
 	@Override
 	public Object combine(JRCalculable calculable, JRCalculable calculableValue, AbstractValueProvider valueProvider)
@@ -261,7 +269,7 @@ final class JRDoubleDistinctCountIncrementer extends JRAbstractExtendedIncrement
 /**
  *
  */
-final class JRDoubleSumIncrementer extends JRAbstractExtendedIncrementer
+final class JRDoubleSumIncrementer extends JRAbstractExtendedIncrementer implements PrimitiveIncrementer
 {
 	/**
 	 *
@@ -311,6 +319,20 @@ final class JRDoubleSumIncrementer extends JRAbstractExtendedIncrementer
 		return value.doubleValue() + newValue.doubleValue();
 	}
 
+	@Override
+	public boolean increment(JRFillVariable variable, Object expressionValue, byte evaluation)
+	{
+		if (expressionValue == null)
+		{
+			// null values are handled by the regular increment
+			return false;
+		}
+		
+		double value = variable.isInitialized() ? 0 : variable.getIncrementedDoubleValue();
+		variable.setDoubleValue(value + ((Number) expressionValue).doubleValue(), evaluation);
+		return true;
+	}
+
 	
 	@Override
 	public Object initialValue()
@@ -323,7 +345,7 @@ final class JRDoubleSumIncrementer extends JRAbstractExtendedIncrementer
 /**
  *
  */
-final class JRDoubleAverageIncrementer extends JRAbstractExtendedIncrementer
+final class JRDoubleAverageIncrementer extends JRAbstractExtendedIncrementer implements PrimitiveIncrementer
 {
 	/**
 	 *
@@ -365,6 +387,23 @@ final class JRDoubleAverageIncrementer extends JRAbstractExtendedIncrementer
 		return sumValue.doubleValue() / countValue.doubleValue();
 	}
 
+	@Override
+	public boolean increment(JRFillVariable variable, Object expressionValue, byte evaluation)
+	{
+		JRCalculable countVariable = variable.getHelperVariable(JRCalculable.HELPER_COUNT);
+		JRCalculable sumVariable = variable.getHelperVariable(JRCalculable.HELPER_SUM);
+		if (expressionValue == null 
+				|| !(countVariable instanceof JRFillVariable) || !(sumVariable instanceof JRFillVariable))
+		{
+			return false;
+		}
+		
+		double countValue = ((JRFillVariable) countVariable).getDoubleValue(evaluation);
+		double sumValue = ((JRFillVariable) sumVariable).getDoubleValue(evaluation);
+		variable.setDoubleValue(sumValue / countValue, evaluation);
+		return true;
+	}
+
 	
 	@Override
 	public Object initialValue()
@@ -137,15 +137,8 @@ public class JRFileVirtualizer extends JRAbstractLRUVirtualizer {
 	@Override
 	protected void pageOut(JRVirtualizable o) throws IOException {
 		// Store data to a file.
-		String filename = makeFilename(o);
-		File file = new File(directory, filename);
-		
-		if (file.createNewFile()) {
-			boolean deleteOnExit = JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(PROPERTY_TEMP_FILES_SET_DELETE_ON_EXIT);
-			if (deleteOnExit) {
-				file.deleteOnExit();
-			}
-
+		File file = createPageOutFile(o);
+		if (file != null) {
 			try (BufferedOutputStream bufferedOut = new BufferedOutputStream(new FileOutputStream(file))) {
 				writeData(o, bufferedOut);
 			}
@@ -153,13 +146,50 @@ public class JRFileVirtualizer extends JRAbstractLRUVirtualizer {
 				log.error("Error virtualizing object", e);
 				throw new JRRuntimeException(e);
 			}
-		} else {
-			if (!isReadOnly(o)) {
-				throw new IllegalStateException(
-						"Cannot virtualize data because the file \"" + filename
-								+ "\" already exists.");
+		}
+	}
+
+	@Override
+	protected boolean isWriteBehindSupported() {
+		return true;
+	}
+
+	@Override
+	protected void pageOut(JRVirtualizable o, byte[] data) throws IOException {
+		File file = createPageOutFile(o);
+		if (file != null) {
+			try (FileOutputStream out = new FileOutputStream(file)) {
+				out.write(data);
+			}
+			catch (FileNotFoundException e) {
+				log.error("Error virtualizing object", e);
+				throw new JRRuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Creates the file for the data of an object, or returns <code>null</code> if the file
+	 * already exists for a read-only object.
+	 */
+	private File createPageOutFile(JRVirtualizable o) throws IOException {
+		String filename = makeFilename(o);
+		File file = new File(directory, filename);
+		
+		if (file.createNewFile()) {
+			boolean deleteOnExit = JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(PROPERTY_TEMP_FILES_SET_DELETE_ON_EXIT);
+			if (deleteOnExit) {
+				file.deleteOnExit();
 			}
+			return file;
+		}
+		
+		if (!isReadOnly(o)) {
+			throw new IllegalStateException(
+					"Cannot virtualize data because the file \"" + filename
+							+ "\" already exists.");
 		}
+		return null;
 	}
 
 	@Override
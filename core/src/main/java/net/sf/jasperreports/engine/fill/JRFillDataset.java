@@ -40,12 +40,16 @@ import java.util.UUID;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
 import net.sf.jasperreports.data.cache.CachedDataset;
+import net.sf.jasperreports.data.cache.ColumnValuesDataSource;
 import net.sf.jasperreports.data.cache.DataCacheHandler;
 import net.sf.jasperreports.data.cache.DataRecorder;
 import net.sf.jasperreports.data.cache.DataSnapshot;
 import net.sf.jasperreports.data.cache.DataSnapshotException;
 import net.sf.jasperreports.data.cache.DatasetRecorder;
+import net.sf.jasperreports.data.cache.QueryResultCache;
 import net.sf.jasperreports.engine.DatasetFilter;
 import net.sf.jasperreports.engine.DatasetPropertyExpression;
 import net.sf.jasperreports.engine.DefaultJasperReportsContext;
@@ -73,8 +77,10 @@ import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.ParameterContributor;
 import net.sf.jasperreports.engine.ParameterContributorContext;
 import net.sf.jasperreports.engine.ParameterContributorFactory;
+import net.sf.jasperreports.engine.data.BatchDataSource;
 import net.sf.jasperreports.engine.data.IndexedDataSource;
 import net.sf.jasperreports.engine.design.JRDesignVariable;
+import net.sf.jasperreports.engine.query.CacheableQueryExecuter;
 import net.sf.jasperreports.engine.query.JRQueryExecuter;
 import net.sf.jasperreports.engine.query.QueryExecuterFactory;
 import net.sf.jasperreports.engine.query.SimpleQueryExecutionContext;
@@ -91,6 +97,7 @@ import net.sf.jasperreports.engine.util.JRDataUtils;
 import net.sf.jasperreports.engine.util.JRQueryExecuterUtils;
 import net.sf.jasperreports.engine.util.JRResourcesUtil;
 import net.sf.jasperreports.engine.util.MD5Digest;
+import net.sf.jasperreports.properties.PropertyConstants;
 import net.sf.jasperreports.repo.RepositoryContext;
 import net.sf.jasperreports.repo.SimpleRepositoryContext;
 
@@ -108,6 +115,27 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	public static final String EXCEPTION_MESSAGE_KEY_NO_SUCH_SNAPSHOT_PARAMETER = "fill.dataset.no.such.snapshot.parameter";
 	public static final String EXCEPTION_MESSAGE_KEY_NO_SUCH_VARIABLE = "fill.dataset.no.such.variable";
 	
+	/**
+	 * Property that specifies the number of records read at once from data sources 
+	 * that implement {@link BatchDataSource}.
+	 * <p>
+	 * When reading records in batches, the data source is positioned ahead of the record 
+	 * being filled, therefore batches should not be used when the data source is also 
+	 * accessed by other parties, e.g. by subreports that receive the data source via 
+	 * the {@link JRParameter#REPORT_DATA_SOURCE REPORT_DATA_SOURCE} parameter or by scriptlets.
+	 * <p>
+	 * Batch reading is disabled by default, records are read one by one unless the property
+	 * is set to a positive value.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_DATA_BATCH_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "data.batch.size";
+	
 	/**
 	 * The filler that created this object.
 	 */
@@ -214,6 +242,8 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	 */
 	protected JRDataSource dataSource;
 	
+	private DataSourceBatchReader batchReader;
+	
 	/**
 	 * The {@link Locale Locale} to be used by the dataset.
 	 */
@@ -271,6 +301,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	private CachedDataset cachedDataset;
 	private boolean sortingData;
 	private boolean sortedDataSource;
+	private Map<JRFillVariable, Object> aggregatedVariableValues;
 	
 	private boolean ended;
 	private int cacheRecordCount;
@@ -752,6 +783,8 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	{
 		queryExecuter = null;
 		dataSource = null;
+		batchReader = null;
+		aggregatedVariableValues = null;
 
 		if (cachedDataset != null)
 		{
@@ -768,17 +801,93 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 				setParameter(JRParameter.REPORT_DATA_SOURCE, dataSource);
 			}
 		}
+		
+		batchReader = createBatchReader();
 
 		if (DatasetSortUtil.needSorting(this))
 		{
 			sortingData = true;
-			dataSource = DatasetSortUtil.getSortedDataSource(filler, this, locale);
+			dataSource = DatasetSortUtil.createSortedDataSource(filler, this, locale);
 			sortingData = false;
+			
+			boolean originalRecords = dataSource instanceof SortedDataSource 
+					&& !((SortedDataSource) dataSource).isTruncated();
+			if (!originalRecords && dataRecorder != null)
+			{
+				// the original records are only available in memory sorted data,
+				// top-N sorted data does not include all records
+				if (log.isDebugEnabled())
+				{
+					log.debug("data recording disabled for externally, partially or column sorted data");
+				}
+				
+				filler.fillContext.getDataRecorder().disableRecording();
+				dataRecorder = null;
+			}
 
 			setParameter(JRParameter.REPORT_DATA_SOURCE, dataSource);
 			sortedDataSource = true;
+			
+			batchReader = createBatchReader();
+		}
+		
+		aggregateCachedVariables();
+	}
+	
+	protected void aggregateCachedVariables()
+	{
+		if (dataSource instanceof ColumnValuesDataSource && !sortedDataSource
+				&& getFilterExpression() == null && filter == null && reportMaxCount == null
+				&& propertiesUtil.getBooleanProperty(this, CachedDataVariablesUtil.PROPERTY_AGGREGATE_VARIABLES, false))
+		{
+			aggregatedVariableValues = CachedDataVariablesUtil.aggregateVariables(
+					(ColumnValuesDataSource) dataSource, variables, fieldsMap);
+		}
+		
+		if (calculator == null || variables == null)
+		{
+			return;
+		}
+		
+		if (aggregatedVariableValues == null || aggregatedVariableValues.isEmpty())
+		{
+			calculator.setCalculatedVariables(variables);
+		}
+		else
+		{
+			List<JRFillVariable> calculatedVariables = new ArrayList<>(variables.length);
+			for (JRFillVariable variable : variables)
+			{
+				if (!aggregatedVariableValues.containsKey(variable))
+				{
+					calculatedVariables.add(variable);
+				}
+			}
+			calculator.setCalculatedVariables(calculatedVariables.toArray(new JRFillVariable[calculatedVariables.size()]));
 		}
 	}
+	
+	private DataSourceBatchReader createBatchReader()
+	{
+		if (!(dataSource instanceof BatchDataSource)
+				|| !((BatchDataSource) dataSource).isBatchReadSupported())
+		{
+			return null;
+		}
+		
+		int batchSize = propertiesUtil.getIntegerProperty(this, PROPERTY_DATA_BATCH_SIZE, 0);
+		if (batchSize <= 0)
+		{
+			return null;
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("reading batches of " + batchSize + " records for dataset " + getName());
+		}
+		
+		return new DataSourceBatchReader((BatchDataSource) dataSource, fields, batchSize);
+	}
 
 	public boolean isSortingData()
 	{
@@ -1314,6 +1423,13 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 				filler.fillContext.setRunningQueryExecuter(queryExecuter);
 			}
 			
+			if (queryExecuter instanceof CacheableQueryExecuter
+					&& propertiesUtil.getBooleanProperty(this, QueryResultCache.PROPERTY_ENABLED, false))
+			{
+				return QueryResultCache.getInstance(getJasperReportsContext()).getDataSource(
+						(CacheableQueryExecuter) queryExecuter, getFields(), reportMaxCount);
+			}
+			
 			return queryExecuter.createDatasource();
 		}
 		finally
@@ -1375,13 +1491,24 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	 */
 	public void closeDatasource()
 	{
-		closeQueryExecuter();
-		reset();
+		try
+		{
+			closeQueryExecuter();
+			reset();
 
-		if (ended)
+			if (ended)
+			{
+				// if the whole data source was iterated, submit the recorded data
+				cacheEnd();
+			}
+		}
+		finally
 		{
-			// if the whole data source was iterated, submit the recorded data
-			cacheEnd();
+			if (dataSource instanceof ExternalSortedDataSource)
+			{
+				// deleting the sorted run files
+				((ExternalSortedDataSource) dataSource).dispose();
+			}
 		}
 	}
 
@@ -1408,6 +1535,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		// resetting the variables is required for cases such as sort fields which
 		// iterate and calculate variables.
 		resetVariables();
+		setAggregatedVariableValues();
 		
 		reportCount = 0;
 		ended = false;
@@ -1430,6 +1558,25 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	}
 
 
+	protected void setAggregatedVariableValues()
+	{
+		if (aggregatedVariableValues != null)
+		{
+			for (Map.Entry<JRFillVariable, Object> entry : aggregatedVariableValues.entrySet())
+			{
+				JRFillVariable variable = entry.getKey();
+				Object value = entry.getValue();
+				variable.setValue(value);
+				variable.setOldValue(value);
+				variable.setPreviousOldValue(value);
+				variable.setEstimatedValue(value);
+				variable.setIncrementedValue(value);
+				variable.setPreviousIncrementedValue(value);
+			}
+		}
+	}
+
+
 	/**
 	 * Moves to the next record in the data source.
 	 * 
@@ -1486,9 +1633,12 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 							
 							if (sortedDataSource)
 							{
-								// mark the record as filtered in the sorted data source
-								// ugly cast
-								((SortedDataSource) dataSource).setRecordFilteredIndex(cacheRecordCount - 1);
+								// mark the record as filtered in the sorted data source,
+								// externally sorted data is not recorded
+								if (dataSource instanceof SortedDataSource)
+								{
+									((SortedDataSource) dataSource).setRecordFilteredIndex(cacheRecordCount - 1);
+								}
 							}
 							else
 							{
@@ -1541,7 +1691,8 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		if (cachedDataset != null)
 		{
 			// ugly cast
-			int dataSourceIndex = ((IndexedDataSource) dataSource).getRecordIndex();
+			int dataSourceIndex = batchReader == null 
+					? ((IndexedDataSource) dataSource).getRecordIndex() : batchReader.getRecordIndex();
 			// indexes are 1-based
 			currentCacheRecordIndex = dataSourceIndex + 1;
 		}
@@ -1561,7 +1712,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 				JRFillField field = fields[i];
 				field.setPreviousOldValue(field.getOldValue());
 				field.setOldValue(field.getValue());
-				field.setValue(dataSource.getFieldValue(field));
+				field.setValue(batchReader == null ? dataSource.getFieldValue(field) : batchReader.getFieldValue(i));
 			}
 		}
 
@@ -1570,8 +1721,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 			for (int i = 0; i < variables.length; i++)
 			{
 				JRFillVariable variable = variables[i];
-				variable.setPreviousOldValue(variable.getOldValue());
-				variable.setOldValue(variable.getValue());
+				variable.updateOldValues();
 			}
 		}
 	}
@@ -1616,7 +1766,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		}
 		else
 		{
-			hasNext = dataSource.next();
+			hasNext = batchReader == null ? dataSource.next() : batchReader.next();
 		}
 		return hasNext;
 	}
@@ -60,6 +60,25 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	private boolean isInitialized;
 	private Object savedValue;
 	
+	/**
+	 * Value slots that can hold primitive values set by {@link PrimitiveIncrementer} implementations.
+	 */
+	private static final int SLOT_VALUE = 0;
+	private static final int SLOT_INCREMENTED = 1;
+	private static final int SLOT_PREVIOUS_INCREMENTED = 2;
+	private static final int SLOT_OLD = 3;
+	private static final int SLOT_PREVIOUS_OLD = 4;
+	private static final int SLOT_ESTIMATED = 5;
+	private static final int SLOT_COUNT = 6;
+	
+	/**
+	 * Raw primitive values, boxed only when the corresponding value object is requested.
+	 * Double values are stored as raw long bits.
+	 */
+	private long[] primitiveValues;
+	private boolean primitiveDouble;
+	private int pendingPrimitives;
+	
 	private JRFillVariable[] helperVariables;
 
 	/**
@@ -100,6 +119,7 @@ public class JRFillVariable implements JRVariable, JRCalculable
 		value = null;
 		isInitialized = false;
 		savedValue = null;
+		pendingPrimitives = 0;
 	}
 
 
@@ -197,6 +217,10 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public Object getOldValue()
 	{
+		if (isPendingPrimitive(SLOT_OLD))
+		{
+			oldValue = boxPrimitive(SLOT_OLD);
+		}
 		return oldValue;
 	}
 		
@@ -206,6 +230,7 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	public void setOldValue(Object oldValue)
 	{
 		this.oldValue = oldValue;
+		clearPrimitive(SLOT_OLD);
 	}
 
 	/**
@@ -213,6 +238,10 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public Object getEstimatedValue()
 	{
+		if (isPendingPrimitive(SLOT_ESTIMATED))
+		{
+			estimatedValue = boxPrimitive(SLOT_ESTIMATED);
+		}
 		return estimatedValue;
 	}
 		
@@ -222,11 +251,16 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	public void setEstimatedValue(Object estimatedValue)
 	{
 		this.estimatedValue = estimatedValue;
+		clearPrimitive(SLOT_ESTIMATED);
 	}
 
 	@Override
 	public Object getIncrementedValue()
 	{
+		if (isPendingPrimitive(SLOT_INCREMENTED))
+		{
+			incrementedValue = boxPrimitive(SLOT_INCREMENTED);
+		}
 		return incrementedValue;
 	}
 		
@@ -236,6 +270,7 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	public void setIncrementedValue(Object incrementedValue)
 	{
 		this.incrementedValue = incrementedValue;
+		clearPrimitive(SLOT_INCREMENTED);
 	}
 
 	/**
@@ -243,6 +278,10 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public Object getPreviousIncrementedValue()
 	{
+		if (isPendingPrimitive(SLOT_PREVIOUS_INCREMENTED))
+		{
+			previousIncrementedValue = boxPrimitive(SLOT_PREVIOUS_INCREMENTED);
+		}
 		return previousIncrementedValue;
 	}
 		
@@ -252,11 +291,16 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	public void setPreviousIncrementedValue(Object previousIncrementedValue)
 	{
 		this.previousIncrementedValue = previousIncrementedValue;
+		clearPrimitive(SLOT_PREVIOUS_INCREMENTED);
 	}
 
 	@Override
 	public Object getValue()
 	{
+		if (isPendingPrimitive(SLOT_VALUE))
+		{
+			value = boxPrimitive(SLOT_VALUE);
+		}
 		return value;
 	}
 		
@@ -266,6 +310,205 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	public void setValue(Object value)
 	{
 		this.value = value;
+		clearPrimitive(SLOT_VALUE);
+	}
+
+	/**
+	 * Sets the incremented value to the current value, without boxing primitive values.
+	 */
+	public void updateIncrementedValue()
+	{
+		incrementedValue = value;
+		copyPrimitive(SLOT_VALUE, SLOT_INCREMENTED);
+	}
+
+	/**
+	 * Sets the previous incremented value to the incremented value, without boxing primitive values.
+	 */
+	public void updatePreviousIncrementedValue()
+	{
+		previousIncrementedValue = incrementedValue;
+		copyPrimitive(SLOT_INCREMENTED, SLOT_PREVIOUS_INCREMENTED);
+	}
+
+	/**
+	 * Sets the previous old value to the old value and the old value to the current value, 
+	 * without boxing primitive values.
+	 */
+	public void updateOldValues()
+	{
+		previousOldValue = oldValue;
+		copyPrimitive(SLOT_OLD, SLOT_PREVIOUS_OLD);
+		oldValue = value;
+		copyPrimitive(SLOT_VALUE, SLOT_OLD);
+	}
+
+	/**
+	 * Sets a <code>long</code> value for the variable, boxing it only when the value object is requested.
+	 * 
+	 * @param longValue the value
+	 * @param evaluation the evaluation type, {@link JRExpression#EVALUATION_ESTIMATED} to set the
+	 * estimated value or {@link JRExpression#EVALUATION_DEFAULT} to set the current value
+	 * @see PrimitiveIncrementer
+	 */
+	public void setLongValue(long longValue, byte evaluation)
+	{
+		setPrimitive(evaluationSlot(evaluation), longValue, false);
+	}
+
+	/**
+	 * Sets a <code>double</code> value for the variable, boxing it only when the value object is requested.
+	 * 
+	 * @param doubleValue the value
+	 * @param evaluation the evaluation type, {@link JRExpression#EVALUATION_ESTIMATED} to set the
+	 * estimated value or {@link JRExpression#EVALUATION_DEFAULT} to set the current value
+	 * @see PrimitiveIncrementer
+	 */
+	public void setDoubleValue(double doubleValue, byte evaluation)
+	{
+		setPrimitive(evaluationSlot(evaluation), Double.doubleToRawLongBits(doubleValue), true);
+	}
+
+	/**
+	 * Returns the variable value for an evaluation type as a <code>long</code>, 
+	 * with <code>null</code> values returned as 0.
+	 * 
+	 * @param evaluation the evaluation type
+	 * @return the variable value as a <code>long</code>
+	 */
+	public long getLongValue(byte evaluation)
+	{
+		int slot = evaluationSlot(evaluation);
+		if (isPendingPrimitive(slot))
+		{
+			return primitiveLong(slot);
+		}
+		Number number = (Number) getValue(evaluation);
+		return number == null ? 0 : number.longValue();
+	}
+
+	/**
+	 * Returns the variable value for an evaluation type as a <code>double</code>, 
+	 * with <code>null</code> values returned as 0.
+	 * 
+	 * @param evaluation the evaluation type
+	 * @return the variable value as a <code>double</code>
+	 */
+	public double getDoubleValue(byte evaluation)
+	{
+		int slot = evaluationSlot(evaluation);
+		if (isPendingPrimitive(slot))
+		{
+			return primitiveDouble(slot);
+		}
+		Number number = (Number) getValue(evaluation);
+		return number == null ? 0 : number.doubleValue();
+	}
+
+	/**
+	 * Returns the incremented value as a <code>long</code>, with <code>null</code> values returned as 0.
+	 * 
+	 * @return the incremented value as a <code>long</code>
+	 */
+	public long getIncrementedLongValue()
+	{
+		if (isPendingPrimitive(SLOT_INCREMENTED))
+		{
+			return primitiveLong(SLOT_INCREMENTED);
+		}
+		Number number = (Number) incrementedValue;
+		return number == null ? 0 : number.longValue();
+	}
+
+	/**
+	 * Returns the incremented value as a <code>double</code>, with <code>null</code> values returned as 0.
+	 * 
+	 * @return the incremented value as a <code>double</code>
+	 */
+	public double getIncrementedDoubleValue()
+	{
+		if (isPendingPrimitive(SLOT_INCREMENTED))
+		{
+			return primitiveDouble(SLOT_INCREMENTED);
+		}
+		Number number = (Number) incrementedValue;
+		return number == null ? 0 : number.doubleValue();
+	}
+
+	private static int evaluationSlot(byte evaluation)
+	{
+		int slot;
+		switch (evaluation)
+		{
+			case JRExpression.EVALUATION_OLD:
+				slot = SLOT_OLD;
+				break;
+			case JRExpression.EVALUATION_ESTIMATED:
+				slot = SLOT_ESTIMATED;
+				break;
+			default:
+				slot = SLOT_VALUE;
+				break;
+		}
+		return slot;
+	}
+
+	private boolean isPendingPrimitive(int slot)
+	{
+		return (pendingPrimitives & (1 << slot)) != 0;
+	}
+
+	private void clearPrimitive(int slot)
+	{
+		pendingPrimitives &= ~(1 << slot);
+	}
+
+	private void setPrimitive(int slot, long bits, boolean isDouble)
+	{
+		if (primitiveValues == null)
+		{
+			primitiveValues = new long[SLOT_COUNT];
+		}
+		primitiveValues[slot] = bits;
+		primitiveDouble = isDouble;
+		pendingPrimitives |= 1 << slot;
+	}
+
+	private void copyPrimitive(int fromSlot, int toSlot)
+	{
+		if (isPendingPrimitive(fromSlot))
+		{
+			primitiveValues[toSlot] = primitiveValues[fromSlot];
+			pendingPrimitives |= 1 << toSlot;
+		}
+		else
+		{
+			clearPrimitive(toSlot);
+		}
+	}
+
+	private long primitiveLong(int slot)
+	{
+		long bits = primitiveValues[slot];
+		return primitiveDouble ? (long) Double.longBitsToDouble(bits) : bits;
+	}
+
+	private double primitiveDouble(int slot)
+	{
+		long bits = primitiveValues[slot];
+		return primitiveDouble ? Double.longBitsToDouble(bits) : bits;
+	}
+
+	private Object boxPrimitive(int slot)
+	{
+		clearPrimitive(slot);
+		
+		long bits = primitiveValues[slot];
+		if (primitiveDouble)
+		{
+			return Double.longBitsToDouble(bits);
+		}
+		return bits;
 	}
 
 	@Override
@@ -341,13 +584,13 @@ public class JRFillVariable implements JRVariable, JRCalculable
 		switch (evaluation)
 		{
 			case JRExpression.EVALUATION_OLD:
-				returnValue = oldValue;
+				returnValue = getOldValue();
 				break;
 			case JRExpression.EVALUATION_ESTIMATED:
-				returnValue = estimatedValue;
+				returnValue = getEstimatedValue();
 				break;
 			default:
-				returnValue = value;
+				returnValue = getValue();
 				break;
 		}
 		return returnValue;
@@ -358,15 +601,15 @@ public class JRFillVariable implements JRVariable, JRCalculable
 		switch (evaluation)
 		{
 			case JRExpression.EVALUATION_OLD:
-				savedValue = oldValue;
+				savedValue = getOldValue();
 				oldValue = newValue;
 				break;
 			case JRExpression.EVALUATION_ESTIMATED:
-				savedValue = estimatedValue;
+				savedValue = getEstimatedValue();
 				estimatedValue = newValue;
 				break;
 			default:
-				savedValue = value;
+				savedValue = getValue();
 				value = newValue;
 				break;
 		}
@@ -393,6 +636,10 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	
 	public Object getPreviousOldValue()
 	{
+		if (isPendingPrimitive(SLOT_PREVIOUS_OLD))
+		{
+			previousOldValue = boxPrimitive(SLOT_PREVIOUS_OLD);
+		}
 		return previousOldValue;
 	}
 
@@ -401,6 +648,7 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	public void setPreviousOldValue(Object previousOldValue)
 	{
 		this.previousOldValue = previousOldValue;
+		clearPrimitive(SLOT_PREVIOUS_OLD);
 	}
 
 	@Override
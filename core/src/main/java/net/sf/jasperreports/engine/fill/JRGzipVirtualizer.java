@@ -32,6 +32,8 @@ package net.sf.jasperreports.engine.fill;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -40,9 +42,13 @@ import java.util.zip.GZIPOutputStream;
 
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.util.StreamCompression;
 
 /**
  * GZips the pages that it doesn't need, but keeps them in memory.
+ * <p>
+ * A different compression, such as {@link net.sf.jasperreports.engine.util.BlockStreamCompression},
+ * can be used instead of GZip via {@link #JRGzipVirtualizer(int, StreamCompression)}.
  * 
  * @author John Bindel
  */
@@ -51,6 +57,7 @@ public class JRGzipVirtualizer extends JRAbstractLRUVirtualizer
 	public static final String EXCEPTION_MESSAGE_KEY_NO_DATA_FOUND = "fill.virtualizer.no.data.found";
 	
 	private final Map<String,byte[]> zippedData;
+	private final StreamCompression compression;
 
 	/**
 	 * @param maxSize
@@ -58,8 +65,20 @@ public class JRGzipVirtualizer extends JRAbstractLRUVirtualizer
 	 *            cache.
 	 */
 	public JRGzipVirtualizer(int maxSize) {
+		this(maxSize, null);
+	}
+
+	/**
+	 * @param maxSize
+	 *            the maximum size (in JRVirtualizable objects) of the paged in
+	 *            cache.
+	 * @param compression
+	 *            the compression to apply to the pages, <code>null</code> for GZip
+	 */
+	public JRGzipVirtualizer(int maxSize, StreamCompression compression) {
 		super(maxSize);
 		this.zippedData = Collections.synchronizedMap(new HashMap<String,byte[]>());
+		this.compression = compression;
 	}
 
 	@Override
@@ -70,22 +89,44 @@ public class JRGzipVirtualizer extends JRAbstractLRUVirtualizer
 	@Override
 	protected void pageOut(JRVirtualizable o) throws IOException {
 		if (!zippedData.containsKey(o.getUID())) {
-			GZIPOutputStream gos = null;
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(3000);
+			OutputStream gos = null;
 			try {
-				ByteArrayOutputStream baos = new ByteArrayOutputStream(3000);
-				gos = new GZIPOutputStream(baos);
+				gos = compression == null ? new GZIPOutputStream(baos) : compression.compressedOutput(baos);
 				writeData(o, gos);
-				gos.finish();
-				gos.flush();
-
-				byte[] data = baos.toByteArray();
-				zippedData.put(o.getUID(), data);
 			}
 			finally {
 				if (gos != null) {
+					// finishes the compressed data
 					gos.close();
 				}
 			}
+
+			byte[] data = baos.toByteArray();
+			zippedData.put(o.getUID(), data);
+		}
+		else {
+			if (!isReadOnly(o)) {
+				throw new IllegalStateException(
+						"Cannot virtualize data because the data for object UID \"" + o.getUID()
+						+ "\" already exists.");
+			}
+		}
+	}
+
+	@Override
+	protected boolean isWriteBehindSupported() {
+		return true;
+	}
+
+	@Override
+	protected void pageOut(JRVirtualizable o, byte[] data) throws IOException {
+		if (!zippedData.containsKey(o.getUID())) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(3000);
+			try (OutputStream gos = compression == null ? new GZIPOutputStream(baos) : compression.compressedOutput(baos)) {
+				gos.write(data);
+			}
+			zippedData.put(o.getUID(), baos.toByteArray());
 		}
 		else {
 			if (!isReadOnly(o)) {
@@ -98,7 +139,7 @@ public class JRGzipVirtualizer extends JRAbstractLRUVirtualizer
 
 	@Override
 	protected void pageIn(JRVirtualizable o) throws IOException {
-		GZIPInputStream gis = null;
+		InputStream gis = null;
 		try {
 			byte[] data = zippedData.get(o.getUID());
 			if (data == null) {
@@ -108,7 +149,7 @@ public class JRGzipVirtualizer extends JRAbstractLRUVirtualizer
 						new Object[]{o.getUID()});
 			}
 			ByteArrayInputStream bais = new ByteArrayInputStream(data);
-			gis = new GZIPInputStream(bais);
+			gis = compression == null ? new GZIPInputStream(bais) : compression.uncompressedInput(bais);
 			readData(o, gis);
 		}
 		finally {
@@ -126,6 +167,7 @@ public class JRGzipVirtualizer extends JRAbstractLRUVirtualizer
 	@Override
 	public void cleanup()
 	{
+		shutdownPageOuts();
 		zippedData.clear();
 		reset();
 	}
@@ -125,7 +125,7 @@ public final class JRLongIncrementerFactory extends JRAbstractExtendedIncremente
 /**
  *
  */
-final class JRLongCountIncrementer extends JRAbstractExtendedIncrementer
+final class JRLongCountIncrementer extends JRAbstractExtendedIncrementer implements PrimitiveIncrementer
 {
 	/**
 	 *
@@ -169,6 +169,14 @@ final class JRLongCountIncrementer extends JRAbstractExtendedIncrementer
 		return value.longValue() + 1;
 	}
 
+	@Override
+	public boolean increment(JRFillVariable variable, Object expressionValue, byte evaluation)
+	{
+		long value = variable.isInitialized() ? 0 : variable.getIncrementedLongValue();
+		variable.setLongValue(expressionValue == null ? value : value + 1, evaluation);
+		return true;
+	}
+
 	
 	@Override
 	public Object combine(JRCalculable calculable, JRCalculable calculableValue, AbstractValueProvider valueProvider)
@@ -261,7 +269,7 @@ final class JRLongDistinctCountIncrementer extends JRAbstractExtendedIncrementer
 /**
  *
  */
-final class JRLongSumIncrementer extends JRAbstractExtendedIncrementer
+final class JRLongSumIncrementer extends JRAbstractExtendedIncrementer implements PrimitiveIncrementer
 {
 	/**
 	 *
@@ -311,6 +319,20 @@ final class JRLongSumIncrementer extends JRAbstractExtendedIncrementer
 		return value.longValue() + newValue.longValue();
 	}
 
+	@Override
+	public boolean increment(JRFillVariable variable, Object expressionValue, byte evaluation)
+	{
+		if (expressionValue == null)
+		{
+			// null values are handled by the regular increment
+			return false;
+		}
+		
+		long value = variable.isInitialized() ? 0 : variable.getIncrementedLongValue();
+		variable.setLongValue(value + ((Number) expressionValue).longValue(), evaluation);
+		return true;
+	}
+
 	
 	@Override
 	public Object initialValue()
@@ -323,7 +345,7 @@ final class JRLongSumIncrementer extends JRAbstractExtendedIncrementer
 /**
  *
  */
-final class JRLongAverageIncrementer extends JRAbstractExtendedIncrementer
+final class JRLongAverageIncrementer extends JRAbstractExtendedIncrementer implements PrimitiveIncrementer
 {
 	/**
 	 *
@@ -365,6 +387,23 @@ final class JRLongAverageIncrementer extends JRAbstractExtendedIncrementer
 		return sumValue.longValue() / countValue.longValue();
 	}
 
+	@Override
+	public boolean increment(JRFillVariable variable, Object expressionValue, byte evaluation)
+	{
+		JRCalculable countVariable = variable.getHelperVariable(JRCalculable.HELPER_COUNT);
+		JRCalculable sumVariable = variable.getHelperVariable(JRCalculable.HELPER_SUM);
+		if (expressionValue == null 
+				|| !(countVariable instanceof JRFillVariable) || !(sumVariable instanceof JRFillVariable))
+		{
+			return false;
+		}
+		
+		long countValue = ((JRFillVariable) countVariable).getLongValue(evaluation);
+		long sumValue = ((JRFillVariable) sumVariable).getLongValue(evaluation);
+		variable.setLongValue(sumValue / countValue, evaluation);
+		return true;
+	}
+
 	
 	@Override
 	public Object initialValue()
@@ -41,10 +41,13 @@ import org.apache.commons.collections4.map.ReferenceMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
 import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRPrintElement;
 import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
 import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRVirtualizable;
@@ -60,6 +63,7 @@ import net.sf.jasperreports.engine.base.VirtualizableElementList;
 import net.sf.jasperreports.engine.fonts.FontUtil;
 import net.sf.jasperreports.engine.util.DeepPrintElementVisitor;
 import net.sf.jasperreports.engine.util.UniformPrintElementVisitor;
+import net.sf.jasperreports.properties.PropertyConstants;
 import net.sf.jasperreports.renderers.Renderable;
 
 /**
@@ -77,6 +81,26 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 	
 	private static final Log log = LogFactory.getLog(JRVirtualizationContext.class);
 	
+	/**
+	 * Property that specifies the number of virtualized pages that are loaded on a background thread 
+	 * ahead of the page being exported.
+	 * <p>
+	 * Exporters usually process pages sequentially, and loading the following pages in advance
+	 * reduces the time spent by the exporter waiting for pages to be read from the virtualizer storage.
+	 * The value should be smaller than the in-memory cache size of the virtualizer, otherwise prefetched 
+	 * pages would be evicted before being used.
+	 * <p>
+	 * If set to 0 or negative, pages are not prefetched.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_EXPORT,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_PREFETCH_PAGE_COUNT = JRPropertiesUtil.PROPERTY_PREFIX + "virtualizer.prefetch.page.count";
+	
 	private static final ReferenceMap<JasperPrint, JRVirtualizationContext> contexts = 
 		new ReferenceMap<>(
 			ReferenceMap.ReferenceStrength.WEAK, ReferenceMap.ReferenceStrength.WEAK
@@ -107,6 +131,9 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 	
 	private transient ReentrantLock lock;
 	
+	private transient int prefetchPageCount;
+	private transient volatile VirtualizedPagePrefetcher pagePrefetcher;
+	
 	/**
 	 * Constructs a context.
 	 */
@@ -124,6 +151,7 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		subContexts.put(this.id, this);
 		
 		pageElementSize = JRPropertiesUtil.getInstance(jasperReportsContext).getIntegerProperty(JRVirtualPrintPage.PROPERTY_VIRTUAL_PAGE_ELEMENT_SIZE, 0);
+		prefetchPageCount = JRPropertiesUtil.getInstance(jasperReportsContext).getIntegerProperty(PROPERTY_PREFETCH_PAGE_COUNT, 0);
 		
 		initLock();
 		
@@ -150,6 +178,7 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		this.subContexts.put(this.id, this);
 
 		this.pageElementSize = parentContext.pageElementSize;
+		this.prefetchPageCount = parentContext.prefetchPageCount;
 		
 		// always locking the master context
 		this.lock = parentContext.lock;
@@ -411,6 +440,65 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		this.pageElementSize = pageElementSize;
 	}
 
+	/**
+	 * Returns the number of pages loaded ahead of the page being exported.
+	 * 
+	 * @return the number of prefetched pages
+	 * @see #PROPERTY_PREFETCH_PAGE_COUNT
+	 */
+	public int getPrefetchPageCount()
+	{
+		return prefetchPageCount;
+	}
+
+	/**
+	 * Sets the number of pages loaded ahead of the page being exported.
+	 * 
+	 * @param prefetchPageCount the number of prefetched pages
+	 * @see #PROPERTY_PREFETCH_PAGE_COUNT
+	 */
+	public void setPrefetchPageCount(int prefetchPageCount)
+	{
+		this.prefetchPageCount = prefetchPageCount;
+	}
+	
+	/**
+	 * Loads on a background thread the virtualized pages that follow a page, 
+	 * as configured by {@link #PROPERTY_PREFETCH_PAGE_COUNT}.
+	 * 
+	 * @param pages the list of pages
+	 * @param pageIndex the index of the page that is currently processed
+	 */
+	public void prefetchPages(List<JRPrintPage> pages, int pageIndex)
+	{
+		JRVirtualizationContext masterContext = getMasterContext();
+		if (masterContext != this)
+		{
+			masterContext.prefetchPages(pages, pageIndex);
+			return;
+		}
+		
+		if (prefetchPageCount <= 0 || virtualizer == null || isDisposed())
+		{
+			return;
+		}
+		
+		VirtualizedPagePrefetcher prefetcher = pagePrefetcher;
+		if (prefetcher == null)
+		{
+			synchronized (this)
+			{
+				prefetcher = pagePrefetcher;
+				if (prefetcher == null)
+				{
+					prefetcher = pagePrefetcher = new VirtualizedPagePrefetcher(prefetchPageCount);
+				}
+			}
+		}
+		
+		prefetcher.prefetch(pages, pageIndex);
+	}
+
 	/**
 	 * Returns the virtualizer used by this context.
 	 */
@@ -438,6 +526,7 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		// use configured default if serialized by old version
 		pageElementSize = fields.get("pageElementSize", JRPropertiesUtil.getInstance(jasperReportsContext).getIntegerProperty(
 				JRVirtualPrintPage.PROPERTY_VIRTUAL_PAGE_ELEMENT_SIZE, 0));
+		prefetchPageCount = JRPropertiesUtil.getInstance(jasperReportsContext).getIntegerProperty(PROPERTY_PREFETCH_PAGE_COUNT, 0);
 		
 		setThreadVirtualizer();
 		
@@ -661,6 +750,12 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 	public void dispose()
 	{
 		disposed = true;
+		
+		VirtualizedPagePrefetcher prefetcher = pagePrefetcher;
+		if (prefetcher != null)
+		{
+			prefetcher.dispose();
+		}
 	}
 	
 	/**
@@ -0,0 +1,169 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.base.ElementStore;
+import net.sf.jasperreports.engine.util.SwapFileVirtualizerStoreFactory;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+
+/**
+ * Virtualizer that limits the estimated memory size of the objects kept in memory,
+ * instead of their number.
+ * <p/>
+ * The memory size of a virtualizable object is estimated from the number of print elements
+ * it contains, multiplied by an average element size.
+ * When the estimated size of all the objects in memory exceeds the memory budget, the least
+ * recently used objects are written to {@link VirtualizerStore stores} created by a
+ * {@link VirtualizerStoreFactory}, regardless of the report filling they belong to.
+ * <p/>
+ * The virtualizer is meant to be shared by multiple concurrent report fillings, so that the 
+ * memory budget applies to all of them. 
+ * An instance shared by the reports filled with a JasperReports context and configured via the
+ * {@link #PROPERTY_MEMORY_BUDGET} and {@link #PROPERTY_ELEMENT_SIZE} properties of that context
+ * is available via {@link #getSharedInstance(JasperReportsContext)}.
+ * When a report filling is no longer needed, its data should be discarded by calling 
+ * {@link #dispose(JRVirtualizationContext)} with the virtualization context of the report, 
+ * as {@link #cleanup()} would discard the data of all the reports.
+ */
+public class MemoryBudgetVirtualizer extends StoreFactoryVirtualizer
+{
+	
+	/**
+	 * Property that specifies the memory budget, in bytes, of the shared virtualizer instance.
+	 * 
+	 * @see #getSharedInstance(JasperReportsContext)
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "67108864",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Long.class
+			)
+	public static final String PROPERTY_MEMORY_BUDGET = JRPropertiesUtil.PROPERTY_PREFIX + "virtualizer.shared.memory.budget";
+	
+	/**
+	 * Property that specifies the average memory size, in bytes, of a print element,
+	 * used by the shared virtualizer instance to estimate the memory size of report pages.
+	 * 
+	 * @see #getSharedInstance(JasperReportsContext)
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "256",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_ELEMENT_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "virtualizer.shared.element.size";
+	
+	public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+	public static final int DEFAULT_ELEMENT_SIZE = 256;
+	
+	private static final String CONTEXT_KEY_SHARED_INSTANCE = MemoryBudgetVirtualizer.class.getName() + ".sharedInstance";
+	
+	/**
+	 * Returns the virtualizer instance shared by the reports filled with the default JasperReports context.
+	 * 
+	 * @return the shared virtualizer instance
+	 * @see #getSharedInstance(JasperReportsContext)
+	 */
+	public static MemoryBudgetVirtualizer getSharedInstance()
+	{
+		return getSharedInstance(DefaultJasperReportsContext.getInstance());
+	}
+	
+	/**
+	 * Returns a virtualizer instance that uses swap files as external storage, shared by the reports
+	 * filled with a JasperReports context.
+	 * <p/>
+	 * The instance is created on the first call for the context, using the {@link #PROPERTY_MEMORY_BUDGET} 
+	 * and {@link #PROPERTY_ELEMENT_SIZE} values from the context.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @return the shared virtualizer instance
+	 */
+	public static MemoryBudgetVirtualizer getSharedInstance(JasperReportsContext jasperReportsContext)
+	{
+		synchronized (MemoryBudgetVirtualizer.class)
+		{
+			MemoryBudgetVirtualizer sharedInstance = 
+					(MemoryBudgetVirtualizer) jasperReportsContext.getOwnValue(CONTEXT_KEY_SHARED_INSTANCE);
+			if (sharedInstance == null)
+			{
+				JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(jasperReportsContext);
+				long memoryBudget = propertiesUtil.getLongProperty(PROPERTY_MEMORY_BUDGET, DEFAULT_MEMORY_BUDGET);
+				int elementSize = propertiesUtil.getIntegerProperty(PROPERTY_ELEMENT_SIZE, DEFAULT_ELEMENT_SIZE);
+				sharedInstance = new MemoryBudgetVirtualizer(memoryBudget, elementSize, 
+						new SwapFileVirtualizerStoreFactory());
+				jasperReportsContext.setValue(CONTEXT_KEY_SHARED_INSTANCE, sharedInstance);
+			}
+			return sharedInstance;
+		}
+	}
+	
+	private final int elementSize;
+	
+	/**
+	 * @param maxMemorySize the maximum estimated size (in bytes) of the objects kept in memory
+	 * @param elementSize the average size (in bytes) of a print element
+	 * @param storeFactory the factory used to create stores for virtualization contexts
+	 */
+	public MemoryBudgetVirtualizer(long maxMemorySize, int elementSize, VirtualizerStoreFactory storeFactory)
+	{
+		super(Integer.MAX_VALUE, maxMemorySize, storeFactory);
+		
+		this.elementSize = elementSize;
+	}
+
+	@Override
+	protected long estimateSize(JRVirtualizable o)
+	{
+		// also counting the object itself so that empty pages are not free
+		long elementCount = 1;
+		if (o instanceof ElementStore)
+		{
+			elementCount += ((ElementStore) o).deepSize();
+		}
+		return elementCount * elementSize;
+	}
+	
+	/**
+	 * Returns the estimated memory size of the objects kept in memory.
+	 * 
+	 * @return the estimated memory size, in bytes
+	 */
+	public long getMemorySize()
+	{
+		return pagedIn.getMemorySize();
+	}
+	
+}
@@ -0,0 +1,52 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+
+/**
+ * Incrementer that can keep the value of a variable as a primitive value.
+ * <p/>
+ * The primitive value is set on the variable via {@link JRFillVariable#setLongValue(long, byte)}
+ * or {@link JRFillVariable#setDoubleValue(double, byte)}, and it is boxed only when 
+ * the variable value is read, so that variables calculated on every record do not 
+ * allocate a new value object for each record.
+ * 
+ * @see JRCalculator#calculateVariables(boolean)
+ */
+public interface PrimitiveIncrementer
+{
+
+	/**
+	 * Increments a variable by setting a primitive value.
+	 * 
+	 * @param variable the variable
+	 * @param expressionValue the variable expression value
+	 * @param evaluation the evaluation type, {@link net.sf.jasperreports.engine.JRExpression#EVALUATION_DEFAULT}
+	 * or {@link net.sf.jasperreports.engine.JRExpression#EVALUATION_ESTIMATED}
+	 * @return whether the variable has been incremented; if not, the regular 
+	 * {@link JRIncrementer#increment(JRFillVariable, Object, AbstractValueProvider)} method is used
+	 */
+	boolean increment(JRFillVariable variable, Object expressionValue, byte evaluation);
+
+}
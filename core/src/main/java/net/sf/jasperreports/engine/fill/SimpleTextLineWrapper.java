@@ -24,6 +24,7 @@
 package net.sf.jasperreports.engine.fill;
 
 import java.awt.Font;
+import java.awt.font.FontRenderContext;
 import java.awt.font.LineBreakMeasurer;
 import java.awt.font.LineMetrics;
 import java.awt.font.TextAttribute;
@@ -77,6 +78,29 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 			)
 	public static final String PROPERTY_ELEMENT_CACHE_SIZE = 
 			JRPropertiesUtil.PROPERTY_PREFIX + "measure.simple.text.element.cache.size";
+	
+	/**
+	 * Property that determines whether simple texts are measured using tables of character advances
+	 * computed for each font instead of AWT text layouts.
+	 * 
+	 * <p>
+	 * The tables are used for fonts that have no kerning, ligatures or transforms, and for paragraphs
+	 * that do not require complex text layout.
+	 * The resulting line breaks and widths are the same as the ones produced by exact measurement,
+	 * therefore exact measurement is always performed when the tables are used.
+	 * </p>
+	 * 
+	 * @see GlyphAdvanceTable
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT, PropertyScope.TEXT_ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_ADVANCE_TABLES = 
+			JRPropertiesUtil.PROPERTY_PREFIX + "measure.simple.text.advance.tables";
 
 	public static final String MEASURE_EXACT_ALWAYS = "always";
 	public static final String MEASURE_EXACT_MULTILINE = "multiline";
@@ -102,6 +126,7 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 	private boolean measureSimpleTexts;
 	private boolean measureExact;
 	private boolean measureExactMultiline;
+	private boolean useAdvanceTables;
 	private Map<FontKey, ElementFontInfo> fontInfos;
 	
 	private String wholeText;
@@ -115,7 +140,9 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 	private int paragraphOffset;
 	private int paragraphPosition;
 	private BreakIterator paragraphBreakIterator;
+	private GlyphAdvanceTable paragraphAdvanceTable;
 	private LineBreakMeasurer exactBreakMeasurer;
+	private GlyphAdvanceLineBreaker advanceLineBreaker;
 	private int exactBreakMeasurerStart;
 
 	public SimpleTextLineWrapper()
@@ -128,6 +155,7 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 		this.measureSimpleTexts = parent.measureSimpleTexts;
 		this.measureExact = parent.measureExact;
 		this.measureExactMultiline = parent.measureExactMultiline;
+		this.useAdvanceTables = parent.useAdvanceTables;
 		this.fontInfos = parent.fontInfos;
 		
 		this.wholeText = parent.wholeText;
@@ -157,6 +185,9 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 					measureExactMultiline = true;
 				}
 			}
+			
+			useAdvanceTables = properties.getBooleanProperty(context.getPropertiesHolder(), 
+					PROPERTY_ADVANCE_TABLES, false);
 
 			fontInfos = new HashMap<>();
 		}
@@ -409,13 +440,15 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 		// direction is per paragraph
 		paragraphLeftToRight = isLeftToRight(textChars);
 		paragraphMeasureExact = isParagraphMeasureExact(textChars);
+		paragraphAdvanceTable = getParagraphAdvanceTable(textChars);
 		
 		if (logTrace)
 		{
 			log.trace("paragraph start at " + start
 					+ ", truncate at char " + truncateAtChar
 					+ ", LTR " + paragraphLeftToRight
-					+ ", exact measure " + paragraphMeasureExact);
+					+ ", exact measure " + paragraphMeasureExact
+					+ ", advance table " + (paragraphAdvanceTable != null));
 		}
 		
 		paragraphOffset = start;
@@ -426,6 +459,7 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 		paragraphBreakIterator.setText(paragraphText);
 
 		exactBreakMeasurer = null;
+		advanceLineBreaker = null;
 	}
 
 	protected boolean isLeftToRight(char[] chars)
@@ -452,6 +486,21 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 		return TextLayoutUtils.textLayoutAssessor().hasComplexLayout(chars);
 	}
 
+	protected GlyphAdvanceTable getParagraphAdvanceTable(char[] chars)
+	{
+		if (!useAdvanceTables || fontInfo.fontInfo.complexLayout
+				|| !GlyphAdvanceTable.isSupported(fontInfo.fontInfo.font)
+				|| !GlyphAdvanceTable.isSupported(chars))
+		{
+			return null;
+		}
+		
+		// unless forced, exact measurement already means that the paragraph has complex layout
+		boolean complexText = measureExact || paragraphTruncateAtChar ? hasComplexLayout(chars) 
+				: paragraphMeasureExact;
+		return complexText ? null : fontInfo.fontInfo.getAdvanceTable(context.getFontRenderContext());
+	}
+
 	@Override
 	public int paragraphPosition()
 	{
@@ -491,7 +540,9 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 	protected boolean useExactLineMeasurement()
 	{
 		// when missing a character width estimate perform one exact measurement
+		// exact measurement with advance tables is fast, not estimating
 		return paragraphMeasureExact
+				|| paragraphAdvanceTable != null
 				|| !fontInfo.hasCharWidthEstimate();
 	}
 	
@@ -509,7 +560,12 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 	}
 	
 	protected int measureExactLineBreakIndex(float width, int endLimit, boolean requireWord)
-	{		
+	{
+		if (paragraphAdvanceTable != null)
+		{
+			return measureAdvanceLineBreakIndex(width, endLimit, requireWord);
+		}
+		
 		if (exactBreakMeasurer == null)
 		{
 			Map<Attribute, Object> attributes = new HashMap<>();
@@ -541,6 +597,30 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 		return breakIndex;
 	}
 
+	protected int measureAdvanceLineBreakIndex(float width, int endLimit, boolean requireWord)
+	{
+		if (advanceLineBreaker == null)
+		{
+			// same as the line break measurer, using a fresh iterator for the line
+			BreakIterator breakIterator = paragraphTruncateAtChar ? BreakIterator.getCharacterInstance()
+					: BreakIterator.getLineInstance();
+			advanceLineBreaker = new GlyphAdvanceLineBreaker(paragraphAdvanceTable, 
+					paragraphText, paragraphPosition, endLimit, breakIterator);
+		}
+		else
+		{
+			advanceLineBreaker.setPosition(paragraphPosition);
+		}
+		
+		int breakIndex = advanceLineBreaker.nextOffset(width, endLimit, requireWord);
+		if (logTrace)
+		{
+			log.trace("advance table line break index measured at " + (paragraphOffset + breakIndex));
+		}
+		
+		return breakIndex;
+	}
+
 	protected TextLine measureLine(float width, boolean requireWord, int endLimit)
 	{
 		// try to guess how much of the text would fit based on the average char width
@@ -696,8 +776,10 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 		}
 
 		// note that trailing white space will not be included in the advance
-		Rectangle2D bounds = fontInfo.fontInfo.font.getStringBounds(paragraphText, paragraphPosition, endIndex, 
-				context.getFontRenderContext());
+		Rectangle2D bounds = paragraphAdvanceTable != null
+				? paragraphAdvanceTable.getStringBounds(paragraphText, paragraphPosition, endIndex)
+				: fontInfo.fontInfo.font.getStringBounds(paragraphText, paragraphPosition, endIndex, 
+						context.getFontRenderContext());
 		
 		// adding the measurement to the font info statistics
 		fontInfo.recordMeasurement(bounds.getWidth() / (endIndex - paragraphPosition));
@@ -819,6 +901,7 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 		final boolean complexLayout;
 		final float leading;
 		final FontStatistics fontStatistics;
+		GlyphAdvanceTable advanceTable;
 		
 		public FontInfo(Font font, boolean complexLayout, float leading)
 		{
@@ -828,6 +911,16 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 			this.fontStatistics = new FontStatistics();
 		}
 		
+		public GlyphAdvanceTable getAdvanceTable(FontRenderContext fontRenderContext)
+		{
+			// created on first use as most fonts are not measured with tables
+			if (advanceTable == null)
+			{
+				advanceTable = new GlyphAdvanceTable(font, fontRenderContext);
+			}
+			return advanceTable;
+		}
+		
 		@Override
 		public String toString()
 		{
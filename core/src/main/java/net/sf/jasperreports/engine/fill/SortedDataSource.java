@@ -98,7 +98,8 @@ public class SortedDataSource implements JRRewindableDataSource, IndexedDataSour
 	
 	private final JRDataSource originalDataSource;
 	private final List<SortRecord> records;
-	private final Integer[] recordIndexes;
+	private final int[] recordIndexes;
+	private final boolean truncated;
 	private final Map<String, Integer> columnNamesMap = new HashMap<>();
 	
 	private int currentIndex;
@@ -106,6 +107,25 @@ public class SortedDataSource implements JRRewindableDataSource, IndexedDataSour
 	
 	public SortedDataSource(DatasetSortInfo sortInfo, 
 			List<SortRecord> records, Integer[] recordIndexes)
+	{
+		this(sortInfo, records, toPrimitive(recordIndexes));
+	}
+	
+	public SortedDataSource(DatasetSortInfo sortInfo, 
+			List<SortRecord> records, int[] recordIndexes)
+	{
+		this(sortInfo, records, recordIndexes, false);
+	}
+	
+	/**
+	 * @param sortInfo the sort information
+	 * @param records the records
+	 * @param recordIndexes the sorted record indexes
+	 * @param truncated whether records of the original data source were discarded
+	 * while sorting, in which case the records are not a complete copy of the data
+	 */
+	public SortedDataSource(DatasetSortInfo sortInfo, 
+			List<SortRecord> records, int[] recordIndexes, boolean truncated)
 	{
 		if (records.size() != recordIndexes.length)
 		{
@@ -116,6 +136,7 @@ public class SortedDataSource implements JRRewindableDataSource, IndexedDataSour
 		this.originalDataSource = sortInfo.getOriginalDataSource();
 		this.records = records;
 		this.recordIndexes = recordIndexes;
+		this.truncated = truncated;
 		
 		for (ListIterator<RecordField> it = sortInfo.getRecordFields().listIterator(); it.hasNext();)
 		{
@@ -129,6 +150,16 @@ public class SortedDataSource implements JRRewindableDataSource, IndexedDataSour
 		this.currentIndex = 0;
 	}
 
+	private static int[] toPrimitive(Integer[] recordIndexes)
+	{
+		int[] indexes = new int[recordIndexes.length];
+		for (int i = 0; i < recordIndexes.length; i++)
+		{
+			indexes[i] = recordIndexes[i];
+		}
+		return indexes;
+	}
+
 	public JRDataSource getOriginalDataSource() throws JRException
 	{
 		if (currentRecord != null && originalDataSource instanceof RandomAccessDataSource)
@@ -198,4 +229,12 @@ public class SortedDataSource implements JRRewindableDataSource, IndexedDataSour
 	{
 		return records;
 	}
+
+	/**
+	 * Returns whether only part of the original records have been kept.
+	 */
+	public boolean isTruncated()
+	{
+		return truncated;
+	}
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ import org.apache.commons.logging.LogFactory;
 
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.util.LocalVirtualizationSerializer;
 
 
 /**
@@ -47,7 +48,12 @@ public class StoreFactoryVirtualizer extends JRAbstractLRUVirtualizer
 	
 	public StoreFactoryVirtualizer(int maxSize, VirtualizerStoreFactory storeFactory)
 	{
-		super(maxSize);
+		this(maxSize, 0, storeFactory);
+	}
+	
+	protected StoreFactoryVirtualizer(int maxSize, long maxMemorySize, VirtualizerStoreFactory storeFactory)
+	{
+		super(new LocalVirtualizationSerializer(), maxSize, maxMemorySize);
 
 		this.storeFactory = storeFactory;
 		
@@ -81,19 +87,23 @@ public class StoreFactoryVirtualizer extends JRAbstractLRUVirtualizer
 			return store;
 		}
 		
-		//the context should be locked at this moment
-		store = storeFactory.createStore(context);
-		if (log.isDebugEnabled())
-		{
-			log.debug("created " + store + " for " + context);
-		}
-		
 		// TODO lucianc 
 		// do we need to keep a weak reference to the context, and dispose the store when the reference is cleared?
 		// not doing that for now, assuming that store objects are disposed when garbage collected.
 		synchronized (contextStores)
 		{
-			contextStores.put(context, store);
+			// checking again, stores can also be created by the write-behind thread
+			store = contextStores.get(context);
+			if (store == null)
+			{
+				store = storeFactory.createStore(context);
+				if (log.isDebugEnabled())
+				{
+					log.debug("created " + store + " for " + context);
+				}
+				
+				contextStores.put(context, store);
+			}
 		}
 		
 		return store;
@@ -110,6 +120,23 @@ public class StoreFactoryVirtualizer extends JRAbstractLRUVirtualizer
 		}
 	}
 
+	@Override
+	protected boolean isWriteBehindSupported()
+	{
+		return true;
+	}
+
+	@Override
+	protected void pageOut(JRVirtualizable o, byte[] data) throws IOException
+	{
+		VirtualizerStore store = store(o, true);
+		boolean stored = store.store(o, data);
+		if (!stored && !isReadOnly(o))
+		{
+			throw new IllegalStateException("Cannot virtualize data because the data for object UID \"" + o.getUID() + "\" already exists.");
+		}
+	}
+
 	@Override
 	protected void pageIn(JRVirtualizable o) throws IOException
 	{
@@ -181,6 +208,8 @@ public class StoreFactoryVirtualizer extends JRAbstractLRUVirtualizer
 		{
 			log.debug("disposing " + this);
 		}
+		
+		shutdownPageOuts();
 
 		synchronized (contextStores)
 		{
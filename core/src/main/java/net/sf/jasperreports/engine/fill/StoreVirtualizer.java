@@ -53,6 +53,22 @@ public class StoreVirtualizer extends JRAbstractLRUVirtualizer
 		}
 	}
 
+	@Override
+	protected boolean isWriteBehindSupported()
+	{
+		return true;
+	}
+
+	@Override
+	protected void pageOut(JRVirtualizable o, byte[] data) throws IOException
+	{
+		boolean stored = store.store(o, data);
+		if (!stored && !isReadOnly(o))
+		{
+			throw new IllegalStateException("Cannot virtualize data because the data for object UID \"" + o.getUID() + "\" already exists.");
+		}
+	}
+
 	@Override
 	protected void pageIn(JRVirtualizable o) throws IOException
 	{
@@ -68,6 +84,7 @@ public class StoreVirtualizer extends JRAbstractLRUVirtualizer
 	@Override
 	public void cleanup()
 	{
+		shutdownPageOuts();
 		store.dispose();
 	}
 }
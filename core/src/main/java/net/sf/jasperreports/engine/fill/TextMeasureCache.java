@@ -0,0 +1,310 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.util.LocalJasperReportsContext;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+/**
+ * Shared cache of text measuring results.
+ * 
+ * <p>
+ * The cache is used by {@link TextMeasurer} to share the measuring results of texts that are
+ * printed repeatedly, such as labels and category names, between text elements and between fills.
+ * Results are keyed by the text, the resolved font and style attributes, the paragraph settings 
+ * and the available width. A result is reused for any available height in which the whole text fits,
+ * and for the same available height if the text was cut.
+ * The least recently used results are evicted when the number of cached results exceeds the configured limit.
+ * The results are kept in several independently locked segments, each evicting its own
+ * least recently used results.
+ * </p>
+ * 
+ * @see #PROPERTY_ENABLED
+ */
+public class TextMeasureCache
+{
+	
+	/**
+	 * Flag property that enables the shared text measuring cache for text elements.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT, PropertyScope.TEXT_ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_ENABLED = JRPropertiesUtil.PROPERTY_PREFIX + "text.measure.cache.enabled";
+
+	/**
+	 * Property that specifies the maximum number of text measuring results kept in the cache.
+	 * 
+	 * @see #getInstance(JasperReportsContext)
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "10000",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_MAX_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "text.measure.cache.max.size";
+	
+	public static final int DEFAULT_MAX_SIZE = 10000;
+	
+	// the number of independently locked LRU segments, a power of two
+	protected static final int SEGMENT_COUNT = 16;
+	
+	private static final String CONTEXT_KEY_INSTANCE = TextMeasureCache.class.getName() + ".instance";
+	
+	/**
+	 * Returns the cache instance of the default JasperReports context.
+	 * 
+	 * @see #getInstance(JasperReportsContext)
+	 */
+	public static TextMeasureCache getInstance()
+	{
+		return getInstance(DefaultJasperReportsContext.getInstance());
+	}
+	
+	/**
+	 * Returns the cache instance shared by the fills that run in a JasperReports context.
+	 * <p/>
+	 * The instance is created on the first call for the context, using the {@link #PROPERTY_MAX_SIZE} value 
+	 * from the context.
+	 * Local contexts created for individual fills use the instance of their parent context.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @return the cache instance
+	 */
+	public static TextMeasureCache getInstance(JasperReportsContext jasperReportsContext)
+	{
+		JasperReportsContext instanceContext = jasperReportsContext;
+		while (instanceContext instanceof LocalJasperReportsContext
+				&& ((SimpleJasperReportsContext) instanceContext).getParent() != null)
+		{
+			instanceContext = ((SimpleJasperReportsContext) instanceContext).getParent();
+		}
+		
+		synchronized (TextMeasureCache.class)
+		{
+			TextMeasureCache instance = (TextMeasureCache) instanceContext.getOwnValue(CONTEXT_KEY_INSTANCE);
+			if (instance == null)
+			{
+				int maxSize = JRPropertiesUtil.getInstance(instanceContext)
+						.getIntegerProperty(PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE);
+				instance = new TextMeasureCache(maxSize);
+				instanceContext.setValue(CONTEXT_KEY_INSTANCE, instance);
+			}
+			return instance;
+		}
+	}
+	
+	private final int maxSize;
+	
+	// keys are spread over segments so that concurrent fills do not contend on a single lock
+	private final Segment[] segments;
+	
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	
+	/**
+	 * @param maxSize the maximum number of cached results
+	 */
+	public TextMeasureCache(int maxSize)
+	{
+		this.maxSize = maxSize;
+		this.segments = new Segment[SEGMENT_COUNT];
+		for (int i = 0; i < SEGMENT_COUNT; i++)
+		{
+			// the segment sizes add up to the maximum size
+			int segmentSize = maxSize <= 0 ? 0 : maxSize / SEGMENT_COUNT + (i < maxSize % SEGMENT_COUNT ? 1 : 0);
+			segments[i] = new Segment(segmentSize);
+		}
+	}
+	
+	protected Segment segment(Object key)
+	{
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		return segments[hash & (SEGMENT_COUNT - 1)];
+	}
+	
+	/**
+	 * Returns a cached measuring result.
+	 * 
+	 * @param key the key of the measured text
+	 * @return the cached result, or <code>null</code> if not found.
+	 * The result is shared and must not be modified.
+	 */
+	public JRMeasuredText get(Object key)
+	{
+		Segment segment = segment(key);
+		JRMeasuredText measuredText;
+		synchronized (segment)
+		{
+			measuredText = segment.get(key);
+		}
+		
+		if (measuredText == null)
+		{
+			missCount.incrementAndGet();
+		}
+		else
+		{
+			hitCount.incrementAndGet();
+		}
+		return measuredText;
+	}
+	
+	/**
+	 * Caches a measuring result.
+	 * 
+	 * @param key the key of the measured text
+	 * @param measuredText the result, which must not be modified after being cached
+	 */
+	public void put(Object key, JRMeasuredText measuredText)
+	{
+		Segment segment = segment(key);
+		if (segment.maxSize <= 0)
+		{
+			return;
+		}
+		
+		synchronized (segment)
+		{
+			segment.put(key, measuredText);
+		}
+	}
+	
+	/**
+	 * Removes all cached results.
+	 */
+	public void clear()
+	{
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cached results.
+	 */
+	public int getSize()
+	{
+		int size = 0;
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of measurements served from cached results.
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of measurements that were not found in the cache.
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the ratio of measurements served from cached results.
+	 */
+	public double getHitRate()
+	{
+		long hits = hitCount.get();
+		long requests = hits + missCount.get();
+		return requests == 0 ? 0d : (double) hits / requests;
+	}
+
+	/**
+	 * Returns the number of results evicted due to the size limit.
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.get();
+	}
+
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+	
+	/**
+	 * Least recently used map of a part of the cached results.
+	 */
+	protected class Segment extends LinkedHashMap<Object, JRMeasuredText>
+	{
+		private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+		
+		private final int maxSize;
+		
+		public Segment(int maxSize)
+		{
+			// access order for LRU eviction
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, JRMeasuredText> eldest)
+		{
+			boolean evict = size() > maxSize;
+			if (evict)
+			{
+				evictionCount.incrementAndGet();
+			}
+			return evict;
+		}
+	}
+	
+}
@@ -26,6 +26,7 @@ package net.sf.jasperreports.engine.fill;
 import java.awt.font.FontRenderContext;
 import java.text.AttributedCharacterIterator;
 import java.text.AttributedCharacterIterator.Attribute;
+import java.text.AttributedString;
 import java.text.BreakIterator;
 import java.util.ArrayList;
 import java.util.List;
@@ -45,6 +46,7 @@ import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRTextElement;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.ResolvedProperties;
 import net.sf.jasperreports.engine.TabStop;
 import net.sf.jasperreports.engine.export.AbstractTextRenderer;
 import net.sf.jasperreports.engine.export.AwtTextRenderer;
@@ -205,6 +207,7 @@ public class TextMeasurer implements JRTextMeasurer
 	protected JasperReportsContext jasperReportsContext;
 	protected JRCommonText textElement;
 	private JRPropertiesHolder propertiesHolder;
+	private ResolvedProperties resolvedProperties;
 	private DynamicPropertiesHolder dynamicPropertiesHolder;
 	
 	private SimpleTextLineWrapper simpleLineWrapper;
@@ -231,6 +234,9 @@ public class TextMeasurer implements JRTextMeasurer
 	private boolean hasDynamicSaveLineBreakOffsetsProp;
 	private boolean defaultSaveLineBreakOffsets;
 	
+	private TextMeasureCache measureCache;
+	private String simpleTextsMeasureMode;
+	
 	protected TextMeasuredState measuredState;
 	protected TextMeasuredState prevMeasuredState;
 
@@ -258,6 +264,9 @@ public class TextMeasurer implements JRTextMeasurer
 		protected int lastOffset;
 		protected ArrayList<Integer> lineBreakOffsets;
 		
+		// the available height that cut the text for cached results, negative if the whole text fit
+		protected int cutHeight = -1;
+		
 		public TextMeasuredState(boolean saveLineBreakOffsets)
 		{
 			this.saveLineBreakOffsets = saveLineBreakOffsets;
@@ -442,11 +451,18 @@ public class TextMeasurer implements JRTextMeasurer
 		}
 
 		// read static property values
-		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(jasperReportsContext);
-		defaultIgnoreMissingFont = propertiesUtil.getBooleanProperty(propertiesHolder, 
-				JRStyledText.PROPERTY_AWT_IGNORE_MISSING_FONT, false);
-		defaultSaveLineBreakOffsets = propertiesUtil.getBooleanProperty(propertiesHolder, 
-				JRTextElement.PROPERTY_SAVE_LINE_BREAKS, false);
+		ResolvedProperties properties = getResolvedProperties();
+		defaultIgnoreMissingFont = properties.getBooleanProperty(JRStyledText.PROPERTY_AWT_IGNORE_MISSING_FONT, false);
+		defaultSaveLineBreakOffsets = properties.getBooleanProperty(JRTextElement.PROPERTY_SAVE_LINE_BREAKS, false);
+		
+		if (properties.getBooleanProperty(TextMeasureCache.PROPERTY_ENABLED, false))
+		{
+			measureCache = TextMeasureCache.getInstance(jasperReportsContext);
+			// the simple texts measuring settings are part of the cache key as they can produce different results
+			simpleTextsMeasureMode = properties.getBooleanProperty(PROPERTY_MEASURE_SIMPLE_TEXTS, true)
+					? String.valueOf(properties.getProperty(SimpleTextLineWrapper.PROPERTY_MEASURE_EXACT))
+					: null;
+		}
 		
 		Context measureContext = new Context();
 		simpleLineWrapper = new SimpleTextLineWrapper();
@@ -565,6 +581,23 @@ public class TextMeasurer implements JRTextMeasurer
 		/*   */
 		initialize(styledText, remainingTextStart, availableStretchHeight, indentFirstLine, canOverflow);
 
+		AttributedString awtAttributedString = styledText.getAwtAttributedString(jasperReportsContext, ignoreMissingFont);
+		
+		List<Object> cacheKey = null;
+		if (measureCache != null)
+		{
+			cacheKey = createMeasureCacheKey(styledText, awtAttributedString, remainingTextStart);
+			TextMeasuredState cachedState = (TextMeasuredState) measureCache.get(cacheKey);
+			// a text that fit is measured the same way in any height that fits it, 
+			// a text that was cut is only measured the same way in the same height
+			if (cachedState != null 
+					&& (cachedState.cutHeight < 0 ? cachedState.textHeight <= maxHeight : cachedState.cutHeight == maxHeight))
+			{
+				measuredState = cachedState.cloneState();
+				return measuredState;
+			}
+		}
+		
 		TextLineWrapper lineWrapper = simpleLineWrapper;
 		// check if the simple wrapper would handle the text
 		if (!lineWrapper.start(styledText))
@@ -579,7 +612,7 @@ public class TextMeasurer implements JRTextMeasurer
 		// decide if a bullet should be rendered
 		StyledTextWriteContext context = new StyledTextWriteContext(true);
 
-		AttributedCharacterIterator allParagraphs = styledText.getAwtAttributedString(jasperReportsContext, ignoreMissingFont).getIterator(); 
+		AttributedCharacterIterator allParagraphs = awtAttributedString.getIterator(); 
 
 		isFirstParagraph = true;
 
@@ -655,9 +688,68 @@ public class TextMeasurer implements JRTextMeasurer
 			allParagraphs.setIndex(runStart);
 		}
 		
+		if (cacheKey != null)
+		{
+			TextMeasuredState cachedState = measuredState.cloneState();
+			cachedState.cutHeight = verticalSpaceRemaining ? -1 : maxHeight;
+			measureCache.put(cacheKey, cachedState);
+		}
+		
 		return measuredState;
 	}
 	
+	/**
+	 * Creates the key under which the measuring result is cached, consisting of all the values
+	 * that determine the result.
+	 */
+	protected List<Object> createMeasureCacheKey(JRStyledText styledText, AttributedString awtAttributedString, 
+			int remainingTextStart)
+	{
+		List<Object> key = new ArrayList<>();
+		key.add(styledText.getText());
+		key.add(styledText.getLocale());
+		
+		// the attributes with the resolved fonts
+		AttributedCharacterIterator iterator = awtAttributedString.getIterator();
+		int runLimit = 0;
+		while (runLimit < iterator.getEndIndex() && (runLimit = iterator.getRunLimit()) <= iterator.getEndIndex())
+		{
+			key.add(runLimit);
+			key.add(iterator.getAttributes());
+			iterator.setIndex(runLimit);
+		}
+		
+		key.add(remainingTextStart);
+		key.add(width);
+		key.add(leftPadding);
+		key.add(rightPadding);
+		key.add(indentFirstLine);
+		key.add(canOverflow);
+		
+		key.add(jrParagraph.getLineSpacing());
+		key.add(jrParagraph.getLineSpacingSize());
+		key.add(jrParagraph.getFirstLineIndent());
+		key.add(jrParagraph.getLeftIndent());
+		key.add(jrParagraph.getRightIndent());
+		key.add(jrParagraph.getSpacingBefore());
+		key.add(jrParagraph.getTabStopWidth());
+		TabStop[] tabStops = jrParagraph.getTabStops();
+		if (tabStops != null)
+		{
+			for (TabStop tabStop : tabStops)
+			{
+				key.add(tabStop.getPosition());
+				key.add(tabStop.getAlignment());
+			}
+		}
+		
+		key.add(measuredState.saveLineBreakOffsets);
+		key.add(isToTruncateAtChar());
+		key.add(getTruncateSuffix());
+		key.add(simpleTextsMeasureMode);
+		return key;
+	}
+	
 	protected boolean hasParagraphIndents()
 	{
 		Integer firstLineIndent = jrParagraph.getFirstLineIndent();
@@ -842,18 +934,24 @@ public class TextMeasurer implements JRTextMeasurer
 		while (!done);
 	}
 
+	protected ResolvedProperties getResolvedProperties()
+	{
+		// the properties map of fill elements is replaced when dynamic properties are evaluated
+		if (resolvedProperties == null || !resolvedProperties.isCurrent())
+		{
+			resolvedProperties = JRPropertiesUtil.getInstance(jasperReportsContext).getResolvedProperties(propertiesHolder);
+		}
+		return resolvedProperties;
+	}
+
 	protected boolean isToTruncateAtChar()
 	{
-		//FIXME do not read each time
-		return JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(propertiesHolder, 
-				JRTextElement.PROPERTY_TRUNCATE_AT_CHAR, false);
+		return getResolvedProperties().getBooleanProperty(JRTextElement.PROPERTY_TRUNCATE_AT_CHAR, false);
 	}
 
 	protected String getTruncateSuffix()
 	{
-		//FIXME do not read each time
-		String truncateSuffx = JRPropertiesUtil.getInstance(jasperReportsContext).getProperty(propertiesHolder,
-				JRTextElement.PROPERTY_TRUNCATE_SUFFIX);
+		String truncateSuffx = getResolvedProperties().getProperty(JRTextElement.PROPERTY_TRUNCATE_SUFFIX);
 		if (truncateSuffx != null)
 		{
 			truncateSuffx = truncateSuffx.trim();
@@ -0,0 +1,158 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
+import net.sf.jasperreports.engine.util.DaemonThreadFactory;
+
+
+/**
+ * Loads virtualized pages on a background thread ahead of the page that is being processed.
+ * <p>
+ * The prefetcher assumes that pages are accessed sequentially, as exporters do, and loads
+ * the pages that follow the current page so that they are available in memory when needed.
+ * Prefetching is done on a best-effort basis, pages that cannot be queued because the
+ * background thread lags behind are scheduled again by the next {@link #prefetch(List, int)} call.
+ * 
+ * @see JRVirtualizationContext#prefetchPages(List, int)
+ */
+public class VirtualizedPagePrefetcher
+{
+	private static final Log log = LogFactory.getLog(VirtualizedPagePrefetcher.class);
+	
+	private final int pageCount;
+	private final ThreadPoolExecutor executor;
+	
+	private int lastPageIndex = -1;
+	private int prefetchedPageIndex = -1;
+	
+	/**
+	 * Creates a prefetcher.
+	 * 
+	 * @param pageCount the number of pages to load ahead of the current page
+	 */
+	public VirtualizedPagePrefetcher(int pageCount)
+	{
+		this.pageCount = pageCount;
+		this.executor = new ThreadPoolExecutor(1, 1, 
+				60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(pageCount), 
+				new DaemonThreadFactory("virtualizer prefetch"));
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * Schedules the loading of the pages that follow a page.
+	 * 
+	 * @param pages the list of pages
+	 * @param pageIndex the index of the page that is currently processed
+	 */
+	public synchronized void prefetch(List<JRPrintPage> pages, int pageIndex)
+	{
+		int startIndex = pageIndex + 1;
+		if (pageIndex > lastPageIndex && prefetchedPageIndex >= startIndex)
+		{
+			// the following pages have already been scheduled
+			startIndex = prefetchedPageIndex + 1;
+		}
+		int endIndex = Math.min(pageIndex + pageCount, pages.size() - 1);
+		
+		int scheduledIndex = startIndex - 1;
+		for (int index = startIndex; index <= endIndex; index++)
+		{
+			JRPrintPage page = pages.get(index);
+			if (page instanceof JRVirtualPrintPage)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("prefetching page " + index);
+				}
+				
+				try
+				{
+					executor.execute(new PrefetchTask((JRVirtualPrintPage) page));
+				}
+				catch (RejectedExecutionException e)
+				{
+					// the queue is full, the page will be scheduled by a following call
+					if (log.isDebugEnabled())
+					{
+						log.debug("prefetch queue full at page " + index);
+					}
+					break;
+				}
+			}
+			scheduledIndex = index;
+		}
+		
+		lastPageIndex = pageIndex;
+		prefetchedPageIndex = scheduledIndex;
+	}
+	
+	/**
+	 * Stops the background loading of pages.
+	 */
+	public void dispose()
+	{
+		executor.shutdownNow();
+	}
+	
+	protected static class PrefetchTask implements Runnable
+	{
+		private final JRVirtualPrintPage page;
+		
+		public PrefetchTask(JRVirtualPrintPage page)
+		{
+			this.page = page;
+		}
+
+		@Override
+		public void run()
+		{
+			if (page.getVirtualizationContext().isDisposed())
+			{
+				return;
+			}
+			
+			try
+			{
+				page.prefetchVirtualData();
+			}
+			catch (RuntimeException e)
+			{
+				// the page will be loaded again when accessed
+				log.warn("Error prefetching page " + page, e);
+			}
+		}
+	}
+}
@@ -34,6 +34,18 @@ public interface VirtualizerStore
 
 	boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer);
 
+	/**
+	 * Stores the serialized data of an object.
+	 * <p/>
+	 * The method is used by virtualizers in write-behind mode and can be called concurrently
+	 * with the other methods.
+	 * 
+	 * @param o the object
+	 * @param data the data serialized by a {@link VirtualizationSerializer}
+	 * @return <code>false</code> if the object data is already stored
+	 */
+	boolean store(JRVirtualizable<?> o, byte[] data);
+
 	void retrieve(JRVirtualizable<?> o, boolean remove,
 			VirtualizationSerializer serializer);
 
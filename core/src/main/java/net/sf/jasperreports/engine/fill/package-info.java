@@ -239,6 +239,13 @@
  * represents an enhanced implementation of the JRSwapFile that only works with JRE 
  * version 1.4 or later, because it uses a <code>java.nio.channels.FileChannel</code> to perform 
  * concurrent I/O on the swap file. 
+ * </p><p>
+ * The {@link net.sf.jasperreports.engine.util.JRMappedSwapFile} class memory maps the swap file 
+ * in growing segments and keeps free blocks in several lock stripes, so that multiple report-filling 
+ * processes sharing the swap file do not serialize their I/O operations. The 
+ * {@link net.sf.jasperreports.engine.util.SwapFileVirtualizerStoreFactory} creates such swap files 
+ * when the {@link net.sf.jasperreports.engine.util.SwapFileVirtualizerStoreFactory#PROPERTY_MEMORY_MAPPED net.sf.jasperreports.virtualizer.swap.file.memory.mapped} 
+ * configuration property is set. 
  * </p>
  * <h3>In-Memory GZIP Virtualizer</h3>
  * The {@link net.sf.jasperreports.engine.fill.JRGzipVirtualizer} is a convenient 
@@ -247,6 +254,22 @@
  * memory consumption by compressing those pages in-memory using a GZIP algorithm. 
  * Tests indicate that memory consumption during large report-generating processes is 
  * reduced up to a factor of ten when the in-memory GZIP report virtualizer is used. 
+ * <h3>Off-Heap Virtualizer Store</h3>
+ * The {@link net.sf.jasperreports.engine.util.OffHeapVirtualizerStore} can be used with a 
+ * {@link net.sf.jasperreports.engine.fill.StoreVirtualizer} or, through 
+ * {@link net.sf.jasperreports.engine.util.OffHeapVirtualizerStoreFactory}, with a 
+ * {@link net.sf.jasperreports.engine.fill.StoreFactoryVirtualizer}. It keeps serialized pages 
+ * in a bounded {@link net.sf.jasperreports.engine.util.OffHeapArena} made of direct byte buffers, 
+ * outside the Java heap, and only writes pages to a swap file when the arena is full. 
+ * <h3>Memory Budget Virtualizer</h3>
+ * The {@link net.sf.jasperreports.engine.fill.MemoryBudgetVirtualizer} limits the estimated 
+ * memory size of the pages kept in memory instead of their number, estimating page sizes from 
+ * the number of print elements they contain. A single instance can be shared by many concurrent 
+ * report fillings, in which case the least recently used pages of all the reports are written 
+ * to external storage when the memory budget is exceeded. The instance shared by the reports 
+ * filled with a JasperReports context is configured 
+ * via the {@link net.sf.jasperreports.engine.fill.MemoryBudgetVirtualizer#PROPERTY_MEMORY_BUDGET net.sf.jasperreports.virtualizer.shared.memory.budget} 
+ * configuration property. 
  * <h3>Related Documentation</h3>
  * <a href="http://community.jaspersoft.com/wiki/jasperreports-library-tutorial">JasperReports Tutorial</a>
  * 
@@ -257,6 +280,7 @@
  * @see net.sf.jasperreports.engine.JRVirtualizer
  * @see net.sf.jasperreports.engine.util.JRConcurrentSwapFile
  * @see net.sf.jasperreports.engine.util.JRLoader
+ * @see net.sf.jasperreports.engine.util.JRMappedSwapFile
  * @see net.sf.jasperreports.engine.util.JRSwapFile
  */
 package net.sf.jasperreports.engine.fill;
@@ -0,0 +1,380 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fonts;
+
+import java.awt.Font;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the font families available through extensions, used by {@link FontUtil}
+ * to look up fonts by name without iterating all font families.
+ * 
+ * <p>
+ * The index is created for a list of font families and is only valid as long as the
+ * list of font families available in the context consists of the same instances, 
+ * see {@link #isCurrent(List)}.
+ * The index also keeps a stamp of the extensions it was created for, which is checked 
+ * first so that the font families are not retrieved on every lookup, see {@link #hasStamp(Object)}.
+ * </p>
+ */
+final class FontExtensionsIndex
+{
+	
+	// limit for the memoized lookups, the cache is cleared when exceeded
+	private static final int MAX_CACHE_SIZE = 1000;
+	
+	private static final FontInfoEntry NOT_FOUND = new FontInfoEntry(-1, null, null, Font.PLAIN);
+	
+	private final List<FontFamily> families;
+	private volatile Object extensionsStamp;
+	
+	// names are mapped to matches in the order of the families and of the faces within families
+	private final Map<String, List<FontInfoEntry>> nameEntries = new HashMap<>();
+	private final Map<String, List<FontInfoEntry>> ignoreCaseNameEntries = new HashMap<>();
+	private final Map<String, List<FontInfoEntry>> awtFamilyEntries = new HashMap<>();
+	private final Map<String, List<FontInfoEntry>> ignoreCaseAwtFamilyEntries = new HashMap<>();
+	
+	private final Map<LookupKey, FontInfoEntry> lookups = new ConcurrentHashMap<>();
+	private final Map<DerivedFontKey, Font> derivedFonts = new ConcurrentHashMap<>();
+	
+	public FontExtensionsIndex(List<FontFamily> families, Object extensionsStamp)
+	{
+		this.extensionsStamp = extensionsStamp;
+		this.families = families == null ? Collections.<FontFamily>emptyList() : families;
+		
+		for (int i = 0; i < this.families.size(); i++)
+		{
+			FontFamily family = this.families.get(i);
+			addName(family.getName(), new FontInfoEntry(i, family, null, Font.PLAIN));
+			addFace(i, family, family.getNormalFace(), Font.PLAIN);
+			addFace(i, family, family.getBoldFace(), Font.BOLD);
+			addFace(i, family, family.getItalicFace(), Font.ITALIC);
+			addFace(i, family, family.getBoldItalicFace(), Font.BOLD | Font.ITALIC);
+		}
+	}
+	
+	private void addFace(int familyIndex, FontFamily family, FontFace face, int style)
+	{
+		if (face != null)
+		{
+			FontInfoEntry entry = new FontInfoEntry(familyIndex, family, face, style);
+			addName(face.getName(), entry);
+			
+			if (face.getFont() != null)
+			{
+				String awtFamily = face.getFont().getFamily();
+				if (awtFamily != null)
+				{
+					addEntry(awtFamilyEntries, awtFamily, entry);
+					addEntry(ignoreCaseAwtFamilyEntries, normalizeCase(awtFamily), entry);
+				}
+			}
+		}
+	}
+	
+	private void addName(String name, FontInfoEntry entry)
+	{
+		if (name != null)
+		{
+			addEntry(nameEntries, name, entry);
+			addEntry(ignoreCaseNameEntries, normalizeCase(name), entry);
+		}
+	}
+	
+	private static void addEntry(Map<String, List<FontInfoEntry>> entries, String key, FontInfoEntry entry)
+	{
+		List<FontInfoEntry> keyEntries = entries.get(key);
+		if (keyEntries == null)
+		{
+			keyEntries = new ArrayList<>(1);
+			entries.put(key, keyEntries);
+		}
+		keyEntries.add(entry);
+	}
+	
+	/**
+	 * Returns a form of the name such that two names are equal ignoring case, 
+	 * as per {@link String#equalsIgnoreCase(String)}, if and only if their normalized forms are equal.
+	 */
+	private static String normalizeCase(String name)
+	{
+		char[] chars = name.toCharArray();
+		for (int i = 0; i < chars.length; i++)
+		{
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+	
+	/**
+	 * Determines whether the index was created for a stamp of the extensions.
+	 * 
+	 * @param stamp the current extensions stamp, <code>null</code> if not known
+	 * @return whether the stamp is known and equal to the stamp of the index
+	 */
+	public boolean hasStamp(Object stamp)
+	{
+		return stamp != null && stamp.equals(extensionsStamp);
+	}
+	
+	/**
+	 * Sets the extensions stamp after checking that the index is current for the font families
+	 * available with the stamp.
+	 */
+	public void setStamp(Object stamp)
+	{
+		this.extensionsStamp = stamp;
+	}
+	
+	/**
+	 * Determines whether the index was created for a list of font families.
+	 * 
+	 * @param currentFamilies the font families currently available
+	 * @return whether the list contains the same font family instances as the indexed list
+	 */
+	public boolean isCurrent(List<FontFamily> currentFamilies)
+	{
+		if (currentFamilies == null)
+		{
+			return families.isEmpty();
+		}
+		
+		if (currentFamilies == families)
+		{
+			return true;
+		}
+		
+		int size = families.size();
+		if (currentFamilies.size() != size)
+		{
+			return false;
+		}
+		
+		for (int i = 0; i < size; i++)
+		{
+			if (currentFamilies.get(i) != families.get(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Looks up a font by family or face name, with the same result as iterating the
+	 * font families and faces in order.
+	 * 
+	 * @see FontUtil#getFontInfo(String, boolean, Locale)
+	 */
+	public FontInfo getFontInfo(String name, boolean ignoreCase, Locale locale)
+	{
+		LookupKey key = new LookupKey(name, ignoreCase, locale);
+		FontInfoEntry entry = lookups.get(key);
+		if (entry == null)
+		{
+			entry = findFontInfo(name, ignoreCase, locale);
+			if (lookups.size() >= MAX_CACHE_SIZE)
+			{
+				lookups.clear();
+			}
+			lookups.put(key, entry);
+		}
+		return entry == NOT_FOUND ? null : new FontInfo(entry.family, entry.face, entry.style);
+	}
+	
+	private FontInfoEntry findFontInfo(String name, boolean ignoreCase, Locale locale)
+	{
+		String key = ignoreCase ? normalizeCase(name) : name;
+		
+		FontInfoEntry entry = findEntry(ignoreCase ? ignoreCaseNameEntries.get(key) : nameEntries.get(key), locale);
+		if (entry == null)
+		{
+			// falling back to the family names of the AWT fonts
+			entry = findEntry(ignoreCase ? ignoreCaseAwtFamilyEntries.get(key) : awtFamilyEntries.get(key), locale);
+		}
+		return entry == null ? NOT_FOUND : entry;
+	}
+	
+	private static FontInfoEntry findEntry(List<FontInfoEntry> entries, Locale locale)
+	{
+		if (entries != null)
+		{
+			for (FontInfoEntry entry : entries)
+			{
+				if (locale == null || entry.family.supportsLocale(locale))
+				{
+					return entry;
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the last font family with a given name that supports a locale.
+	 */
+	public FontFamily getFontFamily(String name, Locale locale)
+	{
+		List<FontInfoEntry> entries = nameEntries.get(name);
+		if (entries != null)
+		{
+			for (int i = entries.size() - 1; i >= 0; i--)
+			{
+				FontInfoEntry entry = entries.get(i);
+				if (entry.face == null 
+						&& (locale == null || entry.family.supportsLocale(locale)))
+				{
+					return entry.family;
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Derives a font face font for a style and size, reusing the previously derived fonts.
+	 */
+	public Font getDerivedFont(FontFace face, int style, float size)
+	{
+		DerivedFontKey key = new DerivedFontKey(face, style, size);
+		Font font = derivedFonts.get(key);
+		if (font == null)
+		{
+			//deriving with style and size in one call, because deriving with size and then style loses the float size
+			font = face.getFont().deriveFont(style, size);
+			if (derivedFonts.size() >= MAX_CACHE_SIZE)
+			{
+				derivedFonts.clear();
+			}
+			derivedFonts.put(key, font);
+		}
+		return font;
+	}
+	
+	private static class FontInfoEntry
+	{
+		private final int familyIndex;
+		private final FontFamily family;
+		private final FontFace face;
+		private final int style;
+		
+		public FontInfoEntry(int familyIndex, FontFamily family, FontFace face, int style)
+		{
+			this.familyIndex = familyIndex;
+			this.family = family;
+			this.face = face;
+			this.style = style;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return "{family: " + familyIndex
+					+ ", face: " + (face == null ? null : face.getName())
+					+ ", style: " + style
+					+ "}";
+		}
+	}
+	
+	private static class LookupKey
+	{
+		private final String name;
+		private final boolean ignoreCase;
+		private final Locale locale;
+		
+		public LookupKey(String name, boolean ignoreCase, Locale locale)
+		{
+			this.name = name;
+			this.ignoreCase = ignoreCase;
+			this.locale = locale;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			int hash = 43;
+			hash = hash*29 + name.hashCode();
+			hash = hash*29 + (ignoreCase ? 1 : 0);
+			hash = hash*29 + (locale == null ? 0 : locale.hashCode());
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof LookupKey))
+			{
+				return false;
+			}
+			
+			LookupKey key = (LookupKey) obj;
+			return name.equals(key.name) && ignoreCase == key.ignoreCase
+					&& Objects.equals(locale, key.locale);
+		}
+	}
+	
+	private static class DerivedFontKey
+	{
+		private final FontFace face;
+		private final int style;
+		private final float size;
+		
+		public DerivedFontKey(FontFace face, int style, float size)
+		{
+			this.face = face;
+			this.style = style;
+			this.size = size;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			int hash = 43;
+			hash = hash*29 + System.identityHashCode(face);
+			hash = hash*29 + style;
+			hash = hash*29 + Float.floatToIntBits(size);
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof DerivedFontKey))
+			{
+				return false;
+			}
+			
+			DerivedFontKey key = (DerivedFontKey) obj;
+			return face == key.face && style == key.style 
+					&& Float.floatToIntBits(size) == Float.floatToIntBits(key.size);
+		}
+	}
+}
@@ -41,12 +41,16 @@ import java.util.TreeSet;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRFont;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
 import net.sf.jasperreports.engine.util.JRFontNotFoundException;
 import net.sf.jasperreports.engine.util.JRGraphEnvInitializer;
 import net.sf.jasperreports.engine.util.JRTextAttribute;
+import net.sf.jasperreports.engine.util.LocalJasperReportsContext;
+import net.sf.jasperreports.extensions.ExtensionsEnvironment;
 
 
 /**
@@ -57,6 +61,8 @@ public final class FontUtil
 	private static final Log log = LogFactory.getLog(FontUtil.class);
 	public static final String EXCEPTION_MESSAGE_KEY_NULL_FONT = "engine.fonts.null.font";
 	public static final String EXCEPTION_MESSAGE_KEY_FONT_SET_FAMILY_NOT_FOUND = "util.font.set.family.not.found";
+	
+	static final String CONTEXT_KEY_FONT_INDEX = FontUtil.class.getName() + ".fontIndex";
 
 	private JasperReportsContext jasperReportsContext;
 
@@ -185,100 +191,91 @@ public final class FontUtil
 	 */
 	public FontInfo getFontInfo(String name, boolean ignoreCase, Locale locale)
 	{
-		FontInfo awtFamilyMatchFontInfo = null;
+		return getFontIndex().getFontInfo(name, ignoreCase, locale);
+	}
 
-		//FIXMEFONT do some cache
-		List<FontFamily> families = jasperReportsContext.getExtensions(FontFamily.class);
-		for (Iterator<FontFamily> itf = families.iterator(); itf.hasNext();)
+
+	/**
+	 * Returns the index of the font families available in the context, creating it if
+	 * it does not exist or if the font families have changed since it was created.
+	 * 
+	 * <p>
+	 * The index is kept in the parent context of local contexts that do not set their own extensions,
+	 * so that it is shared by the fills that run in the parent context.
+	 * </p>
+	 */
+	private FontExtensionsIndex getFontIndex()
+	{
+		JasperReportsContext indexContext = jasperReportsContext;
+		while (indexContext instanceof LocalJasperReportsContext
+				&& ((SimpleJasperReportsContext) indexContext).getParent() != null
+				&& ((SimpleJasperReportsContext) indexContext).getExtensionsModificationCount() == 0)
 		{
-			FontFamily family = itf.next();
-			if (locale == null || family.supportsLocale(locale))
+			indexContext = ((SimpleJasperReportsContext) indexContext).getParent();
+		}
+		
+		Object extensionsStamp = getExtensionsStamp(indexContext);
+		FontExtensionsIndex fontIndex = (FontExtensionsIndex) indexContext.getOwnValue(CONTEXT_KEY_FONT_INDEX);
+		if (fontIndex != null && fontIndex.hasStamp(extensionsStamp))
+		{
+			return fontIndex;
+		}
+		
+		List<FontFamily> families = indexContext.getExtensions(FontFamily.class);
+		if (fontIndex != null && fontIndex.isCurrent(families))
+		{
+			fontIndex.setStamp(extensionsStamp);
+		}
+		else
+		{
+			if (log.isDebugEnabled())
 			{
-				if (equals(name, family.getName(), ignoreCase))
-				{
-					return new FontInfo(family, null, Font.PLAIN);
-				}
-				
-				FontFace face = family.getNormalFace();
-				if (face != null)
-				{
-					if (equals(name, face.getName(), ignoreCase))
-					{
-						return new FontInfo(family, face, Font.PLAIN);
-					}
-					else if (
-						awtFamilyMatchFontInfo == null
-						&& face.getFont() != null
-						&& equals(name, face.getFont().getFamily(), ignoreCase)
-						)
-					{
-						awtFamilyMatchFontInfo = new FontInfo(family, face, Font.PLAIN);
-					}
-				}
-
-				face = family.getBoldFace();
-				if (face != null)
-				{
-					if (equals(name, face.getName(), ignoreCase))
-					{
-						return new FontInfo(family, face, Font.BOLD);
-					}
-					else if (
-						awtFamilyMatchFontInfo == null
-						&& face.getFont() != null
-						&& equals(name, face.getFont().getFamily(), ignoreCase)
-						)
-					{
-						awtFamilyMatchFontInfo = new FontInfo(family, face, Font.BOLD);
-					}
-				}
-
-				face = family.getItalicFace();
-				if (face != null)
-				{
-					if (equals(name, face.getName(), ignoreCase))
-					{
-						return new FontInfo(family, face, Font.ITALIC);
-					}
-					else if (
-						awtFamilyMatchFontInfo == null
-						&& face.getFont() != null
-						&& equals(name, face.getFont().getFamily(), ignoreCase)
-						)
-					{
-						awtFamilyMatchFontInfo = new FontInfo(family, face, Font.ITALIC);
-					}
-				}
-
-				face = family.getBoldItalicFace();
-				if (face != null)
-				{
-					if (equals(name, face.getName(), ignoreCase))
-					{
-						return new FontInfo(family, face, Font.BOLD | Font.ITALIC);
-					}
-					else if (
-						awtFamilyMatchFontInfo == null
-						&& face.getFont() != null
-						&& equals(name, face.getFont().getFamily(), ignoreCase)
-						)
-					{
-						awtFamilyMatchFontInfo = new FontInfo(family, face, Font.BOLD | Font.ITALIC);
-					}
-				}
+				log.debug("creating font index for " + (families == null ? 0 : families.size()) + " font families");
 			}
+			
+			fontIndex = new FontExtensionsIndex(families, extensionsStamp);
+			
+			// we don't need to handle race conditions here as concurrent threads would create equivalent indexes
+			indexContext.setValue(CONTEXT_KEY_FONT_INDEX, fontIndex);
+		}
+		return fontIndex;
+	}
+	
+	/**
+	 * Returns a stamp that changes when the font families available in the context can have changed,
+	 * or <code>null</code> if changes cannot be detected for the context.
+	 * 
+	 * <p>
+	 * The stamp consists of the extensions modification counts and parents of the simple contexts
+	 * in the chain, and of the extensions registry and cache key used by the default context.
+	 * The registries loaded by the extensions registry are not expected to change their font families.
+	 * </p>
+	 */
+	private static Object getExtensionsStamp(JasperReportsContext indexContext)
+	{
+		List<Object> stamp = new ArrayList<>(6);
+		JasperReportsContext context = indexContext;
+		// not walking subclasses as they might override the extensions
+		while (context != null && (context.getClass() == SimpleJasperReportsContext.class
+				|| context.getClass() == LocalJasperReportsContext.class))
+		{
+			SimpleJasperReportsContext simpleContext = (SimpleJasperReportsContext) context;
+			stamp.add(simpleContext.getExtensionsModificationCount());
+			context = simpleContext.getParent();
+			stamp.add(context);
 		}
 		
-		return awtFamilyMatchFontInfo;
+		if (context != DefaultJasperReportsContext.getInstance())
+		{
+			return null;
+		}
+		
+		stamp.add(ExtensionsEnvironment.getExtensionsRegistry());
+		stamp.add(ExtensionsEnvironment.getExtensionsCacheKey());
+		return stamp;
 	}
 
 
-	private static boolean equals(String value1, String value2, boolean ignoreCase)
-	{
-		return ignoreCase ? value1.equalsIgnoreCase(value2) : value1.equals(value2);
-	}
-	
-	
 	/**
 	 * Returns font information containing the font family, font face and font style, searching for names case sensitive.
 	 * 
@@ -294,17 +291,7 @@ public final class FontUtil
 
 	public FontSetInfo getFontSetInfo(String name, Locale locale, boolean ignoreMissingFonts)
 	{
-		//FIXMEFONT do some cache
-		List<FontFamily> allFontFamilies = jasperReportsContext.getExtensions(FontFamily.class);
-		HashMap<String, FontFamily> fontFamilies = new HashMap<>(allFontFamilies.size() * 4 / 3, .75f);
-		for (FontFamily family : allFontFamilies)
-		{
-			if (family.getName() != null
-					&& (locale == null || family.supportsLocale(locale)))
-			{
-				fontFamilies.put(family.getName(), family);
-			}
-		}
+		FontExtensionsIndex fontIndex = getFontIndex();
 		
 		Map<String, FontSetFamilyInfo> setFamilyInfos = new LinkedHashMap<>();
 		List<FontSet> allSets = jasperReportsContext.getExtensions(FontSet.class);
@@ -319,7 +306,7 @@ public final class FontUtil
 				List<FontSetFamily> setFamilies = fontSet.getFamilies();
 				for (FontSetFamily fontSetFamily : setFamilies)
 				{
-					FontFamily fontFamily = fontFamilies.get(fontSetFamily.getFamilyName());
+					FontFamily fontFamily = fontIndex.getFontFamily(fontSetFamily.getFamilyName(), locale);
 					if (fontFamily != null)
 					{
 						FontSetFamilyInfo familyInfo = new FontSetFamilyInfo(fontSetFamily, fontFamily);
@@ -366,7 +353,6 @@ public final class FontUtil
 	
 	public String getExportFontFamily(String name, Locale locale, String exporterKey)
 	{
-		//FIXMEFONT do some cache
 		FontInfo fontInfo = getFontInfo(name, locale);
 		if (fontInfo != null)
 		{
@@ -524,8 +510,7 @@ public final class FontUtil
 						new Object[]{face.getName(), family.getName()});
 			}
 
-			//deriving with style and size in one call, because deriving with size and then style loses the float size
-			awtFont = awtFont.deriveFont(style, size);// & ~faceStyle);
+			awtFont = getFontIndex().getDerivedFont(face, style, size);// & ~faceStyle);
 		}
 		return awtFont;
 	}
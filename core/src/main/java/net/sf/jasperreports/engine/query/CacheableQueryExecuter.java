@@ -0,0 +1,49 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.query;
+
+import net.sf.jasperreports.data.cache.QueryResultCache;
+import net.sf.jasperreports.engine.JRException;
+
+/**
+ * Query executer whose results can be shared by {@link QueryResultCache}.
+ */
+public interface CacheableQueryExecuter extends JRQueryExecuter
+{
+
+	/**
+	 * Returns a key that identifies the query result.
+	 * 
+	 * <p>
+	 * Two executers that return equal keys are expected to produce the same records.
+	 * The key should include the query text after parameter substitution, the query parameter 
+	 * values and anything else that affects the result, such as the connection.
+	 * </p>
+	 * 
+	 * @return the result key, or <code>null</code> if the result should not be cached
+	 * @throws JRException
+	 */
+	Object getResultCacheKey() throws JRException;
+	
+}
@@ -23,6 +23,7 @@
  */
 package net.sf.jasperreports.engine.query;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import net.sf.jasperreports.data.cache.DataCacheKeyUtil;
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRDataset;
 import net.sf.jasperreports.engine.JRParameter;
@@ -682,6 +684,59 @@ public abstract class JRAbstractQueryExecuter implements JRQueryExecuter
 	}
 	
 	
+	/**
+	 * Creates a key that identifies the query result, consisting of the canonical query language,
+	 * the parsed query string, the query parameter values and the dataset fields,
+	 * including the field descriptions and properties.
+	 * 
+	 * @return the list of key components
+	 * @see CacheableQueryExecuter#getResultCacheKey()
+	 */
+	protected List<Object> createResultCacheKey()
+	{
+		List<Object> key = new ArrayList<>();
+		key.add(getCanonicalQueryLanguage());
+		key.add(getQueryString());
+		
+		visitQueryParameters(new QueryParameterVisitor()
+		{
+			@Override
+			public void visit(QueryParameter queryParameter)
+			{
+				key.add(queryParameter.getName());
+				key.add(resultCacheKeyValue(getParameterValue(queryParameter.getName())));
+			}
+
+			@Override
+			public void visit(ValuedQueryParameter valuedQueryParameter)
+			{
+				key.add(valuedQueryParameter.getType());
+				key.add(resultCacheKeyValue(valuedQueryParameter.getValue()));
+			}
+		});
+		
+		key.add(DataCacheKeyUtil.fieldsKey(dataset.getFields()));
+		return key;
+	}
+	
+	protected static Object resultCacheKeyValue(Object value)
+	{
+		if (value == null || !value.getClass().isArray())
+		{
+			return value;
+		}
+		
+		// arrays do not implement equals
+		int length = Array.getLength(value);
+		List<Object> values = new ArrayList<>(length);
+		for (int i = 0; i < length; i++)
+		{
+			values.add(resultCacheKeyValue(Array.get(value, i)));
+		}
+		return values;
+	}
+	
+	
 	/**
 	 * Returns the value of a fill parameter.
 	 * @param parameterName the parameter name
@@ -37,6 +37,7 @@ import java.sql.Types;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.regex.Matcher;
@@ -65,7 +66,7 @@ import net.sf.jasperreports.engine.JasperReportsContext;
  * 
  * @author Teodor Danciu (teodord@users.sourceforge.net)
  */
-public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
+public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter implements CacheableQueryExecuter
 {
 	private static final Log log = LogFactory.getLog(JRJdbcQueryExecuter.class);
 	public static final String EXCEPTION_MESSAGE_KEY_MULTI_PARAMETERS_CANNOT_CONTAIN_NULL_VALUES = "query.multi.parameters.cannot.contain.null.values";
@@ -373,6 +374,48 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 	}
 	
 	
+	/**
+	 * Returns a key consisting of the parsed query, the query parameter values, the dataset fields,
+	 * the connection URL and user, and the time zones used to read values.
+	 * 
+	 * Procedure calls are not cached.
+	 */
+	@Override
+	public Object getResultCacheKey() throws JRException
+	{
+		if (connection == null)
+		{
+			return null;
+		}
+		
+		List<Object> key = createResultCacheKey();
+		try
+		{
+			if (isProcedureCall(getQueryString()))
+			{
+				return null;
+			}
+			
+			DatabaseMetaData metaData = connection.getMetaData();
+			key.add(metaData.getURL());
+			key.add(metaData.getUserName());
+		}
+		catch (SQLException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to read connection metadata, not caching the query result", e);
+			}
+			return null;
+		}
+		
+		key.add(fieldsTimeZone);
+		key.add(fieldsTimeZoneOverride);
+		key.add(getParameterValue(JRParameter.REPORT_TIME_ZONE, true));
+		return key;
+	}
+	
+	
 	protected void createStatement() throws JRException
 	{
 		String queryString = getQueryString();
@@ -0,0 +1,79 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+/**
+ * Compresses and decompresses blocks of data held in byte arrays.
+ * <p>
+ * Implementations are used by {@link BlockStreamCompression} and need to be thread safe.
+ * 
+ * @see LZ4BlockCompressor
+ */
+public interface BlockCompressor
+{
+
+	/**
+	 * Returns the maximum length of the compressed form of a block.
+	 * 
+	 * @param length the length of the uncompressed block
+	 * @return the maximum compressed length
+	 */
+	int maxCompressedLength(int length);
+
+	/**
+	 * Returns a compressor to be used for the blocks of a single stream.
+	 * <p>
+	 * The returned compressor is used by one thread at a time and can reuse working 
+	 * buffers from one block to the next.  Stateless compressors can return themselves.
+	 * 
+	 * @return a compressor for a stream of blocks
+	 */
+	BlockCompressor streamCompressor();
+
+	/**
+	 * Compresses a block.
+	 * 
+	 * @param src the data to compress
+	 * @param srcOffset the offset of the data
+	 * @param length the length of the data
+	 * @param dest the destination buffer, needs to have at least {@link #maxCompressedLength(int)} bytes
+	 * available after the offset
+	 * @param destOffset the destination offset
+	 * @return the length of the compressed block
+	 */
+	int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset);
+
+	/**
+	 * Decompresses a block.
+	 * 
+	 * @param src the compressed data
+	 * @param srcOffset the offset of the compressed data
+	 * @param srcLength the length of the compressed data
+	 * @param dest the destination buffer
+	 * @param destOffset the destination offset
+	 * @param length the length of the uncompressed block
+	 */
+	void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int length);
+
+}
@@ -0,0 +1,368 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stream compression that compresses data in independent blocks using a {@link BlockCompressor}.
+ * <p>
+ * Each block is written with a small header that contains the uncompressed length and,
+ * when the block is compressed, the compressed length.
+ * Blocks that do not shrink when compressed are written as is, so that incompressible data
+ * does not need to be decompressed when read.
+ * 
+ * @see LZ4BlockCompressor
+ */
+public class BlockStreamCompression implements StreamCompression
+{
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+	
+	private static final int STORED_BLOCK = -1;
+	
+	private final BlockCompressor compressor;
+	private final int blockSize;
+
+	/**
+	 * Creates a stream compression that uses {@link LZ4BlockCompressor}.
+	 */
+	public BlockStreamCompression()
+	{
+		this(new LZ4BlockCompressor());
+	}
+
+	public BlockStreamCompression(BlockCompressor compressor)
+	{
+		this(compressor, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Creates a block stream compression.
+	 * 
+	 * @param compressor the block compressor
+	 * @param blockSize the maximum uncompressed size of a block
+	 */
+	public BlockStreamCompression(BlockCompressor compressor, int blockSize)
+	{
+		if (blockSize <= 0)
+		{
+			throw new IllegalArgumentException("Invalid block size " + blockSize);
+		}
+		
+		this.compressor = compressor;
+		this.blockSize = blockSize;
+	}
+
+	@Override
+	public OutputStream compressedOutput(OutputStream stream)
+	{
+		return new BlockCompressedOutputStream(stream);
+	}
+
+	@Override
+	public InputStream uncompressedInput(InputStream stream)
+	{
+		return new BlockCompressedInputStream(stream);
+	}
+
+	public BlockCompressor getCompressor()
+	{
+		return compressor;
+	}
+
+	public int getBlockSize()
+	{
+		return blockSize;
+	}
+	
+	protected static void writeInt(OutputStream out, int value) throws IOException
+	{
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+	
+	protected class BlockCompressedOutputStream extends FilterOutputStream
+	{
+		private byte[] buffer;
+		private int count;
+		private BlockCompressor blockCompressor;
+		private byte[] compressed;
+		private boolean closed;
+		
+		public BlockCompressedOutputStream(OutputStream out)
+		{
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			ensureBuffer();
+			if (count == blockSize)
+			{
+				writeBlock();
+			}
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			ensureBuffer();
+			int offset = off;
+			int remaining = len;
+			while (remaining > 0)
+			{
+				if (count == blockSize)
+				{
+					writeBlock();
+				}
+				
+				int chunk = Math.min(remaining, blockSize - count);
+				System.arraycopy(b, offset, buffer, count, chunk);
+				count += chunk;
+				offset += chunk;
+				remaining -= chunk;
+			}
+		}
+		
+		protected void ensureBuffer() throws IOException
+		{
+			if (closed)
+			{
+				throw new IOException("Stream closed");
+			}
+			
+			if (buffer == null)
+			{
+				buffer = new byte[blockSize];
+			}
+		}
+		
+		protected void writeBlock() throws IOException
+		{
+			if (count == 0)
+			{
+				return;
+			}
+			
+			if (compressed == null)
+			{
+				blockCompressor = compressor.streamCompressor();
+				compressed = new byte[blockCompressor.maxCompressedLength(blockSize)];
+			}
+			
+			int compressedLength = blockCompressor.compress(buffer, 0, count, compressed, 0);
+			writeInt(out, count);
+			if (compressedLength < count)
+			{
+				writeInt(out, compressedLength);
+				out.write(compressed, 0, compressedLength);
+			}
+			else
+			{
+				// the block did not shrink, writing it uncompressed
+				writeInt(out, STORED_BLOCK);
+				out.write(buffer, 0, count);
+			}
+			count = 0;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (!closed)
+			{
+				try
+				{
+					writeBlock();
+				}
+				finally
+				{
+					closed = true;
+					buffer = null;
+					blockCompressor = null;
+					compressed = null;
+					out.close();
+				}
+			}
+		}
+	}
+
+	protected class BlockCompressedInputStream extends FilterInputStream
+	{
+		private final byte[] header = new byte[8];
+		private byte[] buffer;
+		private byte[] compressed;
+		private int position;
+		private int count;
+		
+		public BlockCompressedInputStream(InputStream in)
+		{
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			if (position == count && !readBlock())
+			{
+				return -1;
+			}
+			return buffer[position++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			if (len == 0)
+			{
+				return 0;
+			}
+			
+			if (position == count && !readBlock())
+			{
+				return -1;
+			}
+			
+			int read = Math.min(len, count - position);
+			System.arraycopy(buffer, position, b, off, read);
+			position += read;
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			long skipped = 0;
+			while (skipped < n)
+			{
+				if (position == count && !readBlock())
+				{
+					break;
+				}
+				
+				int chunk = (int) Math.min(n - skipped, count - position);
+				position += chunk;
+				skipped += chunk;
+			}
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException
+		{
+			return count - position;
+		}
+
+		@Override
+		public boolean markSupported()
+		{
+			return false;
+		}
+
+		@Override
+		public synchronized void mark(int readlimit)
+		{
+			// not supported
+		}
+
+		@Override
+		public synchronized void reset() throws IOException
+		{
+			throw new IOException("mark/reset not supported");
+		}
+		
+		protected boolean readBlock() throws IOException
+		{
+			int first = in.read();
+			if (first < 0)
+			{
+				return false;
+			}
+			
+			header[0] = (byte) first;
+			readFully(in, header, 1, 7);
+			int length = readInt(header, 0);
+			int compressedLength = readInt(header, 4);
+			if (length <= 0 || length > blockSize 
+					|| (compressedLength != STORED_BLOCK && (compressedLength <= 0 || compressedLength > length)))
+			{
+				throw new IOException("Invalid block header " + length + "/" + compressedLength);
+			}
+			
+			if (buffer == null)
+			{
+				buffer = new byte[blockSize];
+			}
+			
+			if (compressedLength == STORED_BLOCK)
+			{
+				readFully(in, buffer, 0, length);
+			}
+			else
+			{
+				if (compressed == null)
+				{
+					compressed = new byte[blockSize];
+				}
+				
+				readFully(in, compressed, 0, compressedLength);
+				compressor.decompress(compressed, 0, compressedLength, buffer, 0, length);
+			}
+			
+			position = 0;
+			count = length;
+			return true;
+		}
+		
+		private void readFully(InputStream stream, byte[] buf, int offset, int length) throws IOException
+		{
+			int idx = offset;
+			while (idx < offset + length)
+			{
+				int read = stream.read(buf, idx, offset + length - idx);
+				if (read < 0)
+				{
+					throw new EOFException();
+				}
+				idx += read;
+			}
+		}
+		
+		private int readInt(byte[] buf, int offset)
+		{
+			return ((buf[offset] & 0xFF) << 24) | ((buf[offset + 1] & 0xFF) << 16)
+					| ((buf[offset + 2] & 0xFF) << 8) | (buf[offset + 3] & 0xFF);
+		}
+	}
+
+}
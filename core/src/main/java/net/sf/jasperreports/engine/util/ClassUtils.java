@@ -101,6 +101,35 @@ public final class ClassUtils
 		}
 		return interfaces;
 	}
+	
+	/**
+	 * Determines whether a class overrides a method declared by one of its superclasses.
+	 * 
+	 * @param clazz the class
+	 * @param baseClass the superclass that declares the method
+	 * @param methodName the method name
+	 * @param parameterTypes the method parameter types
+	 * @return whether the method is declared by <code>clazz</code> or by one of its superclasses
+	 * that extend <code>baseClass</code>
+	 */
+	public static boolean overridesMethod(Class<?> clazz, Class<?> baseClass, 
+			String methodName, Class<?>... parameterTypes)
+	{
+		for (Class<?> superclass = clazz; superclass != null && superclass != baseClass; 
+				superclass = superclass.getSuperclass())
+		{
+			try
+			{
+				superclass.getDeclaredMethod(methodName, parameterTypes);
+				return true;
+			}
+			catch (NoSuchMethodException e)
+			{
+				// continuing with the superclass
+			}
+		}
+		return false;
+	}
 
 	private ClassUtils()
 	{
@@ -0,0 +1,63 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+
+/**
+ * Creates named daemon threads for background work, 
+ * e.g. for virtualizer page-outs or crosstab bucketing.
+ * 
+ * The thread names consist of the name prefix followed by a thread number.
+ */
+public class DaemonThreadFactory implements ThreadFactory
+{
+	private static final Log log = LogFactory.getLog(DaemonThreadFactory.class);
+	
+	private final String namePrefix;
+	private final AtomicInteger threadCount;
+	
+	public DaemonThreadFactory(String namePrefix)
+	{
+		this.namePrefix = namePrefix;
+		this.threadCount = new AtomicInteger();
+	}
+
+	@Override
+	public Thread newThread(Runnable r)
+	{
+		Thread thread = new Thread(r, namePrefix + " #" + threadCount.incrementAndGet());
+		thread.setDaemon(true);
+		if (log.isDebugEnabled())
+		{
+			log.debug("created thread " + thread);
+		}
+		return thread;
+	}
+}
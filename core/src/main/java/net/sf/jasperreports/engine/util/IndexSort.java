@@ -0,0 +1,144 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+/**
+ * Stable sort of <code>int</code> indexes using a comparator that works on primitive
+ * indexes, avoiding the <code>Integer</code> wrappers required by <code>Arrays.sort</code>.
+ */
+public final class IndexSort
+{
+	
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+	
+	/**
+	 * Compares two indexes.
+	 */
+	@FunctionalInterface
+	public interface IndexComparator
+	{
+		int compare(int index1, int index2);
+	}
+	
+	private IndexSort()
+	{
+	}
+	
+	/**
+	 * Creates an array containing the indexes from 0 to <code>count - 1</code>.
+	 */
+	public static int[] identity(int count)
+	{
+		int[] indexes = new int[count];
+		for (int i = 0; i < count; i++)
+		{
+			indexes[i] = i;
+		}
+		return indexes;
+	}
+	
+	/**
+	 * Sorts an array of indexes.
+	 * 
+	 * The sort is stable, equal indexes keep their relative order.
+	 */
+	public static void sort(int[] indexes, IndexComparator comparator)
+	{
+		sort(indexes, 0, indexes.length, comparator);
+	}
+	
+	/**
+	 * Sorts a range of an array of indexes.
+	 * 
+	 * @param from the first position to sort, inclusive
+	 * @param to the last position to sort, exclusive
+	 */
+	public static void sort(int[] indexes, int from, int to, IndexComparator comparator)
+	{
+		if (to - from < 2)
+		{
+			return;
+		}
+		
+		int[] buffer = new int[to - from];
+		mergeSort(indexes, buffer, from, to, comparator);
+	}
+	
+	private static void mergeSort(int[] indexes, int[] buffer, int from, int to, IndexComparator comparator)
+	{
+		if (to - from <= INSERTION_SORT_THRESHOLD)
+		{
+			insertionSort(indexes, from, to, comparator);
+			return;
+		}
+		
+		int middle = (from + to) >>> 1;
+		mergeSort(indexes, buffer, from, middle, comparator);
+		mergeSort(indexes, buffer, middle, to, comparator);
+		
+		if (comparator.compare(indexes[middle - 1], indexes[middle]) <= 0)
+		{
+			// already ordered
+			return;
+		}
+		
+		// the buffer is relative to the start of the range
+		int leftCount = middle - from;
+		System.arraycopy(indexes, from, buffer, 0, leftCount);
+		
+		int left = 0;
+		int right = middle;
+		int dest = from;
+		while (left < leftCount && right < to)
+		{
+			if (comparator.compare(indexes[right], buffer[left]) < 0)
+			{
+				indexes[dest++] = indexes[right++];
+			}
+			else
+			{
+				indexes[dest++] = buffer[left++];
+			}
+		}
+		
+		// remaining right side values are already in place
+		System.arraycopy(buffer, left, indexes, dest, leftCount - left);
+	}
+	
+	private static void insertionSort(int[] indexes, int from, int to, IndexComparator comparator)
+	{
+		for (int i = from + 1; i < to; i++)
+		{
+			int index = indexes[i];
+			int j = i - 1;
+			while (j >= from && comparator.compare(indexes[j], index) > 0)
+			{
+				indexes[j + 1] = indexes[j];
+				--j;
+			}
+			indexes[j + 1] = index;
+		}
+	}
+	
+}
@@ -0,0 +1,351 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JasperReportsContext;
+
+
+/**
+ * Swap file implementation that memory maps the swap file and allows concurrent I/O.
+ * <p>
+ * The swap file grows in fixed-size segments that are mapped in memory through a
+ * <code>java.nio.channels.FileChannel</code>.  Data is copied directly between the caller
+ * and the mapped segments, without going through positioned <code>RandomAccessFile</code>
+ * operations and without holding a lock on the whole swap file.
+ * The streams returned by {@link #openOutput()} and {@link #openInput(JRSwapFile.SwapHandle)}
+ * write and read the mapped segments directly, without collecting the data in intermediate arrays.
+ * <p>
+ * Free blocks are kept in several stripes, each stripe having its own free list and lock.
+ * A thread allocates blocks from the stripe determined by its thread Id, and freed blocks
+ * are returned to the stripe that owns the segment they belong to.  This allows several
+ * report fills that share a swap file to write and read data at the same time.
+ * <p>
+ * Mapped segments are released by the JVM when garbage collected, therefore on some platforms
+ * the swap file might not be deleted right away on {@link #dispose() dispose()}.
+ */
+public class JRMappedSwapFile extends JRSwapFile
+{
+	private static final Log log = LogFactory.getLog(JRMappedSwapFile.class);
+	
+	/**
+	 * The minimum size of a mapped segment, used to avoid creating a large number of small mappings
+	 * for small block sizes.
+	 */
+	public static final int MIN_SEGMENT_SIZE = 1 << 20;
+	
+	private static final Segment[] NO_SEGMENTS = new Segment[0];
+	
+	private final FileChannel fileChannel;
+	private final int blockSize;
+	private final int segmentSize;
+	private final Stripe[] stripes;
+	
+	private final Object growLock = new Object();
+	private volatile Segment[] segments = NO_SEGMENTS;
+
+	/**
+	 * Creates a memory mapped swap file that uses a stripe for each available processor.
+	 * 
+	 * The file name is generated automatically.
+	 * 
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the swap file grows when full
+	 */
+	public JRMappedSwapFile(String directory, int blockSize, int minGrowCount)
+	{
+		this(directory, blockSize, minGrowCount, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a memory mapped swap file.
+	 * 
+	 * The file name is generated automatically.
+	 * 
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the swap file grows when full
+	 * @param stripeCount the number of free block stripes
+	 */
+	public JRMappedSwapFile(String directory, int blockSize, int minGrowCount, int stripeCount)
+	{
+		this(DefaultJasperReportsContext.getInstance(), directory, blockSize, minGrowCount, stripeCount);
+	}
+	
+	/**
+	 * Creates a memory mapped swap file.
+	 * 
+	 * The file name is generated automatically.
+	 * 
+	 * @param jasperReportsContext the JasperReportsContext to read configuration from.
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the swap file grows when full
+	 * @param stripeCount the number of free block stripes
+	 */
+	public JRMappedSwapFile(JasperReportsContext jasperReportsContext, String directory, 
+			int blockSize, int minGrowCount, int stripeCount)
+	{
+		super(jasperReportsContext, directory, blockSize, minGrowCount);
+		
+		this.fileChannel = file.getChannel();
+		this.blockSize = blockSize;
+		
+		int segmentBlockCount = Math.max(minGrowCount, (MIN_SEGMENT_SIZE - 1) / blockSize + 1);
+		segmentBlockCount = (int) Math.min(segmentBlockCount, Integer.MAX_VALUE / blockSize);
+		this.segmentSize = segmentBlockCount * blockSize;
+		
+		int count = Math.max(stripeCount, 1);
+		this.stripes = new Stripe[count];
+		for (int i = 0; i < count; i++)
+		{
+			stripes[i] = new Stripe(segmentBlockCount);
+		}
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "JRMappedSwapFile " + swapFile.getAbsolutePath();
+	}
+
+	@Override
+	protected void write(byte[] data, int dataSize, int dataOffset, long fileOffset) throws IOException
+	{
+		ByteBuffer buffer = segmentBuffer(fileOffset);
+		buffer.put(data, dataOffset, dataSize);
+	}
+
+	@Override
+	protected void read(byte[] data, int dataOffset, int dataLength, long fileOffset) throws IOException
+	{
+		ByteBuffer buffer = segmentBuffer(fileOffset);
+		buffer.get(data, dataOffset, dataLength);
+	}
+	
+	@Override
+	public SwapOutputStream openOutput()
+	{
+		// writing directly to the mapped segments
+		return new SwapOutputStream(this, false);
+	}
+
+	@Override
+	public InputStream openInput(SwapHandle handle) throws IOException
+	{
+		return new MappedInputStream(handle);
+	}
+	
+	protected ByteBuffer segmentBuffer(long fileOffset)
+	{
+		Segment[] currentSegments = segments;
+		int segmentIndex = (int) (fileOffset / segmentSize);
+		if (segmentIndex >= currentSegments.length)
+		{
+			throw new IllegalStateException("Swap file " + swapFile.getPath() + " has been disposed");
+		}
+		
+		Segment segment = currentSegments[segmentIndex];
+		// using a duplicate so that the position is not shared among threads
+		ByteBuffer buffer = segment.buffer.duplicate();
+		buffer.position((int) (fileOffset % segmentSize));
+		return buffer;
+	}
+
+	@Override
+	protected long[] reserveFreeBlocks(int blockCount) throws IOException
+	{
+		int stripeIndex = (int) (Thread.currentThread().getId() % stripes.length);
+		Stripe stripe = stripes[stripeIndex];
+		synchronized (stripe)
+		{
+			while (stripe.freeBlocks.size() < blockCount)
+			{
+				addSegment(stripeIndex);
+			}
+			
+			long[] offsets = new long[blockCount];
+			for (int i = 0; i < blockCount; i++)
+			{
+				offsets[i] = stripe.freeBlocks.popFirst();
+			}
+			return offsets;
+		}
+	}
+	
+	protected void addSegment(int stripeIndex) throws IOException
+	{
+		synchronized (growLock)
+		{
+			Segment[] currentSegments = segments;
+			long position = (long) currentSegments.length * segmentSize;
+			if (log.isDebugEnabled())
+			{
+				log.debug("Growing swap file " + swapFile.getPath() + " with a segment of " + segmentSize 
+						+ " bytes to size " + (position + segmentSize) + " for stripe " + stripeIndex);
+			}
+			
+			MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, position, segmentSize);
+			
+			Segment[] newSegments = new Segment[currentSegments.length + 1];
+			System.arraycopy(currentSegments, 0, newSegments, 0, currentSegments.length);
+			newSegments[currentSegments.length] = new Segment(buffer, stripeIndex);
+			segments = newSegments;
+			
+			// called while holding the stripe lock
+			LongQueue freeBlocks = stripes[stripeIndex].freeBlocks;
+			for (long offset = position; offset < position + segmentSize; offset += blockSize)
+			{
+				freeBlocks.addLast(offset);
+			}
+		}
+	}
+
+	@Override
+	protected void freeBlocks(long[] offsets)
+	{
+		Segment[] currentSegments = segments;
+		for (int i = offsets.length - 1; i >= 0; --i)
+		{
+			long offset = offsets[i];
+			int segmentIndex = (int) (offset / segmentSize);
+			if (segmentIndex >= currentSegments.length)
+			{
+				// the swap file has been disposed
+				return;
+			}
+			
+			Stripe stripe = stripes[currentSegments[segmentIndex].stripe];
+			synchronized (stripe)
+			{
+				stripe.freeBlocks.addFirst(offset);
+			}
+		}
+	}
+
+	@Override
+	public void dispose()
+	{
+		synchronized (growLock)
+		{
+			// releasing the mapped buffers so that they can be unmapped
+			segments = NO_SEGMENTS;
+		}
+		
+		super.dispose();
+	}
+	
+	protected class MappedInputStream extends InputStream
+	{
+		private final long[] offsets;
+		private final int lastSize;
+		private int blockIndex;
+		private ByteBuffer blockBuffer;
+		
+		public MappedInputStream(SwapHandle handle)
+		{
+			this.offsets = handle.getOffsets();
+			this.lastSize = handle.getLastSize();
+		}
+		
+		protected boolean nextBlock()
+		{
+			while (blockBuffer == null || !blockBuffer.hasRemaining())
+			{
+				if (blockIndex >= offsets.length)
+				{
+					return false;
+				}
+				
+				blockBuffer = segmentBuffer(offsets[blockIndex]);
+				int blockLength = blockIndex < offsets.length - 1 ? blockSize : lastSize;
+				blockBuffer.limit(blockBuffer.position() + blockLength);
+				++blockIndex;
+			}
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			return nextBlock() ? (blockBuffer.get() & 0xFF) : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			if (len == 0)
+			{
+				return 0;
+			}
+			
+			if (!nextBlock())
+			{
+				return -1;
+			}
+			
+			int count = Math.min(len, blockBuffer.remaining());
+			blockBuffer.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException
+		{
+			return blockBuffer == null ? 0 : blockBuffer.remaining();
+		}
+	}
+	
+	protected static class Segment
+	{
+		private final MappedByteBuffer buffer;
+		private final int stripe;
+		
+		public Segment(MappedByteBuffer buffer, int stripe)
+		{
+			this.buffer = buffer;
+			this.stripe = stripe;
+		}
+	}
+	
+	protected static class Stripe
+	{
+		private final LongQueue freeBlocks;
+		
+		public Stripe(int minGrowCount)
+		{
+			this.freeBlocks = new LongQueue(minGrowCount);
+		}
+	}
+}
@@ -35,10 +35,13 @@ import java.text.AttributedString;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Stack;
 import java.util.StringTokenizer;
@@ -58,15 +61,23 @@ import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRPrintHyperlink;
 import net.sf.jasperreports.engine.JRPrintHyperlinkParameter;
 import net.sf.jasperreports.engine.JRPrintHyperlinkParameters;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
 import net.sf.jasperreports.engine.base.JRBasePrintHyperlink;
 import net.sf.jasperreports.engine.fonts.FontFamily;
 import net.sf.jasperreports.engine.type.HyperlinkTypeEnum;
 import net.sf.jasperreports.engine.util.JRStyledText.Run;
 import net.sf.jasperreports.extensions.ExtensionsEnvironment;
+import net.sf.jasperreports.properties.PropertyConstants;
 
 
 /**
@@ -75,6 +86,23 @@ import net.sf.jasperreports.extensions.ExtensionsEnvironment;
 public class JRStyledTextParser implements ErrorHandler
 {
 	private static final Log log = LogFactory.getLog(JRStyledTextParser.class);
+	
+	/**
+	 * Property that specifies the maximum number of parsed styled texts that are kept in memory
+	 * by the parser of each thread, so that repeated styled text values are not parsed again.
+	 * <p>
+	 * The parsed texts are cached by text and locale, the element-level attributes being applied
+	 * to a copy of the cached text.
+	 * A value of zero, which is the default, disables the cache.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_PARSE_CACHE_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "styled.text.parse.cache.size";
 
 	private static final Set<String> AVAILABLE_FONT_FACE_NAMES = new HashSet<>();
 	static
@@ -156,6 +184,8 @@ public class JRStyledTextParser implements ErrorHandler
 	 */
 	private static final ThreadLocal<SoftReference<JRStyledTextParser>> threadInstances = new ThreadLocal<>();
 	
+	private static final String CONTEXT_KEY_THREAD_INSTANCES = JRStyledTextParser.class.getName() + ".threadInstances";
+	
 	/**
 	 * 
 	 */
@@ -167,17 +197,65 @@ public class JRStyledTextParser implements ErrorHandler
 	 * @return a cached instance
 	 */
 	public static JRStyledTextParser getInstance()
+	{
+		return getInstance(threadInstances, DefaultJasperReportsContext.getInstance());
+	}
+	
+	/**
+	 * Return a cached instance that uses the parse cache size configured in a context.
+	 * <p/>
+	 * Instances are cached per thread and per context, so that contexts configuring different
+	 * cache sizes do not share parse caches.
+	 * Local contexts created for individual fills use the instances of their parent context.
+	 * 
+	 * @param jasperReportsContext the context
+	 * @return a cached instance
+	 * @see #PROPERTY_PARSE_CACHE_SIZE
+	 */
+	@SuppressWarnings("unchecked")
+	public static JRStyledTextParser getInstance(JasperReportsContext jasperReportsContext)
+	{
+		JasperReportsContext instanceContext = jasperReportsContext;
+		while (instanceContext instanceof LocalJasperReportsContext
+				&& ((SimpleJasperReportsContext) instanceContext).getParent() != null)
+		{
+			instanceContext = ((SimpleJasperReportsContext) instanceContext).getParent();
+		}
+		
+		if (instanceContext == DefaultJasperReportsContext.getInstance())
+		{
+			return getInstance();
+		}
+		
+		ThreadLocal<SoftReference<JRStyledTextParser>> contextInstances;
+		synchronized (JRStyledTextParser.class)
+		{
+			contextInstances = (ThreadLocal<SoftReference<JRStyledTextParser>>) 
+					instanceContext.getOwnValue(CONTEXT_KEY_THREAD_INSTANCES);
+			if (contextInstances == null)
+			{
+				contextInstances = new ThreadLocal<>();
+				instanceContext.setValue(CONTEXT_KEY_THREAD_INSTANCES, contextInstances);
+			}
+		}
+		return getInstance(contextInstances, instanceContext);
+	}
+	
+	private static JRStyledTextParser getInstance(ThreadLocal<SoftReference<JRStyledTextParser>> instances,
+			JasperReportsContext jasperReportsContext)
 	{
 		JRStyledTextParser instance = null;
-		SoftReference<JRStyledTextParser> instanceRef = threadInstances.get();
+		SoftReference<JRStyledTextParser> instanceRef = instances.get();
 		if (instanceRef != null)
 		{
 			instance =  instanceRef.get();
 		}
 		if (instance == null)
 		{
-			instance = new JRStyledTextParser();
-			threadInstances.set(new SoftReference<>(instance));
+			int parseCacheSize = JRPropertiesUtil.getInstance(jasperReportsContext)
+					.getIntegerProperty(PROPERTY_PARSE_CACHE_SIZE, 0);
+			instance = new JRStyledTextParser(parseCacheSize);
+			instances.set(new SoftReference<>(instance));
 		}
 		return instance;
 	}
@@ -216,12 +294,26 @@ public class JRStyledTextParser implements ErrorHandler
 	private boolean insideLi;
 	private boolean liStart;
 	private StyledTextListInfo justClosedList;
+	
+	/**
+	 *
+	 */
+	private final Stack<ElementContext> elementStack = new Stack<>();
+	private JRPrintHyperlinkParameter hyperlinkParameter;
+	private StringBuilder hyperlinkParameterValue;
+	private int hyperlinkParameterDepth;
+	
+	/**
+	 *
+	 */
+	private final StyledTextMarkupTokenizer tokenizer = new StyledTextMarkupTokenizer();
+	private final Map<ParseCacheKey,JRStyledText> parseCache;
 
 
 	/**
 	 *
 	 */
-	private JRStyledTextParser()
+	private JRStyledTextParser(int parseCacheSize)
 	{
 		try
 		{
@@ -235,6 +327,8 @@ public class JRStyledTextParser implements ErrorHandler
 		{
 			throw new JRRuntimeException(e);
 		}
+		
+		parseCache = parseCacheSize > 0 ? new ParseCache(parseCacheSize) : null;
 	}
 
 
@@ -243,28 +337,165 @@ public class JRStyledTextParser implements ErrorHandler
 	 */
 	public JRStyledText parse(Map<Attribute,Object> attributes, String text, Locale locale) throws SAXException
 	{
-		JRStyledText styledText = new JRStyledText(locale);
+		ParseCacheKey cacheKey = null;
+		if (parseCache != null)
+		{
+			cacheKey = new ParseCacheKey(text, locale);
+			JRStyledText cachedText = parseCache.get(cacheKey);
+			if (cachedText != null)
+			{
+				JRStyledText styledText = copyText(cachedText);
+				styledText.setGlobalAttributes(attributes);
+				return styledText;
+			}
+		}
 		
-		Document document = null;
+		JRStyledText styledText = null;
 
-		try
+		List<Object> tokens = tokenizer.tokenize(text);
+		if (tokens != null)
 		{
-			document = documentBuilder.parse(new InputSource(new StringReader(ROOT_START + text + ROOT_END)));
+			styledText = new JRStyledText(locale);
+			resetState();
+			parseStyle(styledText, tokens);
 		}
-		catch (IOException e)
+		else
 		{
-			throw new JRRuntimeException(e);
+			Document document = null;
+
+			try
+			{
+				document = documentBuilder.parse(new InputSource(new StringReader(ROOT_START + text + ROOT_END)));
+			}
+			catch (IOException e)
+			{
+				throw new JRRuntimeException(e);
+			}
+			
+			styledText = new JRStyledText(locale);
+			resetState();
+			parseStyle(styledText, document.getDocumentElement());
 		}
 		
-		hyperlink = null;
-		htmlListStack = new Stack<>();
-		
-		parseStyle(styledText, document.getDocumentElement());
+		if (cacheKey != null)
+		{
+			//converting the buffer to a String so that clones do not share it
+			styledText.getText();
+			parseCache.put(cacheKey, copyText(styledText));
+		}
 		
 		styledText.setGlobalAttributes(attributes);
 		
 		return styledText;
 	}
+	
+	/**
+	 * Copies a parsed text, including the hyperlinks and list details in its runs,
+	 * so that the cached text and the returned texts do not share mutable attribute values.
+	 * Values shared by several runs of the text are also shared by the runs of the copy.
+	 */
+	private static JRStyledText copyText(JRStyledText styledText)
+	{
+		JRStyledText copy = styledText.cloneText();
+		Map<Object,Object> valueCopies = new IdentityHashMap<>();
+		for (Run run : copy.getRuns())
+		{
+			if (run.attributes != null)
+			{
+				copyAttribute(run.attributes, JRTextAttribute.HYPERLINK, valueCopies);
+				copyAttribute(run.attributes, JRTextAttribute.HTML_LIST, valueCopies);
+				copyAttribute(run.attributes, JRTextAttribute.HTML_LIST_ITEM, valueCopies);
+			}
+		}
+		return copy;
+	}
+	
+	private static void copyAttribute(Map<Attribute,Object> attributes, Attribute attribute, Map<Object,Object> valueCopies)
+	{
+		Object value = attributes.get(attribute);
+		if (value != null)
+		{
+			attributes.put(attribute, copyValue(value, valueCopies));
+		}
+	}
+	
+	private static Object copyValue(Object value, Map<Object,Object> valueCopies)
+	{
+		if (value == StyledTextListItemInfo.NO_LIST_ITEM_FILLER)
+		{
+			return value;
+		}
+		
+		Object copy = valueCopies.get(value);
+		if (copy == null)
+		{
+			if (value instanceof StyledTextListInfo[])
+			{
+				StyledTextListInfo[] lists = (StyledTextListInfo[]) value;
+				StyledTextListInfo[] listsCopy = new StyledTextListInfo[lists.length];
+				for (int i = 0; i < lists.length; i++)
+				{
+					listsCopy[i] = (StyledTextListInfo) copyValue(lists[i], valueCopies);
+				}
+				copy = listsCopy;
+			}
+			else if (value instanceof StyledTextListInfo)
+			{
+				copy = new StyledTextListInfo((StyledTextListInfo) value);
+			}
+			else if (value instanceof StyledTextListItemInfo)
+			{
+				StyledTextListItemInfo listItem = (StyledTextListItemInfo) value;
+				StyledTextListItemInfo listItemCopy = new StyledTextListItemInfo(listItem.getItemIndex());
+				listItemCopy.setNoBullet(listItem.noBullet());
+				copy = listItemCopy;
+			}
+			else if (value instanceof JRPrintHyperlink)
+			{
+				copy = copyHyperlink((JRPrintHyperlink) value);
+			}
+			else
+			{
+				copy = value;
+			}
+			valueCopies.put(value, copy);
+		}
+		return copy;
+	}
+	
+	private static JRBasePrintHyperlink copyHyperlink(JRPrintHyperlink hyperlink)
+	{
+		JRBasePrintHyperlink copy = new JRBasePrintHyperlink();
+		copy.setLinkType(hyperlink.getLinkType());
+		copy.setLinkTarget(hyperlink.getLinkTarget());
+		copy.setHyperlinkReference(hyperlink.getHyperlinkReference());
+		copy.setHyperlinkAnchor(hyperlink.getHyperlinkAnchor());
+		copy.setHyperlinkPage(hyperlink.getHyperlinkPage());
+		copy.setHyperlinkTooltip(hyperlink.getHyperlinkTooltip());
+		
+		JRPrintHyperlinkParameters parameters = hyperlink.getHyperlinkParameters();
+		if (parameters != null)
+		{
+			for (JRPrintHyperlinkParameter parameter : parameters.getParameters())
+			{
+				copy.addHyperlinkParameter(new JRPrintHyperlinkParameter(
+						parameter.getName(), parameter.getValueClass(), parameter.getValue()));
+			}
+		}
+		return copy;
+	}
+	
+	private void resetState()
+	{
+		hyperlink = null;
+		htmlListStack = new Stack<>();
+		insideLi = false;
+		liStart = false;
+		justClosedList = null;
+		elementStack.clear();
+		hyperlinkParameter = null;
+		hyperlinkParameterValue = null;
+	}
 
 	/**
 	 * Creates a styled text object by either parsing a styled text String or
@@ -543,452 +774,491 @@ public class JRStyledTextParser implements ErrorHandler
 			Node node = nodeList.item(i);
 			if (node.getNodeType() == Node.TEXT_NODE)
 			{
-				liStart = false;
-				justClosedList = null;
-
-				styledText.append(node.getNodeValue());
+				text(styledText, node.getNodeValue());
 			}
-			else if (
-				node.getNodeType() == Node.ELEMENT_NODE
-				&& NODE_style.equals(node.getNodeName())
-				)
+			else if (node.getNodeType() == Node.CDATA_SECTION_NODE)
 			{
-				NamedNodeMap nodeAttrs = node.getAttributes();
-
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_fontName) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.FAMILY,
-						nodeAttrs.getNamedItem(ATTRIBUTE_fontName).getNodeValue()
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isBold) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.WEIGHT,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isBold).getNodeValue())
-						? TextAttribute.WEIGHT_BOLD : TextAttribute.WEIGHT_REGULAR
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isItalic) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.POSTURE,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isItalic).getNodeValue())
-						? TextAttribute.POSTURE_OBLIQUE : TextAttribute.POSTURE_REGULAR
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isUnderline) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.UNDERLINE,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isUnderline).getNodeValue())
-						? TextAttribute.UNDERLINE_ON : null
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isStrikeThrough) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.STRIKETHROUGH,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isStrikeThrough).getNodeValue())
-						? TextAttribute.STRIKETHROUGH_ON : null
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_size) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.SIZE,
-						Float.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_size).getNodeValue())
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_pdfFontName) != null)
-				{
-					styleAttrs.put(
-						JRTextAttribute.PDF_FONT_NAME,
-						nodeAttrs.getNamedItem(ATTRIBUTE_pdfFontName).getNodeValue()
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_pdfEncoding) != null)
-				{
-					styleAttrs.put(
-						JRTextAttribute.PDF_ENCODING,
-						nodeAttrs.getNamedItem(ATTRIBUTE_pdfEncoding).getNodeValue()
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isPdfEmbedded) != null)
-				{
-					styleAttrs.put(
-						JRTextAttribute.IS_PDF_EMBEDDED,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isPdfEmbedded).getNodeValue())
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_forecolor) != null)
-				{
-					Color color = 
-						JRColorUtil.getColor(
-							nodeAttrs.getNamedItem(ATTRIBUTE_forecolor).getNodeValue(),
-							Color.black
-							);
-					styleAttrs.put(
-						TextAttribute.FOREGROUND,
-						color
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_backcolor) != null)
+				// only part of the text content of hyperlink parameters
+				if (hyperlinkParameter != null)
 				{
-					Color color = 
-						JRColorUtil.getColor(
-							nodeAttrs.getNamedItem(ATTRIBUTE_backcolor).getNodeValue(),
-							Color.black
-							);
-					styleAttrs.put(
-						TextAttribute.BACKGROUND,
-						color
-						);
+					hyperlinkParameterValue.append(node.getNodeValue());
 				}
-
-				int startIndex = styledText.length();
-
-				parseStyle(styledText, node);
-
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_bold.equalsIgnoreCase(node.getNodeName()))
+			else if (node.getNodeType() == Node.ELEMENT_NODE)
 			{
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
-				styleAttrs.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_BOLD);
-
-				int startIndex = styledText.length();
-
+				NamedNodeMap nodeAttrs = node.getAttributes();
+				startElement(styledText, node.getNodeName(), 
+						attributeName -> 
+						{
+							Node attributeNode = nodeAttrs.getNamedItem(attributeName);
+							return attributeNode == null ? null : attributeNode.getNodeValue();
+						});
+				
 				parseStyle(styledText, node);
+				
+				endElement(styledText);
+			}
+		}
+	}
 
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
+	/**
+	 *
+	 */
+	private void parseStyle(JRStyledText styledText, List<Object> tokens) throws SAXException
+	{
+		for (Object token : tokens)
+		{
+			if (token == StyledTextMarkupTokenizer.END_TAG)
+			{
+				endElement(styledText);
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_italic.equalsIgnoreCase(node.getNodeName()))
+			else if (token instanceof StyledTextMarkupTokenizer.StartTag)
 			{
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
-				styleAttrs.put(TextAttribute.POSTURE, TextAttribute.POSTURE_OBLIQUE);
-
-				int startIndex = styledText.length();
-
-				parseStyle(styledText, node);
-
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
+				StyledTextMarkupTokenizer.StartTag tag = (StyledTextMarkupTokenizer.StartTag) token;
+				startElement(styledText, tag.getName(), tag::getAttribute);
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_underline.equalsIgnoreCase(node.getNodeName()))
+			else
 			{
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
-				styleAttrs.put(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
+				text(styledText, (String) token);
+			}
+		}
+	}
 
-				int startIndex = styledText.length();
+	/**
+	 *
+	 */
+	private void text(JRStyledText styledText, String text)
+	{
+		if (hyperlinkParameter != null)
+		{
+			// the text content of the parameter tag is the parameter value
+			hyperlinkParameterValue.append(text);
+			return;
+		}
+		
+		liStart = false;
+		justClosedList = null;
 
-				parseStyle(styledText, node);
+		styledText.append(text);
+	}
 
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
-			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_sup.equalsIgnoreCase(node.getNodeName()))
-			{
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
-				styleAttrs.put(TextAttribute.SUPERSCRIPT, TextAttribute.SUPERSCRIPT_SUPER);
+	/**
+	 *
+	 */
+	private void startElement(JRStyledText styledText, String nodeName, NodeAttributes nodeAttrs) throws SAXException
+	{
+		if (hyperlinkParameter != null)
+		{
+			// nested tags only contribute text to the parameter value
+			++hyperlinkParameterDepth;
+			return;
+		}
+		
+		ElementContext element;
+		if (NODE_style.equals(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
 
-				int startIndex = styledText.length();
+			if (nodeAttrs.get(ATTRIBUTE_fontName) != null)
+			{
+				styleAttrs.put(
+					TextAttribute.FAMILY,
+					nodeAttrs.get(ATTRIBUTE_fontName)
+					);
+			}
 
-				parseStyle(styledText, node);
+			if (nodeAttrs.get(ATTRIBUTE_isBold) != null)
+			{
+				styleAttrs.put(
+					TextAttribute.WEIGHT,
+					Boolean.valueOf(nodeAttrs.get(ATTRIBUTE_isBold))
+					? TextAttribute.WEIGHT_BOLD : TextAttribute.WEIGHT_REGULAR
+					);
+			}
 
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
+			if (nodeAttrs.get(ATTRIBUTE_isItalic) != null)
+			{
+				styleAttrs.put(
+					TextAttribute.POSTURE,
+					Boolean.valueOf(nodeAttrs.get(ATTRIBUTE_isItalic))
+					? TextAttribute.POSTURE_OBLIQUE : TextAttribute.POSTURE_REGULAR
+					);
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_sub.equalsIgnoreCase(node.getNodeName()))
+
+			if (nodeAttrs.get(ATTRIBUTE_isUnderline) != null)
 			{
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
-				styleAttrs.put(TextAttribute.SUPERSCRIPT, TextAttribute.SUPERSCRIPT_SUB);
+				styleAttrs.put(
+					TextAttribute.UNDERLINE,
+					Boolean.valueOf(nodeAttrs.get(ATTRIBUTE_isUnderline))
+					? TextAttribute.UNDERLINE_ON : null
+					);
+			}
 
-				int startIndex = styledText.length();
+			if (nodeAttrs.get(ATTRIBUTE_isStrikeThrough) != null)
+			{
+				styleAttrs.put(
+					TextAttribute.STRIKETHROUGH,
+					Boolean.valueOf(nodeAttrs.get(ATTRIBUTE_isStrikeThrough))
+					? TextAttribute.STRIKETHROUGH_ON : null
+					);
+			}
 
-				parseStyle(styledText, node);
+			if (nodeAttrs.get(ATTRIBUTE_size) != null)
+			{
+				styleAttrs.put(
+					TextAttribute.SIZE,
+					Float.valueOf(nodeAttrs.get(ATTRIBUTE_size))
+					);
+			}
 
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
+			if (nodeAttrs.get(ATTRIBUTE_pdfFontName) != null)
+			{
+				styleAttrs.put(
+					JRTextAttribute.PDF_FONT_NAME,
+					nodeAttrs.get(ATTRIBUTE_pdfFontName)
+					);
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_font.equalsIgnoreCase(node.getNodeName()))
+
+			if (nodeAttrs.get(ATTRIBUTE_pdfEncoding) != null)
 			{
-				NamedNodeMap nodeAttrs = node.getAttributes();
+				styleAttrs.put(
+					JRTextAttribute.PDF_ENCODING,
+					nodeAttrs.get(ATTRIBUTE_pdfEncoding)
+					);
+			}
 
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
+			if (nodeAttrs.get(ATTRIBUTE_isPdfEmbedded) != null)
+			{
+				styleAttrs.put(
+					JRTextAttribute.IS_PDF_EMBEDDED,
+					Boolean.valueOf(nodeAttrs.get(ATTRIBUTE_isPdfEmbedded))
+					);
+			}
 
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_size) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.SIZE,
-						Float.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_size).getNodeValue())
+			if (nodeAttrs.get(ATTRIBUTE_forecolor) != null)
+			{
+				Color color = 
+					JRColorUtil.getColor(
+						nodeAttrs.get(ATTRIBUTE_forecolor),
+						Color.black
 						);
-				}
+				styleAttrs.put(
+					TextAttribute.FOREGROUND,
+					color
+					);
+			}
 
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_color) != null)
-				{
-					Color color = 
-						JRColorUtil.getColor(
-							nodeAttrs.getNamedItem(ATTRIBUTE_color).getNodeValue(),
-							Color.black
-							);
-					styleAttrs.put(
-						TextAttribute.FOREGROUND,
-						color
+			if (nodeAttrs.get(ATTRIBUTE_backcolor) != null)
+			{
+				Color color = 
+					JRColorUtil.getColor(
+						nodeAttrs.get(ATTRIBUTE_backcolor),
+						Color.black
 						);
-				}
+				styleAttrs.put(
+					TextAttribute.BACKGROUND,
+					color
+					);
+			}
 
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_fontFace) != null) 
-				{
-					String fontFaces = nodeAttrs.getNamedItem(ATTRIBUTE_fontFace).getNodeValue();
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else if (NODE_bold.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
+			styleAttrs.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_BOLD);
 
-					StringTokenizer t = new StringTokenizer(fontFaces, ",");
-					while (t.hasMoreTokens()) 
-					{
-						String face = t.nextToken().trim();
-						if (AVAILABLE_FONT_FACE_NAMES.contains(face)) 
-						{
-							styleAttrs.put(TextAttribute.FAMILY, face);
-							break;
-						}
-					}
-				}
-				
-				int startIndex = styledText.length();
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else if (NODE_italic.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
+			styleAttrs.put(TextAttribute.POSTURE, TextAttribute.POSTURE_OBLIQUE);
 
-				parseStyle(styledText, node);
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else if (NODE_underline.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
+			styleAttrs.put(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
 
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else if (NODE_sup.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
+			styleAttrs.put(TextAttribute.SUPERSCRIPT, TextAttribute.SUPERSCRIPT_SUPER);
 
-			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_br.equalsIgnoreCase(node.getNodeName()))
-			{
-				styledText.append("\n");
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else if (NODE_sub.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
+			styleAttrs.put(TextAttribute.SUPERSCRIPT, TextAttribute.SUPERSCRIPT_SUB);
 
-				int startIndex = styledText.length();
-				resizeRuns(styledText.getRuns(), startIndex, 1);
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else if (NODE_font.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
 
-				parseStyle(styledText, node);
-				styledText.addRun(new JRStyledText.Run(new HashMap<>(), startIndex, styledText.length()));
+			if (nodeAttrs.get(ATTRIBUTE_size) != null)
+			{
+				styleAttrs.put(
+					TextAttribute.SIZE,
+					Float.valueOf(nodeAttrs.get(ATTRIBUTE_size))
+					);
+			}
 
-				if (startIndex < styledText.length()) {
-					styledText.append("\n");
-					resizeRuns(styledText.getRuns(), startIndex, 1);
-				}
+			if (nodeAttrs.get(ATTRIBUTE_color) != null)
+			{
+				Color color = 
+					JRColorUtil.getColor(
+						nodeAttrs.get(ATTRIBUTE_color),
+						Color.black
+						);
+				styleAttrs.put(
+					TextAttribute.FOREGROUND,
+					color
+					);
 			}
-			else if (
-				node.getNodeType() == Node.ELEMENT_NODE 
-				&& (NODE_ul.equalsIgnoreCase(node.getNodeName()) || NODE_ol.equalsIgnoreCase(node.getNodeName()))
-				)
+
+			if (nodeAttrs.get(ATTRIBUTE_fontFace) != null) 
 			{
-				boolean ordered = false;
-				String type = null;
-				Integer start = null;
-				if (NODE_ol.equalsIgnoreCase(node.getNodeName()))
+				String fontFaces = nodeAttrs.get(ATTRIBUTE_fontFace);
+
+				StringTokenizer t = new StringTokenizer(fontFaces, ",");
+				while (t.hasMoreTokens()) 
 				{
-					ordered = true;
-					NamedNodeMap nodeAttrs = node.getAttributes();
-					if (nodeAttrs != null)
+					String face = t.nextToken().trim();
+					if (AVAILABLE_FONT_FACE_NAMES.contains(face)) 
 					{
-						Node typeNode = nodeAttrs.getNamedItem(ATTRIBUTE_type);
-						if (typeNode != null)
-						{
-							type = typeNode.getNodeValue();
-						}
-						Node startNode = nodeAttrs.getNamedItem(ATTRIBUTE_start);
-						if (startNode != null)
-						{
-							start = Integer.valueOf(startNode.getNodeValue());
-						}
+						styleAttrs.put(TextAttribute.FAMILY, face);
+						break;
 					}
 				}
-				
-				StyledTextListInfo htmlList = 
-					new StyledTextListInfo(
-						ordered,
-						type,
-						start,
-						insideLi
-						);
+			}
+			
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else if (NODE_br.equalsIgnoreCase(nodeName))
+		{
+			styledText.append("\n");
 
-				htmlList.setAtLiStart(liStart);
-				
-				htmlListStack.push(htmlList);
-				
-				insideLi = false;
-				
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
+			int startIndex = styledText.length();
+			resizeRuns(styledText.getRuns(), startIndex, 1);
 
-				styleAttrs.put(JRTextAttribute.HTML_LIST, htmlListStack.toArray(new StyledTextListInfo[htmlListStack.size()]));
-				styleAttrs.put(JRTextAttribute.HTML_LIST_ITEM, StyledTextListItemInfo.NO_LIST_ITEM_FILLER);
-				
-				int startIndex = styledText.length();
+			element = new ElementContext(ElementType.BREAK, new HashMap<>(), startIndex);
+		}
+		else if (NODE_ul.equalsIgnoreCase(nodeName) || NODE_ol.equalsIgnoreCase(nodeName))
+		{
+			boolean ordered = false;
+			String type = null;
+			Integer start = null;
+			if (NODE_ol.equalsIgnoreCase(nodeName))
+			{
+				ordered = true;
+				type = nodeAttrs.get(ATTRIBUTE_type);
+				String startValue = nodeAttrs.get(ATTRIBUTE_start);
+				if (startValue != null)
+				{
+					start = Integer.valueOf(startValue);
+				}
+			}
+			
+			StyledTextListInfo htmlList = 
+				new StyledTextListInfo(
+					ordered,
+					type,
+					start,
+					insideLi
+					);
+
+			htmlList.setAtLiStart(liStart);
+			
+			htmlListStack.push(htmlList);
+			
+			insideLi = false;
+			
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
 
-				parseStyle(styledText, node);
+			styleAttrs.put(JRTextAttribute.HTML_LIST, htmlListStack.toArray(new StyledTextListInfo[htmlListStack.size()]));
+			styleAttrs.put(JRTextAttribute.HTML_LIST_ITEM, StyledTextListItemInfo.NO_LIST_ITEM_FILLER);
+			
+			element = new ElementContext(ElementType.LIST, styleAttrs, styledText.length());
+		}
+		else if (NODE_li.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
 
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
-				
-				justClosedList = htmlListStack.pop();
+			StyledTextListInfo htmlList = null;
+			
+			boolean ulAdded = false;
+			if (htmlListStack.size() == 0)
+			{
+				htmlList = new StyledTextListInfo(false, null, null, false);
+				htmlListStack.push(htmlList);
+				styleAttrs.put(JRTextAttribute.HTML_LIST, htmlListStack.toArray(new StyledTextListInfo[htmlListStack.size()]));
+				styleAttrs.put(JRTextAttribute.HTML_LIST_ITEM, StyledTextListItemInfo.NO_LIST_ITEM_FILLER);
+				ulAdded = true;
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_li.equalsIgnoreCase(node.getNodeName()))
+			else
+			{
+				htmlList = htmlListStack.peek();
+			}
+			htmlList.setItemCount(htmlList.getItemCount() + 1);
+			insideLi = true;
+			liStart = true;
+			justClosedList = null;
+			
+			StyledTextListItemInfo listItem = new StyledTextListItemInfo(htmlList.getItemCount() - 1);
+			if (nodeAttrs.get(ATTRIBUTE_noBullet) != null)
+			{
+				listItem.setNoBullet(Boolean.valueOf(nodeAttrs.get(ATTRIBUTE_noBullet)));
+			}
+			
+			styleAttrs.put(JRTextAttribute.HTML_LIST_ITEM, listItem);
+			
+			element = new ElementContext(ElementType.LIST_ITEM, styleAttrs, styledText.length());
+			element.listAdded = ulAdded;
+		}
+		else if (NODE_a.equalsIgnoreCase(nodeName))
+		{
+			if (hyperlink == null)
 			{
 				Map<Attribute,Object> styleAttrs = new HashMap<>();
 
-				StyledTextListInfo htmlList = null;
-				
-				boolean ulAdded = false;
-				if (htmlListStack.size() == 0)
-				{
-					htmlList = new StyledTextListInfo(false, null, null, false);
-					htmlListStack.push(htmlList);
-					styleAttrs.put(JRTextAttribute.HTML_LIST, htmlListStack.toArray(new StyledTextListInfo[htmlListStack.size()]));
-					styleAttrs.put(JRTextAttribute.HTML_LIST_ITEM, StyledTextListItemInfo.NO_LIST_ITEM_FILLER);
-					ulAdded = true;
-				}
-				else
-				{
-					htmlList = htmlListStack.peek();
-				}
-				htmlList.setItemCount(htmlList.getItemCount() + 1);
-				insideLi = true;
-				liStart = true;
-				justClosedList = null;
+				hyperlink = new JRBasePrintHyperlink();
+				hyperlink.setHyperlinkType(HyperlinkTypeEnum.REFERENCE);
+				styleAttrs.put(JRTextAttribute.HYPERLINK, hyperlink);
 				
-				StyledTextListItemInfo listItem = new StyledTextListItemInfo(htmlList.getItemCount() - 1);
-				NamedNodeMap nodeAttrs = node.getAttributes();
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_noBullet) != null)
+				if (nodeAttrs.get(ATTRIBUTE_href) != null)
 				{
-					listItem.setNoBullet(Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_noBullet).getNodeValue()));
+					hyperlink.setHyperlinkReference( nodeAttrs.get(ATTRIBUTE_href));
 				}
-				
-				styleAttrs.put(JRTextAttribute.HTML_LIST_ITEM, listItem);
-				
-				int startIndex = styledText.length();
 
-				parseStyle(styledText, node);
-
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
-				
-				insideLi = false;
-				liStart = false;
-				if (justClosedList != null)
+				if (nodeAttrs.get(ATTRIBUTE_type) != null)
 				{
-					justClosedList.setAtLiEnd(true);
+					hyperlink.setLinkType(nodeAttrs.get(ATTRIBUTE_type));
 				}
 
-				if (ulAdded)
+				if (nodeAttrs.get(ATTRIBUTE_target) != null)
 				{
-					htmlListStack.pop();
+					hyperlink.setLinkTarget(nodeAttrs.get(ATTRIBUTE_target));
 				}
+
+				element = new ElementContext(ElementType.HYPERLINK, styleAttrs, styledText.length());
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_a.equalsIgnoreCase(node.getNodeName()))
+			else
 			{
-				if (hyperlink == null)
-				{
-					NamedNodeMap nodeAttrs = node.getAttributes();
-
-					Map<Attribute,Object> styleAttrs = new HashMap<>();
-
-					hyperlink = new JRBasePrintHyperlink();
-					hyperlink.setHyperlinkType(HyperlinkTypeEnum.REFERENCE);
-					styleAttrs.put(JRTextAttribute.HYPERLINK, hyperlink);
-					
-					if (nodeAttrs.getNamedItem(ATTRIBUTE_href) != null)
-					{
-						hyperlink.setHyperlinkReference( nodeAttrs.getNamedItem(ATTRIBUTE_href).getNodeValue());
-					}
-
-					if (nodeAttrs.getNamedItem(ATTRIBUTE_type) != null)
-					{
-						hyperlink.setLinkType(nodeAttrs.getNamedItem(ATTRIBUTE_type).getNodeValue());
-					}
-
-					if (nodeAttrs.getNamedItem(ATTRIBUTE_target) != null)
-					{
-						hyperlink.setLinkTarget(nodeAttrs.getNamedItem(ATTRIBUTE_target).getNodeValue());
-					}
-
-					int startIndex = styledText.length();
-
-					parseStyle(styledText, node);
-
-					styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
-					
-					hyperlink = null;
-				}
-				else
-				{
-					throw new SAXException("Hyperlink <a> tags cannot be nested.");
-				}
+				throw new SAXException("Hyperlink <a> tags cannot be nested.");
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_param.equalsIgnoreCase(node.getNodeName()))
+		}
+		else if (NODE_param.equalsIgnoreCase(nodeName))
+		{
+			if (hyperlink == null)
+			{
+				throw new SAXException("Hyperlink <param> tags must appear inside an <a> tag only.");
+			}
+			else
 			{
-				if (hyperlink == null)
+				JRPrintHyperlinkParameter parameter = new JRPrintHyperlinkParameter();
+				
+				if (nodeAttrs.get(ATTRIBUTE_name) != null)
 				{
-					throw new SAXException("Hyperlink <param> tags must appear inside an <a> tag only.");
+					parameter.setName(nodeAttrs.get(ATTRIBUTE_name));
 				}
-				else
-				{
-					NamedNodeMap nodeAttrs = node.getAttributes();
 
-					JRPrintHyperlinkParameter parameter = new JRPrintHyperlinkParameter();
-					
-					if (nodeAttrs.getNamedItem(ATTRIBUTE_name) != null)
-					{
-						parameter.setName(nodeAttrs.getNamedItem(ATTRIBUTE_name).getNodeValue());
-					}
-
-					if (nodeAttrs.getNamedItem(ATTRIBUTE_valueClass) != null)
-					{
-						parameter.setValueClass(nodeAttrs.getNamedItem(ATTRIBUTE_valueClass).getNodeValue());
-					}
-
-					String strValue = node.getTextContent();
-					if (strValue != null)
-					{
-						Object value = JRValueStringUtils.deserialize(parameter.getValueClass(), strValue);
-						parameter.setValue(value);
-					}
-						
-					hyperlink.addHyperlinkParameter(parameter);
+				if (nodeAttrs.get(ATTRIBUTE_valueClass) != null)
+				{
+					parameter.setValueClass(nodeAttrs.get(ATTRIBUTE_valueClass));
 				}
+
+				// the value is set when the tag ends
+				hyperlinkParameter = parameter;
+				hyperlinkParameterValue = new StringBuilder();
+				hyperlinkParameterDepth = 0;
+				return;
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_reference.equalsIgnoreCase(node.getNodeName()))
-			{
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
-				styleAttrs.put(JRTextAttribute.REFERENCE, Boolean.TRUE);
+		}
+		else if (NODE_reference.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
+			styleAttrs.put(JRTextAttribute.REFERENCE, Boolean.TRUE);
 
-				int startIndex = styledText.length();
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else if (NODE_note.equalsIgnoreCase(nodeName))
+		{
+			Map<Attribute,Object> styleAttrs = new HashMap<>();
+			styleAttrs.put(JRTextAttribute.NOTE, Boolean.TRUE);
 
-				parseStyle(styledText, node);
+			element = new ElementContext(ElementType.STYLE, styleAttrs, styledText.length());
+		}
+		else
+		{
+			String tagName = "<" + nodeName + ">";
+			throw new SAXException("Tag " + tagName + " is not a valid styled text tag.");
+		}
+		
+		elementStack.push(element);
+	}
 
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
+	/**
+	 *
+	 */
+	private void endElement(JRStyledText styledText)
+	{
+		if (hyperlinkParameter != null)
+		{
+			if (hyperlinkParameterDepth > 0)
+			{
+				--hyperlinkParameterDepth;
+				return;
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_note.equalsIgnoreCase(node.getNodeName()))
+			
+			String strValue = hyperlinkParameterValue.toString();
+			Object value = JRValueStringUtils.deserialize(hyperlinkParameter.getValueClass(), strValue);
+			hyperlinkParameter.setValue(value);
+				
+			hyperlink.addHyperlinkParameter(hyperlinkParameter);
+			
+			hyperlinkParameter = null;
+			hyperlinkParameterValue = null;
+			return;
+		}
+		
+		ElementContext element = elementStack.pop();
+		styledText.addRun(new JRStyledText.Run(element.styleAttrs, element.startIndex, styledText.length()));
+		
+		switch (element.type)
+		{
+		case BREAK:
+			if (element.startIndex < styledText.length()) {
+				styledText.append("\n");
+				resizeRuns(styledText.getRuns(), element.startIndex, 1);
+			}
+			break;
+		case LIST:
+			justClosedList = htmlListStack.pop();
+			break;
+		case LIST_ITEM:
+			insideLi = false;
+			liStart = false;
+			if (justClosedList != null)
 			{
-				Map<Attribute,Object> styleAttrs = new HashMap<>();
-				styleAttrs.put(JRTextAttribute.NOTE, Boolean.TRUE);
-
-				int startIndex = styledText.length();
-
-				parseStyle(styledText, node);
-
-				styledText.addRun(new JRStyledText.Run(styleAttrs, startIndex, styledText.length()));
+				justClosedList.setAtLiEnd(true);
 			}
-			else if (node.getNodeType() == Node.ELEMENT_NODE)
+
+			if (element.listAdded)
 			{
-				String nodeName = "<" + node.getNodeName() + ">";
-				throw new SAXException("Tag " + nodeName + " is not a valid styled text tag.");
+				htmlListStack.pop();
 			}
+			break;
+		case HYPERLINK:
+			hyperlink = null;
+			break;
+		default:
 		}
 	}
 
@@ -1250,5 +1520,97 @@ public class JRStyledTextParser implements ErrorHandler
 			sb.append(GREATER);
 		}
 	}
+
+	/**
+	 * Provides the attribute values of an element.
+	 */
+	private static interface NodeAttributes
+	{
+		String get(String attributeName);
+	}
+	
+	private static enum ElementType
+	{
+		STYLE,
+		BREAK,
+		LIST,
+		LIST_ITEM,
+		HYPERLINK
+	}
+	
+	/**
+	 * Element that has been started and not yet ended.
+	 */
+	private static class ElementContext
+	{
+		private final ElementType type;
+		private final Map<Attribute,Object> styleAttrs;
+		private final int startIndex;
+		private boolean listAdded;
+		
+		public ElementContext(ElementType type, Map<Attribute,Object> styleAttrs, int startIndex)
+		{
+			this.type = type;
+			this.styleAttrs = styleAttrs;
+			this.startIndex = startIndex;
+		}
+	}
+	
+	private static class ParseCacheKey
+	{
+		private final String text;
+		private final Locale locale;
+		
+		public ParseCacheKey(String text, Locale locale)
+		{
+			this.text = text;
+			this.locale = locale;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * text.hashCode() + (locale == null ? 0 : locale.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj == this)
+			{
+				return true;
+			}
+			
+			if (!(obj instanceof ParseCacheKey))
+			{
+				return false;
+			}
+			
+			ParseCacheKey key = (ParseCacheKey) obj;
+			return text.equals(key.text) && Objects.equals(locale, key.locale);
+		}
+	}
+	
+	/**
+	 * Least recently used cache of parsed styled texts.
+	 */
+	private static class ParseCache extends LinkedHashMap<ParseCacheKey,JRStyledText>
+	{
+		private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+		
+		private final int maxSize;
+		
+		public ParseCache(int maxSize)
+		{
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ParseCacheKey,JRStyledText> eldest)
+		{
+			return size() > maxSize;
+		}
+	}
 }
 
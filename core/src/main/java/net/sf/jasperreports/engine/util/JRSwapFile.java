@@ -23,9 +23,13 @@
  */
 package net.sf.jasperreports.engine.util;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -222,6 +226,36 @@ public class JRSwapFile
 	}
 	
 	
+	/**
+	 * Opens a stream that writes data to the swap file, allocating blocks as data is written.
+	 * 
+	 * <p>
+	 * The handle of the written area is available after the stream is closed.
+	 * </p>
+	 * 
+	 * @return a stream that writes data to the swap file
+	 * @see SwapOutputStream#getHandle()
+	 */
+	public SwapOutputStream openOutput()
+	{
+		// buffering blocks so that the file is written once per block
+		return new SwapOutputStream(this, true);
+	}
+	
+	
+	/**
+	 * Opens a stream that reads the data from an allocated area.
+	 * 
+	 * @param handle the allocated area handle
+	 * @return a stream that reads the data
+	 * @throws IOException
+	 */
+	public InputStream openInput(SwapHandle handle) throws IOException
+	{
+		return new ByteArrayInputStream(read(handle, false));
+	}
+	
+	
 	/**
 	 * Closes and deletes the swap file.
 	 */
@@ -400,6 +434,147 @@ public class JRSwapFile
 		}
 	}
 	
+	/**
+	 * Stream that writes data in blocks allocated in a swap file.
+	 * 
+	 * @see JRSwapFile#openOutput()
+	 */
+	public static class SwapOutputStream extends OutputStream
+	{
+		private final JRSwapFile swapFile;
+		private final byte[] blockBuffer;
+		private final byte[] singleByte = new byte[1];
+		private long[] offsets = new long[4];
+		private int blockCount;
+		private int blockPosition;
+		private long size;
+		private SwapHandle handle;
+		
+		/**
+		 * Creates a stream for a swap file.
+		 * 
+		 * @param swapFile the swap file
+		 * @param bufferBlocks whether to collect the data of a block before writing it to the swap file,
+		 * or to write it to the swap file as it comes
+		 */
+		public SwapOutputStream(JRSwapFile swapFile, boolean bufferBlocks)
+		{
+			this.swapFile = swapFile;
+			this.blockBuffer = bufferBlocks ? new byte[swapFile.blockSize] : null;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			singleByte[0] = (byte) b;
+			write(singleByte, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			if (handle != null)
+			{
+				throw new IOException("Swap output stream closed");
+			}
+			
+			int offset = off;
+			int length = len;
+			while (length > 0)
+			{
+				if (blockCount == 0 || blockPosition == swapFile.blockSize)
+				{
+					nextBlock();
+				}
+				
+				int count = Math.min(length, swapFile.blockSize - blockPosition);
+				if (blockBuffer == null)
+				{
+					swapFile.write(b, count, offset, offsets[blockCount - 1] + blockPosition);
+				}
+				else
+				{
+					System.arraycopy(b, offset, blockBuffer, blockPosition, count);
+				}
+				
+				blockPosition += count;
+				offset += count;
+				length -= count;
+			}
+			size += len;
+		}
+
+		protected void nextBlock() throws IOException
+		{
+			writeBufferedBlock();
+			
+			if (blockCount == offsets.length)
+			{
+				offsets = Arrays.copyOf(offsets, blockCount * 2);
+			}
+			offsets[blockCount] = swapFile.reserveFreeBlocks(1)[0];
+			++blockCount;
+			blockPosition = 0;
+		}
+
+		protected void writeBufferedBlock() throws IOException
+		{
+			if (blockBuffer != null && blockCount > 0 && blockPosition > 0)
+			{
+				swapFile.write(blockBuffer, blockPosition, 0, offsets[blockCount - 1]);
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (handle != null)
+			{
+				return;
+			}
+			
+			if (blockCount == 0)
+			{
+				// empty data still has a block, as done by JRSwapFile.write(byte[])
+				nextBlock();
+			}
+			writeBufferedBlock();
+			handle = new SwapHandle(Arrays.copyOf(offsets, blockCount), blockPosition);
+		}
+		
+		/**
+		 * Frees the blocks allocated by the stream, used when writing the data failed.
+		 */
+		public void discard()
+		{
+			if (blockCount > 0)
+			{
+				swapFile.freeBlocks(Arrays.copyOf(offsets, blockCount));
+				blockCount = 0;
+			}
+		}
+		
+		/**
+		 * Returns the handle of the written area.
+		 * 
+		 * @return the handle of the written area, or <code>null</code> if the stream has not been closed
+		 */
+		public SwapHandle getHandle()
+		{
+			return handle;
+		}
+		
+		/**
+		 * Returns the number of bytes written to the stream.
+		 * 
+		 * @return the number of bytes written
+		 */
+		public long getSize()
+		{
+			return size;
+		}
+	}
+	
 	public static class SwapHandle
 	{
 		private final long[] offsets;
@@ -0,0 +1,310 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.util.Arrays;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+
+/**
+ * Pure Java block compressor that produces data in the LZ4 block format.
+ * <p>
+ * The compressor favors speed over compression ratio, which makes it suitable for
+ * virtualized data that is usually written and read only once.
+ * Incompressible input is skipped over with increasing steps so that it does not cost
+ * much more than a plain copy.
+ */
+public class LZ4BlockCompressor implements BlockCompressor
+{
+	public static final String EXCEPTION_MESSAGE_KEY_CORRUPTED_DATA = "util.lz4.block.compressor.corrupted.data";
+	
+	private static final int MIN_MATCH = 4;
+	private static final int LAST_LITERALS = 5;
+	private static final int MF_LIMIT = 12;
+	private static final int MAX_DISTANCE = 0xFFFF;
+	
+	private static final int HASH_LOG = 12;
+	private static final int SKIP_STRENGTH = 6;
+	
+	private static final int RUN_MASK = 0x0F;
+	private static final int ML_MASK = 0x0F;
+	
+	private final int[] hashTable;
+
+	/**
+	 * Creates a thread safe compressor.
+	 */
+	public LZ4BlockCompressor()
+	{
+		this(null);
+	}
+	
+	protected LZ4BlockCompressor(int[] hashTable)
+	{
+		this.hashTable = hashTable;
+	}
+
+	/**
+	 * Returns a compressor that reuses its hash table from one block to the next.
+	 */
+	@Override
+	public BlockCompressor streamCompressor()
+	{
+		return new LZ4BlockCompressor(new int[1 << HASH_LOG]);
+	}
+
+	@Override
+	public int maxCompressedLength(int length)
+	{
+		return length + length / 255 + 16;
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset)
+	{
+		int srcEnd = srcOffset + length;
+		int destIdx = destOffset;
+		int anchor = srcOffset;
+		
+		if (length >= MF_LIMIT + 1)
+		{
+			int[] hashTable = this.hashTable == null ? new int[1 << HASH_LOG] : this.hashTable;
+			Arrays.fill(hashTable, srcOffset);
+			
+			int mfLimit = srcEnd - MF_LIMIT;
+			int matchLimit = srcEnd - LAST_LITERALS;
+			
+			int srcIdx = srcOffset + 1;
+			int searchCount = 1 << SKIP_STRENGTH;
+			while (srcIdx < mfLimit)
+			{
+				int sequence = readInt(src, srcIdx);
+				int hash = hash(sequence);
+				int ref = hashTable[hash];
+				hashTable[hash] = srcIdx;
+				
+				if (ref >= srcIdx || srcIdx - ref > MAX_DISTANCE || readInt(src, ref) != sequence)
+				{
+					srcIdx += searchCount++ >>> SKIP_STRENGTH;
+					continue;
+				}
+				
+				// extend the match backwards
+				while (srcIdx > anchor && ref > srcOffset && src[srcIdx - 1] == src[ref - 1])
+				{
+					--srcIdx;
+					--ref;
+				}
+				
+				int matchLength = commonLength(src, ref + MIN_MATCH, srcIdx + MIN_MATCH, matchLimit);
+				destIdx = writeSequence(src, anchor, srcIdx - anchor, srcIdx - ref, matchLength, dest, destIdx);
+				
+				srcIdx += MIN_MATCH + matchLength;
+				anchor = srcIdx;
+				searchCount = 1 << SKIP_STRENGTH;
+				
+				if (srcIdx < mfLimit)
+				{
+					hashTable[hash(readInt(src, srcIdx - 2))] = srcIdx - 2;
+				}
+			}
+		}
+		
+		destIdx = writeLastLiterals(src, anchor, srcEnd - anchor, dest, destIdx);
+		return destIdx - destOffset;
+	}
+
+	@Override
+	public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int length)
+	{
+		int srcEnd = srcOffset + srcLength;
+		int destEnd = destOffset + length;
+		int srcIdx = srcOffset;
+		int destIdx = destOffset;
+		
+		while (true)
+		{
+			checkData(srcIdx < srcEnd);
+			int token = src[srcIdx++] & 0xFF;
+			
+			int literalLength = token >>> 4;
+			if (literalLength == RUN_MASK)
+			{
+				int lengthByte;
+				do
+				{
+					checkData(srcIdx < srcEnd);
+					lengthByte = src[srcIdx++] & 0xFF;
+					literalLength += lengthByte;
+				}
+				while (lengthByte == 0xFF);
+			}
+			
+			checkData(literalLength <= srcEnd - srcIdx && literalLength <= destEnd - destIdx);
+			System.arraycopy(src, srcIdx, dest, destIdx, literalLength);
+			srcIdx += literalLength;
+			destIdx += literalLength;
+			
+			if (srcIdx == srcEnd)
+			{
+				// the last sequence only contains literals
+				break;
+			}
+			
+			checkData(srcEnd - srcIdx >= 2);
+			int offset = (src[srcIdx] & 0xFF) | ((src[srcIdx + 1] & 0xFF) << 8);
+			srcIdx += 2;
+			int ref = destIdx - offset;
+			checkData(offset > 0 && ref >= destOffset);
+			
+			int matchLength = token & ML_MASK;
+			if (matchLength == ML_MASK)
+			{
+				int lengthByte;
+				do
+				{
+					checkData(srcIdx < srcEnd);
+					lengthByte = src[srcIdx++] & 0xFF;
+					matchLength += lengthByte;
+				}
+				while (lengthByte == 0xFF);
+			}
+			matchLength += MIN_MATCH;
+			
+			checkData(matchLength <= destEnd - destIdx);
+			if (offset >= matchLength)
+			{
+				System.arraycopy(dest, ref, dest, destIdx, matchLength);
+				destIdx += matchLength;
+			}
+			else
+			{
+				// overlapping match, copy byte by byte
+				for (int i = 0; i < matchLength; i++)
+				{
+					dest[destIdx++] = dest[ref++];
+				}
+			}
+		}
+		
+		checkData(destIdx == destEnd);
+	}
+	
+	protected static int hash(int sequence)
+	{
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+	
+	protected static int readInt(byte[] buf, int idx)
+	{
+		return (buf[idx] & 0xFF) | ((buf[idx + 1] & 0xFF) << 8)
+				| ((buf[idx + 2] & 0xFF) << 16) | ((buf[idx + 3] & 0xFF) << 24);
+	}
+	
+	protected static int commonLength(byte[] buf, int refIdx, int idx, int limit)
+	{
+		int length = 0;
+		while (idx + length < limit && buf[refIdx + length] == buf[idx + length])
+		{
+			++length;
+		}
+		return length;
+	}
+	
+	protected static int writeSequence(byte[] src, int literalOffset, int literalLength, 
+			int matchOffset, int matchLength, byte[] dest, int destIdx)
+	{
+		int tokenIdx = destIdx++;
+		int token;
+		if (literalLength >= RUN_MASK)
+		{
+			token = RUN_MASK << 4;
+			destIdx = writeLength(literalLength - RUN_MASK, dest, destIdx);
+		}
+		else
+		{
+			token = literalLength << 4;
+		}
+		
+		System.arraycopy(src, literalOffset, dest, destIdx, literalLength);
+		destIdx += literalLength;
+		
+		dest[destIdx++] = (byte) matchOffset;
+		dest[destIdx++] = (byte) (matchOffset >>> 8);
+		
+		if (matchLength >= ML_MASK)
+		{
+			token |= ML_MASK;
+			destIdx = writeLength(matchLength - ML_MASK, dest, destIdx);
+		}
+		else
+		{
+			token |= matchLength;
+		}
+		
+		dest[tokenIdx] = (byte) token;
+		return destIdx;
+	}
+	
+	protected static int writeLastLiterals(byte[] src, int literalOffset, int literalLength, 
+			byte[] dest, int destIdx)
+	{
+		if (literalLength >= RUN_MASK)
+		{
+			dest[destIdx++] = (byte) (RUN_MASK << 4);
+			destIdx = writeLength(literalLength - RUN_MASK, dest, destIdx);
+		}
+		else
+		{
+			dest[destIdx++] = (byte) (literalLength << 4);
+		}
+		
+		System.arraycopy(src, literalOffset, dest, destIdx, literalLength);
+		return destIdx + literalLength;
+	}
+	
+	protected static int writeLength(int length, byte[] dest, int destIdx)
+	{
+		int remaining = length;
+		while (remaining >= 0xFF)
+		{
+			dest[destIdx++] = (byte) 0xFF;
+			remaining -= 0xFF;
+		}
+		dest[destIdx++] = (byte) remaining;
+		return destIdx;
+	}
+	
+	protected static void checkData(boolean condition)
+	{
+		if (!condition)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_CORRUPTED_DATA,
+					(Object[])null);
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of <code>long</code> values that uses open addressing with linear probing,
+ * without allocating objects for the added values.
+ */
+public class LongHashSet
+{
+	private static final int MIN_CAPACITY = 16;
+	
+	// 0 marks empty slots, the 0 value is kept separately
+	private long[] keys;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+	private boolean containsZero;
+
+	public LongHashSet()
+	{
+		this(MIN_CAPACITY);
+	}
+
+	public LongHashSet(int expectedSize)
+	{
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 / 4 < expectedSize)
+		{
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+	
+	private void allocate(int capacity)
+	{
+		keys = new long[capacity];
+		mask = capacity - 1;
+		resizeThreshold = capacity * 3 / 4;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	public boolean contains(long value)
+	{
+		if (value == 0)
+		{
+			return containsZero;
+		}
+		
+		long[] keys = this.keys;
+		int index = hash(value) & mask;
+		long key;
+		while ((key = keys[index]) != 0)
+		{
+			if (key == value)
+			{
+				return true;
+			}
+			index = (index + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a value to the set.
+	 * 
+	 * @param value the value
+	 * @return <code>true</code> if the value was not already in the set
+	 */
+	public boolean add(long value)
+	{
+		if (value == 0)
+		{
+			if (containsZero)
+			{
+				return false;
+			}
+			containsZero = true;
+			++size;
+			return true;
+		}
+		
+		long[] keys = this.keys;
+		int index = hash(value) & mask;
+		long key;
+		while ((key = keys[index]) != 0)
+		{
+			if (key == value)
+			{
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+		
+		keys[index] = value;
+		if (++size > resizeThreshold)
+		{
+			rehash(keys.length << 1);
+		}
+		return true;
+	}
+	
+	public void addAll(LongHashSet set)
+	{
+		set.forEach(this::add);
+	}
+	
+	public void forEach(LongConsumer consumer)
+	{
+		if (containsZero)
+		{
+			consumer.accept(0);
+		}
+		
+		for (long key : keys)
+		{
+			if (key != 0)
+			{
+				consumer.accept(key);
+			}
+		}
+	}
+	
+	public void clear()
+	{
+		Arrays.fill(keys, 0);
+		containsZero = false;
+		size = 0;
+	}
+	
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = keys;
+		allocate(capacity);
+		
+		for (long key : oldKeys)
+		{
+			if (key != 0)
+			{
+				int index = hash(key) & mask;
+				while (keys[index] != 0)
+				{
+					index = (index + 1) & mask;
+				}
+				keys[index] = key;
+			}
+		}
+	}
+
+	private static int hash(long value)
+	{
+		// 64 bit finalizer from MurmurHash3
+		long h = value;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+}
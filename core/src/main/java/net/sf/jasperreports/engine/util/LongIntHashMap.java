@@ -0,0 +1,189 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.util.Arrays;
+
+/**
+ * Map of <code>long</code> keys to <code>int</code> values that uses open addressing 
+ * with linear probing, without allocating objects for the entries.
+ * 
+ * @see LongHashSet
+ */
+public class LongIntHashMap
+{
+	private static final int MIN_CAPACITY = 16;
+	
+	// 0 marks empty slots, the value for the 0 key is kept separately
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+	private boolean containsZero;
+	private int zeroValue;
+
+	public LongIntHashMap()
+	{
+		this(MIN_CAPACITY);
+	}
+
+	public LongIntHashMap(int expectedSize)
+	{
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 / 4 < expectedSize)
+		{
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+	
+	private void allocate(int capacity)
+	{
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		resizeThreshold = capacity * 3 / 4;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the value for a key.
+	 * 
+	 * @param key the key
+	 * @param missingValue the value to return if the key is not present in the map
+	 * @return the value for the key, or <code>missingValue</code>
+	 */
+	public int get(long key, int missingValue)
+	{
+		if (key == 0)
+		{
+			return containsZero ? zeroValue : missingValue;
+		}
+		
+		long[] keys = this.keys;
+		int index = hash(key) & mask;
+		long k;
+		while ((k = keys[index]) != 0)
+		{
+			if (k == key)
+			{
+				return values[index];
+			}
+			index = (index + 1) & mask;
+		}
+		return missingValue;
+	}
+
+	/**
+	 * Adds an entry to the map if the key is not already present.
+	 * 
+	 * @param key the key
+	 * @param value the value
+	 * @return the existing value if the key was present, or <code>value</code> if the entry was added
+	 */
+	public int putIfAbsent(long key, int value)
+	{
+		if (key == 0)
+		{
+			if (!containsZero)
+			{
+				containsZero = true;
+				zeroValue = value;
+				++size;
+			}
+			return zeroValue;
+		}
+		
+		long[] keys = this.keys;
+		int index = hash(key) & mask;
+		long k;
+		while ((k = keys[index]) != 0)
+		{
+			if (k == key)
+			{
+				return values[index];
+			}
+			index = (index + 1) & mask;
+		}
+		
+		keys[index] = key;
+		values[index] = value;
+		if (++size > resizeThreshold)
+		{
+			rehash(keys.length << 1);
+		}
+		return value;
+	}
+	
+	public void clear()
+	{
+		Arrays.fill(keys, 0);
+		containsZero = false;
+		size = 0;
+	}
+	
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+		
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			long key = oldKeys[i];
+			if (key != 0)
+			{
+				int index = hash(key) & mask;
+				while (keys[index] != 0)
+				{
+					index = (index + 1) & mask;
+				}
+				keys[index] = key;
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private static int hash(long value)
+	{
+		// 64 bit finalizer from MurmurHash3
+		long h = value;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+}
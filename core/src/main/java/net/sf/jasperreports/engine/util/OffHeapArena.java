@@ -0,0 +1,320 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+
+/**
+ * Bounded off-heap memory area that can be used to store arbitrary binary data outside
+ * the Java heap.
+ * <p>
+ * The arena consists of fixed-size blocks that reside in direct byte buffers.  The buffers
+ * are allocated in chunks when needed, until the configured capacity is reached.  When the
+ * arena does not have enough free blocks for some data, the write is rejected and the caller
+ * is expected to store the data elsewhere.
+ * <p>
+ * The implementation is thread-safe.  Block allocation is done in synchronized blocks, while
+ * data is copied to and from the direct buffers without holding a lock.  If the capacity is
+ * smaller than the block size, the arena does not allocate any buffers and rejects all writes.  An arena can be
+ * shared by several {@link OffHeapVirtualizerStore} instances in order to impose a global
+ * off-heap memory limit.
+ */
+public class OffHeapArena
+{
+	private static final Log log = LogFactory.getLog(OffHeapArena.class);
+	
+	/**
+	 * The default size of the direct buffers allocated by the arena.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 23;
+	
+	private final int blockSize;
+	private final int chunkBlockCount;
+	private final int maxChunkCount;
+	
+	private final AtomicReferenceArray<ByteBuffer> chunks;
+	private int chunkCount;
+	private int[] freeBlocks;
+	private int freeCount;
+	
+	private final AtomicLong usedBytes = new AtomicLong();
+	private final AtomicLong peakUsedBytes = new AtomicLong();
+	private final AtomicLong storedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	
+	/**
+	 * Creates an arena that allocates direct buffers of the default size.
+	 * 
+	 * @param capacity the maximum number of bytes that the arena can allocate
+	 * @param blockSize the size of the blocks allocated by the arena
+	 */
+	public OffHeapArena(long capacity, int blockSize)
+	{
+		this(capacity, blockSize, DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Creates an arena.
+	 * 
+	 * @param capacity the maximum number of bytes that the arena can allocate
+	 * @param blockSize the size of the blocks allocated by the arena
+	 * @param chunkSize the size of the direct buffers allocated by the arena
+	 */
+	public OffHeapArena(long capacity, int blockSize, int chunkSize)
+	{
+		this.blockSize = blockSize;
+		// never allocating more than the capacity, not even a single block
+		long capacityBlocks = Math.max(capacity / blockSize, 0);
+		this.chunkBlockCount = (int) Math.max(Math.min(chunkSize / blockSize, capacityBlocks), 1);
+		this.maxChunkCount = (int) Math.min(capacityBlocks / chunkBlockCount, Integer.MAX_VALUE / chunkBlockCount);
+		if (maxChunkCount == 0)
+		{
+			log.warn("Off-heap arena capacity " + capacity + " is smaller than the block size " + blockSize 
+					+ ", all writes will be rejected");
+		}
+		
+		this.chunks = new AtomicReferenceArray<>(maxChunkCount);
+		this.freeBlocks = new int[chunkBlockCount];
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "OffHeapArena " + System.identityHashCode(this);
+	}
+	
+	/**
+	 * Allocates blocks in the arena and writes data in them.
+	 * 
+	 * @param data the data to write
+	 * @return a handle to the allocated blocks, or <code>null</code> if the arena does not
+	 * have enough free space for the data
+	 */
+	public ArenaHandle write(byte[] data)
+	{
+		int blockCount = (data.length - 1) / blockSize + 1;
+		int[] blocks = reserveFreeBlocks(blockCount);
+		if (blocks == null)
+		{
+			rejectedCount.incrementAndGet();
+			return null;
+		}
+		
+		int lastBlockSize = (data.length - 1) % blockSize + 1;
+		for (int i = 0; i < blockCount; ++i)
+		{
+			int dataSize = i < blockCount - 1 ? blockSize : lastBlockSize;
+			blockBuffer(blocks[i]).put(data, i * blockSize, dataSize);
+		}
+		
+		storedCount.incrementAndGet();
+		return new ArenaHandle(blocks, lastBlockSize);
+	}
+	
+	/**
+	 * Reads all the data from allocated blocks.
+	 * 
+	 * @param handle the allocated blocks handle
+	 * @param free whether to free the blocks after reading
+	 * @return the data written in the blocks
+	 */
+	public byte[] read(ArenaHandle handle, boolean free)
+	{
+		int[] blocks = handle.getBlocks();
+		byte[] data = new byte[(blocks.length - 1) * blockSize + handle.getLastSize()];
+		for (int i = 0; i < blocks.length; ++i)
+		{
+			int dataLength = i < blocks.length - 1 ? blockSize : handle.getLastSize();
+			blockBuffer(blocks[i]).get(data, i * blockSize, dataLength);
+		}
+		
+		if (free)
+		{
+			free(handle);
+		}
+		
+		return data;
+	}
+	
+	/**
+	 * Frees allocated blocks.
+	 * 
+	 * @param handle the allocated blocks handle
+	 */
+	public void free(ArenaHandle handle)
+	{
+		int[] blocks = handle.getBlocks();
+		synchronized (this)
+		{
+			for (int i = blocks.length - 1; i >= 0; --i)
+			{
+				freeBlocks[freeCount++] = blocks[i];
+			}
+		}
+		
+		usedBytes.addAndGet(- (long) blocks.length * blockSize);
+	}
+	
+	protected ByteBuffer blockBuffer(int block)
+	{
+		// the chunk is published before any of its blocks is handed out, no need to lock
+		ByteBuffer chunk = chunks.get(block / chunkBlockCount);
+		
+		// using a duplicate so that the position is not shared among threads
+		ByteBuffer buffer = chunk.duplicate();
+		buffer.position((block % chunkBlockCount) * blockSize);
+		return buffer;
+	}
+	
+	protected synchronized int[] reserveFreeBlocks(int blockCount)
+	{
+		while (freeCount < blockCount)
+		{
+			if (chunkCount == maxChunkCount)
+			{
+				return null;
+			}
+			
+			allocateChunk();
+		}
+		
+		int[] blocks = new int[blockCount];
+		for (int i = 0; i < blockCount; i++)
+		{
+			blocks[i] = freeBlocks[--freeCount];
+		}
+		
+		long used = usedBytes.addAndGet((long) blockCount * blockSize);
+		long peak;
+		while ((peak = peakUsedBytes.get()) < used && !peakUsedBytes.compareAndSet(peak, used))
+		{
+			// retry
+		}
+		
+		return blocks;
+	}
+	
+	protected void allocateChunk()
+	{
+		if (log.isDebugEnabled())
+		{
+			log.debug("Allocating chunk " + chunkCount + " of " + chunkBlockCount + " blocks x " + blockSize + " bytes in " + this);
+		}
+		
+		chunks.set(chunkCount, ByteBuffer.allocateDirect(chunkBlockCount * blockSize));
+		
+		int firstBlock = chunkCount * chunkBlockCount;
+		++chunkCount;
+		
+		// all the blocks can be free at some point
+		if (freeBlocks.length < chunkCount * chunkBlockCount)
+		{
+			int[] newFreeBlocks = new int[chunkCount * chunkBlockCount];
+			System.arraycopy(freeBlocks, 0, newFreeBlocks, 0, freeCount);
+			freeBlocks = newFreeBlocks;
+		}
+		
+		// adding the blocks in reverse order so that they are allocated in ascending order
+		for (int block = firstBlock + chunkBlockCount - 1; block >= firstBlock; --block)
+		{
+			freeBlocks[freeCount++] = block;
+		}
+	}
+	
+	/**
+	 * Returns the maximum number of bytes that can be allocated by the arena.
+	 */
+	public long getCapacity()
+	{
+		return (long) maxChunkCount * chunkBlockCount * blockSize;
+	}
+	
+	/**
+	 * Returns the number of bytes currently allocated in direct buffers.
+	 */
+	public synchronized long getAllocatedBytes()
+	{
+		return (long) chunkCount * chunkBlockCount * blockSize;
+	}
+	
+	/**
+	 * Returns the number of bytes in blocks that are currently in use.
+	 */
+	public long getUsedBytes()
+	{
+		return usedBytes.get();
+	}
+	
+	/**
+	 * Returns the maximum number of bytes that have been in use at one moment.
+	 */
+	public long getPeakUsedBytes()
+	{
+		return peakUsedBytes.get();
+	}
+	
+	/**
+	 * Returns the number of successful writes to the arena.
+	 */
+	public long getStoredCount()
+	{
+		return storedCount.get();
+	}
+	
+	/**
+	 * Returns the number of writes that have been rejected because the arena was full.
+	 */
+	public long getRejectedCount()
+	{
+		return rejectedCount.get();
+	}
+	
+	public static class ArenaHandle
+	{
+		private final int[] blocks;
+		private final int lastSize;
+		
+		public ArenaHandle(int[] blocks, int lastSize)
+		{
+			this.blocks = blocks;
+			this.lastSize = lastSize;
+		}
+
+		public int[] getBlocks()
+		{
+			return blocks;
+		}
+		
+		public int getLastSize()
+		{
+			return lastSize;
+		}
+	}
+}
@@ -0,0 +1,375 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.fill.VirtualizerStore;
+
+/**
+ * Virtualizer store that keeps serialized data in an {@link OffHeapArena}, outside the Java heap.
+ * <p>
+ * When the arena does not have enough free space for an object, the object data is 
+ * written to a swap file instead.  The swap file can be created on the first such write,
+ * so that no file is created while the data fits in the arena.
+ * 
+ * @see SwapFileVirtualizerStore
+ */
+public class OffHeapVirtualizerStore implements VirtualizerStore
+{
+	private static final Log log = LogFactory.getLog(OffHeapVirtualizerStore.class);
+	
+	private final OffHeapArena arena;
+	private final JasperReportsContext jasperReportsContext;
+	private final String swapDirectory;
+	private final int swapBlockSize;
+	private final int swapMinGrowCount;
+	private volatile JRSwapFile swap;
+	private final boolean swapOwner;
+	private final StreamCompression compression;
+	private final Map<String,Object> handles;
+	
+	private final AtomicLong spilledCount = new AtomicLong();
+	private final AtomicLong spilledBytes = new AtomicLong();
+
+	/**
+	 * Creates an off-heap store.
+	 * 
+	 * @param arena the arena in which the data is stored
+	 * @param swap the swap file to use when the arena is full
+	 * @param swapOwner whether the store is the owner (single user) of the swap file.
+	 * If <code>true</code>, the store will dispose the swap file on {@link #dispose() dispose}.
+	 */
+	public OffHeapVirtualizerStore(OffHeapArena arena, JRSwapFile swap, boolean swapOwner)
+	{
+		this(arena, swap, swapOwner, null);
+	}
+
+	/**
+	 * Creates an off-heap store.
+	 * 
+	 * @param arena the arena in which the data is stored
+	 * @param swap the swap file to use when the arena is full
+	 * @param swapOwner whether the store is the owner (single user) of the swap file.
+	 * If <code>true</code>, the store will dispose the swap file on {@link #dispose() dispose}.
+	 * @param compression stream compression to apply to serialized data
+	 */
+	public OffHeapVirtualizerStore(OffHeapArena arena, JRSwapFile swap, boolean swapOwner, 
+			StreamCompression compression)
+	{
+		this.arena = arena;
+		this.jasperReportsContext = null;
+		this.swapDirectory = null;
+		this.swapBlockSize = 0;
+		this.swapMinGrowCount = 0;
+		this.swap = swap;
+		this.swapOwner = swapOwner;
+		this.compression = compression;
+		this.handles = Collections.synchronizedMap(new HashMap<String,Object>());
+	}
+
+	/**
+	 * Creates an off-heap store that creates its own swap file when the arena is full
+	 * for the first time.
+	 * 
+	 * @param arena the arena in which the data is stored
+	 * @param jasperReportsContext the context used to create the swap file
+	 * @param swapDirectory the directory in which the swap file is created
+	 * @param swapBlockSize the swap file block size
+	 * @param swapMinGrowCount the minimum number of blocks by which the swap file grows
+	 * @param compression stream compression to apply to serialized data
+	 * @see JRSwapFile#JRSwapFile(JasperReportsContext, String, int, int)
+	 */
+	public OffHeapVirtualizerStore(OffHeapArena arena, JasperReportsContext jasperReportsContext,
+			String swapDirectory, int swapBlockSize, int swapMinGrowCount, StreamCompression compression)
+	{
+		this.arena = arena;
+		this.jasperReportsContext = jasperReportsContext;
+		this.swapDirectory = swapDirectory;
+		this.swapBlockSize = swapBlockSize;
+		this.swapMinGrowCount = swapMinGrowCount;
+		this.swapOwner = true;
+		this.compression = compression;
+		this.handles = Collections.synchronizedMap(new HashMap<String,Object>());
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "OffHeapVirtualizerStore " + arena + " " + swap; 
+	}
+	
+	@Override
+	public boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer)
+	{
+		return store(o, serializer, null);
+	}
+	
+	@Override
+	public boolean store(JRVirtualizable<?> o, byte[] data)
+	{
+		return store(o, null, data);
+	}
+	
+	// writes either the object serialized with the serializer or the already serialized data
+	protected boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer, byte[] serializedData)
+	{
+		if (handles.containsKey(o.getUID()))
+		{
+			if (log.isTraceEnabled())
+			{
+				log.trace("object " + o.getUID() + " already stored");
+			}
+			return false;
+		}
+		
+		try
+		{
+			byte[] data;
+			if (serializer == null && compression == null)
+			{
+				data = serializedData;
+			}
+			else
+			{
+				ByteArrayOutputStream bout = new ByteArrayOutputStream(3000);
+				OutputStream out = compression == null ? bout : compression.compressedOutput(bout);
+				if (serializer == null)
+				{
+					out.write(serializedData);
+				}
+				else
+				{
+					serializer.writeData(o, out);
+				}
+				out.close();
+				data = bout.toByteArray();
+			}
+			
+			Object handle = arena.write(data);
+			if (handle == null)
+			{
+				if (log.isTraceEnabled())
+				{
+					log.trace("arena full, writing " + data.length + " for object " + o.getUID() + " to swap file");
+				}
+				
+				handle = getSwapFile().write(data);
+				spilledCount.incrementAndGet();
+				spilledBytes.addAndGet(data.length);
+			}
+			else if (log.isTraceEnabled())
+			{
+				log.trace("wrote " + data.length + " for object " + o.getUID() + " to " + arena);
+			}
+			
+			handles.put(o.getUID(), handle);
+			return true;
+		}
+		catch (IOException e)
+		{
+			log.error("Error virtualizing object " + o.getUID() + " to " + this, e);
+			throw 
+				new JRRuntimeException(
+					SwapFileVirtualizerStore.EXCEPTION_MESSAGE_KEY_VIRTUALIZING_ERROR,
+					(Object[])null,
+					e);
+		}
+	}
+	
+	@Override
+	public void retrieve(JRVirtualizable<?> o, boolean remove, VirtualizationSerializer serializer)
+	{
+		Object handle = handles.get(o.getUID());
+		if (handle == null)
+		{
+			log.error("No handle found for " + o.getUID() + " in " + this);
+			throw 
+				new JRRuntimeException(
+					SwapFileVirtualizerStore.EXCEPTION_MESSAGE_KEY_UNABLE_TO_READ_DATA,
+					(Object[])null);
+		}
+		
+		try
+		{
+			byte[] data = handle instanceof OffHeapArena.ArenaHandle
+					? arena.read((OffHeapArena.ArenaHandle) handle, remove)
+					: swap.read((JRSwapFile.SwapHandle) handle, remove);
+			if (log.isTraceEnabled())
+			{
+				log.trace("read " + data.length + " for object " + o.getUID() + " from " + this);
+			}
+			
+			ByteArrayInputStream rawInput = new ByteArrayInputStream(data);
+			InputStream input = compression == null ? rawInput : compression.uncompressedInput(rawInput);
+			serializer.readData(o, input);
+			input.close();
+		}
+		catch (IOException e)
+		{
+			log.error("Error reading object data " + o.getUID() + " from " + this, e);
+			throw 
+				new JRRuntimeException(
+					SwapFileVirtualizerStore.EXCEPTION_MESSAGE_KEY_DEVIRTUALIZING_ERROR,
+					(Object[])null,
+					e);
+		}
+		
+		if (remove)
+		{
+			handles.remove(o.getUID());
+		}
+	}
+	
+	@Override
+	public void remove(String objectId)
+	{
+		Object handle = handles.remove(objectId);
+		if (handle == null)
+		{
+			if (log.isTraceEnabled())
+			{
+				log.trace("object " + objectId + " not found for removal");
+			}
+		}
+		else
+		{
+			if (log.isTraceEnabled())
+			{
+				log.trace("removing object " + objectId + " from " + this);
+			}
+			
+			free(handle);
+		}
+	}
+	
+	protected void free(Object handle)
+	{
+		if (handle instanceof OffHeapArena.ArenaHandle)
+		{
+			arena.free((OffHeapArena.ArenaHandle) handle);
+		}
+		else
+		{
+			swap.free((JRSwapFile.SwapHandle) handle);
+		}
+	}
+	
+	protected JRSwapFile getSwapFile()
+	{
+		JRSwapFile swapFile = swap;
+		if (swapFile == null)
+		{
+			synchronized (this)
+			{
+				swapFile = swap;
+				if (swapFile == null)
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("creating swap file in " + swapDirectory + " for " + this);
+					}
+					
+					swapFile = swap = new JRSwapFile(jasperReportsContext, swapDirectory, swapBlockSize, swapMinGrowCount);
+				}
+			}
+		}
+		return swapFile;
+	}
+
+	/**
+	 * Frees the arena blocks used by the store and disposes the swap file if this store owns it.
+	 */
+	@Override
+	public void dispose()
+	{
+		synchronized (handles)
+		{
+			for (Object handle : handles.values())
+			{
+				if (handle instanceof OffHeapArena.ArenaHandle)
+				{
+					arena.free((OffHeapArena.ArenaHandle) handle);
+				}
+			}
+			handles.clear();
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("disposing " + this + ", spilled " + spilledCount.get() + " objects, " 
+					+ spilledBytes.get() + " bytes, arena used " + arena.getUsedBytes() + " bytes");
+		}
+		
+		JRSwapFile swapFile = swap;
+		if (swapOwner && swapFile != null)
+		{
+			swapFile.dispose();
+		}
+	}
+
+	public OffHeapArena getArena()
+	{
+		return arena;
+	}
+
+	/**
+	 * Determines whether the store has a swap file, either received on creation
+	 * or created when the arena was full.
+	 */
+	public boolean hasSwapFile()
+	{
+		return swap != null;
+	}
+
+	/**
+	 * Returns the number of objects that have been written to the swap file because the arena was full.
+	 */
+	public long getSpilledCount()
+	{
+		return spilledCount.get();
+	}
+
+	/**
+	 * Returns the number of bytes that have been written to the swap file because the arena was full.
+	 */
+	public long getSpilledBytes()
+	{
+		return spilledBytes.get();
+	}
+}
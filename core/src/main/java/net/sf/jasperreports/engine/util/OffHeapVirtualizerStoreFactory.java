@@ -0,0 +1,133 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.VirtualizerStore;
+import net.sf.jasperreports.engine.fill.VirtualizerStoreFactory;
+
+/**
+ * Creates {@link OffHeapVirtualizerStore} instances that share a single {@link OffHeapArena},
+ * so that the arena capacity acts as a global off-heap memory limit for all the virtualization
+ * contexts.
+ */
+public class OffHeapVirtualizerStoreFactory implements VirtualizerStoreFactory
+{
+	private long arenaCapacity = 256L << 20;//default value
+	private int arenaBlockSize = 4096;//default value
+	private String directory = System.getProperty("java.io.tmpdir");//default value
+	private int blockSize = 4096;//default value
+	private int minGrowCount = 20;//default value
+	private StreamCompression compression;
+	
+	private volatile OffHeapArena arena;
+	
+	@Override
+	public VirtualizerStore createStore(JRVirtualizationContext virtualizationContext)
+	{
+		// the swap file is only created if the arena fills up
+		return new OffHeapVirtualizerStore(getArena(), virtualizationContext.getJasperReportsContext(), 
+				directory, blockSize, minGrowCount, compression);
+	}
+
+	/**
+	 * Returns the arena shared by the stores created by this factory.
+	 */
+	public OffHeapArena getArena()
+	{
+		OffHeapArena currentArena = arena;
+		if (currentArena == null)
+		{
+			synchronized (this)
+			{
+				currentArena = arena;
+				if (currentArena == null)
+				{
+					currentArena = arena = new OffHeapArena(arenaCapacity, arenaBlockSize);
+				}
+			}
+		}
+		return currentArena;
+	}
+
+	public long getArenaCapacity()
+	{
+		return arenaCapacity;
+	}
+
+	public void setArenaCapacity(long arenaCapacity)
+	{
+		this.arenaCapacity = arenaCapacity;
+	}
+
+	public int getArenaBlockSize()
+	{
+		return arenaBlockSize;
+	}
+
+	public void setArenaBlockSize(int arenaBlockSize)
+	{
+		this.arenaBlockSize = arenaBlockSize;
+	}
+
+	public String getDirectory()
+	{
+		return directory;
+	}
+
+	public void setDirectory(String directory)
+	{
+		this.directory = directory;
+	}
+
+	public int getBlockSize()
+	{
+		return blockSize;
+	}
+
+	public void setBlockSize(int blockSize)
+	{
+		this.blockSize = blockSize;
+	}
+
+	public int getMinGrowCount()
+	{
+		return minGrowCount;
+	}
+
+	public void setMinGrowCount(int minGrowCount)
+	{
+		this.minGrowCount = minGrowCount;
+	}
+
+	public StreamCompression getCompression()
+	{
+		return compression;
+	}
+
+	public void setCompression(StreamCompression compression)
+	{
+		this.compression = compression;
+	}
+}
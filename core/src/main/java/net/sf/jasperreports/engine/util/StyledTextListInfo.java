@@ -54,6 +54,22 @@ public class StyledTextListInfo
 		this.hasParentLi = hasParentLi;
 	}
 
+	/**
+	 * Creates a copy of a list info.
+	 */
+	public StyledTextListInfo(StyledTextListInfo listInfo)
+	{
+		this.ordered = listInfo.ordered;
+		this.type = listInfo.type;
+		this.start = listInfo.start;
+		this.cutStart = listInfo.cutStart;
+		this.hasParentLi = listInfo.hasParentLi;
+		this.itemCount = listInfo.itemCount;
+		this.itemIndex = listInfo.itemIndex;
+		this.atLiStart = listInfo.atLiStart;
+		this.atLiEnd = listInfo.atLiEnd;
+	}
+
 	public boolean ordered()
 	{
 		return ordered;
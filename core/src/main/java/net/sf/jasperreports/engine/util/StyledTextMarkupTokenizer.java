@@ -0,0 +1,489 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokenizer for the markup of styled text, used by {@link JRStyledTextParser} instead of
+ * building a DOM for the common cases.
+ * 
+ * <p>
+ * The tokenizer accepts elements with attributes, text and the predefined and character
+ * entity references, checking that the markup is well formed.
+ * Other constructs such as comments, CDATA sections and processing instructions,
+ * carriage return characters and any markup that is not well formed are not accepted, 
+ * in which case the markup is parsed as XML by the caller.
+ * </p>
+ */
+final class StyledTextMarkupTokenizer
+{
+	
+	/**
+	 * Token that marks the end of an element.
+	 */
+	static final Object END_TAG = new Object();
+	
+	/**
+	 * Token that marks the start of an element.
+	 */
+	static final class StartTag
+	{
+		private final String name;
+		private final String[] attributes;
+		
+		StartTag(String name, String[] attributes)
+		{
+			this.name = name;
+			this.attributes = attributes;
+		}
+		
+		public String getName()
+		{
+			return name;
+		}
+		
+		public String getAttribute(String attributeName)
+		{
+			for (int i = 0; i < attributes.length; i += 2)
+			{
+				if (attributes[i].equals(attributeName))
+				{
+					return attributes[i + 1];
+				}
+			}
+			return null;
+		}
+	}
+	
+	private static final String[] NO_ATTRIBUTES = new String[0];
+	
+	private final StringBuilder buffer = new StringBuilder();
+	private final List<Object> tokens = new ArrayList<>();
+	private final List<String> openTags = new ArrayList<>();
+	private final List<String> attributes = new ArrayList<>();
+	
+	private String text;
+	private int position;
+	
+	/**
+	 * Tokenizes styled text markup.
+	 * 
+	 * @param markup the markup
+	 * @return the list of tokens, containing text <code>String</code>s, {@link StartTag}s 
+	 * and {@link #END_TAG} markers, or <code>null</code> if the markup is not supported.
+	 * The list is reused by the next call.
+	 */
+	public List<Object> tokenize(String markup)
+	{
+		text = markup;
+		position = 0;
+		tokens.clear();
+		openTags.clear();
+		
+		boolean valid = true;
+		int length = text.length();
+		while (valid && position < length)
+		{
+			valid = text.charAt(position) == '<' ? readTag() : readText();
+		}
+		
+		text = null;
+		if (!valid || !openTags.isEmpty())
+		{
+			tokens.clear();
+			return null;
+		}
+		return tokens;
+	}
+	
+	private boolean readText()
+	{
+		buffer.setLength(0);
+		int length = text.length();
+		while (position < length)
+		{
+			char c = text.charAt(position);
+			if (c == '<')
+			{
+				break;
+			}
+			
+			if (c == '&')
+			{
+				if (!readReference())
+				{
+					return false;
+				}
+				continue;
+			}
+			
+			if (c == '>' && position >= 2 
+					&& text.charAt(position - 1) == ']' && text.charAt(position - 2) == ']')
+			{
+				// ]]> is not allowed in text
+				return false;
+			}
+			
+			if (!appendChar(c))
+			{
+				return false;
+			}
+		}
+		
+		tokens.add(buffer.toString());
+		return true;
+	}
+	
+	private boolean appendChar(char c)
+	{
+		if (Character.isHighSurrogate(c))
+		{
+			if (position + 1 >= text.length() || !Character.isLowSurrogate(text.charAt(position + 1)))
+			{
+				return false;
+			}
+			
+			buffer.append(c).append(text.charAt(position + 1));
+			position += 2;
+			return true;
+		}
+		
+		// carriage returns are normalized by XML parsers, not handling them here
+		if ((c < 0x20 && c != '\t' && c != '\n') 
+				|| Character.isLowSurrogate(c) || c == 0xFFFE || c == 0xFFFF)
+		{
+			return false;
+		}
+		
+		buffer.append(c);
+		++position;
+		return true;
+	}
+	
+	private boolean readReference()
+	{
+		int end = text.indexOf(';', position + 1);
+		if (end < 0 || end - position > 10)
+		{
+			return false;
+		}
+		
+		String name = text.substring(position + 1, end);
+		position = end + 1;
+		switch (name)
+		{
+		case "amp":
+			buffer.append('&');
+			return true;
+		case "lt":
+			buffer.append('<');
+			return true;
+		case "gt":
+			buffer.append('>');
+			return true;
+		case "quot":
+			buffer.append('"');
+			return true;
+		case "apos":
+			buffer.append('\'');
+			return true;
+		default:
+			return readCharacterReference(name);
+		}
+	}
+
+	private boolean readCharacterReference(String name)
+	{
+		if (name.length() < 2 || name.charAt(0) != '#')
+		{
+			return false;
+		}
+		
+		boolean hex = name.charAt(1) == 'x';
+		int radix = hex ? 16 : 10;
+		int codePoint = 0;
+		int start = hex ? 2 : 1;
+		if (start >= name.length())
+		{
+			return false;
+		}
+		
+		for (int i = start; i < name.length(); i++)
+		{
+			int digit = Character.digit(name.charAt(i), radix);
+			if (digit < 0 || name.charAt(i) > 'f')
+			{
+				return false;
+			}
+			codePoint = codePoint * radix + digit;
+		}
+		
+		boolean validChar = codePoint == 0x9 || codePoint == 0xA || codePoint == 0xD
+				|| (codePoint >= 0x20 && codePoint <= 0xD7FF)
+				|| (codePoint >= 0xE000 && codePoint <= 0xFFFD)
+				|| (codePoint >= 0x10000 && codePoint <= 0x10FFFF);
+		if (!validChar)
+		{
+			return false;
+		}
+		
+		buffer.appendCodePoint(codePoint);
+		return true;
+	}
+	
+	private boolean readTag()
+	{
+		// skipping <
+		++position;
+		if (position >= text.length())
+		{
+			return false;
+		}
+		
+		char c = text.charAt(position);
+		if (c == '/')
+		{
+			++position;
+			return readEndTag();
+		}
+		
+		// comments, CDATA sections and processing instructions are not handled
+		if (c == '!' || c == '?')
+		{
+			return false;
+		}
+		
+		return readStartTag();
+	}
+
+	private boolean readEndTag()
+	{
+		String name = readName();
+		if (name == null)
+		{
+			return false;
+		}
+		
+		skipWhitespace();
+		if (position >= text.length() || text.charAt(position) != '>')
+		{
+			return false;
+		}
+		++position;
+		
+		int openCount = openTags.size();
+		if (openCount == 0 || !openTags.get(openCount - 1).equals(name))
+		{
+			return false;
+		}
+		
+		openTags.remove(openCount - 1);
+		tokens.add(END_TAG);
+		return true;
+	}
+	
+	private boolean readStartTag()
+	{
+		String name = readName();
+		if (name == null)
+		{
+			return false;
+		}
+		
+		attributes.clear();
+		int length = text.length();
+		while (true)
+		{
+			boolean whitespace = skipWhitespace();
+			if (position >= length)
+			{
+				return false;
+			}
+			
+			char c = text.charAt(position);
+			if (c == '>')
+			{
+				++position;
+				addStartTag(name);
+				openTags.add(name);
+				return true;
+			}
+			
+			if (c == '/')
+			{
+				if (position + 1 >= length || text.charAt(position + 1) != '>')
+				{
+					return false;
+				}
+				position += 2;
+				addStartTag(name);
+				tokens.add(END_TAG);
+				return true;
+			}
+			
+			// attributes are separated by whitespace
+			if (!whitespace || !readAttribute())
+			{
+				return false;
+			}
+		}
+	}
+
+	private void addStartTag(String name)
+	{
+		String[] tagAttributes = attributes.isEmpty() ? NO_ATTRIBUTES 
+				: attributes.toArray(new String[attributes.size()]);
+		tokens.add(new StartTag(name, tagAttributes));
+	}
+	
+	private boolean readAttribute()
+	{
+		String name = readName();
+		if (name == null)
+		{
+			return false;
+		}
+		
+		for (int i = 0; i < attributes.size(); i += 2)
+		{
+			if (attributes.get(i).equals(name))
+			{
+				return false;
+			}
+		}
+		
+		skipWhitespace();
+		if (position >= text.length() || text.charAt(position) != '=')
+		{
+			return false;
+		}
+		++position;
+		
+		skipWhitespace();
+		if (position >= text.length())
+		{
+			return false;
+		}
+		
+		char quote = text.charAt(position);
+		if (quote != '"' && quote != '\'')
+		{
+			return false;
+		}
+		++position;
+		
+		buffer.setLength(0);
+		int length = text.length();
+		while (true)
+		{
+			if (position >= length)
+			{
+				return false;
+			}
+			
+			char c = text.charAt(position);
+			if (c == quote)
+			{
+				++position;
+				break;
+			}
+			
+			if (c == '<')
+			{
+				return false;
+			}
+			
+			if (c == '&')
+			{
+				if (!readReference())
+				{
+					return false;
+				}
+			}
+			else if (c == '\t' || c == '\n')
+			{
+				// attribute value normalization
+				buffer.append(' ');
+				++position;
+			}
+			else if (!appendChar(c))
+			{
+				return false;
+			}
+		}
+		
+		attributes.add(name);
+		attributes.add(buffer.toString());
+		return true;
+	}
+	
+	private String readName()
+	{
+		int start = position;
+		int length = text.length();
+		while (position < length)
+		{
+			char c = text.charAt(position);
+			boolean nameStart = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':';
+			boolean nameChar = nameStart || (c >= '0' && c <= '9') || c == '-' || c == '.';
+			if (position == start ? !nameStart : !nameChar)
+			{
+				break;
+			}
+			++position;
+		}
+		
+		if (position == start)
+		{
+			return null;
+		}
+		
+		if (position < length && text.charAt(position) > 0x7F)
+		{
+			// not handling non ASCII names
+			return null;
+		}
+		
+		return text.substring(start, position);
+	}
+	
+	private boolean skipWhitespace()
+	{
+		int start = position;
+		int length = text.length();
+		while (position < length)
+		{
+			char c = text.charAt(position);
+			if (c != ' ' && c != '\t' && c != '\n')
+			{
+				break;
+			}
+			++position;
+		}
+		return position > start;
+	}
+	
+}
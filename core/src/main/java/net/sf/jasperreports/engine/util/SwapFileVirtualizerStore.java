@@ -23,8 +23,6 @@
  */
 package net.sf.jasperreports.engine.util;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -80,6 +78,18 @@ public class SwapFileVirtualizerStore implements VirtualizerStore
 	
 	@Override
 	public boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer)
+	{
+		return store(o, serializer, null);
+	}
+	
+	@Override
+	public boolean store(JRVirtualizable<?> o, byte[] data)
+	{
+		return store(o, null, data);
+	}
+	
+	// writes either the object serialized with the serializer or the already serialized data
+	protected boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer, byte[] data)
 	{
 		if (isStored(o))
 		{
@@ -90,21 +100,30 @@ public class SwapFileVirtualizerStore implements VirtualizerStore
 			return false;
 		}
 		
+		// writing directly to the swap file instead of collecting the data in an array
+		JRSwapFile.SwapOutputStream swapOutput = swap.openOutput();
+		boolean written = false;
 		try
 		{
-			ByteArrayOutputStream bout = new ByteArrayOutputStream(3000);
-			OutputStream out = compression == null ? bout : compression.compressedOutput(bout);
-			serializer.writeData(o, out);
+			OutputStream out = compression == null ? swapOutput : compression.compressedOutput(swapOutput);
+			if (serializer == null)
+			{
+				out.write(data);
+			}
+			else
+			{
+				serializer.writeData(o, out);
+			}
 			out.close();
+			swapOutput.close();
 			
-			byte[] data = bout.toByteArray();
 			if (log.isTraceEnabled())
 			{
-				log.trace("writing " + data.length + " for object " + o.getUID() + " to " + swap);
+				log.trace("wrote " + swapOutput.getSize() + " for object " + o.getUID() + " to " + swap);
 			}
 			
-			JRSwapFile.SwapHandle handle = swap.write(data);
-			handles.put(o.getUID(), handle);
+			handles.put(o.getUID(), swapOutput.getHandle());
+			written = true;
 			return true;
 		}
 		catch (IOException e)
@@ -116,6 +135,13 @@ public class SwapFileVirtualizerStore implements VirtualizerStore
 					(Object[])null,
 					e);
 		}
+		finally
+		{
+			if (!written)
+			{
+				swapOutput.discard();
+			}
+		}
 	}
 	
 	@Override
@@ -135,16 +161,20 @@ public class SwapFileVirtualizerStore implements VirtualizerStore
 		
 		try
 		{
-			byte[] data = swap.read(handle, remove);
 			if (log.isTraceEnabled())
 			{
-				log.trace("read " + data.length + " for object " + o.getUID() + " from " + swap);
+				log.trace("reading object " + o.getUID() + " from " + swap);
 			}
 			
-			ByteArrayInputStream rawInput = new ByteArrayInputStream(data);
+			InputStream rawInput = swap.openInput(handle);
 			InputStream input = compression == null ? rawInput : compression.uncompressedInput(rawInput);
 			serializer.readData(o, input);
 			input.close();
+			
+			if (remove)
+			{
+				swap.free(handle);
+			}
 		}
 		catch (IOException e)
 		{
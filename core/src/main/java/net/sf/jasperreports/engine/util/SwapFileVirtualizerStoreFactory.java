@@ -23,25 +23,127 @@
  */
 package net.sf.jasperreports.engine.util;
 
+import java.util.zip.Deflater;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
 import net.sf.jasperreports.engine.fill.VirtualizerStore;
 import net.sf.jasperreports.engine.fill.VirtualizerStoreFactory;
+import net.sf.jasperreports.properties.PropertyConstants;
 
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
  */
 public class SwapFileVirtualizerStoreFactory implements VirtualizerStoreFactory
 {
+	/**
+	 * Property that determines whether the swap files created by the factory are memory mapped.
+	 * <p>
+	 * When set, the factory creates {@link JRMappedSwapFile} instances instead of {@link JRSwapFile}.
+	 * The property is only used when the factory has not been explicitly configured via 
+	 * {@link #setMemoryMapped(Boolean)}.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_MEMORY_MAPPED = JRPropertiesUtil.PROPERTY_PREFIX + "virtualizer.swap.file.memory.mapped";
+	
+	/**
+	 * Property that specifies the compression applied to the data written to swap files.
+	 * <p>
+	 * Possible values are:
+	 * <ul>
+	 * <li><code>none</code> - data is written uncompressed</li>
+	 * <li><code>deflate</code> - data is compressed using {@link DeflateStreamCompression}</li>
+	 * <li><code>lz4</code> - data is compressed using {@link BlockStreamCompression} with {@link LZ4BlockCompressor},
+	 * which is much faster than deflate at the cost of a lower compression ratio</li>
+	 * </ul>
+	 * The property is only used when the factory has not been explicitly configured via 
+	 * {@link #setCompression(StreamCompression)}.
+	 * Other values are rejected when a store is created.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = SwapFileVirtualizerStoreFactory.COMPRESSION_NONE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_7_0_1
+			)
+	public static final String PROPERTY_COMPRESSION = JRPropertiesUtil.PROPERTY_PREFIX + "virtualizer.swap.file.compression";
+	
+	public static final String EXCEPTION_MESSAGE_KEY_UNKNOWN_COMPRESSION = "util.swap.file.virtualizer.store.factory.unknown.compression";
+	
+	public static final String COMPRESSION_NONE = "none";
+	public static final String COMPRESSION_DEFLATE = "deflate";
+	public static final String COMPRESSION_LZ4 = "lz4";
+	
 	private String directory = System.getProperty("java.io.tmpdir");//default value
 	private int blockSize = 4096;//default value
 	private int minGrowCount = 20;//default value
 	private StreamCompression compression;
+	private Boolean memoryMapped;
+	private int stripeCount = Runtime.getRuntime().availableProcessors();//default value
 	
 	@Override
 	public VirtualizerStore createStore(JRVirtualizationContext virtualizationContext)
 	{
-		JRSwapFile swapFile = new JRSwapFile(directory, blockSize, minGrowCount);
-		return new SwapFileVirtualizerStore(swapFile, true, compression);
+		StreamCompression storeCompression = compression == null 
+				? createCompression(virtualizationContext) : compression;
+		JRSwapFile swapFile = createSwapFile(virtualizationContext);
+		return new SwapFileVirtualizerStore(swapFile, true, storeCompression);
+	}
+	
+	protected StreamCompression createCompression(JRVirtualizationContext virtualizationContext)
+	{
+		JasperReportsContext jasperReportsContext = virtualizationContext.getJasperReportsContext();
+		if (jasperReportsContext == null)
+		{
+			jasperReportsContext = DefaultJasperReportsContext.getInstance();
+		}
+		
+		String compressionProperty = JRPropertiesUtil.getInstance(jasperReportsContext).getProperty(PROPERTY_COMPRESSION);
+		String compressionName = compressionProperty == null ? "" : compressionProperty.trim();
+		if (compressionName.isEmpty() || COMPRESSION_NONE.equals(compressionName))
+		{
+			return null;
+		}
+		if (COMPRESSION_LZ4.equals(compressionName))
+		{
+			return new BlockStreamCompression(new LZ4BlockCompressor());
+		}
+		if (COMPRESSION_DEFLATE.equals(compressionName))
+		{
+			return new DeflateStreamCompression(Deflater.DEFAULT_COMPRESSION);
+		}
+		
+		throw 
+			new JRRuntimeException(
+				EXCEPTION_MESSAGE_KEY_UNKNOWN_COMPRESSION,
+				new Object[]{compressionProperty});
+	}
+	
+	protected JRSwapFile createSwapFile(JRVirtualizationContext virtualizationContext)
+	{
+		JasperReportsContext jasperReportsContext = virtualizationContext.getJasperReportsContext();
+		if (jasperReportsContext == null)
+		{
+			jasperReportsContext = DefaultJasperReportsContext.getInstance();
+		}
+		
+		boolean mapped = memoryMapped == null
+				? JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(PROPERTY_MEMORY_MAPPED)
+				: memoryMapped;
+		return mapped
+				? new JRMappedSwapFile(jasperReportsContext, directory, blockSize, minGrowCount, stripeCount)
+				: new JRSwapFile(jasperReportsContext, directory, blockSize, minGrowCount);
 	}
 
 	public String getDirectory()
@@ -79,8 +181,47 @@ public class SwapFileVirtualizerStoreFactory implements VirtualizerStoreFactory
 		return compression;
 	}
 
+	/**
+	 * Sets the compression applied to the data written to swap files.
+	 * 
+	 * @param compression the stream compression, or <code>null</code> to use the {@link #PROPERTY_COMPRESSION} property
+	 * @see BlockStreamCompression
+	 * @see DeflateStreamCompression
+	 */
 	public void setCompression(StreamCompression compression)
 	{
 		this.compression = compression;
 	}
+
+	public Boolean getMemoryMapped()
+	{
+		return memoryMapped;
+	}
+
+	/**
+	 * Determines whether the factory creates memory mapped swap files.
+	 * 
+	 * @param memoryMapped whether to create {@link JRMappedSwapFile} instances, 
+	 * or <code>null</code> to use the {@link #PROPERTY_MEMORY_MAPPED} property 
+	 */
+	public void setMemoryMapped(Boolean memoryMapped)
+	{
+		this.memoryMapped = memoryMapped;
+	}
+
+	public int getStripeCount()
+	{
+		return stripeCount;
+	}
+
+	/**
+	 * Sets the number of free block stripes used by memory mapped swap files.
+	 * 
+	 * @param stripeCount the number of stripes
+	 * @see JRMappedSwapFile
+	 */
+	public void setStripeCount(int stripeCount)
+	{
+		this.stripeCount = stripeCount;
+	}
 }
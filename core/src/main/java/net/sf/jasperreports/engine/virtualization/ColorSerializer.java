@@ -0,0 +1,64 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.virtualization;
+
+import java.awt.Color;
+import java.io.IOException;
+
+/**
+ * Writes colors as packed ARGB values.
+ */
+public class ColorSerializer implements ObjectSerializer<Color>
+{
+	@Override
+	public int typeValue()
+	{
+		return SerializationConstants.OBJECT_TYPE_COLOR;
+	}
+
+	@Override
+	public ReferenceType defaultReferenceType()
+	{
+		return ReferenceType.OBJECT;
+	}
+
+	@Override
+	public boolean defaultStoreReference()
+	{
+		return true;
+	}
+
+	@Override
+	public void write(Color value, VirtualizationOutput out) throws IOException
+	{
+		out.writeInt(value.getRGB());
+	}
+
+	@Override
+	public Color read(VirtualizationInput in) throws IOException
+	{
+		int argb = in.readInt();
+		return new Color(argb, true);
+	}
+}
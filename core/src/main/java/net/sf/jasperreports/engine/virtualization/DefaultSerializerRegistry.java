@@ -23,6 +23,7 @@
  */
 package net.sf.jasperreports.engine.virtualization;
 
+import java.awt.Color;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Time;
@@ -34,6 +35,14 @@ import java.util.UUID;
 
 import net.sf.jasperreports.engine.JRPrintHyperlinkParameter;
 import net.sf.jasperreports.engine.JRPrintHyperlinkParameters;
+import net.sf.jasperreports.engine.JRPropertiesMap;
+import net.sf.jasperreports.engine.base.JRBaseGenericPrintElement;
+import net.sf.jasperreports.engine.base.JRBasePrintEllipse;
+import net.sf.jasperreports.engine.base.JRBasePrintFrame;
+import net.sf.jasperreports.engine.base.JRBasePrintImage;
+import net.sf.jasperreports.engine.base.JRBasePrintLine;
+import net.sf.jasperreports.engine.base.JRBasePrintRectangle;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
 import net.sf.jasperreports.engine.base.VirtualElementsData;
 import net.sf.jasperreports.engine.fill.JREvaluationTime;
 import net.sf.jasperreports.engine.fill.JRRecordedValues;
@@ -106,6 +115,17 @@ public class DefaultSerializerRegistry implements SerializerRegistry
 
 		addSerializer(JREvaluationTime.class, new EvaluationTimeSerializer());
 		addSerializer(JRRecordedValues.class, new RecordedValuesSerializer());
+		
+		addSerializer(JRPropertiesMap.class, new PropertiesMapSerializer());
+		addSerializer(Color.class, new ColorSerializer());
+		
+		addSerializableType(JRBasePrintFrame.class, SerializationConstants.OBJECT_TYPE_BASE_FRAME);
+		addSerializableType(JRBasePrintText.class, SerializationConstants.OBJECT_TYPE_BASE_TEXT);
+		addSerializableType(JRBasePrintImage.class, SerializationConstants.OBJECT_TYPE_BASE_IMAGE);
+		addSerializableType(JRBasePrintLine.class, SerializationConstants.OBJECT_TYPE_BASE_LINE);
+		addSerializableType(JRBasePrintRectangle.class, SerializationConstants.OBJECT_TYPE_BASE_RECTANGLE);
+		addSerializableType(JRBasePrintEllipse.class, SerializationConstants.OBJECT_TYPE_BASE_ELLIPSE);
+		addSerializableType(JRBaseGenericPrintElement.class, SerializationConstants.OBJECT_TYPE_BASE_GENERIC);
 	}
 	
 	private <T> void addSerializer(Class<T> type, ObjectSerializer<T> serializer)
@@ -0,0 +1,105 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.virtualization;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jasperreports.engine.JRPropertiesMap;
+
+/**
+ * Writes properties maps as lists of name/value pairs.
+ * <p>
+ * The chain of base properties maps is written inline, starting with the innermost base map,
+ * so that nested maps do not interfere with the object references kept by the stream.
+ * Property names and values are written as strings and are therefore subject to string references.
+ */
+public class PropertiesMapSerializer implements ObjectSerializer<JRPropertiesMap>
+{
+	@Override
+	public int typeValue()
+	{
+		return SerializationConstants.OBJECT_TYPE_PROPERTIES_MAP;
+	}
+
+	@Override
+	public ReferenceType defaultReferenceType()
+	{
+		return ReferenceType.IDENTITY;
+	}
+
+	@Override
+	public boolean defaultStoreReference()
+	{
+		return true;
+	}
+
+	@Override
+	public void write(JRPropertiesMap value, VirtualizationOutput out) throws IOException
+	{
+		List<JRPropertiesMap> maps = new ArrayList<>();
+		for (JRPropertiesMap map = value; map != null; map = map.getBaseProperties())
+		{
+			maps.add(map);
+		}
+		
+		out.writeIntCompressed(maps.size());
+		for (int idx = maps.size() - 1; idx >= 0; --idx)
+		{
+			JRPropertiesMap map = maps.get(idx);
+			String[] names = map.getOwnPropertyNames();
+			out.writeIntCompressed(names.length);
+			for (int i = 0; i < names.length; i++)
+			{
+				String propName = names[i];
+				out.writeJRObject(propName);
+				// own property values take precedence over base values
+				out.writeJRObject(map.getProperty(propName));
+			}
+		}
+	}
+
+	@Override
+	public JRPropertiesMap read(VirtualizationInput in) throws IOException
+	{
+		int mapCount = in.readIntCompressed();
+		JRPropertiesMap map = null;
+		for (int idx = 0; idx < mapCount; idx++)
+		{
+			JRPropertiesMap baseMap = map;
+			map = new JRPropertiesMap();
+			map.setBaseProperties(baseMap);
+			
+			int propSize = in.readIntCompressed();
+			for (int i = 0; i < propSize; i++)
+			{
+				String propName = (String) in.readJRObject();
+				String value = (String) in.readJRObject();
+				map.setProperty(propName, value);
+			}
+		}
+		return map;
+	}
+}
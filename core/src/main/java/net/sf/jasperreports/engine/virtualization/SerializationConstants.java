@@ -35,7 +35,8 @@ public interface SerializationConstants
 	int OBJECT_REF_MASK = 0x80;
 	
 	int OBJECT_TYPE_OFFSET = 0x10;
-	int OBJECT_TYPE_COUNT = 0x3F - 0x10 + 1;
+	// type values need to stay below OBJECT_REF_MASK
+	int OBJECT_TYPE_COUNT = 0x7F - 0x10 + 1;
 	
 	int OBJECT_TYPE_STRING = 0x10;
 	int OBJECT_TYPE_UUID = 0x11;
@@ -73,5 +74,16 @@ public interface SerializationConstants
 	int OBJECT_TYPE_HYPERLINK_PARAMETER = 0x3D;
 	int OBJECT_TYPE_EVALUATION_TIME = 0x3E;
 	int OBJECT_TYPE_RECORDED_VALUES = 0x3F;
+	
+	int OBJECT_TYPE_PROPERTIES_MAP = 0x40;
+	int OBJECT_TYPE_COLOR = 0x41;
+	
+	int OBJECT_TYPE_BASE_FRAME = 0x50;
+	int OBJECT_TYPE_BASE_TEXT = 0x51;
+	int OBJECT_TYPE_BASE_IMAGE = 0x52;
+	int OBJECT_TYPE_BASE_LINE = 0x53;
+	int OBJECT_TYPE_BASE_RECTANGLE = 0x54;
+	int OBJECT_TYPE_BASE_ELLIPSE = 0x55;
+	int OBJECT_TYPE_BASE_GENERIC = 0x56;
 
 }
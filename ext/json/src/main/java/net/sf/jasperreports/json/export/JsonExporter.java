@@ -205,6 +205,7 @@ public class JsonExporter extends JRAbstractExporter<JsonReportConfiguration, Js
 					checkInterrupted();
 
 					page = pages.get(pageIndex);
+					prefetchPages(pages, pageIndex);
 
 					exportPage(page);
 
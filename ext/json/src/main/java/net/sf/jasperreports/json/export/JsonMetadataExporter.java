@@ -429,6 +429,7 @@ public class JsonMetadataExporter extends JRAbstractExporter<JsonMetadataReportC
 					checkInterrupted();
 
 					page = pages.get(pageIndex);
+					prefetchPages(pages, pageIndex);
 
 					exportPage(page);
 				}
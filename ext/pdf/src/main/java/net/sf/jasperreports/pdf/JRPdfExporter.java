@@ -1084,6 +1084,7 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 						checkInterrupted();
 
 						JRPrintPage page = pages.get(pageIndex);
+						prefetchPages(pages, pageIndex);
 
 						pageFormat = jasperPrint.getPageFormat(pageIndex);
 						
@@ -0,0 +1,249 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.crosstabs.fill.calculation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.crosstabs.fill.calculation.BucketDefinition.Bucket;
+import net.sf.jasperreports.crosstabs.fill.calculation.MeasureDefinition.MeasureValue;
+import net.sf.jasperreports.crosstabs.type.CrosstabTotalPositionEnum;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.analytics.dataset.BucketOrder;
+import net.sf.jasperreports.engine.fill.JRDefaultIncrementerFactory;
+import net.sf.jasperreports.engine.fill.JRExtendedIncrementerFactory;
+import net.sf.jasperreports.engine.fill.JRFillExpressionEvaluator;
+import net.sf.jasperreports.engine.type.CalculationEnum;
+
+/**
+ * Tests that the alternative crosstab bucketing modes produce the same cells as the default bucketing.
+ */
+public class BucketingServiceTest
+{
+	
+	// values that are equal according to the bucket comparator, but not according to equals()
+	private static final BigDecimal[] ROW_VALUES = {
+			new BigDecimal("1"), new BigDecimal("1.0"), new BigDecimal("1.00"), 
+			new BigDecimal("2.5"), new BigDecimal("2.50"), new BigDecimal("-3"), null};
+	
+	private static final String[] COLUMN_VALUES = {"x", "y", "z", null};
+	
+	protected static List<Object[]> createRecords(long seed, int count)
+	{
+		Random random = new Random(seed);
+		List<Object[]> records = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			Object[] bucketValues = {
+					ROW_VALUES[random.nextInt(ROW_VALUES.length)], 
+					random.nextInt(count / 4 + 1),
+					COLUMN_VALUES[random.nextInt(COLUMN_VALUES.length)]};
+			Integer value = random.nextInt(10) == 0 ? null : random.nextInt(1000);
+			records.add(new Object[]{bucketValues, new Object[]{value, value, value, value, value}});
+		}
+		return records;
+	}
+	
+	/**
+	 * Runs the records through crosstab bucketing and returns a description of the cells.
+	 */
+	protected static List<String> crosstabCells(Map<String, String> properties, List<Object[]> records) throws JRException
+	{
+		SimpleJasperReportsContext jasperReportsContext = new SimpleJasperReportsContext();
+		for (Map.Entry<String, String> property : properties.entrySet())
+		{
+			jasperReportsContext.setProperty(property.getKey(), property.getValue());
+		}
+		
+		BucketingServiceContext serviceContext = new BucketingServiceContext()
+		{
+			@Override
+			public JasperReportsContext getJasperReportsContext()
+			{
+				return jasperReportsContext;
+			}
+
+			@Override
+			public JRFillExpressionEvaluator getExpressionEvaluator()
+			{
+				return null;
+			}
+
+			@Override
+			public Object evaluateMeasuresExpression(JRExpression expression, MeasureValue[] measureValues)
+			{
+				return null;
+			}
+		};
+		
+		List<BucketDefinition> rowBuckets = Arrays.asList(
+				new BucketDefinition(BigDecimal.class, null, null, BucketOrder.ASCENDING, CrosstabTotalPositionEnum.END),
+				new BucketDefinition(Integer.class, null, null, BucketOrder.DESCENDING, CrosstabTotalPositionEnum.START));
+		List<BucketDefinition> columnBuckets = Collections.singletonList(
+				new BucketDefinition(String.class, null, null, BucketOrder.NONE, CrosstabTotalPositionEnum.END));
+		JRExtendedIncrementerFactory incrementerFactory = JRDefaultIncrementerFactory.getFactory(Integer.class);
+		List<MeasureDefinition> measures = Arrays.asList(
+				new MeasureDefinition(Integer.class, CalculationEnum.SUM, incrementerFactory),
+				new MeasureDefinition(Integer.class, CalculationEnum.COUNT, incrementerFactory),
+				new MeasureDefinition(Integer.class, CalculationEnum.AVERAGE, incrementerFactory),
+				new MeasureDefinition(Integer.class, CalculationEnum.HIGHEST, incrementerFactory),
+				// depends on the record order
+				new MeasureDefinition(Integer.class, CalculationEnum.NOTHING, incrementerFactory));
+		boolean[][] retrieveTotal = new boolean[rowBuckets.size() + 1][columnBuckets.size() + 1];
+		for (boolean[] rowTotals : retrieveTotal)
+		{
+			Arrays.fill(rowTotals, true);
+		}
+		
+		CrosstabBucketingService bucketingService = new CrosstabBucketingService(serviceContext, 
+				rowBuckets, columnBuckets, measures, false, retrieveTotal);
+		for (Object[] record : records)
+		{
+			bucketingService.addData((Object[]) record[0], (Object[]) record[1]);
+		}
+		bucketingService.processData();
+		bucketingService.createCrosstab();
+		
+		List<String> cells = new ArrayList<>();
+		CrosstabCell[][] crosstabCells = bucketingService.getCrosstabCells();
+		if (crosstabCells != null)
+		{
+			for (CrosstabCell[] row : crosstabCells)
+			{
+				for (CrosstabCell cell : row)
+				{
+					cells.add(describe(cell));
+				}
+			}
+		}
+		return cells;
+	}
+	
+	protected static String describe(CrosstabCell cell)
+	{
+		if (cell == null)
+		{
+			return "null";
+		}
+		
+		StringBuilder description = new StringBuilder();
+		for (Bucket bucket : cell.getRowBucketValues())
+		{
+			description.append(bucket.isTotal() ? "total" : String.valueOf(bucket.getValue())).append(',');
+		}
+		description.append('/');
+		for (Bucket bucket : cell.getColumnBucketValues())
+		{
+			description.append(bucket.isTotal() ? "total" : String.valueOf(bucket.getValue())).append(',');
+		}
+		description.append(':');
+		for (MeasureValue value : cell.getMesureValues())
+		{
+			description.append(value.getValue()).append(',');
+		}
+		return description.toString();
+	}
+	
+	protected static void assertSameCells(List<String> cells, List<String> expectedCells)
+	{
+		assert !expectedCells.isEmpty();
+		for (int i = 0; i < Math.min(cells.size(), expectedCells.size()); i++)
+		{
+			assert cells.get(i).equals(expectedCells.get(i)) 
+					: "cell " + i + " is " + cells.get(i) + ", expected " + expectedCells.get(i);
+		}
+		assert cells.size() == expectedCells.size() : cells.size() + " cells, expected " + expectedCells.size();
+	}
+
+	@Test
+	public void dictionaryBucketingComparatorEqualValues() throws JRException
+	{
+		for (int count : new int[]{1, 10, 200, 5000})
+		{
+			List<Object[]> records = createRecords(count, count);
+			List<String> expectedCells = crosstabCells(Collections.emptyMap(), records);
+			List<String> cells = crosstabCells(
+					Collections.singletonMap(BucketingService.PROPERTY_DICTIONARY_BUCKETING, "true"), records);
+			assertSameCells(cells, expectedCells);
+		}
+	}
+
+	@Test
+	public void comparatorEqualValuesShareRow() throws JRException
+	{
+		List<Object[]> records = new ArrayList<>();
+		records.add(new Object[]{new Object[]{new BigDecimal("1.0"), 1, "x"}, new Object[]{1, 1, 1, 1, 1}});
+		records.add(new Object[]{new Object[]{new BigDecimal("1.00"), 1, "x"}, new Object[]{2, 2, 2, 2, 2}});
+		records.add(new Object[]{new Object[]{new BigDecimal("1"), 1, "x"}, new Object[]{4, 4, 4, 4, 4}});
+		
+		List<String> cells = crosstabCells(
+				Collections.singletonMap(BucketingService.PROPERTY_DICTIONARY_BUCKETING, "true"), records);
+		// the first value is used for the bucket
+		assert cells.contains("1.0,1,/x,:7,3,2,4,4,") : cells;
+		assertSameCells(cells, crosstabCells(Collections.emptyMap(), records));
+	}
+	
+	@Test
+	public void partitionedSameAsSequential() throws JRException
+	{
+		for (int count : new int[]{1, 10, 3000, 20000})
+		{
+			List<Object[]> records = createRecords(count, count);
+			List<String> expectedCells = crosstabCells(Collections.emptyMap(), records);
+			for (String partitions : new String[]{"2", "3", "8"})
+			{
+				List<String> cells = crosstabCells(
+						Collections.singletonMap(BucketingService.PROPERTY_BUCKETING_PARTITIONS, partitions), records);
+				assertSameCells(cells, expectedCells);
+			}
+		}
+	}
+	
+	@Test
+	public void spilledSameAsInMemory() throws JRException
+	{
+		for (int count : new int[]{10, 3000, 20000})
+		{
+			List<Object[]> records = createRecords(count, count);
+			List<String> expectedCells = crosstabCells(Collections.emptyMap(), records);
+			for (String threshold : new String[]{"5", "100", "2000"})
+			{
+				List<String> cells = crosstabCells(
+						Collections.singletonMap(BucketingService.PROPERTY_BUCKETING_SPILL_THRESHOLD, threshold), records);
+				assertSameCells(cells, expectedCells);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,182 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.data.IndexedDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+/**
+ * Tests that dictionary encoded string columns are preserved by data snapshots.
+ */
+public class ColumnDictionaryTest
+{
+	private static final String[] NAMES = {"alpha", "beta", "gamma", "delta", "epsilon"};
+	
+	private static final int BLOCK_SIZE = 4096;
+
+	@Test
+	public void blockEncoded() throws IOException, ClassNotFoundException
+	{
+		BlockColumnStore store = new BlockColumnStore(new ObjectArrayStore<>(String.class, 64), new ColumnDictionary());
+		List<Object> values = new ArrayList<>();
+		for (int i = 0; i < 64; i++)
+		{
+			String value = NAMES[(i * 7) % NAMES.length];
+			store.addValue(value);
+			values.add(value);
+		}
+		
+		ColumnValues columnValues = store.createValues();
+		assert columnValues instanceof DictionaryColumnValues;
+		assertValues(columnValues, values);
+		assertValues(serializeCopy(columnValues), values);
+	}
+
+	@Test
+	public void snapshotRoundTrip() throws IOException, ClassNotFoundException, JRException
+	{
+		TypedColumnStore store = new TypedColumnStore(new ColumnDataCacheHandler(), String.class);
+		List<Object> values = new ArrayList<>();
+		// repeated values, distinct values, a constant value and repeated values with nulls
+		for (int i = 0; i < BLOCK_SIZE; i++)
+		{
+			values.add(NAMES[i % NAMES.length]);
+		}
+		for (int i = 0; i < BLOCK_SIZE; i++)
+		{
+			values.add("value" + i);
+		}
+		for (int i = 0; i < BLOCK_SIZE; i++)
+		{
+			values.add(NAMES[0]);
+		}
+		for (int i = 0; i < BLOCK_SIZE + 100; i++)
+		{
+			values.add(i % 3 == 0 ? null : NAMES[(i / 3) % NAMES.length]);
+		}
+		for (Object value : values)
+		{
+			store.addValue(value);
+		}
+		
+		int size = values.size();
+		StandardColumnCacheData cacheData = new StandardColumnCacheData(new String[]{"name"}, size, 
+				new ColumnValues[]{store.createValues()}, null);
+		ColumnDataSnapshot snapshot = new ColumnDataSnapshot();
+		snapshot.addCachedData("dataset", cacheData);
+		
+		ColumnDataSnapshot snapshotCopy = serializeCopy(snapshot);
+		IndexedDataSource dataSource = snapshotCopy.getCachedData("dataset").getDataSource();
+		
+		JRDesignField field = new JRDesignField();
+		field.setName("name");
+		field.setValueClass(String.class);
+		for (int i = 0; i < size; i++)
+		{
+			assert dataSource.next();
+			assert Objects.equals(dataSource.getFieldValue(field), values.get(i)) 
+					: "value " + i + " is " + dataSource.getFieldValue(field) + ", expected " + values.get(i);
+		}
+		assert !dataSource.next();
+	}
+
+	@Test
+	public void dictionarySharedBetweenBlocks() throws IOException, ClassNotFoundException
+	{
+		ColumnDictionary dictionary = new ColumnDictionary();
+		BlockColumnStore store = new BlockColumnStore(new ObjectArrayStore<>(String.class, 16), dictionary);
+		List<Object> values = new ArrayList<>();
+		for (int i = 0; i < 16 * 10; i++)
+		{
+			String value = NAMES[(i * 3) % NAMES.length];
+			store.addValue(value);
+			values.add(value);
+		}
+		
+		ColumnValues columnValues = store.createValues();
+		assert dictionary.size() == NAMES.length;
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(columnValues);
+		}
+		
+		ColumnValues copy = deserialize(bytes.toByteArray());
+		assertValues(copy, values);
+		
+		// the dictionary values are written once, not for each block
+		int valueCount = 0;
+		String serialized = new String(bytes.toByteArray(), "ISO-8859-1");
+		for (int idx = serialized.indexOf(NAMES[0]); idx >= 0; idx = serialized.indexOf(NAMES[0], idx + 1))
+		{
+			++valueCount;
+		}
+		assert valueCount == 1 : "dictionary value written " + valueCount + " times";
+	}
+
+	private static void assertValues(ColumnValues columnValues, List<Object> values)
+	{
+		assert columnValues.size() == values.size();
+		ColumnValuesIterator iterator = columnValues.iterator();
+		for (Object value : values)
+		{
+			assert iterator.next();
+			assert Objects.equals(iterator.get(), value);
+		}
+		assert !iterator.next();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T serializeCopy(T object) throws IOException, ClassNotFoundException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(object);
+		}
+		return (T) deserialize(bytes.toByteArray());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T deserialize(byte[] data) throws IOException, ClassNotFoundException
+	{
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data)))
+		{
+			return (T) in.readObject();
+		}
+	}
+}
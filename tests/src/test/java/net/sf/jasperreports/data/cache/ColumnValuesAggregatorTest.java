@@ -0,0 +1,175 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Compares the aggregates computed from encoded column values with the aggregates 
+ * of the values added one by one.
+ */
+public class ColumnValuesAggregatorTest
+{
+	
+	private static final int BLOCK_SIZE = 4096;
+	
+	@DataProvider
+	public Object[][] columns()
+	{
+		return new Object[][]{
+			{Long.class, "constant"}, 
+			{Long.class, "runs"}, 
+			{Long.class, "offset"}, 
+			{Long.class, "wide"}, 
+			{Long.class, "nulls"}, 
+			{Integer.class, "runs"}, 
+			{Integer.class, "offset"}, 
+			{Integer.class, "negative"}, 
+			{Integer.class, "nulls"}, 
+			{Double.class, "constant"}, 
+			{Double.class, "runs"}, 
+			{Double.class, "wide"}, 
+			{Double.class, "nulls"}, 
+		};
+	}
+	
+	@Test(dataProvider = "columns")
+	public void sameAsAddedValues(Class<?> valueClass, String distribution)
+	{
+		List<Object> values = createValues(valueClass, distribution, new Random(distribution.hashCode()));
+		TypedColumnStore store = new TypedColumnStore(new ColumnDataCacheHandler(), valueClass);
+		for (Object value : values)
+		{
+			store.addValue(value);
+		}
+		
+		boolean integral = valueClass != Double.class;
+		ColumnValuesAggregator aggregator = new ColumnValuesAggregator(integral);
+		aggregator.aggregate(store.createValues());
+		
+		ColumnValuesAggregator expected = new ColumnValuesAggregator(integral);
+		for (Object value : values)
+		{
+			expected.addValue(value, 1);
+		}
+		
+		assert aggregator.getCount() == expected.getCount() 
+				: "count " + aggregator.getCount() + ", expected " + expected.getCount();
+		assert aggregator.getNullCount() == expected.getNullCount() 
+				: "null count " + aggregator.getNullCount() + ", expected " + expected.getNullCount();
+		if (integral)
+		{
+			assert aggregator.getLongSum() == expected.getLongSum() 
+					: "sum " + aggregator.getLongSum() + ", expected " + expected.getLongSum();
+			assert aggregator.getLongMin() == expected.getLongMin() 
+					: "min " + aggregator.getLongMin() + ", expected " + expected.getLongMin();
+			assert aggregator.getLongMax() == expected.getLongMax() 
+					: "max " + aggregator.getLongMax() + ", expected " + expected.getLongMax();
+		}
+		else
+		{
+			assert Double.compare(aggregator.getDoubleSum(), expected.getDoubleSum()) == 0
+					: "sum " + aggregator.getDoubleSum() + ", expected " + expected.getDoubleSum();
+			assert Double.compare(aggregator.getDoubleMin(), expected.getDoubleMin()) == 0
+					: "min " + aggregator.getDoubleMin() + ", expected " + expected.getDoubleMin();
+			assert Double.compare(aggregator.getDoubleMax(), expected.getDoubleMax()) == 0
+					: "max " + aggregator.getDoubleMax() + ", expected " + expected.getDoubleMax();
+		}
+	}
+	
+	@Test
+	public void nullsOnly()
+	{
+		TypedColumnStore store = new TypedColumnStore(new ColumnDataCacheHandler(), Long.class);
+		for (int i = 0; i < 100; i++)
+		{
+			store.addValue(null);
+		}
+		
+		ColumnValuesAggregator aggregator = new ColumnValuesAggregator(true);
+		aggregator.aggregate(store.createValues());
+		assert aggregator.getCount() == 0;
+		assert aggregator.getNullCount() == 100;
+	}
+	
+	protected List<Object> createValues(Class<?> valueClass, String distribution, Random random)
+	{
+		// spans several blocks, with a partial last block
+		int count = 3 * BLOCK_SIZE + 123;
+		List<Object> values = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			long value;
+			switch (distribution)
+			{
+				case "constant":
+					value = 42;
+					break;
+				case "runs":
+					value = (i / 50) % 7;
+					break;
+				case "offset":
+					value = 1_000_000 + random.nextInt(200);
+					break;
+				case "negative":
+					value = -random.nextInt(70_000);
+					break;
+				case "nulls":
+					if (random.nextInt(4) == 0)
+					{
+						values.add(null);
+						continue;
+					}
+					value = random.nextInt(1000) - 500;
+					break;
+				default:
+					value = valueClass == Integer.class ? random.nextInt() : random.nextLong();
+					break;
+			}
+			
+			values.add(toValue(valueClass, value, random));
+		}
+		return values;
+	}
+	
+	protected Object toValue(Class<?> valueClass, long value, Random random)
+	{
+		if (valueClass == Integer.class)
+		{
+			return (int) value;
+		}
+		if (valueClass == Double.class)
+		{
+			// fractional values, wide values cover large magnitudes
+			return value / 8d + (value % 3 == 0 ? 0 : random.nextDouble());
+		}
+		return value;
+	}
+	
+}
@@ -0,0 +1,139 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+/**
+ * Tests for batch reading from {@link ColumnValuesDataSource}.
+ */
+public class ColumnValuesDataSourceTest
+{
+	private static final int SIZE = 10;
+
+	@Test
+	public void batchesMatchRecords() throws JRException
+	{
+		JRField[] fields = {field("name", String.class), field("id", Integer.class)};
+		ColumnValuesDataSource batchSource = createDataSource();
+		ColumnValuesDataSource recordSource = createDataSource();
+		
+		Object[][] values = new Object[fields.length][3];
+		int recordCount = 0;
+		int count;
+		while ((count = batchSource.nextBatch(fields, values, 3)) > 0)
+		{
+			assert count <= 3;
+			for (int j = 0; j < count; j++)
+			{
+				assert recordSource.next();
+				for (int i = 0; i < fields.length; i++)
+				{
+					assert values[i][j].equals(recordSource.getFieldValue(fields[i]));
+				}
+			}
+			recordCount += count;
+			assert batchSource.getRecordIndex() == recordCount - 1;
+		}
+		assert recordCount == SIZE;
+		assert !recordSource.next();
+		assert !batchSource.next();
+	}
+
+	@Test
+	public void duplicateFields() throws JRException
+	{
+		JRField[] fields = {field("id", Integer.class), field("name", String.class), field("id", Integer.class)};
+		ColumnValuesDataSource dataSource = createDataSource();
+		
+		Object[][] values = new Object[fields.length][4];
+		int count = dataSource.nextBatch(fields, values, 4);
+		assert count == 4;
+		for (int j = 0; j < count; j++)
+		{
+			assert values[0][j].equals(j);
+			assert values[1][j].equals("name" + j);
+			assert values[2][j].equals(j);
+		}
+		
+		// the next record is the first one after the batch
+		assert dataSource.next();
+		assert dataSource.getFieldValue(fields[0]).equals(4);
+	}
+
+	@Test(expectedExceptions = DataSnapshotException.class)
+	public void duplicateFieldWithDifferentType() throws JRException
+	{
+		JRField[] fields = {field("id", Integer.class), field("id", String.class)};
+		createDataSource().nextBatch(fields, new Object[fields.length][4], 4);
+	}
+
+	@Test
+	public void unknownField() throws JRException
+	{
+		JRField[] fields = {field("id", Integer.class), field("missing", String.class)};
+		ColumnValuesDataSource dataSource = createDataSource();
+		try
+		{
+			dataSource.nextBatch(fields, new Object[fields.length][4], 4);
+			assert false : "unknown field accepted";
+		}
+		catch (DataSnapshotException e)
+		{
+			assert ColumnValuesDataSource.EXCEPTION_MESSAGE_KEY_NO_SUCH_SNAPSHOT_FIELD.equals(e.getMessageKey());
+		}
+		
+		// the data source has not been advanced
+		assert dataSource.getRecordIndex() == -1;
+		assert dataSource.next();
+		assert dataSource.getFieldValue(fields[0]).equals(0);
+	}
+
+	private static ColumnValuesDataSource createDataSource()
+	{
+		Object[] names = new Object[SIZE];
+		Object[] ids = new Object[SIZE];
+		Object[] extra = new Object[SIZE];
+		for (int i = 0; i < SIZE; i++)
+		{
+			names[i] = "name" + i;
+			ids[i] = i;
+			extra[i] = (double) i;
+		}
+		return new ColumnValuesDataSource(new String[]{"extra", "name", "id"}, SIZE, 
+				new ColumnValues[]{new ObjectArrayValues(extra), new ObjectArrayValues(names), new ObjectArrayValues(ids)});
+	}
+
+	private static JRField field(String name, Class<?> valueClass)
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(name);
+		field.setValueClass(valueClass);
+		return field;
+	}
+}
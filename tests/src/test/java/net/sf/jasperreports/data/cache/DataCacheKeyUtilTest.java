@@ -0,0 +1,105 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.design.JRDesignExpression;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.design.JRDesignPropertyExpression;
+
+/**
+ * Tests that the fields keys distinguish fields that read different data.
+ */
+public class DataCacheKeyUtilTest
+{
+	
+	protected static JRDesignField field(String name, String description, String columnName)
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(name);
+		field.setValueClass(String.class);
+		field.setDescription(description);
+		if (columnName != null)
+		{
+			field.getPropertiesMap().setProperty("net.sf.jasperreports.sql.field.column.name", columnName);
+		}
+		return field;
+	}
+	
+	protected static Object key(JRField... fields)
+	{
+		return DataCacheKeyUtil.fieldsKey(fields);
+	}
+
+	@Test
+	public void equalFields()
+	{
+		assert key(field("a", "d", "c"), field("b", null, null))
+				.equals(key(field("a", "d", "c"), field("b", null, null)));
+		assert key(field("a", "d", "c")).hashCode() == key(field("a", "d", "c")).hashCode();
+		assert DataCacheKeyUtil.fieldsKey(null).equals(key());
+	}
+
+	@Test
+	public void differentFields()
+	{
+		Object key = key(field("a", "d", "c"));
+		assert !key.equals(key(field("b", "d", "c")));
+		assert !key.equals(key(field("a", "other", "c")));
+		assert !key.equals(key(field("a", null, "c")));
+		assert !key.equals(key(field("a", "d", "other")));
+		assert !key.equals(key(field("a", "d", null)));
+		
+		JRDesignField integerField = field("a", "d", "c");
+		integerField.setValueClass(Integer.class);
+		assert !key.equals(key(integerField));
+		
+		JRDesignField expressionField = field("a", "d", "c");
+		JRDesignPropertyExpression propertyExpression = new JRDesignPropertyExpression();
+		propertyExpression.setName("net.sf.jasperreports.sql.field.column.label");
+		propertyExpression.setValueExpression(new JRDesignExpression("\"label\""));
+		expressionField.addPropertyExpression(propertyExpression);
+		assert !key.equals(key(expressionField));
+		
+		// the components of different fields are not mixed
+		assert !key(field("a", "b", null), field("c", null, null))
+				.equals(key(field("a", null, null), field("b", "c", null)));
+	}
+
+	@Test
+	public void serializable() throws IOException
+	{
+		try (ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream()))
+		{
+			out.writeObject(key(field("a", "d", "c")));
+		}
+	}
+	
+}
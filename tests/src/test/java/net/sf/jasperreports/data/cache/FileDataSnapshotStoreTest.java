@@ -0,0 +1,362 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.IndexedDataSource;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.design.JRDesignParameter;
+import net.sf.jasperreports.engine.design.JRDesignQuery;
+import net.sf.jasperreports.engine.design.JasperDesign;
+
+/**
+ * Tests the keys, the deserialization filter and the eviction of file data snapshots.
+ */
+public class FileDataSnapshotStoreTest
+{
+	
+	private static JasperReport report;
+	
+	private File directory;
+
+	@BeforeMethod
+	public void createDirectory() throws IOException
+	{
+		directory = File.createTempFile("jr_snapshots", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@AfterMethod
+	public void deleteDirectory()
+	{
+		File[] files = directory.listFiles();
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	protected static synchronized JasperReport getReport() throws JRException
+	{
+		if (report == null)
+		{
+			report = compileReport(null, null);
+		}
+		return report;
+	}
+	
+	protected static JasperReport compileReport(String fieldDescription, String fieldColumnName) throws JRException
+	{
+		JasperDesign design = new JasperDesign();
+		design.setName("SnapshotReport");
+		
+		JRDesignParameter parameter = new JRDesignParameter();
+		parameter.setName("param");
+		parameter.setValueClass(String.class);
+		design.addParameter(parameter);
+		
+		JRDesignQuery query = new JRDesignQuery();
+		query.setLanguage("sql");
+		query.setText("select name from items");
+		design.setQuery(query);
+		
+		JRDesignField field = new JRDesignField();
+		field.setName("name");
+		field.setValueClass(String.class);
+		field.setDescription(fieldDescription);
+		if (fieldColumnName != null)
+		{
+			field.getPropertiesMap().setProperty("net.sf.jasperreports.sql.field.column.name", fieldColumnName);
+		}
+		design.addField(field);
+		
+		return JasperCompileManager.getInstance(DefaultJasperReportsContext.getInstance()).compile(design);
+	}
+	
+	protected static Map<String, Object> parameters(Object... nameValues)
+	{
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put(JRParameter.REPORT_LOCALE, Locale.US);
+		parameters.put(JRParameter.REPORT_TIME_ZONE, TimeZone.getTimeZone("UTC"));
+		parameters.put("param", "value");
+		for (int i = 0; i < nameValues.length; i += 2)
+		{
+			parameters.put((String) nameValues[i], nameValues[i + 1]);
+		}
+		return parameters;
+	}
+	
+	protected static Connection connection(String url, String user)
+	{
+		DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(
+				FileDataSnapshotStoreTest.class.getClassLoader(), new Class<?>[]{DatabaseMetaData.class}, 
+				(proxy, method, args) -> 
+				{
+					switch (method.getName())
+					{
+					case "getURL":
+						if (url == null)
+						{
+							throw new SQLException("no URL");
+						}
+						return url;
+					case "getUserName":
+						return user;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		return (Connection) Proxy.newProxyInstance(
+				FileDataSnapshotStoreTest.class.getClassLoader(), new Class<?>[]{Connection.class}, 
+				(proxy, method, args) -> 
+				{
+					if (method.getName().equals("getMetaData"))
+					{
+						return metaData;
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	@Test
+	public void keyIncludesFillContext() throws JRException
+	{
+		FileDataSnapshotStore store = new FileDataSnapshotStore(directory, 0, 0);
+		JasperReport report = getReport();
+		
+		String key = store.createKey(report, parameters());
+		assert key != null;
+		assert key.equals(store.createKey(report, parameters()));
+		
+		List<String> keys = new ArrayList<>();
+		keys.add(key);
+		keys.add(store.createKey(report, parameters("param", "other")));
+		keys.add(store.createKey(report, parameters(JRParameter.REPORT_LOCALE, Locale.GERMANY)));
+		keys.add(store.createKey(report, parameters(JRParameter.REPORT_TIME_ZONE, TimeZone.getTimeZone("GMT+02:00"))));
+		keys.add(store.createKey(report, parameters(JRParameter.REPORT_CONNECTION, connection("jdbc:test:a", "user1"))));
+		keys.add(store.createKey(report, parameters(JRParameter.REPORT_CONNECTION, connection("jdbc:test:b", "user1"))));
+		keys.add(store.createKey(report, parameters(JRParameter.REPORT_CONNECTION, connection("jdbc:test:a", "user2"))));
+		keys.add(store.createKey(report, parameters(), "tenant1"));
+		keys.add(store.createKey(report, parameters(), "tenant2"));
+		
+		for (int i = 0; i < keys.size(); i++)
+		{
+			assert keys.get(i) != null : "key " + i;
+			for (int j = 0; j < i; j++)
+			{
+				assert !keys.get(i).equals(keys.get(j)) : "keys " + j + " and " + i + " are equal";
+			}
+		}
+		
+		assert store.createKey(report, parameters(JRParameter.REPORT_CONNECTION, connection("jdbc:test:a", "user1")))
+				.equals(keys.get(4));
+	}
+
+	@Test
+	public void keyIncludesFieldMappings() throws JRException
+	{
+		FileDataSnapshotStore store = new FileDataSnapshotStore(directory, 0, 0);
+		
+		List<String> keys = new ArrayList<>();
+		keys.add(store.createKey(getReport(), parameters()));
+		keys.add(store.createKey(compileReport("description", null), parameters()));
+		keys.add(store.createKey(compileReport(null, "name"), parameters()));
+		keys.add(store.createKey(compileReport(null, "other_name"), parameters()));
+		
+		for (int i = 0; i < keys.size(); i++)
+		{
+			assert keys.get(i) != null : "key " + i;
+			for (int j = 0; j < i; j++)
+			{
+				assert !keys.get(i).equals(keys.get(j)) : "keys " + j + " and " + i + " are equal";
+			}
+		}
+		
+		assert store.createKey(compileReport(null, "name"), parameters()).equals(keys.get(2));
+	}
+
+	@Test
+	public void unidentifiableData() throws JRException
+	{
+		FileDataSnapshotStore store = new FileDataSnapshotStore(directory, 0, 0);
+		JasperReport report = getReport();
+		
+		JRMapCollectionDataSource dataSource = new JRMapCollectionDataSource(new ArrayList<>());
+		assert store.createKey(report, parameters(JRParameter.REPORT_DATA_SOURCE, dataSource)) == null;
+		assert store.createKey(report, parameters(JRParameter.REPORT_DATA_SOURCE, dataSource), "tenant1") != null;
+		
+		Connection connection = connection(null, "user1");
+		assert store.createKey(report, parameters(JRParameter.REPORT_CONNECTION, connection)) == null;
+		assert store.createKey(report, parameters(JRParameter.REPORT_CONNECTION, connection), "tenant1") != null;
+		
+		assert store.createKey(report, parameters("param", new Object())) == null;
+	}
+	
+	protected static ColumnDataSnapshot createSnapshot(int size, LinkedHashMap<String, Object> parameters)
+	{
+		TypedColumnStore columnStore = new TypedColumnStore(new ColumnDataCacheHandler(), String.class);
+		for (int i = 0; i < size; i++)
+		{
+			columnStore.addValue("value" + i);
+		}
+		StandardColumnCacheData cacheData = new StandardColumnCacheData(new String[]{"name"}, size, 
+				new ColumnValues[]{columnStore.createValues()}, parameters);
+		ColumnDataSnapshot snapshot = new ColumnDataSnapshot();
+		snapshot.addCachedData("dataset", cacheData);
+		return snapshot;
+	}
+
+	@Test
+	public void storeAndLoad() throws JRException
+	{
+		FileDataSnapshotStore store = new FileDataSnapshotStore(directory, 0, 0);
+		store.store("key", createSnapshot(100, null));
+		
+		DataSnapshot snapshot = store.load("key");
+		assert snapshot != null;
+		assert snapshot.hasCachedData("dataset");
+		IndexedDataSource dataSource = snapshot.getCachedData("dataset").getDataSource();
+		JRDesignField field = new JRDesignField();
+		field.setName("name");
+		field.setValueClass(String.class);
+		for (int i = 0; i < 100; i++)
+		{
+			assert dataSource.next();
+			assert ("value" + i).equals(dataSource.getFieldValue(field));
+		}
+		assert !dataSource.next();
+		
+		assert store.load("missing") == null;
+	}
+
+	@Test
+	public void disallowedClassRejected() throws JRException
+	{
+		LinkedHashMap<String, Object> parameters = new LinkedHashMap<>();
+		parameters.put("file", new File("data.csv"));
+		
+		FileDataSnapshotStore store = new FileDataSnapshotStore(directory, 0, 0);
+		store.store("key", createSnapshot(10, parameters));
+		
+		DataSnapshot snapshot = store.load("key");
+		assert snapshot != null;
+		try
+		{
+			snapshot.getCachedData("dataset");
+			assert false : "disallowed class was deserialized";
+		}
+		catch (DataSnapshotException e)
+		{
+			// expected
+		}
+		
+		store.addAllowedClass(File.class.getName());
+		snapshot = store.load("key");
+		assert new File("data.csv").equals(snapshot.getCachedData("dataset").getParameterValue("file"));
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() throws JRException
+	{
+		FileDataSnapshotStore probe = new FileDataSnapshotStore(new File(directory, "probe"), 0, 0);
+		probe.store("probe", createSnapshot(100, null));
+		long size = probe.getTotalSize();
+		assert size > 0;
+		
+		FileDataSnapshotStore store = new FileDataSnapshotStore(directory, 0, 3 * size);
+		store.store("key1", createSnapshot(100, null));
+		store.store("key2", createSnapshot(100, null));
+		store.store("key3", createSnapshot(100, null));
+		assert store.getTotalSize() == 3 * size;
+		
+		// key1 becomes the most recently used
+		assert store.load("key1") != null;
+		store.store("key4", createSnapshot(100, null));
+		
+		assert store.getTotalSize() == 3 * size;
+		assert new File(directory, "key1" + FileDataSnapshotStore.FILE_SUFFIX).isFile();
+		assert !new File(directory, "key2" + FileDataSnapshotStore.FILE_SUFFIX).exists();
+		assert new File(directory, "key3" + FileDataSnapshotStore.FILE_SUFFIX).isFile();
+		assert new File(directory, "key4" + FileDataSnapshotStore.FILE_SUFFIX).isFile();
+		
+		// a new store indexes the existing files
+		FileDataSnapshotStore reopened = new FileDataSnapshotStore(directory, 0, 3 * size);
+		assert reopened.getTotalSize() == 3 * size;
+		
+		File[] probeFiles = new File(directory, "probe").listFiles();
+		for (File file : probeFiles)
+		{
+			file.delete();
+		}
+		new File(directory, "probe").delete();
+	}
+
+	@Test
+	public void evictExpired() throws JRException, InterruptedException
+	{
+		FileDataSnapshotStore store = new FileDataSnapshotStore(directory, 50, 0);
+		store.store("key1", createSnapshot(10, null));
+		assert store.load("key1") != null;
+		
+		Thread.sleep(100);
+		assert store.load("key1") == null;
+		assert !new File(directory, "key1" + FileDataSnapshotStore.FILE_SUFFIX).exists();
+		
+		store.store("key2", createSnapshot(10, null));
+		Thread.sleep(100);
+		store.store("key3", createSnapshot(10, null));
+		assert !new File(directory, "key2" + FileDataSnapshotStore.FILE_SUFFIX).exists();
+		assert new File(directory, "key3" + FileDataSnapshotStore.FILE_SUFFIX).isFile();
+		assert store.getTotalSize() == new File(directory, "key3" + FileDataSnapshotStore.FILE_SUFFIX).length();
+	}
+	
+}
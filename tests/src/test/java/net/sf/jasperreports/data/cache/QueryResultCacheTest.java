@@ -0,0 +1,450 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.query.CacheableQueryExecuter;
+import net.sf.jasperreports.engine.util.LocalJasperReportsContext;
+
+/**
+ * Tests the shared execution, expiry, eviction, record limits and context instances 
+ * of the query result cache.
+ */
+public class QueryResultCacheTest
+{
+	
+	protected static class TestQueryExecuter implements CacheableQueryExecuter
+	{
+		private final Object key;
+		private final int size;
+		protected int executionCount;
+		protected int readCount;
+		private boolean closed;
+		
+		public TestQueryExecuter(Object key, int size)
+		{
+			this.key = key;
+			this.size = size;
+		}
+
+		@Override
+		public Object getResultCacheKey()
+		{
+			return key;
+		}
+
+		@Override
+		public JRDataSource createDatasource()
+		{
+			++executionCount;
+			closed = false;
+			return new JRDataSource()
+			{
+				int index = -1;
+				
+				@Override
+				public boolean next() throws JRException
+				{
+					if (closed)
+					{
+						throw new JRException("query closed");
+					}
+					if (index + 1 >= size)
+					{
+						return false;
+					}
+					++index;
+					++readCount;
+					return true;
+				}
+				
+				@Override
+				public Object getFieldValue(JRField jrField) throws JRException
+				{
+					if (closed)
+					{
+						throw new JRException("query closed");
+					}
+					return value(index);
+				}
+			};
+		}
+		
+		protected Object value(int index) throws JRException
+		{
+			return index;
+		}
+
+		@Override
+		public void close()
+		{
+			closed = true;
+		}
+
+		@Override
+		public boolean cancelQuery()
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * Query executer whose records are read after the test releases them.
+	 */
+	protected static class BlockingQueryExecuter extends TestQueryExecuter
+	{
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch released = new CountDownLatch(1);
+		private final int failIndex;
+		
+		public BlockingQueryExecuter(Object key, int size, int failIndex)
+		{
+			super(key, size);
+			this.failIndex = failIndex;
+		}
+		
+		@Override
+		protected Object value(int index) throws JRException
+		{
+			if (index == 0)
+			{
+				started.countDown();
+				try
+				{
+					released.await();
+				}
+				catch (InterruptedException e)
+				{
+					throw new JRException(e);
+				}
+			}
+			if (index == failIndex)
+			{
+				throw new JRException("query failed");
+			}
+			return index;
+		}
+	}
+	
+	protected static Future<List<Object>> readAsync(ExecutorService executor, QueryResultCache cache, 
+			CacheableQueryExecuter executer, JRField[] fields)
+	{
+		return executor.submit(() -> read(cache.getDataSource(executer, fields), fields));
+	}
+	
+	protected static void awaitWaitCount(QueryResultCache cache, long waitCount) throws InterruptedException
+	{
+		long timeout = System.currentTimeMillis() + 10000;
+		while (cache.getWaitCount() < waitCount)
+		{
+			assert System.currentTimeMillis() < timeout : "no waiting request";
+			Thread.sleep(5);
+		}
+	}
+	
+	protected static JRField[] fields()
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName("value");
+		field.setValueClass(Integer.class);
+		return new JRField[]{field};
+	}
+	
+	protected static List<Object> read(JRDataSource dataSource, JRField[] fields) throws JRException
+	{
+		List<Object> values = new ArrayList<>();
+		while (dataSource.next())
+		{
+			values.add(dataSource.getFieldValue(fields[0]));
+		}
+		return values;
+	}
+
+	@Test
+	public void maxCountLimitsRecords() throws JRException
+	{
+		QueryResultCache cache = new QueryResultCache(0, Long.MAX_VALUE);
+		JRField[] fields = fields();
+		TestQueryExecuter executer = new TestQueryExecuter("query", 100);
+		
+		List<Object> values = read(cache.getDataSource(executer, fields, 10), fields);
+		assert values.size() == 10 : values.size();
+		assert values.get(9).equals(9);
+		assert executer.readCount == 10 : executer.readCount;
+		
+		// the limited result is cached for the same limit
+		assert read(cache.getDataSource(executer, fields, 10), fields).size() == 10;
+		assert executer.executionCount == 1;
+		assert cache.getHitCount() == 1;
+		
+		// the limited result is not used without a limit
+		values = read(cache.getDataSource(executer, fields, null), fields);
+		assert values.size() == 100 : values.size();
+		assert executer.executionCount == 2;
+		
+		// the complete result is used for other limits
+		assert read(cache.getDataSource(executer, fields, 20), fields).size() == 100;
+		assert read(cache.getDataSource(executer, fields), fields).size() == 100;
+		assert executer.executionCount == 2;
+		assert cache.getHitCount() == 3;
+		assert cache.getMissCount() == 2;
+	}
+
+	@Test
+	public void uncacheableValueExecutesAgain() throws JRException
+	{
+		QueryResultCache cache = new QueryResultCache(0, Long.MAX_VALUE);
+		JRDesignField field = new JRDesignField();
+		field.setName("value");
+		field.setValueClass(Object.class);
+		JRField[] fields = new JRField[]{field};
+		
+		TestQueryExecuter executer = new TestQueryExecuter("query", 100)
+		{
+			@Override
+			protected Object value(int index)
+			{
+				// the values change type after some records
+				return index < 40 ? (Object) index : (Object) String.valueOf(index);
+			}
+		};
+		
+		List<Object> values = read(cache.getDataSource(executer, fields), fields);
+		assert values.size() == 100 : values.size();
+		assert values.get(39).equals(39);
+		assert values.get(40).equals("40");
+		assert values.get(99).equals("99");
+		// recording stopped at the first value that could not be cached
+		assert executer.executionCount == 2 : executer.executionCount;
+		assert executer.readCount == 141 : executer.readCount;
+		
+		// nothing is cached
+		assert read(cache.getDataSource(executer, fields), fields).size() == 100;
+		assert executer.executionCount == 4 : executer.executionCount;
+		assert cache.getHitCount() == 0;
+		assert cache.getMemorySize() == 0;
+	}
+
+	@Test
+	public void memoryLimitStreamsRecords() throws JRException
+	{
+		// room for 10 records of one field
+		QueryResultCache cache = new QueryResultCache(0, 10 * QueryResultCache.VALUE_SIZE_ESTIMATE);
+		JRField[] fields = fields();
+		TestQueryExecuter executer = new TestQueryExecuter("query", 100);
+		
+		List<Object> values = read(cache.getDataSource(executer, fields), fields);
+		assert values.size() == 100 : values.size();
+		for (int i = 0; i < values.size(); i++)
+		{
+			assert values.get(i).equals(i) : values.get(i);
+		}
+		// the recorded records are not read again
+		assert executer.executionCount == 1 : executer.executionCount;
+		assert executer.readCount == 100 : executer.readCount;
+		
+		assert cache.getMemorySize() == 0;
+		assert read(cache.getDataSource(executer, fields), fields).size() == 100;
+		assert executer.executionCount == 2 : executer.executionCount;
+		assert cache.getHitCount() == 0;
+		
+		// results that fit are still cached
+		TestQueryExecuter smallExecuter = new TestQueryExecuter("small query", 10);
+		assert read(cache.getDataSource(smallExecuter, fields), fields).size() == 10;
+		assert read(cache.getDataSource(smallExecuter, fields), fields).size() == 10;
+		assert smallExecuter.executionCount == 1;
+		assert cache.getHitCount() == 1;
+	}
+
+	@Test
+	public void concurrentRequestsWaitForExecution() throws Exception
+	{
+		QueryResultCache cache = new QueryResultCache(0, Long.MAX_VALUE);
+		JRField[] fields = fields();
+		BlockingQueryExecuter executer = new BlockingQueryExecuter("query", 100, -1);
+		TestQueryExecuter otherExecuter = new TestQueryExecuter("query", 100);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			Future<List<Object>> first = readAsync(executor, cache, executer, fields);
+			assert executer.started.await(10, TimeUnit.SECONDS);
+			Future<List<Object>> second = readAsync(executor, cache, otherExecuter, fields);
+			awaitWaitCount(cache, 1);
+			assert !second.isDone();
+			
+			executer.released.countDown();
+			assert first.get(10, TimeUnit.SECONDS).size() == 100;
+			List<Object> values = second.get(10, TimeUnit.SECONDS);
+			assert values.size() == 100;
+			assert values.get(99).equals(99);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		
+		// the query was executed once
+		assert executer.executionCount == 1;
+		assert otherExecuter.executionCount == 0;
+		assert cache.getMissCount() == 1;
+		assert cache.getWaitCount() == 1;
+	}
+
+	@Test
+	public void failedExecutionFallsBack() throws Exception
+	{
+		QueryResultCache cache = new QueryResultCache(0, Long.MAX_VALUE);
+		JRField[] fields = fields();
+		BlockingQueryExecuter executer = new BlockingQueryExecuter("query", 100, 50);
+		TestQueryExecuter otherExecuter = new TestQueryExecuter("query", 100);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			Future<List<Object>> first = readAsync(executor, cache, executer, fields);
+			assert executer.started.await(10, TimeUnit.SECONDS);
+			Future<List<Object>> second = readAsync(executor, cache, otherExecuter, fields);
+			awaitWaitCount(cache, 1);
+			
+			executer.released.countDown();
+			try
+			{
+				first.get(10, TimeUnit.SECONDS);
+				assert false : "the failed query did not throw";
+			}
+			catch (ExecutionException e)
+			{
+				assert e.getCause() instanceof JRException : e.getCause();
+			}
+			
+			// the waiting request executes its own query
+			assert second.get(10, TimeUnit.SECONDS).size() == 100;
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		assert otherExecuter.executionCount == 1;
+		
+		// the failed result is not cached
+		TestQueryExecuter nextExecuter = new TestQueryExecuter("query", 100);
+		assert read(cache.getDataSource(nextExecuter, fields), fields).size() == 100;
+		assert nextExecuter.executionCount == 1;
+		assert cache.getHitCount() == 0;
+	}
+
+	@Test
+	public void expiredResultsExecuteAgain() throws Exception
+	{
+		QueryResultCache cache = new QueryResultCache(50, Long.MAX_VALUE);
+		JRField[] fields = fields();
+		TestQueryExecuter executer = new TestQueryExecuter("query", 10);
+		
+		assert read(cache.getDataSource(executer, fields), fields).size() == 10;
+		assert executer.executionCount == 1;
+		long memorySize = cache.getMemorySize();
+		assert memorySize > 0;
+		
+		Thread.sleep(100);
+		assert read(cache.getDataSource(executer, fields), fields).size() == 10;
+		assert executer.executionCount == 2;
+		assert cache.getHitCount() == 0;
+		// the expired result was replaced
+		assert cache.getMemorySize() == memorySize;
+	}
+
+	@Test
+	public void leastRecentlyUsedEvicted() throws JRException
+	{
+		JRField[] fields = fields();
+		// room for three results of 10 records
+		QueryResultCache cache = new QueryResultCache(0, 30 * QueryResultCache.VALUE_SIZE_ESTIMATE);
+		TestQueryExecuter executerA = new TestQueryExecuter("A", 10);
+		TestQueryExecuter executerB = new TestQueryExecuter("B", 10);
+		TestQueryExecuter executerC = new TestQueryExecuter("C", 10);
+		TestQueryExecuter executerD = new TestQueryExecuter("D", 10);
+		
+		read(cache.getDataSource(executerA, fields), fields);
+		read(cache.getDataSource(executerB, fields), fields);
+		read(cache.getDataSource(executerC, fields), fields);
+		assert cache.getMemorySize() == 30 * QueryResultCache.VALUE_SIZE_ESTIMATE;
+		
+		// A is used again, B becomes the least recently used
+		read(cache.getDataSource(executerA, fields), fields);
+		read(cache.getDataSource(executerD, fields), fields);
+		assert cache.getEvictionCount() == 1;
+		assert cache.getMemorySize() == 30 * QueryResultCache.VALUE_SIZE_ESTIMATE;
+		
+		read(cache.getDataSource(executerA, fields), fields);
+		read(cache.getDataSource(executerC, fields), fields);
+		read(cache.getDataSource(executerD, fields), fields);
+		assert executerA.executionCount == 1;
+		assert executerC.executionCount == 1;
+		assert executerD.executionCount == 1;
+		
+		read(cache.getDataSource(executerB, fields), fields);
+		assert executerB.executionCount == 2;
+	}
+
+	@Test
+	public void instancePerContext()
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(QueryResultCache.PROPERTY_TIME_TO_LIVE, "1234");
+		context.setProperty(QueryResultCache.PROPERTY_MAX_MEMORY_SIZE, "5678");
+		
+		QueryResultCache cache = QueryResultCache.getInstance(context);
+		assert cache.getTimeToLive() == 1234;
+		assert cache.getMaxMemorySize() == 5678;
+		assert QueryResultCache.getInstance(context) == cache;
+		
+		// local fill contexts share the instance of the parent context
+		LocalJasperReportsContext localContext = new LocalJasperReportsContext(context);
+		localContext.setProperty(QueryResultCache.PROPERTY_TIME_TO_LIVE, "1");
+		assert QueryResultCache.getInstance(localContext) == cache;
+		
+		SimpleJasperReportsContext otherContext = new SimpleJasperReportsContext();
+		otherContext.setProperty(QueryResultCache.PROPERTY_TIME_TO_LIVE, "4321");
+		QueryResultCache otherCache = QueryResultCache.getInstance(otherContext);
+		assert otherCache != cache;
+		assert otherCache.getTimeToLive() == 4321;
+	}
+	
+}
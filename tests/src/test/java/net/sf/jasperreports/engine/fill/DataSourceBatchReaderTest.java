@@ -0,0 +1,177 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.data.cache.ColumnValues;
+import net.sf.jasperreports.data.cache.ColumnValuesDataSource;
+import net.sf.jasperreports.data.cache.ObjectArrayValues;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JRResultSetDataSource;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.ListOfArrayDataSource;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignExpression;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.design.JRDesignSection;
+import net.sf.jasperreports.engine.design.JRDesignTextField;
+import net.sf.jasperreports.engine.design.JasperDesign;
+
+/**
+ * Tests for the record index and values provided by {@link DataSourceBatchReader}.
+ */
+public class DataSourceBatchReaderTest
+{
+	@DataProvider
+	public Object[][] batchSizes()
+	{
+		return new Object[][]{{10, 1}, {10, 3}, {10, 5}, {10, 10}, {10, 64}, {0, 4}};
+	}
+
+	@Test(dataProvider = "batchSizes")
+	public void recordIndex(int size, int batchSize) throws JRException
+	{
+		Object[] ids = new Object[size];
+		for (int i = 0; i < size; i++)
+		{
+			ids[i] = i;
+		}
+		ColumnValuesDataSource dataSource = new ColumnValuesDataSource(new String[]{"id"}, size, 
+				new ColumnValues[]{new ObjectArrayValues(ids)});
+		
+		JRDesignField field = new JRDesignField();
+		field.setName("id");
+		field.setValueClass(Integer.class);
+		DataSourceBatchReader reader = new DataSourceBatchReader(dataSource, new JRField[]{field}, batchSize);
+		
+		int recordCount = 0;
+		while (reader.next())
+		{
+			assert reader.getRecordIndex() == recordCount 
+					: "record " + recordCount + " has index " + reader.getRecordIndex();
+			assert reader.getFieldValue(0).equals(recordCount);
+			++recordCount;
+		}
+		assert recordCount == size;
+		assert !reader.next();
+	}
+	
+	@Test
+	public void overriddenRecordMethods()
+	{
+		assert new ListOfArrayDataSource(new ArrayList<>(), new String[]{"id"}).isBatchReadSupported();
+		assert !new UpperCaseDataSource(new ArrayList<>()).isBatchReadSupported();
+		assert !new ListOfArrayDataSource(new ArrayList<>(), new String[]{"id"})
+		{
+			@Override
+			public boolean next()
+			{
+				return false;
+			}
+		}.isBatchReadSupported();
+		
+		assert new JRResultSetDataSource((ResultSet) null).isBatchReadSupported();
+		// subclasses that do not change the values
+		assert new JRResultSetDataSource((ResultSet) null){}.isBatchReadSupported();
+		assert !new JRResultSetDataSource((ResultSet) null)
+		{
+			@Override
+			public Object getFieldValue(JRField field) throws JRException
+			{
+				return super.getFieldValue(field);
+			}
+		}.isBatchReadSupported();
+	}
+	
+	@Test
+	public void fillUsesOverriddenFieldValues() throws JRException
+	{
+		List<Object[]> data = new ArrayList<>();
+		for (int i = 0; i < 25; i++)
+		{
+			data.add(new Object[]{"text " + i});
+		}
+		
+		JasperDesign design = new JasperDesign();
+		design.setName("BatchReport");
+		JRDesignField field = new JRDesignField();
+		field.setName("text");
+		field.setValueClass(String.class);
+		design.addField(field);
+		JRDesignTextField textField = new JRDesignTextField();
+		textField.setWidth(100);
+		textField.setHeight(15);
+		textField.setExpression(new JRDesignExpression("$F{text}"));
+		JRDesignBand detail = new JRDesignBand();
+		detail.setHeight(15);
+		detail.addElement(textField);
+		((JRDesignSection) design.getDetailSection()).addBand(detail);
+		
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRFillDataset.PROPERTY_DATA_BATCH_SIZE, "10");
+		JasperReport report = JasperCompileManager.getInstance(context).compile(design);
+		JasperPrint print = JasperFillManager.getInstance(context).fill(report, null, new UpperCaseDataSource(data));
+		
+		List<String> texts = new ArrayList<>();
+		for (JRPrintElement element : print.getPages().get(0).getElements())
+		{
+			texts.add(((JRPrintText) element).getFullText());
+		}
+		assert texts.size() == data.size();
+		for (int i = 0; i < texts.size(); i++)
+		{
+			assert texts.get(i).equals("TEXT " + i) : "record " + i + " is " + texts.get(i);
+		}
+	}
+	
+	/**
+	 * Data source that changes the field values read from the list.
+	 */
+	public static class UpperCaseDataSource extends ListOfArrayDataSource
+	{
+		public UpperCaseDataSource(List<Object[]> records)
+		{
+			super(records, new String[]{"text"});
+		}
+		
+		@Override
+		public Object getFieldValue(JRField jrField)
+		{
+			return ((String) super.getFieldValue(jrField)).toUpperCase();
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.ListOfArrayDataSource;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignExpression;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.design.JRDesignSection;
+import net.sf.jasperreports.engine.design.JRDesignTextField;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.fill.TextMeasurer.TextMeasuredState;
+import net.sf.jasperreports.engine.type.TextAdjustEnum;
+import net.sf.jasperreports.engine.util.LocalJasperReportsContext;
+
+/**
+ * Tests the text measuring cache and its use by text fields.
+ */
+public class TextMeasureCacheTest
+{
+	
+	private static final String[] TEXTS = {
+			"short", 
+			"a longer text that does not fit on a single line of the text field", 
+			"several\nlines\nof text"};
+	
+	@Test
+	public void hitsAndMisses()
+	{
+		TextMeasureCache cache = new TextMeasureCache(100);
+		assert cache.get("key") == null;
+		assert cache.getMissCount() == 1;
+		assert cache.getHitCount() == 0;
+		
+		TextMeasuredState measuredText = new TextMeasuredState(false);
+		cache.put("key", measuredText);
+		assert cache.get("key") == measuredText;
+		assert cache.get("other") == null;
+		assert cache.getHitCount() == 1;
+		assert cache.getMissCount() == 2;
+		assert cache.getHitRate() == 1d / 3;
+		assert cache.getSize() == 1;
+		
+		cache.clear();
+		assert cache.getSize() == 0;
+		assert cache.get("key") == null;
+	}
+	
+	@Test
+	public void evictions()
+	{
+		TextMeasureCache cache = new TextMeasureCache(40);
+		for (int i = 0; i < 1000; i++)
+		{
+			cache.put(i, new TextMeasuredState(false));
+		}
+		
+		assert cache.getSize() <= 40 : "size " + cache.getSize();
+		assert cache.getSize() + cache.getEvictionCount() == 1000;
+		
+		TextMeasureCache disabledCache = new TextMeasureCache(0);
+		disabledCache.put("key", new TextMeasuredState(false));
+		assert disabledCache.getSize() == 0;
+		assert disabledCache.get("key") == null;
+	}
+	
+	@Test
+	public void contextInstances()
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(TextMeasureCache.PROPERTY_MAX_SIZE, "123");
+		TextMeasureCache cache = TextMeasureCache.getInstance(context);
+		assert cache.getMaxSize() == 123;
+		assert TextMeasureCache.getInstance(context) == cache;
+		assert TextMeasureCache.getInstance(new LocalJasperReportsContext(context)) == cache;
+		assert TextMeasureCache.getInstance(new SimpleJasperReportsContext()) != cache;
+	}
+	
+	@Test
+	public void fillSameAsUncached() throws JRException
+	{
+		List<Object[]> data = new ArrayList<>();
+		for (int i = 0; i < 24; i++)
+		{
+			data.add(new Object[]{TEXTS[i % TEXTS.length]});
+		}
+		
+		JasperPrint expectedPrint = fill(new SimpleJasperReportsContext(), data);
+		
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(TextMeasureCache.PROPERTY_ENABLED, "true");
+		TextMeasureCache cache = TextMeasureCache.getInstance(context);
+		JasperPrint print = fill(context, data);
+		
+		// each distinct text is measured once
+		assert cache.getMissCount() == TEXTS.length : "misses " + cache.getMissCount();
+		assert cache.getHitCount() == data.size() - TEXTS.length : "hits " + cache.getHitCount();
+		assertSameTexts(print, expectedPrint);
+		
+		// the second fill only uses cached results
+		print = fill(context, data);
+		assert cache.getMissCount() == TEXTS.length : "misses " + cache.getMissCount();
+		assertSameTexts(print, expectedPrint);
+	}
+	
+	@Test
+	public void pagesSameAsUncached() throws JRException
+	{
+		// texts are also measured at the bottom of pages, where they do not fit
+		List<Object[]> data = new ArrayList<>();
+		for (int i = 0; i < 200; i++)
+		{
+			data.add(new Object[]{TEXTS[i % TEXTS.length]});
+		}
+		
+		JasperPrint expectedPrint = fill(new SimpleJasperReportsContext(), data);
+		assert expectedPrint.getPages().size() > 1;
+		
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(TextMeasureCache.PROPERTY_ENABLED, "true");
+		JasperPrint print = fill(context, data);
+		assert TextMeasureCache.getInstance(context).getHitCount() > 0;
+		assertSameTexts(print, expectedPrint);
+	}
+	
+	protected JasperPrint fill(JasperReportsContext context, List<Object[]> data) throws JRException
+	{
+		JasperDesign design = new JasperDesign();
+		design.setName("TextMeasureCacheReport");
+		
+		JRDesignField field = new JRDesignField();
+		field.setName("text");
+		field.setValueClass(String.class);
+		design.addField(field);
+		
+		JRDesignTextField textField = new JRDesignTextField();
+		textField.setX(0);
+		textField.setY(0);
+		textField.setWidth(120);
+		textField.setHeight(15);
+		textField.setTextAdjust(TextAdjustEnum.STRETCH_HEIGHT);
+		textField.setExpression(new JRDesignExpression("$F{text}"));
+		
+		JRDesignBand detail = new JRDesignBand();
+		detail.setHeight(15);
+		detail.addElement(textField);
+		((JRDesignSection) design.getDetailSection()).addBand(detail);
+		
+		JasperReport report = JasperCompileManager.getInstance(context).compile(design);
+		return JasperFillManager.getInstance(context).fill(report, null, 
+				new ListOfArrayDataSource(data, new String[]{"text"}));
+	}
+	
+	protected void assertSameTexts(JasperPrint print, JasperPrint expectedPrint)
+	{
+		List<JRPrintText> texts = texts(print);
+		List<JRPrintText> expectedTexts = texts(expectedPrint);
+		assert print.getPages().size() == expectedPrint.getPages().size();
+		assert texts.size() == expectedTexts.size();
+		for (int i = 0; i < texts.size(); i++)
+		{
+			JRPrintText text = texts.get(i);
+			JRPrintText expectedText = expectedTexts.get(i);
+			assert text.getY() == expectedText.getY();
+			assert text.getFullText().equals(expectedText.getFullText());
+			assert text.getHeight() == expectedText.getHeight() 
+					: "text " + i + " height " + text.getHeight() + ", expected " + expectedText.getHeight();
+			assert text.getTextHeight() == expectedText.getTextHeight();
+			assert text.getLineSpacingFactor() == expectedText.getLineSpacingFactor();
+			assert text.getLeadingOffset() == expectedText.getLeadingOffset();
+			assert Arrays.equals(text.getLineBreakOffsets(), expectedText.getLineBreakOffsets());
+		}
+	}
+	
+	protected List<JRPrintText> texts(JasperPrint print)
+	{
+		List<JRPrintText> texts = new ArrayList<>();
+		for (JRPrintPage page : print.getPages())
+		{
+			for (JRPrintElement element : page.getElements())
+			{
+				texts.add((JRPrintText) element);
+			}
+		}
+		return texts;
+	}
+	
+}
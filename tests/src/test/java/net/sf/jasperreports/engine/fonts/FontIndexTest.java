@@ -0,0 +1,336 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fonts;
+
+import java.awt.Font;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRDefaultScriptlet;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRScriptletException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignParameter;
+import net.sf.jasperreports.engine.design.JRDesignSection;
+import net.sf.jasperreports.engine.design.JRDesignStaticText;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.util.LocalJasperReportsContext;
+
+/**
+ * Compares font lookups through the font extensions index with the lookup that iterates
+ * the font families and faces in order.
+ */
+public class FontIndexTest
+{
+	
+	private static final String[] NAMES = {"Alpha", "alpha", "ALPHA", "Beta", "beta", "Gamma", "straße", "STRASSE", 
+			"Serif", "serif", "Dialog", "Monospaced"};
+	private static final String[] AWT_NAMES = {"Serif", "SansSerif", "Dialog", "Monospaced", "Alpha", "NoSuchFont"};
+	private static final String[][] LOCALES = {null, {"en_US"}, {"de"}, {"en_US", "fr_FR"}};
+	private static final Locale[] QUERY_LOCALES = {null, Locale.US, Locale.GERMAN, Locale.FRANCE, Locale.JAPAN};
+	
+	/**
+	 * Font face with a given name and AWT font.
+	 */
+	protected static class TestFontFace extends SimpleFontFace
+	{
+		private final String name;
+		private final Font font;
+		
+		public TestFontFace(String name, Font font)
+		{
+			super(null);
+			this.name = name;
+			this.font = font;
+		}
+		
+		@Override
+		public String getName()
+		{
+			return name;
+		}
+		
+		@Override
+		public Font getFont()
+		{
+			return font;
+		}
+	}
+	
+	/**
+	 * Records the context of the fill in a list passed as parameter.
+	 */
+	public static class FillContextScriptlet extends JRDefaultScriptlet
+	{
+		@Override
+		@SuppressWarnings("unchecked")
+		public void afterReportInit() throws JRScriptletException
+		{
+			List<JasperReportsContext> contexts = (List<JasperReportsContext>) getParameterValue("contexts");
+			contexts.add(dataset.getJasperReportsContext());
+		}
+	}
+	
+	@Test
+	public void sameAsLinearLookup()
+	{
+		Random random = new Random(23);
+		for (int i = 0; i < 50; i++)
+		{
+			List<FontFamily> families = createFamilies(random, 1 + random.nextInt(12));
+			SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+			context.setExtensions(FontFamily.class, families);
+			assertSameLookups(FontUtil.getInstance(context), families);
+		}
+	}
+	
+	@Test
+	public void extensionsChanged()
+	{
+		Random random = new Random(29);
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		LocalJasperReportsContext localContext = new LocalJasperReportsContext(context);
+		for (int i = 0; i < 10; i++)
+		{
+			// the index of the local context needs to be rebuilt when the parent extensions are replaced
+			List<FontFamily> families = createFamilies(random, 1 + random.nextInt(12));
+			context.setExtensions(FontFamily.class, families);
+			assertSameLookups(FontUtil.getInstance(localContext), families);
+		}
+		
+		context.setExtensions(FontFamily.class, Collections.<FontFamily>emptyList());
+		assert FontUtil.getInstance(localContext).getFontInfo("Alpha", null) == null;
+	}
+	
+	@Test
+	public void localContextsShareIndex()
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setExtensions(FontFamily.class, createFamilies(new Random(31), 5));
+		
+		FontUtil.getInstance(new LocalJasperReportsContext(context)).getFontInfo("Alpha", null);
+		Object fontIndex = context.getOwnValue(FontUtil.CONTEXT_KEY_FONT_INDEX);
+		assert fontIndex != null;
+		
+		FontUtil.getInstance(new LocalJasperReportsContext(context)).getFontInfo("Alpha", null);
+		assert context.getOwnValue(FontUtil.CONTEXT_KEY_FONT_INDEX) == fontIndex;
+		
+		// local contexts with their own extensions keep their own index
+		LocalJasperReportsContext extensionsContext = new LocalJasperReportsContext(context);
+		List<FontFamily> localFamilies = createFamilies(new Random(37), 5);
+		extensionsContext.setExtensions(FontFamily.class, localFamilies);
+		assertSameLookups(FontUtil.getInstance(extensionsContext), 
+				extensionsContext.getExtensions(FontFamily.class));
+		assert extensionsContext.getOwnValue(FontUtil.CONTEXT_KEY_FONT_INDEX) != null;
+		assert context.getOwnValue(FontUtil.CONTEXT_KEY_FONT_INDEX) == fontIndex;
+	}
+	
+	@Test
+	public void fillsShareIndex() throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		SimpleFontFamily family = new SimpleFontFamily();
+		family.setName("Alpha");
+		family.setNormalFace(new TestFontFace(null, new Font("Serif", Font.PLAIN, 10)));
+		context.setExtensions(FontFamily.class, Collections.<FontFamily>singletonList(family));
+		
+		JasperDesign design = new JasperDesign();
+		design.setName("FontIndexReport");
+		design.setScriptletClass(FillContextScriptlet.class.getName());
+		JRDesignParameter contextsParameter = new JRDesignParameter();
+		contextsParameter.setName("contexts");
+		contextsParameter.setValueClass(List.class);
+		design.addParameter(contextsParameter);
+		JRDesignStaticText text = new JRDesignStaticText();
+		text.setWidth(100);
+		text.setHeight(20);
+		text.setFontName("Alpha");
+		text.setText("text");
+		JRDesignBand detail = new JRDesignBand();
+		detail.setHeight(20);
+		detail.addElement(text);
+		((JRDesignSection) design.getDetailSection()).addBand(detail);
+		JasperReport report = JasperCompileManager.getInstance(context).compile(design);
+		
+		// the class loader parameter makes each fill use a local context
+		List<JasperReportsContext> fillContexts = new ArrayList<>();
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put(JRParameter.REPORT_CLASS_LOADER, FontIndexTest.class.getClassLoader());
+		parameters.put("contexts", fillContexts);
+		
+		JasperFillManager.getInstance(context).fill(report, new HashMap<>(parameters), new JREmptyDataSource(1));
+		Object fontIndex = context.getOwnValue(FontUtil.CONTEXT_KEY_FONT_INDEX);
+		assert fontIndex != null;
+		
+		JasperFillManager.getInstance(context).fill(report, new HashMap<>(parameters), new JREmptyDataSource(1));
+		assert context.getOwnValue(FontUtil.CONTEXT_KEY_FONT_INDEX) == fontIndex;
+		
+		assert fillContexts.size() == 2 && fillContexts.get(0) != fillContexts.get(1);
+		for (JasperReportsContext fillContext : fillContexts)
+		{
+			assert fillContext instanceof LocalJasperReportsContext;
+			assert fillContext.getOwnValue(FontUtil.CONTEXT_KEY_FONT_INDEX) == null;
+		}
+	}
+	
+	protected List<FontFamily> createFamilies(Random random, int count)
+	{
+		List<FontFamily> families = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			SimpleFontFamily family = new SimpleFontFamily();
+			family.setName(NAMES[random.nextInt(NAMES.length)]);
+			String[] locales = LOCALES[random.nextInt(LOCALES.length)];
+			if (locales != null)
+			{
+				family.setLocales(new HashSet<>(Arrays.asList(locales)));
+			}
+			family.setNormalFace(createFace(random));
+			family.setBoldFace(createFace(random));
+			family.setItalicFace(createFace(random));
+			family.setBoldItalicFace(createFace(random));
+			families.add(family);
+		}
+		return families;
+	}
+	
+	protected SimpleFontFace createFace(Random random)
+	{
+		if (random.nextInt(4) == 0)
+		{
+			return null;
+		}
+		
+		String name = random.nextInt(3) == 0 ? null : NAMES[random.nextInt(NAMES.length)];
+		Font font = random.nextInt(4) == 0 ? null : new Font(AWT_NAMES[random.nextInt(AWT_NAMES.length)], Font.PLAIN, 10);
+		return new TestFontFace(name, font);
+	}
+	
+	protected void assertSameLookups(FontUtil fontUtil, List<FontFamily> families)
+	{
+		List<String> queries = new ArrayList<>(Arrays.asList(NAMES));
+		for (String awtName : AWT_NAMES)
+		{
+			queries.add(awtName);
+			queries.add(new Font(awtName, Font.PLAIN, 10).getFamily());
+			queries.add(awtName.toUpperCase(Locale.ROOT));
+		}
+		queries.add("Unknown");
+		
+		for (String name : queries)
+		{
+			for (Locale locale : QUERY_LOCALES)
+			{
+				for (boolean ignoreCase : new boolean[]{false, true})
+				{
+					FontInfo expected = linearFontInfo(families, name, ignoreCase, locale);
+					FontInfo fontInfo = fontUtil.getFontInfo(name, ignoreCase, locale);
+					String lookup = name + ", " + locale + ", ignore case " + ignoreCase;
+					if (expected == null)
+					{
+						assert fontInfo == null : lookup + " found " + describe(fontInfo);
+					}
+					else
+					{
+						assert fontInfo != null : lookup + " not found, expected " + describe(expected);
+						assert fontInfo.getFontFamily() == expected.getFontFamily()
+								&& fontInfo.getFontFace() == expected.getFontFace()
+								&& fontInfo.getStyle() == expected.getStyle()
+								: lookup + " found " + describe(fontInfo) + ", expected " + describe(expected);
+					}
+				}
+			}
+		}
+	}
+	
+	protected String describe(FontInfo fontInfo)
+	{
+		return fontInfo.getFontFamily().getName() + "/" 
+				+ (fontInfo.getFontFace() == null ? null : fontInfo.getFontFace().getName()) + "/" + fontInfo.getStyle();
+	}
+	
+	/**
+	 * The lookup that iterates the font families and faces in order.
+	 */
+	protected FontInfo linearFontInfo(List<FontFamily> families, String name, boolean ignoreCase, Locale locale)
+	{
+		FontInfo awtFamilyMatchFontInfo = null;
+		for (FontFamily family : families)
+		{
+			if (locale == null || family.supportsLocale(locale))
+			{
+				if (equals(name, family.getName(), ignoreCase))
+				{
+					return new FontInfo(family, null, Font.PLAIN);
+				}
+				
+				FontFace[] faces = {family.getNormalFace(), family.getBoldFace(), 
+						family.getItalicFace(), family.getBoldItalicFace()};
+				int[] styles = {Font.PLAIN, Font.BOLD, Font.ITALIC, Font.BOLD | Font.ITALIC};
+				for (int i = 0; i < faces.length; i++)
+				{
+					FontFace face = faces[i];
+					if (face != null)
+					{
+						if (equals(name, face.getName(), ignoreCase))
+						{
+							return new FontInfo(family, face, styles[i]);
+						}
+						else if (
+							awtFamilyMatchFontInfo == null
+							&& face.getFont() != null
+							&& equals(name, face.getFont().getFamily(), ignoreCase)
+							)
+						{
+							awtFamilyMatchFontInfo = new FontInfo(family, face, styles[i]);
+						}
+					}
+				}
+			}
+		}
+		return awtFamilyMatchFontInfo;
+	}
+	
+	private static boolean equals(String name, String value, boolean ignoreCase)
+	{
+		return ignoreCase ? name.equalsIgnoreCase(value) : name.equals(value);
+	}
+	
+}
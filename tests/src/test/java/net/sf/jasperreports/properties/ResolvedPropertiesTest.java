@@ -0,0 +1,239 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.properties;
+
+import java.util.Objects;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRPropertiesHolder;
+import net.sf.jasperreports.engine.JRPropertiesMap;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.ResolvedProperties;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+
+/**
+ * Tests that resolved properties have the same values as the properties read through
+ * {@link JRPropertiesUtil}.
+ */
+public class ResolvedPropertiesTest
+{
+	
+	private static final String PREFIX = "net.sf.jasperreports.test.resolved.";
+	
+	/**
+	 * Properties holder with a replaceable properties map.
+	 */
+	protected static class TestPropertiesHolder implements JRPropertiesHolder
+	{
+		private final JRPropertiesHolder parent;
+		private JRPropertiesMap propertiesMap;
+		
+		public TestPropertiesHolder(JRPropertiesHolder parent)
+		{
+			this.parent = parent;
+		}
+		
+		@Override
+		public boolean hasProperties()
+		{
+			return propertiesMap != null && propertiesMap.hasProperties();
+		}
+
+		@Override
+		public JRPropertiesMap getPropertiesMap()
+		{
+			if (propertiesMap == null)
+			{
+				propertiesMap = new JRPropertiesMap();
+			}
+			return propertiesMap;
+		}
+		
+		public void setPropertiesMap(JRPropertiesMap propertiesMap)
+		{
+			this.propertiesMap = propertiesMap;
+		}
+
+		@Override
+		public JRPropertiesHolder getParentProperties()
+		{
+			return parent;
+		}
+	}
+	
+	@Test
+	public void parentChain()
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(PREFIX + "context", "context");
+		context.setProperty(PREFIX + "all", "context");
+		
+		TestPropertiesHolder grandParent = new TestPropertiesHolder(null);
+		grandParent.getPropertiesMap().setProperty(PREFIX + "grandParent", "grandParent");
+		grandParent.getPropertiesMap().setProperty(PREFIX + "all", "grandParent");
+		
+		// a holder without properties in the middle of the chain
+		TestPropertiesHolder emptyParent = new TestPropertiesHolder(grandParent);
+		
+		TestPropertiesHolder parent = new TestPropertiesHolder(emptyParent);
+		parent.getPropertiesMap().setProperty(PREFIX + "parent", "parent");
+		parent.getPropertiesMap().setProperty(PREFIX + "all", "parent");
+		
+		TestPropertiesHolder holder = new TestPropertiesHolder(parent);
+		holder.getPropertiesMap().setProperty(PREFIX + "own", "own");
+		
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(context);
+		ResolvedProperties properties = propertiesUtil.getResolvedProperties(holder);
+		assert properties.getPropertiesHolder() == holder;
+		assert "own".equals(properties.getProperty(PREFIX + "own"));
+		assert "parent".equals(properties.getProperty(PREFIX + "parent"));
+		assert "grandParent".equals(properties.getProperty(PREFIX + "grandParent"));
+		assert "context".equals(properties.getProperty(PREFIX + "context"));
+		assert "parent".equals(properties.getProperty(PREFIX + "all"));
+		assert properties.getProperty(PREFIX + "missing") == null;
+		
+		for (String key : new String[]{"own", "parent", "grandParent", "context", "all", "missing"})
+		{
+			assert Objects.equals(properties.getProperty(PREFIX + key), 
+					propertiesUtil.getProperty(holder, PREFIX + key));
+		}
+	}
+	
+	@Test
+	public void currentAfterPropertiesReplaced()
+	{
+		TestPropertiesHolder holder = new TestPropertiesHolder(null);
+		holder.getPropertiesMap().setProperty(PREFIX + "value", "first");
+		
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(new SimpleJasperReportsContext());
+		ResolvedProperties properties = propertiesUtil.getResolvedProperties(holder);
+		assert properties.isCurrent();
+		assert "first".equals(properties.getProperty(PREFIX + "value"));
+		
+		// replaced as done by fill elements for dynamic properties
+		JRPropertiesMap replacedMap = new JRPropertiesMap();
+		replacedMap.setProperty(PREFIX + "value", "second");
+		holder.setPropertiesMap(replacedMap);
+		assert !properties.isCurrent();
+		
+		ResolvedProperties newProperties = propertiesUtil.getResolvedProperties(holder);
+		assert newProperties.isCurrent();
+		assert "second".equals(newProperties.getProperty(PREFIX + "value"));
+		
+		// removing all properties is also a change
+		holder.setPropertiesMap(null);
+		assert !newProperties.isCurrent();
+		assert propertiesUtil.getResolvedProperties(holder).isCurrent();
+	}
+	
+	@Test
+	public void currentWithoutProperties()
+	{
+		TestPropertiesHolder holder = new TestPropertiesHolder(null);
+		ResolvedProperties properties = JRPropertiesUtil.getInstance(new SimpleJasperReportsContext())
+				.getResolvedProperties(holder);
+		assert properties.isCurrent();
+		
+		holder.getPropertiesMap().setProperty(PREFIX + "value", "added");
+		assert !properties.isCurrent();
+	}
+	
+	@Test
+	public void booleanValues()
+	{
+		String[] values = {"true", "false", " true ", "TRUE", "yes", "", "  ", null};
+		TestPropertiesHolder holder = new TestPropertiesHolder(null);
+		for (int i = 0; i < values.length; i++)
+		{
+			if (values[i] != null)
+			{
+				holder.getPropertiesMap().setProperty(PREFIX + i, values[i]);
+			}
+		}
+		
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(new SimpleJasperReportsContext());
+		ResolvedProperties properties = propertiesUtil.getResolvedProperties(holder);
+		for (int i = 0; i < values.length; i++)
+		{
+			for (boolean defaultValue : new boolean[]{false, true})
+			{
+				boolean expected = propertiesUtil.getBooleanProperty(holder, PREFIX + i, defaultValue);
+				// read twice to check the converted value
+				assert properties.getBooleanProperty(PREFIX + i, defaultValue) == expected 
+						: "value \"" + values[i] + "\" default " + defaultValue;
+				assert properties.getBooleanProperty(PREFIX + i, defaultValue) == expected;
+			}
+		}
+		
+		assert properties.getBooleanProperty(PREFIX + 0, false);
+		assert properties.getBooleanProperty(PREFIX + 2, false);
+		assert !properties.getBooleanProperty(PREFIX + 4, true);
+		assert properties.getBooleanProperty(PREFIX + (values.length - 1), true);
+	}
+	
+	@Test
+	public void integerValues()
+	{
+		String[] values = {"12", " 7 ", "-3", "0", "", "   ", null};
+		TestPropertiesHolder holder = new TestPropertiesHolder(null);
+		for (int i = 0; i < values.length; i++)
+		{
+			if (values[i] != null)
+			{
+				holder.getPropertiesMap().setProperty(PREFIX + i, values[i]);
+			}
+		}
+		
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(new SimpleJasperReportsContext());
+		ResolvedProperties properties = propertiesUtil.getResolvedProperties(holder);
+		for (int i = 0; i < values.length; i++)
+		{
+			for (int defaultValue : new int[]{-1, 42})
+			{
+				int expected = propertiesUtil.getIntegerProperty(holder, PREFIX + i, defaultValue);
+				assert properties.getIntegerProperty(PREFIX + i, defaultValue) == expected 
+						: "value \"" + values[i] + "\" default " + defaultValue;
+				assert properties.getIntegerProperty(PREFIX + i, defaultValue) == expected;
+			}
+		}
+		
+		assert properties.getIntegerProperty(PREFIX + 0, -1) == 12;
+		assert properties.getIntegerProperty(PREFIX + 1, -1) == 7;
+		// blank values return the default
+		assert properties.getIntegerProperty(PREFIX + 4, 42) == 42;
+		assert properties.getIntegerProperty(PREFIX + 5, 42) == 42;
+		assert properties.getIntegerProperty(PREFIX + 6, 42) == 42;
+	}
+	
+	@Test(expectedExceptions = NumberFormatException.class)
+	public void invalidInteger()
+	{
+		TestPropertiesHolder holder = new TestPropertiesHolder(null);
+		holder.getPropertiesMap().setProperty(PREFIX + "value", "twelve");
+		JRPropertiesUtil.getInstance(new SimpleJasperReportsContext()).getResolvedProperties(holder)
+				.getIntegerProperty(PREFIX + "value", 0);
+	}
+	
+}
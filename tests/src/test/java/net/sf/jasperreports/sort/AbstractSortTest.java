@@ -0,0 +1,164 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import net.sf.jasperreports.engine.JRDefaultScriptlet;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRScriptletException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.data.ListOfArrayDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.design.JRDesignParameter;
+import net.sf.jasperreports.engine.design.JRDesignSortField;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.type.SortFieldTypeEnum;
+import net.sf.jasperreports.engine.type.SortOrderEnum;
+
+/**
+ * Base class for tests that compare the records produced by dataset sort implementations.
+ * 
+ * The test report sorts by an integer key ascending and by a name descending,
+ * and collects the records in the order in which they are filled.
+ */
+public abstract class AbstractSortTest
+{
+	protected static final String PARAMETER_RECORDS = "records";
+	
+	protected static final String[] FIELD_NAMES = {"key", "name", "index"};
+	
+	private static final String[] NAMES = {"alpha", "Beta", "beta", "gamma", "éta", null};
+
+	/**
+	 * Records the values of the filled records in a list passed as parameter.
+	 */
+	public static class RecordsScriptlet extends JRDefaultScriptlet
+	{
+		@Override
+		@SuppressWarnings("unchecked")
+		public void afterDetailEval() throws JRScriptletException
+		{
+			if (dataset.isSortingData())
+			{
+				// not the sorted iteration
+				return;
+			}
+			
+			List<Object[]> records = (List<Object[]>) getParameterValue(PARAMETER_RECORDS);
+			records.add(new Object[]{getFieldValue("key"), getFieldValue("name"), getFieldValue("index")});
+		}
+	}
+	
+	protected static List<Object[]> createRecords(long seed, int count)
+	{
+		Random random = new Random(seed);
+		List<Object[]> records = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			Integer key = random.nextInt(20) == 0 ? null : random.nextInt(Math.max(count / 4, 1));
+			String name = NAMES[random.nextInt(NAMES.length)];
+			records.add(new Object[]{key, name, i});
+		}
+		return records;
+	}
+	
+	protected static JasperReport compileReport(JasperReportsContext jasperReportsContext) throws JRException
+	{
+		return compileReport(jasperReportsContext, Integer.class);
+	}
+	
+	protected static JasperReport compileReport(JasperReportsContext jasperReportsContext, 
+			Class<?> keyClass) throws JRException
+	{
+		JasperDesign design = new JasperDesign();
+		design.setName("SortReport");
+		design.setScriptletClass(RecordsScriptlet.class.getName());
+		
+		JRDesignParameter recordsParameter = new JRDesignParameter();
+		recordsParameter.setName(PARAMETER_RECORDS);
+		recordsParameter.setValueClass(List.class);
+		design.addParameter(recordsParameter);
+		
+		Class<?>[] fieldClasses = {keyClass, String.class, Integer.class};
+		for (int i = 0; i < FIELD_NAMES.length; i++)
+		{
+			JRDesignField field = new JRDesignField();
+			field.setName(FIELD_NAMES[i]);
+			field.setValueClass(fieldClasses[i]);
+			design.addField(field);
+		}
+		
+		design.addSortField(new JRDesignSortField("key", SortFieldTypeEnum.FIELD, SortOrderEnum.ASCENDING));
+		design.addSortField(new JRDesignSortField("name", SortFieldTypeEnum.FIELD, SortOrderEnum.DESCENDING));
+		
+		return JasperCompileManager.getInstance(jasperReportsContext).compile(design);
+	}
+	
+	protected static List<Object[]> fill(JasperReportsContext jasperReportsContext, 
+			List<Object[]> data, List<Object[]> filledRecords) throws JRException
+	{
+		return fill(jasperReportsContext, Integer.class, data, filledRecords);
+	}
+	
+	protected static List<Object[]> fill(JasperReportsContext jasperReportsContext, Class<?> keyClass,
+			List<Object[]> data, List<Object[]> filledRecords) throws JRException
+	{
+		JasperReport report = compileReport(jasperReportsContext, keyClass);
+		
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put(PARAMETER_RECORDS, filledRecords);
+		parameters.put(JRParameter.REPORT_LOCALE, Locale.US);
+		JasperFillManager.getInstance(jasperReportsContext).fill(report, parameters, 
+				new ListOfArrayDataSource(data, FIELD_NAMES));
+		return filledRecords;
+	}
+	
+	protected static List<Object[]> fill(JasperReportsContext jasperReportsContext, List<Object[]> data) throws JRException
+	{
+		return fill(jasperReportsContext, data, new ArrayList<>());
+	}
+	
+	protected static void assertSameRecords(List<Object[]> records, List<Object[]> expectedRecords)
+	{
+		assert records.size() == expectedRecords.size() 
+				: "got " + records.size() + " records, expected " + expectedRecords.size();
+		for (int i = 0; i < records.size(); i++)
+		{
+			assert Arrays.equals(records.get(i), expectedRecords.get(i)) 
+					: "record " + i + " is " + Arrays.toString(records.get(i)) 
+					+ ", expected " + Arrays.toString(expectedRecords.get(i));
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.sort;
+
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.fill.DatasetSortUtil;
+
+/**
+ * Compares dataset sorting with column storage with the default in-memory sorting.
+ */
+public class ColumnSortTest extends AbstractSortTest
+{
+	
+	@DataProvider
+	public Object[][] sizes()
+	{
+		return new Object[][]{{0}, {1}, {2}, {100}, {1000}, {5000}};
+	}
+
+	@Test(dataProvider = "sizes")
+	public void sameAsDefaultSort(int count) throws JRException
+	{
+		List<Object[]> data = createRecords(count * 13L, count);
+		List<Object[]> expectedRecords = fill(new SimpleJasperReportsContext(), data);
+		assert expectedRecords.size() == count;
+		
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(DatasetSortUtil.PROPERTY_SORT_COLUMN_STORAGE, "true");
+		List<Object[]> records = fill(context, data);
+		
+		assertSameRecords(records, expectedRecords);
+	}
+	
+}
@@ -0,0 +1,147 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.ListOfArrayDataSource;
+import net.sf.jasperreports.engine.fill.DatasetSortUtil;
+
+/**
+ * Compares external dataset sorting with in-memory sorting.
+ */
+public class ExternalSortTest extends AbstractSortTest
+{
+	private File directory;
+	
+	@BeforeMethod
+	public void createDirectory() throws IOException
+	{
+		directory = Files.createTempDirectory("jr_sort_test").toFile();
+	}
+	
+	@AfterMethod
+	public void deleteDirectory()
+	{
+		File[] files = directory.listFiles();
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	@DataProvider
+	public Object[][] sizes()
+	{
+		return new Object[][]{{100, 7}, {100, 99}, {100, 100}, {1000, 64}, {50, 200}, {0, 5}};
+	}
+
+	@Test(dataProvider = "sizes")
+	public void sameAsInMemorySort(int count, int runSize) throws JRException
+	{
+		List<Object[]> data = createRecords(count * 31L + runSize, count);
+		List<Object[]> expectedRecords = fill(new SimpleJasperReportsContext(), data);
+		assert expectedRecords.size() == count;
+		
+		int[] runFileCount = new int[1];
+		List<Object[]> records = new ArrayList<Object[]>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean add(Object[] record)
+			{
+				// the run files exist while the sorted records are filled
+				runFileCount[0] = Math.max(runFileCount[0], directory.list().length);
+				return super.add(record);
+			}
+		};
+		fill(createContext(runSize), data, records);
+		
+		assertSameRecords(records, expectedRecords);
+		
+		int expectedRunCount = count < runSize ? 0 : (count + runSize - 1) / runSize;
+		assert runFileCount[0] == expectedRunCount : "got " + runFileCount[0] + " runs, expected " + expectedRunCount;
+		assert directory.list().length == 0;
+	}
+
+	@Test
+	public void runsDeletedOnError() throws JRException
+	{
+		List<Object[]> data = createRecords(1, 100);
+		JasperReport report = compileReport(new SimpleJasperReportsContext());
+		
+		ListOfArrayDataSource dataSource = new ListOfArrayDataSource(data, FIELD_NAMES)
+		{
+			private int index;
+			
+			@Override
+			public Object getFieldValue(JRField jrField)
+			{
+				if (++index > 200)
+				{
+					throw new IllegalStateException("data source failure");
+				}
+				return super.getFieldValue(jrField);
+			}
+		};
+		
+		try
+		{
+			JasperFillManager.getInstance(createContext(10)).fill(report, null, dataSource);
+			assert false : "fill succeeded";
+		}
+		catch (IllegalStateException e)
+		{
+			// expected
+		}
+		assert directory.list().length == 0;
+	}
+	
+	private SimpleJasperReportsContext createContext(int runSize)
+	{
+		SimpleJasperReportsContext jasperReportsContext = new SimpleJasperReportsContext();
+		jasperReportsContext.setProperty(DatasetSortUtil.PROPERTY_EXTERNAL_SORT_RUN_SIZE, String.valueOf(runSize));
+		jasperReportsContext.setProperty(DatasetSortUtil.PROPERTY_EXTERNAL_SORT_DIRECTORY, directory.getPath());
+		return jasperReportsContext;
+	}
+}
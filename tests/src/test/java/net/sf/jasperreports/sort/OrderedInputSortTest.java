@@ -0,0 +1,205 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.fill.DatasetSortUtil;
+
+/**
+ * Tests dataset sorting of records that are already in sort order, 
+ * which are not sorted again, and of records that are only partially ordered.
+ */
+public class OrderedInputSortTest extends AbstractSortTest
+{
+	
+	/**
+	 * Sort key that counts the comparisons.
+	 */
+	public static class CountingKey implements Comparable<CountingKey>, Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private static final AtomicInteger compareCount = new AtomicInteger();
+		
+		private final int value;
+		
+		public CountingKey(int value)
+		{
+			this.value = value;
+		}
+
+		@Override
+		public int compareTo(CountingKey key)
+		{
+			compareCount.incrementAndGet();
+			return Integer.compare(value, key.value);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			return obj instanceof CountingKey && ((CountingKey) obj).value == value;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return value;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "key " + value;
+		}
+	}
+	
+	private File directory;
+	
+	@BeforeMethod
+	public void createDirectory() throws IOException
+	{
+		directory = Files.createTempDirectory("jr_sort_test").toFile();
+	}
+	
+	@AfterMethod
+	public void deleteDirectory()
+	{
+		File[] files = directory.listFiles();
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	@DataProvider
+	public Object[][] modes()
+	{
+		return new Object[][]{
+			{DatasetSortUtil.PROPERTY_EXTERNAL_SORT_RUN_SIZE, "0"},
+			{DatasetSortUtil.PROPERTY_EXTERNAL_SORT_RUN_SIZE, "10"},
+			{DatasetSortUtil.PROPERTY_EXTERNAL_SORT_RUN_SIZE, "1000"},
+			{DatasetSortUtil.PROPERTY_SORT_TOP_COUNT, "30"},
+			{DatasetSortUtil.PROPERTY_SORT_COLUMN_STORAGE, "true"},
+		};
+	}
+
+	@Test(dataProvider = "modes")
+	public void orderedInput(String property, String value) throws JRException
+	{
+		int count = 200;
+		List<Object[]> data = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			// keys with ties, and names in descending order for the same key
+			data.add(new Object[]{i / 2, i % 2 == 0 ? "b" : "a", i});
+		}
+		
+		List<Object[]> records = fill(createContext(property, value), data);
+		
+		int expectedCount = property.equals(DatasetSortUtil.PROPERTY_SORT_TOP_COUNT) 
+				? Integer.parseInt(value) : count;
+		assertSameRecords(records, data.subList(0, expectedCount));
+	}
+
+	@Test(dataProvider = "modes")
+	public void unorderedInput(String property, String value) throws JRException
+	{
+		int count = 200;
+		List<Object[]> data = createRecords(count, count);
+		List<Object[]> expectedRecords = fill(new SimpleJasperReportsContext(), data);
+		
+		List<Object[]> records = fill(createContext(property, value), data);
+		
+		int expectedCount = property.equals(DatasetSortUtil.PROPERTY_SORT_TOP_COUNT) 
+				? Integer.parseInt(value) : count;
+		assertSameRecords(records, expectedRecords.subList(0, expectedCount));
+	}
+
+	@Test(dataProvider = "modes")
+	public void inversionAfterOrderedRecords(String property, String value) throws JRException
+	{
+		int count = 200;
+		List<Object[]> data = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			// ordered up to the middle of the sixth run, then reversed
+			int key = i < 55 ? i : 255 - i;
+			data.add(new Object[]{key, "a", i});
+		}
+		List<Object[]> expectedRecords = fill(new SimpleJasperReportsContext(), data);
+		
+		List<Object[]> records = fill(createContext(property, value), data);
+		
+		int expectedCount = property.equals(DatasetSortUtil.PROPERTY_SORT_TOP_COUNT) 
+				? Integer.parseInt(value) : count;
+		assertSameRecords(records, expectedRecords.subList(0, expectedCount));
+	}
+
+	@Test
+	public void orderedRunsNotMerged() throws JRException
+	{
+		int count = 200;
+		List<Object[]> data = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			data.add(new Object[]{new CountingKey(i), "a", i});
+		}
+		
+		CountingKey.compareCount.set(0);
+		List<Object[]> records = fill(createContext(DatasetSortUtil.PROPERTY_EXTERNAL_SORT_RUN_SIZE, "10"), 
+				CountingKey.class, data, new ArrayList<>());
+		assertSameRecords(records, data);
+		
+		// only the adjacent records are compared, the runs are neither sorted nor merged
+		assert CountingKey.compareCount.get() == count - 1 : "compared " + CountingKey.compareCount.get() + " times";
+		assert directory.list().length == 0;
+	}
+	
+	private SimpleJasperReportsContext createContext(String property, String value)
+	{
+		SimpleJasperReportsContext jasperReportsContext = new SimpleJasperReportsContext();
+		jasperReportsContext.setProperty(property, value);
+		jasperReportsContext.setProperty(DatasetSortUtil.PROPERTY_EXTERNAL_SORT_DIRECTORY, directory.getPath());
+		return jasperReportsContext;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.sort;
+
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.fill.DatasetSortUtil;
+
+/**
+ * Compares top-N dataset sorting with a full sort followed by truncation.
+ */
+public class TopSortTest extends AbstractSortTest
+{
+	
+	@DataProvider
+	public Object[][] sizes()
+	{
+		return new Object[][]{{100, 1}, {100, 10}, {100, 99}, {100, 100}, {100, 150}, {1000, 37}, {0, 5}};
+	}
+
+	@Test(dataProvider = "sizes")
+	public void sameAsFullSort(int count, int topCount) throws JRException
+	{
+		// the records include ties, which have to keep the order of the full sort
+		List<Object[]> data = createRecords(count * 17L + topCount, count);
+		List<Object[]> sortedRecords = fill(new SimpleJasperReportsContext(), data);
+		assert sortedRecords.size() == count;
+		
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(DatasetSortUtil.PROPERTY_SORT_TOP_COUNT, String.valueOf(topCount));
+		List<Object[]> records = fill(context, data);
+		
+		assertSameRecords(records, sortedRecords.subList(0, Math.min(topCount, count)));
+	}
+	
+}
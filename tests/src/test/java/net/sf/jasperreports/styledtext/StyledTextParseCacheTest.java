@@ -0,0 +1,151 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.styledtext;
+
+import java.text.AttributedCharacterIterator.Attribute;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRPrintHyperlink;
+import net.sf.jasperreports.engine.JRPrintHyperlinkParameter;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.base.JRBasePrintHyperlink;
+import net.sf.jasperreports.engine.util.JRStyledText;
+import net.sf.jasperreports.engine.util.JRStyledText.Run;
+import net.sf.jasperreports.engine.util.JRStyledTextParser;
+import net.sf.jasperreports.engine.util.JRTextAttribute;
+import net.sf.jasperreports.engine.util.LocalJasperReportsContext;
+import net.sf.jasperreports.engine.util.StyledTextListInfo;
+import net.sf.jasperreports.engine.util.StyledTextListItemInfo;
+
+/**
+ * Tests the styled text parse cache configured in JasperReports contexts.
+ */
+public class StyledTextParseCacheTest
+{
+	
+	@Test
+	public void instancesPerContext()
+	{
+		SimpleJasperReportsContext cachingContext = createContext(10);
+		SimpleJasperReportsContext nonCachingContext = createContext(0);
+		
+		JRStyledTextParser cachingParser = JRStyledTextParser.getInstance(cachingContext);
+		JRStyledTextParser nonCachingParser = JRStyledTextParser.getInstance(nonCachingContext);
+		assert cachingParser != nonCachingParser;
+		assert cachingParser != JRStyledTextParser.getInstance();
+		
+		assert JRStyledTextParser.getInstance(cachingContext) == cachingParser;
+		assert JRStyledTextParser.getInstance(new LocalJasperReportsContext(cachingContext)) == cachingParser;
+		assert JRStyledTextParser.getInstance(new LocalJasperReportsContext(nonCachingContext)) == nonCachingParser;
+	}
+	
+	@Test
+	public void cachedHyperlinksNotShared() throws Exception
+	{
+		JRStyledTextParser parser = JRStyledTextParser.getInstance(createContext(10));
+		String markup = "<a href=\"x\"><param name=\"p\">v</param>a<b>b</b></a>";
+		
+		JRStyledText text1 = parse(parser, markup);
+		JRBasePrintHyperlink hyperlink1 = (JRBasePrintHyperlink) values(text1, JRTextAttribute.HYPERLINK).get(0);
+		hyperlink1.setHyperlinkReference("y");
+		hyperlink1.getHyperlinkParameters().getParameters().get(0).setValue("w");
+		hyperlink1.addHyperlinkParameter(new JRPrintHyperlinkParameter("q", null, "z"));
+		
+		JRStyledText text2 = parse(parser, markup);
+		JRPrintHyperlink hyperlink2 = (JRPrintHyperlink) values(text2, JRTextAttribute.HYPERLINK).get(0);
+		assert hyperlink2 != hyperlink1;
+		assert "x".equals(hyperlink2.getHyperlinkReference());
+		List<JRPrintHyperlinkParameter> parameters2 = hyperlink2.getHyperlinkParameters().getParameters();
+		assert parameters2.size() == 1;
+		assert "p".equals(parameters2.get(0).getName());
+		assert "v".equals(parameters2.get(0).getValue());
+	}
+	
+	@Test
+	public void cachedListsNotShared() throws Exception
+	{
+		JRStyledTextParser parser = JRStyledTextParser.getInstance(createContext(10));
+		String markup = "<ol start=\"3\"><li>a<ul><li>b</li></ul></li><li>c</li></ol>";
+		
+		JRStyledText text1 = parse(parser, markup);
+		StyledTextListInfo outerList1 = outerList(text1);
+		outerList1.setCutStart(7);
+		outerList1.setItemIndex(1);
+		StyledTextListItemInfo item1 = (StyledTextListItemInfo) values(text1, JRTextAttribute.HTML_LIST_ITEM).get(0);
+		item1.setNoBullet(true);
+		
+		JRStyledText text2 = parse(parser, markup);
+		StyledTextListInfo outerList2 = outerList(text2);
+		assert outerList2 != outerList1;
+		assert outerList2.getStart() == 3 && outerList2.getCutStart() == 3;
+		assert outerList2.getItemIndex() == 0;
+		assert outerList2.getItemCount() == 2;
+		StyledTextListItemInfo item2 = (StyledTextListItemInfo) values(text2, JRTextAttribute.HTML_LIST_ITEM).get(0);
+		assert item2 != item1 && !item2.noBullet();
+		
+		// the nested list still refers to the same outer list
+		for (Object lists : values(text2, JRTextAttribute.HTML_LIST))
+		{
+			assert ((StyledTextListInfo[]) lists)[0] == outerList2;
+		}
+	}
+	
+	protected SimpleJasperReportsContext createContext(int parseCacheSize)
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRStyledTextParser.PROPERTY_PARSE_CACHE_SIZE, String.valueOf(parseCacheSize));
+		return context;
+	}
+	
+	protected JRStyledText parse(JRStyledTextParser parser, String markup) throws Exception
+	{
+		return parser.parse(new HashMap<Attribute,Object>(), markup, Locale.US);
+	}
+	
+	protected StyledTextListInfo outerList(JRStyledText styledText)
+	{
+		List<Object> lists = values(styledText, JRTextAttribute.HTML_LIST);
+		assert lists.size() == 2;
+		return ((StyledTextListInfo[]) lists.get(0))[0];
+	}
+	
+	protected List<Object> values(JRStyledText styledText, Attribute attribute)
+	{
+		List<Object> values = new ArrayList<>();
+		for (Run run : styledText.getRuns())
+		{
+			Object value = run.attributes.get(attribute);
+			if (value != null)
+			{
+				values.add(value);
+			}
+		}
+		return values;
+	}
+}
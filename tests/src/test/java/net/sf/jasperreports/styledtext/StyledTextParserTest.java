@@ -0,0 +1,395 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.styledtext;
+
+import java.awt.font.TextAttribute;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.text.AttributedCharacterIterator.Attribute;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.util.JRStyledText;
+import net.sf.jasperreports.engine.util.JRStyledText.Run;
+import net.sf.jasperreports.engine.util.JRStyledTextParser;
+
+/**
+ * Compares the styled text parsed from markup with the styled text produced from the XML DOM 
+ * of the same markup.
+ * 
+ * A trailing comment is not accepted by the markup tokenizer and makes the parser 
+ * fall back to the XML document builder, whose result is used as reference.
+ */
+public class StyledTextParserTest
+{
+	
+	private static final String DOM_SUFFIX = "<!-- dom -->";
+	
+	private static final String[] WORDS = {"a", "text", " ", "  spaced ", "\n", "\t", "é", "☺", "x=1", "'q'", "\"dq\""};
+	private static final String[] ENTITIES = {"&amp;", "&lt;", "&gt;", "&quot;", "&apos;", 
+			"&#65;", "&#x263A;", "&#10;", "&#9;", "&#160;"};
+	private static final String[] BAD_ENTITIES = {"&", "&foo;", "&#;", "&#x;", "&#xZZ;", "&amp", "&#0;", "& amp;", "&#1114112;", "&#X41;"};
+	private static final String[] STYLE_ATTRIBUTES = {
+			"isBold=\"true\"", "isItalic='false'", "isUnderline=\"true\"", "isStrikeThrough=\"true\"", 
+			"size=\"12\"", "size='7.5'", "forecolor=\"#FF0000\"", "backcolor=\"blue\"", "fontName=\"DejaVu Sans\"", 
+			"fontName=\"A &amp; B\"", "pdfFontName=\"Helvetica\"", "pdfEncoding=\"Cp1252\"", "isPdfEmbedded=\"false\""};
+	private static final String[] FONT_ATTRIBUTES = {"face=\"DejaVu Serif\"", "face='Arial, Helvetica'", 
+			"size=\"3\"", "color=\"#00ff00\"", "color=\"red\""};
+	private static final String[] LINK_ATTRIBUTES = {"href=\"http://localhost/?a=1&amp;b=2\"", "target=\"_blank\"", 
+			"type=\"LocalAnchor\"", "href = 'x'"};
+	private static final String[] MALFORMED = {"<", ">", "</b>", "<b", "<b>", "<1b>", "<b x>", "<b x=1>", 
+			"<b x=\"1\" x=\"2\">", "<b x=\"<\">", "</>", "<br/ >", "<!-", "<?pi?>", "<![CDATA[c]]>", "\r", "]]>"};
+
+	@DataProvider
+	public Object[][] markup()
+	{
+		return new Object[][]{
+			{"plain text"},
+			{"<b>bold <i>bold italic <u>all</u></i></b> none"},
+			{"<style isBold=\"true\" size=\"14\">a<style forecolor=\"red\">b</style>c</style>"},
+			{"<style isBold='true'><style isBold='false'>x</style></style>"},
+			{"<sup>1</sup><sub>2</sub><sup><sub>3</sub></sup>"},
+			{"<font face=\"DejaVu Sans\" size=\"4\" color=\"#336699\">font</font>"},
+			{"&lt;b&gt;not bold&lt;/b&gt; &amp;&amp; &quot;q&quot; &apos;a&apos; &#65;&#x42; &#x263A;"},
+			{"a<br/>b<br></br>c<br />d<BR/>"},
+			{"<br/><br/>"},
+			{"<ul><li>one</li><li noBullet=\"true\">two</li></ul>after"},
+			{"<ol type=\"a\" start=\"3\"><li>one<ol><li>nested</li></ol></li><li>two</li></ol>"},
+			{"<li>orphan</li><li>items</li>"},
+			{"text<ul><li></li></ul><ol></ol>text"},
+			{"<a href=\"http://localhost/?a=1&amp;b=2\" target=\"_blank\">link</a>"},
+			{"<a type=\"Custom\" href=\"x\"><param name=\"p1\">v<b>1</b></param><param name=\"p2\" valueClass=\"java.lang.Integer\">2</param>text</a>"},
+			{"<a href=\"x\"><a href=\"y\">nested</a></a>"},
+			{"<param name=\"p\">outside</param>"},
+			{"<reference>ref</reference><note>note</note>"},
+			{"<span>unknown</span><x:y>ns</x:y>"},
+			{"<b>unclosed"},
+			{"<b>crossed<i></b></i>"},
+			{"&unknown; entity"},
+			{"a & b"},
+			{"line\r\nbreak"},
+			{"<![CDATA[<b>]]>cdata"},
+			{"<!-- comment -->after"},
+			{"<b   >spaces</b  >"},
+			{"<style size=\"big\">bad size</style>"},
+			{"<ol start=\"x\"><li>bad start</li></ol>"},
+			{""},
+		};
+	}
+	
+	@Test(dataProvider = "markup")
+	public void sameAsDom(String markup)
+	{
+		assertSameAsDom(markup);
+	}
+	
+	@Test
+	public void randomMarkup()
+	{
+		Random random = new Random(20231017);
+		for (int i = 0; i < 3000; i++)
+		{
+			StringBuilder markup = new StringBuilder();
+			appendContent(markup, random, 0);
+			if (random.nextInt(4) == 0)
+			{
+				malform(markup, random);
+			}
+			assertSameAsDom(markup.toString());
+		}
+	}
+	
+	protected void assertSameAsDom(String markup)
+	{
+		String parsed = parse(markup);
+		String expected = parse(markup + DOM_SUFFIX);
+		assert parsed.equals(expected) : "markup " + markup + " parsed to " + parsed + ", expected " + expected;
+	}
+	
+	protected String parse(String markup)
+	{
+		Map<Attribute,Object> globalAttributes = new HashMap<>();
+		globalAttributes.put(TextAttribute.FAMILY, "DejaVu Sans");
+		globalAttributes.put(TextAttribute.SIZE, 10f);
+		try
+		{
+			JRStyledText styledText = JRStyledTextParser.getInstance().parse(globalAttributes, markup, Locale.US);
+			return describe(styledText);
+		}
+		catch (Exception e)
+		{
+			return "exception " + e.getClass().getName();
+		}
+	}
+	
+	protected String describe(JRStyledText styledText)
+	{
+		StringBuilder description = new StringBuilder();
+		description.append('"').append(styledText.getText()).append('"');
+		List<Run> runs = styledText.getRuns();
+		for (Run run : runs)
+		{
+			description.append(" [").append(run.startIndex).append('-').append(run.endIndex).append(' ');
+			
+			// sorted by attribute name
+			Map<String, Object> attributes = new TreeMap<>();
+			for (Map.Entry<Attribute, Object> entry : run.attributes.entrySet())
+			{
+				attributes.put(entry.getKey().toString(), entry.getValue());
+			}
+			describe(description, attributes, new IdentityHashMap<>());
+			description.append(']');
+		}
+		return description.toString();
+	}
+	
+	protected void describe(StringBuilder description, Object value, Map<Object, Object> described)
+	{
+		if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+				|| value instanceof Enum || value instanceof Attribute || value instanceof Class
+				|| value.getClass().getName().startsWith("java.awt."))
+		{
+			description.append(value);
+		}
+		else if (described.put(value, value) != null)
+		{
+			description.append("<cycle>");
+		}
+		else if (value.getClass().isArray())
+		{
+			description.append('[');
+			for (int i = 0; i < Array.getLength(value); i++)
+			{
+				describe(description, Array.get(value, i), described);
+				description.append(',');
+			}
+			description.append(']');
+		}
+		else if (value instanceof Collection)
+		{
+			description.append('[');
+			for (Object element : (Collection<?>) value)
+			{
+				describe(description, element, described);
+				description.append(',');
+			}
+			description.append(']');
+		}
+		else if (value instanceof Map)
+		{
+			description.append('{');
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+			{
+				description.append(entry.getKey()).append('=');
+				describe(description, entry.getValue(), described);
+				description.append(',');
+			}
+			description.append('}');
+		}
+		else
+		{
+			// objects such as hyperlinks and list infos are compared field by field
+			description.append(value.getClass().getSimpleName()).append('{');
+			for (Class<?> type = value.getClass(); type != Object.class; type = type.getSuperclass())
+			{
+				for (Field field : type.getDeclaredFields())
+				{
+					if (Modifier.isStatic(field.getModifiers()))
+					{
+						continue;
+					}
+					
+					field.setAccessible(true);
+					description.append(field.getName()).append('=');
+					try
+					{
+						describe(description, field.get(value), described);
+					}
+					catch (IllegalAccessException e)
+					{
+						throw new IllegalStateException(e);
+					}
+					description.append(',');
+				}
+			}
+			description.append('}');
+		}
+	}
+	
+	protected void appendContent(StringBuilder markup, Random random, int depth)
+	{
+		int count = random.nextInt(depth == 0 ? 6 : 4);
+		for (int i = 0; i < count; i++)
+		{
+			int choice = random.nextInt(depth < 4 ? 10 : 4);
+			switch (choice)
+			{
+				case 0:
+				case 1:
+					markup.append(WORDS[random.nextInt(WORDS.length)]);
+					break;
+				case 2:
+					markup.append(ENTITIES[random.nextInt(ENTITIES.length)]);
+					break;
+				case 3:
+					markup.append(random.nextBoolean() ? "<br/>" : "<br></br>");
+					break;
+				case 4:
+					appendElement(markup, random, depth, "style", STYLE_ATTRIBUTES);
+					break;
+				case 5:
+					appendElement(markup, random, depth, 
+							new String[]{"b", "i", "u", "sup", "sub"}[random.nextInt(5)], null);
+					break;
+				case 6:
+					appendElement(markup, random, depth, "font", FONT_ATTRIBUTES);
+					break;
+				case 7:
+					appendList(markup, random, depth);
+					break;
+				case 8:
+					appendLink(markup, random, depth);
+					break;
+				default:
+					appendElement(markup, random, depth, 
+							new String[]{"li", "span", "reference", "note"}[random.nextInt(4)], null);
+					break;
+			}
+		}
+	}
+	
+	protected void appendElement(StringBuilder markup, Random random, int depth, String name, String[] attributes)
+	{
+		markup.append('<').append(name);
+		if (attributes != null)
+		{
+			int attributeCount = random.nextInt(3);
+			int first = random.nextInt(attributes.length);
+			for (int i = 0; i < attributeCount && first + i < attributes.length; i++)
+			{
+				markup.append(' ').append(attributes[first + i]);
+			}
+		}
+		
+		if (random.nextInt(8) == 0)
+		{
+			markup.append("/>");
+			return;
+		}
+		
+		markup.append('>');
+		appendContent(markup, random, depth + 1);
+		markup.append("</").append(name).append('>');
+	}
+	
+	protected void appendList(StringBuilder markup, Random random, int depth)
+	{
+		boolean ordered = random.nextBoolean();
+		String name = ordered ? "ol" : "ul";
+		markup.append('<').append(name);
+		if (ordered && random.nextBoolean())
+		{
+			markup.append(" type=\"").append(new String[]{"1", "a", "A", "i", "I"}[random.nextInt(5)]).append('"');
+		}
+		if (ordered && random.nextBoolean())
+		{
+			markup.append(" start=\"").append(random.nextInt(10)).append('"');
+		}
+		markup.append('>');
+		
+		int itemCount = random.nextInt(4);
+		for (int i = 0; i < itemCount; i++)
+		{
+			markup.append(random.nextInt(5) == 0 ? "<li noBullet=\"true\">" : "<li>");
+			appendContent(markup, random, depth + 1);
+			markup.append("</li>");
+		}
+		markup.append("</").append(name).append('>');
+	}
+	
+	protected void appendLink(StringBuilder markup, Random random, int depth)
+	{
+		markup.append("<a");
+		int attributeCount = random.nextInt(LINK_ATTRIBUTES.length);
+		for (int i = 0; i < attributeCount; i++)
+		{
+			markup.append(' ').append(LINK_ATTRIBUTES[i]);
+		}
+		markup.append('>');
+		
+		int paramCount = random.nextInt(3);
+		for (int i = 0; i < paramCount; i++)
+		{
+			markup.append("<param name=\"p").append(i).append('"');
+			if (random.nextBoolean())
+			{
+				markup.append(" valueClass=\"java.lang.String\"");
+			}
+			markup.append('>');
+			markup.append(WORDS[random.nextInt(WORDS.length)]);
+			if (random.nextBoolean())
+			{
+				markup.append(ENTITIES[random.nextInt(ENTITIES.length)]);
+			}
+			markup.append("</param>");
+		}
+		
+		appendContent(markup, random, depth + 1);
+		markup.append("</a>");
+	}
+	
+	protected void malform(StringBuilder markup, Random random)
+	{
+		int position = random.nextInt(markup.length() + 1);
+		switch (random.nextInt(4))
+		{
+			case 0:
+				markup.insert(position, MALFORMED[random.nextInt(MALFORMED.length)]);
+				break;
+			case 1:
+				markup.insert(position, BAD_ENTITIES[random.nextInt(BAD_ENTITIES.length)]);
+				break;
+			case 2:
+				markup.setLength(position);
+				break;
+			default:
+				if (position < markup.length())
+				{
+					markup.deleteCharAt(position);
+				}
+				break;
+		}
+	}
+	
+}
@@ -0,0 +1,185 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.textfields;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.geom.Rectangle2D;
+import java.text.AttributedString;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.fill.GlyphAdvanceLineBreaker;
+import net.sf.jasperreports.engine.fill.GlyphAdvanceTable;
+
+/**
+ * Checks that measuring simple texts with {@link GlyphAdvanceTable} produces the same results
+ * as AWT text measuring.
+ */
+public class GlyphAdvanceTableTest
+{
+	
+	private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, true, true);
+	
+	private static final float TOLERANCE = 0.01f;
+	
+	private static final int TEXT_COUNT = 20;
+	
+	@Test(dataProvider = "fonts")
+	public void stringBounds(Font font)
+	{
+		GlyphAdvanceTable table = new GlyphAdvanceTable(font, FONT_RENDER_CONTEXT);
+		Random random = new Random(font.hashCode());
+		for (String text : texts(random))
+		{
+			for (int i = 0; i < 50; i++)
+			{
+				int start = random.nextInt(text.length());
+				int end = start + 1 + random.nextInt(text.length() - start);
+				Rectangle2D expected = font.getStringBounds(text, start, end, FONT_RENDER_CONTEXT);
+				Rectangle2D bounds = table.getStringBounds(text, start, end);
+				assert Math.abs(bounds.getWidth() - expected.getWidth()) <= TOLERANCE
+						: font + " width " + bounds.getWidth() + " expected " + expected.getWidth();
+				assert Math.abs(bounds.getY() - expected.getY()) <= TOLERANCE
+						&& Math.abs(bounds.getHeight() - expected.getHeight()) <= TOLERANCE
+						: font + " bounds " + bounds + " expected " + expected;
+			}
+		}
+	}
+	
+	@Test(dataProvider = "fonts")
+	public void lineBreaks(Font font)
+	{
+		lineBreaks(font, false);
+	}
+	
+	@Test(dataProvider = "fonts")
+	public void charBreaks(Font font)
+	{
+		lineBreaks(font, true);
+	}
+	
+	protected void lineBreaks(Font font, boolean truncateAtChar)
+	{
+		GlyphAdvanceTable table = new GlyphAdvanceTable(font, FONT_RENDER_CONTEXT);
+		Random random = new Random(font.hashCode());
+		for (String text : texts(random))
+		{
+			for (int width = 10; width <= 200; width += 7)
+			{
+				AttributedString attributedText = new AttributedString(text);
+				attributedText.addAttribute(TextAttribute.FONT, font);
+				LineBreakMeasurer measurer = new LineBreakMeasurer(attributedText.getIterator(), 
+						breakIterator(truncateAtChar), FONT_RENDER_CONTEXT);
+				GlyphAdvanceLineBreaker breaker = new GlyphAdvanceLineBreaker(table, text, 0, text.length(), 
+						breakIterator(truncateAtChar));
+				
+				int position = 0;
+				while (position < text.length())
+				{
+					boolean requireWord = position > 0 && random.nextInt(4) == 0;
+					int expected = measurer.nextOffset(width, text.length(), requireWord);
+					breaker.setPosition(position);
+					int offset = breaker.nextOffset(width, text.length(), requireWord);
+					if (offset != expected)
+					{
+						// accepting differences caused by rounding, when both lines fit in the tolerance
+						float expectedAdvance = table.getAdvance(text, position, expected);
+						float advance = table.getAdvance(text, position, offset);
+						assert Math.abs(advance - width) <= TOLERANCE && Math.abs(expectedAdvance - width) <= TOLERANCE
+								: font + " at " + position + " in \"" + text + "\" width " + width
+										+ ": break " + offset + " expected " + expected;
+					}
+					
+					if (expected == position)
+					{
+						// the next word did not fit
+						expected = measurer.nextOffset(width, text.length(), false);
+					}
+					position = expected;
+					measurer.setPosition(position);
+				}
+			}
+		}
+	}
+	
+	protected BreakIterator breakIterator(boolean truncateAtChar)
+	{
+		return truncateAtChar ? BreakIterator.getCharacterInstance() : BreakIterator.getLineInstance();
+	}
+	
+	protected List<String> texts(Random random)
+	{
+		String[] words = {"a", "the", "report", "JasperReports", "fill", "x", "measure", 
+				"1,234.56", "(text)", "end.", "Stra\u00dfe", "caf\u00e9", "\u00c9t\u00e9",
+				"\u6587\u5b57\u5217\u306e\u6e2c\u5b9a", "\ud55c\uad6d\uc5b4", 
+				"extraordinarilylongwordthatdoesnotfit"};
+		String[] separators = {" ", " ", " ", "  ", "\t", "-", "/"};
+		
+		List<String> texts = new ArrayList<>();
+		for (int i = 0; i < TEXT_COUNT; i++)
+		{
+			StringBuilder text = new StringBuilder();
+			int wordCount = 1 + random.nextInt(40);
+			for (int j = 0; j < wordCount; j++)
+			{
+				if (j > 0)
+				{
+					text.append(separators[random.nextInt(separators.length)]);
+				}
+				text.append(words[random.nextInt(words.length)]);
+			}
+			texts.add(text.toString());
+		}
+		return texts;
+	}
+	
+	@DataProvider
+	public Object[][] fonts()
+	{
+		String[] names = {Font.SANS_SERIF, Font.SERIF, Font.MONOSPACED, Font.DIALOG};
+		int[] styles = {Font.PLAIN, Font.BOLD, Font.ITALIC};
+		float[] sizes = {7f, 10f, 13.5f};
+		
+		List<Object[]> fonts = new ArrayList<>();
+		for (String name : names)
+		{
+			for (int style : styles)
+			{
+				for (float size : sizes)
+				{
+					fonts.add(new Object[]{new Font(name, style, 1).deriveFont(size)});
+				}
+			}
+		}
+		return fonts.toArray(new Object[fonts.size()][]);
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.variables;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Objects;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.design.JRDesignVariable;
+import net.sf.jasperreports.engine.fill.AbstractValueProvider;
+import net.sf.jasperreports.engine.fill.JRBaseFiller;
+import net.sf.jasperreports.engine.fill.JRCalculable;
+import net.sf.jasperreports.engine.fill.JRFillExpressionEvaluator;
+import net.sf.jasperreports.engine.fill.JRFillObjectFactory;
+import net.sf.jasperreports.engine.fill.JRFillVariable;
+import net.sf.jasperreports.engine.fill.JRIncrementer;
+import net.sf.jasperreports.engine.fill.PrimitiveIncrementer;
+import net.sf.jasperreports.engine.type.CalculationEnum;
+
+/**
+ * Checks that the primitive Long and Double incrementers produce the same values as the boxed ones.
+ */
+public class PrimitiveIncrementerTest
+{
+	private static final Object RESET = new Object();
+	
+	@DataProvider
+	public Object[][] sequences()
+	{
+		Object[] nulls = {null, 1L, null, 2L, null, null, 3L};
+		Object[] mixed = {new BigDecimal("2.75"), 3, (short) 4, 5.9d, BigInteger.valueOf(7), 1.5f, new BigDecimal("-10.5")};
+		Object[] longOverflow = {Long.MAX_VALUE, 1L, Long.MAX_VALUE, Long.MIN_VALUE, new BigDecimal("1E+30")};
+		Object[] doubleOverflow = {Double.MAX_VALUE, Double.MAX_VALUE, -1d, null, Double.MIN_VALUE};
+		Object[] resets = {1L, 2L, RESET, null, 4L, RESET, 5L, null, RESET, RESET, 6L};
+		
+		Object[][] sequences = {nulls, mixed, longOverflow, doubleOverflow, resets};
+		Class<?>[] valueClasses = {Long.class, Double.class};
+		CalculationEnum[] calculations = {CalculationEnum.COUNT, CalculationEnum.SUM, CalculationEnum.AVERAGE};
+		
+		Object[][] data = new Object[valueClasses.length * calculations.length * sequences.length][];
+		int index = 0;
+		for (Class<?> valueClass : valueClasses)
+		{
+			for (CalculationEnum calculation : calculations)
+			{
+				for (Object[] sequence : sequences)
+				{
+					data[index++] = new Object[]{valueClass, calculation, sequence};
+				}
+			}
+		}
+		return data;
+	}
+
+	@Test(dataProvider = "sequences")
+	public void sameAsBoxed(Class<?> valueClass, CalculationEnum calculation, Object[] values) throws JRException
+	{
+		JRFillVariable[] primitive = createVariables(valueClass, calculation);
+		JRFillVariable[] boxed = createVariables(valueClass, calculation);
+		assert primitive[primitive.length - 1].getIncrementer() instanceof PrimitiveIncrementer;
+		
+		reset(primitive);
+		reset(boxed);
+		for (int i = 0; i < values.length; i++)
+		{
+			Object value = values[i];
+			if (value == RESET)
+			{
+				reset(primitive);
+				reset(boxed);
+				continue;
+			}
+			
+			for (int j = 0; j < primitive.length; j++)
+			{
+				incrementPrimitive(primitive[j], value);
+				incrementBoxed(boxed[j], value);
+				
+				assert Objects.equals(primitive[j].getValue(), boxed[j].getValue()) 
+						: "value " + i + " " + primitive[j].getValue() + " != " + boxed[j].getValue();
+				assert Objects.equals(primitive[j].getIncrementedValue(), boxed[j].getIncrementedValue());
+				assert Objects.equals(primitive[j].getPreviousIncrementedValue(), boxed[j].getPreviousIncrementedValue());
+			}
+		}
+	}
+
+	/**
+	 * Creates the variable along with its helper variables, in the order in which they are incremented.
+	 */
+	private static JRFillVariable[] createVariables(Class<?> valueClass, CalculationEnum calculation)
+	{
+		JRFillObjectFactory factory = new JRFillObjectFactory((JRBaseFiller) null, (JRFillExpressionEvaluator) null);
+		JRFillVariable variable = createVariable(factory, "var", valueClass, calculation);
+		if (calculation != CalculationEnum.AVERAGE)
+		{
+			return new JRFillVariable[]{variable};
+		}
+		
+		JRFillVariable count = createVariable(factory, "var_COUNT", valueClass, CalculationEnum.COUNT);
+		JRFillVariable sum = createVariable(factory, "var_SUM", valueClass, CalculationEnum.SUM);
+		variable.setHelperVariable(count, JRCalculable.HELPER_COUNT);
+		variable.setHelperVariable(sum, JRCalculable.HELPER_SUM);
+		return new JRFillVariable[]{count, sum, variable};
+	}
+
+	private static JRFillVariable createVariable(JRFillObjectFactory factory, String name, 
+			Class<?> valueClass, CalculationEnum calculation)
+	{
+		JRDesignVariable variable = new JRDesignVariable();
+		variable.setName(name);
+		variable.setValueClass(valueClass);
+		variable.setCalculation(calculation);
+		return new JRFillVariable(variable, factory)
+		{
+		};
+	}
+
+	private static void reset(JRFillVariable[] variables)
+	{
+		for (JRFillVariable variable : variables)
+		{
+			variable.setValue(null);
+			variable.setInitialized(true);
+		}
+	}
+
+	private static void incrementPrimitive(JRFillVariable variable, Object expressionValue) throws JRException
+	{
+		JRIncrementer incrementer = variable.getIncrementer();
+		if (!((PrimitiveIncrementer) incrementer).increment(variable, expressionValue, JRExpression.EVALUATION_DEFAULT))
+		{
+			variable.setValue(incrementer.increment(variable, expressionValue, AbstractValueProvider.getCurrentValueProvider()));
+		}
+		variable.setInitialized(false);
+		variable.updatePreviousIncrementedValue();
+		variable.updateIncrementedValue();
+	}
+
+	private static void incrementBoxed(JRFillVariable variable, Object expressionValue) throws JRException
+	{
+		JRIncrementer incrementer = variable.getIncrementer();
+		variable.setValue(incrementer.increment(variable, expressionValue, AbstractValueProvider.getCurrentValueProvider()));
+		variable.setInitialized(false);
+		variable.setPreviousIncrementedValue(variable.getIncrementedValue());
+		variable.setIncrementedValue(variable.getValue());
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.awt.Color;
+import java.util.UUID;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRGenericElementType;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintHyperlinkParameter;
+import net.sf.jasperreports.engine.JRPropertiesMap;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.TabStop;
+import net.sf.jasperreports.engine.base.JRBaseGenericPrintElement;
+import net.sf.jasperreports.engine.base.JRBasePrintElement;
+import net.sf.jasperreports.engine.base.JRBasePrintEllipse;
+import net.sf.jasperreports.engine.base.JRBasePrintFrame;
+import net.sf.jasperreports.engine.base.JRBasePrintImage;
+import net.sf.jasperreports.engine.base.JRBasePrintLine;
+import net.sf.jasperreports.engine.base.JRBasePrintRectangle;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.type.FillEnum;
+import net.sf.jasperreports.engine.type.HorizontalTextAlignEnum;
+import net.sf.jasperreports.engine.type.HyperlinkTypeEnum;
+import net.sf.jasperreports.engine.type.LineDirectionEnum;
+import net.sf.jasperreports.engine.type.LineSpacingEnum;
+import net.sf.jasperreports.engine.type.LineStyleEnum;
+import net.sf.jasperreports.engine.type.ModeEnum;
+import net.sf.jasperreports.engine.type.ScaleImageEnum;
+import net.sf.jasperreports.engine.type.TabStopAlignEnum;
+
+/**
+ * Round trip tests for the binary serialization of base print elements.
+ */
+public class BasePrintElementsTest extends BaseElementsTests
+{
+
+	private final JasperPrint jasperPrint = new JasperPrint();
+
+	@Test
+	public void text()
+	{
+		JRBasePrintText text = new JRBasePrintText(jasperPrint.getDefaultStyleProvider());
+		setElement(text);
+		text.setText("text value");
+		text.setTextTruncateIndex(5);
+		text.setLineBreakOffsets(new short[]{3, 7});
+		text.setLineSpacingFactor(1.5f);
+		text.setLeadingOffset(2f);
+		text.setTextHeight(12f);
+		text.setHorizontalTextAlign(HorizontalTextAlignEnum.RIGHT);
+		text.setMarkup("html");
+		text.setFontName("DejaVu Sans");
+		text.setBold(Boolean.TRUE);
+		text.setFontSize(11f);
+		text.setAnchorName("anchor");
+		text.setBookmarkLevel(2);
+		text.setHyperlinkType(HyperlinkTypeEnum.REFERENCE);
+		text.setHyperlinkReference("http://localhost");
+		JRPrintHyperlinkParameter parameter = new JRPrintHyperlinkParameter();
+		parameter.setName("param");
+		parameter.setValueClass(String.class.getName());
+		parameter.setValue("value");
+		text.addHyperlinkParameter(parameter);
+		text.getLineBox().setLeftPadding(2);
+		text.getLineBox().getTopPen().setLineWidth(1f);
+		text.getLineBox().getTopPen().setLineColor(Color.RED);
+		text.getParagraph().setLineSpacing(LineSpacingEnum.PROPORTIONAL);
+		text.getParagraph().setLineSpacingSize(1.2f);
+		text.getParagraph().addTabStop(new TabStop(40, TabStopAlignEnum.CENTER));
+		
+		JRBasePrintText read = compareBaseSerialized(text);
+		assert read.getValue().equals("text value");
+		assert read.getLineBreakOffsets().length == 2 && read.getLineBreakOffsets()[1] == 7;
+		assert read.getParagraph().getOwnTabStops().length == 1;
+	}
+
+	@Test
+	public void textValue()
+	{
+		JRBasePrintText text = new JRBasePrintText(jasperPrint.getDefaultStyleProvider());
+		setElement(text);
+		text.setText("12");
+		text.setValue(12);
+		text.setLineBreakOffsets(new short[0]);
+		
+		JRBasePrintText read = compareBaseSerialized(text);
+		assert read.getValue().equals(12);
+		assert read.getLineBreakOffsets().length == 0;
+	}
+
+	@Test
+	public void image()
+	{
+		JRBasePrintImage image = new JRBasePrintImage(jasperPrint.getDefaultStyleProvider());
+		setElement(image);
+		image.setScaleImage(ScaleImageEnum.RETAIN_SHAPE);
+		image.setUsingCache(false);
+		image.setAnchorName("image");
+		image.getLineBox().getPen().setLineStyle(LineStyleEnum.DASHED);
+		compareBaseSerialized(image);
+	}
+
+	@Test
+	public void graphics()
+	{
+		JRBasePrintLine line = new JRBasePrintLine(jasperPrint.getDefaultStyleProvider());
+		setElement(line);
+		line.setDirection(LineDirectionEnum.BOTTOM_UP);
+		line.getLinePen().setLineWidth(2f);
+		compareBaseSerialized(line);
+		
+		JRBasePrintRectangle rectangle = new JRBasePrintRectangle(jasperPrint.getDefaultStyleProvider());
+		setElement(rectangle);
+		rectangle.setRadius(4);
+		rectangle.setFill(FillEnum.SOLID);
+		compareBaseSerialized(rectangle);
+		
+		JRBasePrintEllipse ellipse = new JRBasePrintEllipse(jasperPrint.getDefaultStyleProvider());
+		setElement(ellipse);
+		compareBaseSerialized(ellipse);
+	}
+
+	@Test
+	public void frame()
+	{
+		JRBasePrintFrame frame = new JRBasePrintFrame(jasperPrint.getDefaultStyleProvider());
+		setElement(frame);
+		frame.getLineBox().getPen().setLineWidth(1f);
+		
+		JRBasePrintText text = new JRBasePrintText(jasperPrint.getDefaultStyleProvider());
+		setElement(text);
+		text.setText("child");
+		frame.addElement(text);
+		
+		JRBasePrintRectangle rectangle = new JRBasePrintRectangle(jasperPrint.getDefaultStyleProvider());
+		setElement(rectangle);
+		frame.addElement(rectangle);
+		
+		JRBasePrintFrame read = compareBaseSerialized(frame);
+		assert read.getElements().size() == 2;
+		assert read.getElements().get(0) instanceof JRBasePrintText;
+	}
+
+	@Test
+	public void generic()
+	{
+		JRBaseGenericPrintElement element = new JRBaseGenericPrintElement(jasperPrint.getDefaultStyleProvider());
+		setElement(element);
+		element.setGenericType(new JRGenericElementType("urn:test", "test"));
+		element.setParameterValue("string", "value");
+		element.setParameterValue("number", 10);
+		
+		JRBaseGenericPrintElement read = compareBaseSerialized(element);
+		assert read.getGenericType().equals(element.getGenericType());
+		assert read.getParameterValue("number").equals(10);
+	}
+
+	@Test
+	public void propertiesMap()
+	{
+		JRPropertiesMap base = new JRPropertiesMap();
+		base.setProperty("base.prop", "base");
+		base.setProperty("prop", "base value");
+		JRPropertiesMap properties = new JRPropertiesMap();
+		properties.setBaseProperties(base);
+		properties.setProperty("prop", "value");
+		properties.setProperty("null.prop", null);
+		
+		JRPropertiesMap read = passThroughSerialization(properties);
+		assert read.getOwnPropertyNames().length == 2;
+		assert read.getProperty("prop").equals("value");
+		assert read.containsProperty("null.prop");
+		assert read.getProperty("null.prop") == null;
+		assert read.getBaseProperties() != null;
+		assert read.getProperty("base.prop").equals("base");
+	}
+
+	@Test
+	public void color()
+	{
+		Color color = new Color(10, 20, 30, 40);
+		Color read = passThroughSerialization(color);
+		assert read.equals(color);
+	}
+
+	protected <T extends JRPrintElement> T compareBaseSerialized(T element)
+	{
+		T read = passThroughSerialization(element);
+		compareXml(element, read);
+		return read;
+	}
+
+	protected void setElement(JRBasePrintElement element)
+	{
+		element.setUUID(UUID.randomUUID());
+		element.setX(10);
+		element.setY(20);
+		element.setWidth(50);
+		element.setHeight(30);
+		element.setMode(ModeEnum.OPAQUE);
+		element.setForecolor(Color.BLUE);
+		element.getPropertiesMap().setProperty("element.prop", "value");
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.util.BlockCompressor;
+import net.sf.jasperreports.engine.util.BlockStreamCompression;
+import net.sf.jasperreports.engine.util.DeflateStreamCompression;
+import net.sf.jasperreports.engine.util.LZ4BlockCompressor;
+import net.sf.jasperreports.engine.util.StreamCompression;
+import net.sf.jasperreports.engine.util.SwapFileVirtualizerStoreFactory;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Round trip tests for {@link BlockStreamCompression} and {@link LZ4BlockCompressor}, and compression selection
+ * in {@link SwapFileVirtualizerStoreFactory}.
+ */
+public class BlockStreamCompressionTest
+{
+	@Test(dataProvider = "dataSizes")
+	public void repetitiveData(int size) throws IOException
+	{
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++)
+		{
+			data[i] = (byte) "text element value ".charAt(i % 19);
+		}
+		
+		byte[] compressed = compress(data);
+		assert size < 100 || compressed.length < size / 2;
+		assert Arrays.equals(decompress(compressed), data);
+	}
+
+	@Test(dataProvider = "dataSizes")
+	public void randomData(int size) throws IOException
+	{
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		
+		byte[] compressed = compress(data);
+		// incompressible blocks are stored as they are, plus the block headers
+		int blockCount = (size + BlockStreamCompression.DEFAULT_BLOCK_SIZE - 1) / BlockStreamCompression.DEFAULT_BLOCK_SIZE;
+		assert compressed.length == size + 8 * blockCount;
+		assert Arrays.equals(decompress(compressed), data);
+	}
+
+	@Test
+	public void streamCompressorReuse()
+	{
+		LZ4BlockCompressor compressor = new LZ4BlockCompressor();
+		BlockCompressor streamCompressor = compressor.streamCompressor();
+		Random random = new Random(1);
+		for (int i = 0; i < 20; i++)
+		{
+			byte[] data = new byte[random.nextInt(20000)];
+			for (int j = 0; j < data.length; j++)
+			{
+				data[j] = (byte) (random.nextInt(4) == 0 ? random.nextInt() : "abcdefgh".charAt(j % (1 + i % 8)));
+			}
+			
+			byte[] expected = new byte[compressor.maxCompressedLength(data.length)];
+			int expectedLength = compressor.compress(data, 0, data.length, expected, 0);
+			
+			// the reused hash table must not affect the result
+			byte[] compressed = new byte[streamCompressor.maxCompressedLength(data.length)];
+			int length = streamCompressor.compress(data, 0, data.length, compressed, 0);
+			assert length == expectedLength;
+			assert Arrays.equals(Arrays.copyOf(compressed, length), Arrays.copyOf(expected, expectedLength));
+			
+			byte[] decompressed = new byte[data.length];
+			compressor.decompress(compressed, 0, length, decompressed, 0, data.length);
+			assert Arrays.equals(decompressed, data);
+		}
+	}
+	
+	@Test
+	public void compressionProperty()
+	{
+		assert createCompression(null) == null;
+		assert createCompression(SwapFileVirtualizerStoreFactory.COMPRESSION_NONE) == null;
+		assert createCompression(" " + SwapFileVirtualizerStoreFactory.COMPRESSION_LZ4) instanceof BlockStreamCompression;
+		assert createCompression(SwapFileVirtualizerStoreFactory.COMPRESSION_DEFLATE) instanceof DeflateStreamCompression;
+	}
+	
+	@Test(expectedExceptions = JRRuntimeException.class)
+	public void unknownCompressionProperty()
+	{
+		createCompression("zip");
+	}
+	
+	protected StreamCompression createCompression(String compressionName)
+	{
+		SimpleJasperReportsContext jasperReportsContext = new SimpleJasperReportsContext();
+		jasperReportsContext.setProperty(SwapFileVirtualizerStoreFactory.PROPERTY_COMPRESSION, compressionName);
+		return new SwapFileVirtualizerStoreFactory()
+		{
+			StreamCompression compression()
+			{
+				return createCompression(new JRVirtualizationContext(jasperReportsContext));
+			}
+		}.compression();
+	}
+
+	@DataProvider
+	public Object[][] dataSizes()
+	{
+		return new Object[][]{{0}, {1}, {12}, {13}, {1000}, {BlockStreamCompression.DEFAULT_BLOCK_SIZE}, {200000}};
+	}
+	
+	protected byte[] compress(byte[] data) throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		OutputStream out = new BlockStreamCompression().compressedOutput(bout);
+		out.write(data);
+		out.close();
+		return bout.toByteArray();
+	}
+	
+	protected byte[] decompress(byte[] data) throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		InputStream in = new BlockStreamCompression().uncompressedInput(new ByteArrayInputStream(data));
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) > 0)
+		{
+			bout.write(buffer, 0, read);
+		}
+		in.close();
+		return bout.toByteArray();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+
+/**
+ * Virtualizable object that holds a byte array, used to test virtualizers and virtualizer stores.
+ */
+public class ByteArrayVirtualizable implements JRVirtualizable<byte[]>
+{
+	private final JRVirtualizationContext context;
+	private final String uid;
+	private byte[] data;
+	
+	public ByteArrayVirtualizable(JRVirtualizationContext context, String uid, byte[] data)
+	{
+		this.context = context;
+		this.uid = uid;
+		this.data = data;
+	}
+
+	@Override
+	public String getUID()
+	{
+		return uid;
+	}
+
+	@Override
+	public void ensureVirtualData()
+	{
+		// NOP
+	}
+
+	@Override
+	public void setVirtualData(byte[] o)
+	{
+		data = o;
+	}
+
+	@Override
+	public byte[] getVirtualData()
+	{
+		return data;
+	}
+
+	@Override
+	public void removeVirtualData()
+	{
+		data = null;
+	}
+
+	@Override
+	public void beforeExternalization()
+	{
+		// NOP
+	}
+
+	@Override
+	public void afterExternalization()
+	{
+		// NOP
+	}
+
+	@Override
+	public void afterInternalization()
+	{
+		// NOP
+	}
+
+	@Override
+	public JRVirtualizationContext getContext()
+	{
+		return context;
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.util.JRMappedSwapFile;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+
+/**
+ * Tests that data written to a {@link JRMappedSwapFile}, concurrently or through swap streams, is read back intact.
+ */
+public class MappedSwapFileTest
+{
+	@Test
+	public void concurrentReadWrite() throws Exception
+	{
+		JRMappedSwapFile swap = new JRMappedSwapFile(System.getProperty("java.io.tmpdir"), 512, 4, 4);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<Void>> results = new ArrayList<>();
+			for (int i = 0; i < 16; i++)
+			{
+				results.add(executor.submit(new SwapWorker(swap, i)));
+			}
+			
+			for (Future<Void> result : results)
+			{
+				result.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+			swap.dispose();
+		}
+	}
+	
+	@Test
+	public void streamReadWrite() throws IOException
+	{
+		String directory = System.getProperty("java.io.tmpdir");
+		JRSwapFile[] swaps = {new JRSwapFile(directory, 512, 4), new JRMappedSwapFile(directory, 512, 4, 2)};
+		for (JRSwapFile swap : swaps)
+		{
+			try
+			{
+				Random random = new Random(swap.getClass().getName().hashCode());
+				for (int i = 0; i < 200; i++)
+				{
+					byte[] data = new byte[random.nextInt(3000)];
+					random.nextBytes(data);
+					
+					JRSwapFile.SwapOutputStream out = swap.openOutput();
+					int position = 0;
+					while (position < data.length)
+					{
+						if (random.nextInt(10) == 0)
+						{
+							out.write(data[position++]);
+						}
+						else
+						{
+							int count = Math.min(data.length - position, random.nextInt(700));
+							out.write(data, position, count);
+							position += count;
+						}
+					}
+					out.close();
+					assert out.getSize() == data.length;
+					
+					JRSwapFile.SwapHandle handle = out.getHandle();
+					assert Arrays.equals(swap.read(handle, false), data) : swap + " data size " + data.length;
+					
+					InputStream in = swap.openInput(handle);
+					ByteArrayOutputStream read = new ByteArrayOutputStream();
+					byte[] buffer = new byte[1 + random.nextInt(600)];
+					int count;
+					while ((count = in.read(buffer)) >= 0)
+					{
+						read.write(buffer, 0, count);
+					}
+					in.close();
+					assert Arrays.equals(read.toByteArray(), data) : swap + " data size " + data.length;
+					
+					swap.free(handle);
+				}
+			}
+			finally
+			{
+				swap.dispose();
+			}
+		}
+	}
+	
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void readAfterDispose() throws IOException
+	{
+		JRMappedSwapFile swap = new JRMappedSwapFile(System.getProperty("java.io.tmpdir"), 512, 4, 1);
+		JRSwapFile.SwapHandle handle = swap.write(new byte[100]);
+		swap.dispose();
+		swap.read(handle, false);
+	}
+	
+	private static class SwapWorker implements Callable<Void>
+	{
+		private final JRSwapFile swap;
+		private final Random random;
+		
+		public SwapWorker(JRSwapFile swap, long seed)
+		{
+			this.swap = swap;
+			this.random = new Random(seed);
+		}
+
+		@Override
+		public Void call() throws IOException
+		{
+			Map<JRSwapFile.SwapHandle, byte[]> written = new LinkedHashMap<>();
+			for (int i = 0; i < 1000; i++)
+			{
+				byte[] data = new byte[1 + random.nextInt(5000)];
+				random.nextBytes(data);
+				written.put(swap.write(data), data);
+				
+				if (random.nextBoolean())
+				{
+					JRSwapFile.SwapHandle handle = written.keySet().iterator().next();
+					byte[] read = swap.read(handle, true);
+					assert Arrays.equals(read, written.remove(handle));
+				}
+			}
+			
+			for (Map.Entry<JRSwapFile.SwapHandle, byte[]> entry : written.entrySet())
+			{
+				byte[] read = swap.read(entry.getKey(), true);
+				assert Arrays.equals(read, entry.getValue());
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.base.JRBasePrintRectangle;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.MemoryBudgetVirtualizer;
+import net.sf.jasperreports.engine.util.SwapFileVirtualizerStoreFactory;
+
+/**
+ * Tests the memory size accounting of {@link MemoryBudgetVirtualizer}.
+ */
+public class MemoryBudgetVirtualizerTest
+{
+	private static final int ELEMENT_SIZE = 100;
+	
+	@Test
+	public void runningMemorySize()
+	{
+		MemoryBudgetVirtualizer virtualizer = new MemoryBudgetVirtualizer(1L << 20, ELEMENT_SIZE, 
+				new SwapFileVirtualizerStoreFactory());
+		JRVirtualizationContext context = new JRVirtualizationContext(new SimpleJasperReportsContext());
+		try
+		{
+			ByteArrayVirtualizable[] objects = new ByteArrayVirtualizable[5];
+			for (int i = 0; i < objects.length; i++)
+			{
+				objects[i] = new ByteArrayVirtualizable(context, "o" + i, new byte[10]);
+				virtualizer.registerObject(objects[i]);
+				assert virtualizer.getMemorySize() == (i + 1) * ELEMENT_SIZE : virtualizer.getMemorySize();
+			}
+			
+			virtualizer.deregisterObject(objects[0]);
+			assert virtualizer.getMemorySize() == 4 * ELEMENT_SIZE : virtualizer.getMemorySize();
+		}
+		finally
+		{
+			virtualizer.dispose(context);
+			context.dispose();
+		}
+	}
+	
+	@Test
+	public void budgetEviction()
+	{
+		MemoryBudgetVirtualizer virtualizer = new MemoryBudgetVirtualizer(3 * ELEMENT_SIZE, ELEMENT_SIZE, 
+				new SwapFileVirtualizerStoreFactory());
+		JRVirtualizationContext context = new JRVirtualizationContext(new SimpleJasperReportsContext());
+		try
+		{
+			ByteArrayVirtualizable[] objects = new ByteArrayVirtualizable[10];
+			for (int i = 0; i < objects.length; i++)
+			{
+				objects[i] = new ByteArrayVirtualizable(context, "o" + i, new byte[10]);
+				virtualizer.registerObject(objects[i]);
+				assert virtualizer.getMemorySize() <= 3 * ELEMENT_SIZE : virtualizer.getMemorySize();
+				assert virtualizer.getMemorySize() == inMemoryCount(objects) * ELEMENT_SIZE;
+			}
+			
+			virtualizer.requestData(objects[0]);
+			assert objects[0].getVirtualData() != null;
+			assert virtualizer.getMemorySize() <= 3 * ELEMENT_SIZE : virtualizer.getMemorySize();
+			assert virtualizer.getMemorySize() == inMemoryCount(objects) * ELEMENT_SIZE;
+		}
+		finally
+		{
+			virtualizer.dispose(context);
+			context.dispose();
+		}
+	}
+	
+	@Test
+	public void grownObjectEstimatedAgain()
+	{
+		MemoryBudgetVirtualizer virtualizer = new MemoryBudgetVirtualizer(1L << 20, ELEMENT_SIZE, 
+				new SwapFileVirtualizerStoreFactory());
+		JRVirtualizationContext context = new JRVirtualizationContext(new SimpleJasperReportsContext());
+		context.setVirtualizer(virtualizer);
+		try
+		{
+			JRVirtualPrintPage page = new JRVirtualPrintPage(context);
+			for (int i = 0; i < 10; i++)
+			{
+				page.addElement(new JRBasePrintRectangle(null));
+			}
+			
+			// the page is estimated when the first element is added
+			assert virtualizer.getMemorySize() == ELEMENT_SIZE : virtualizer.getMemorySize();
+			
+			JRVirtualPrintPage nextPage = new JRVirtualPrintPage(context);
+			nextPage.addElement(new JRBasePrintRectangle(null));
+			assert virtualizer.getMemorySize() == 12 * ELEMENT_SIZE : virtualizer.getMemorySize();
+		}
+		finally
+		{
+			virtualizer.dispose(context);
+			context.dispose();
+		}
+	}
+	
+	@Test
+	public void sharedInstancePerContext()
+	{
+		SimpleJasperReportsContext jasperReportsContext = new SimpleJasperReportsContext();
+		jasperReportsContext.setProperty(MemoryBudgetVirtualizer.PROPERTY_MEMORY_BUDGET, String.valueOf(2 * ELEMENT_SIZE));
+		jasperReportsContext.setProperty(MemoryBudgetVirtualizer.PROPERTY_ELEMENT_SIZE, String.valueOf(ELEMENT_SIZE));
+		
+		MemoryBudgetVirtualizer virtualizer = MemoryBudgetVirtualizer.getSharedInstance(jasperReportsContext);
+		assert virtualizer == MemoryBudgetVirtualizer.getSharedInstance(jasperReportsContext);
+		assert virtualizer != MemoryBudgetVirtualizer.getSharedInstance(new SimpleJasperReportsContext());
+		
+		JRVirtualizationContext context = new JRVirtualizationContext(jasperReportsContext);
+		try
+		{
+			for (int i = 0; i < 5; i++)
+			{
+				virtualizer.registerObject(new ByteArrayVirtualizable(context, "o" + i, new byte[10]));
+				assert virtualizer.getMemorySize() <= 2 * ELEMENT_SIZE : virtualizer.getMemorySize();
+			}
+		}
+		finally
+		{
+			virtualizer.dispose(context);
+			context.dispose();
+		}
+	}
+	
+	protected int inMemoryCount(ByteArrayVirtualizable[] objects)
+	{
+		int count = 0;
+		for (ByteArrayVirtualizable object : objects)
+		{
+			if (object != null && object.getVirtualData() != null)
+			{
+				++count;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.util.LocalVirtualizationSerializer;
+import net.sf.jasperreports.engine.util.OffHeapArena;
+import net.sf.jasperreports.engine.util.OffHeapVirtualizerStore;
+
+/**
+ * Tests {@link OffHeapArena} capacity limits and {@link OffHeapVirtualizerStore} swap file spilling.
+ */
+public class OffHeapVirtualizerStoreTest
+{
+	@Test
+	public void capacitySmallerThanBlock()
+	{
+		OffHeapArena arena = new OffHeapArena(1000, 4096);
+		assert arena.getCapacity() == 0;
+		assert arena.write(new byte[10]) == null;
+		assert arena.getAllocatedBytes() == 0;
+		assert arena.getRejectedCount() == 1;
+	}
+	
+	@Test
+	public void capacityNotExceeded()
+	{
+		OffHeapArena arena = new OffHeapArena(10000, 1024, 3000);
+		assert arena.getCapacity() <= 10000 : arena.getCapacity();
+		
+		int written = 0;
+		while (arena.write(new byte[1024]) != null)
+		{
+			++written;
+		}
+		assert written == arena.getCapacity() / 1024;
+		assert arena.getAllocatedBytes() <= 10000;
+	}
+	
+	@Test
+	public void swapFileCreatedOnSpill()
+	{
+		JRVirtualizationContext context = new JRVirtualizationContext(DefaultJasperReportsContext.getInstance());
+		LocalVirtualizationSerializer serializer = new LocalVirtualizationSerializer();
+		OffHeapArena arena = new OffHeapArena(8192, 1024, 4096);
+		OffHeapVirtualizerStore store = new OffHeapVirtualizerStore(arena, context.getJasperReportsContext(), 
+				System.getProperty("java.io.tmpdir"), 1024, 4, null);
+		try
+		{
+			Random random = new Random(1);
+			ByteArrayVirtualizable[] objects = new ByteArrayVirtualizable[10];
+			for (int i = 0; i < objects.length; i++)
+			{
+				byte[] data = new byte[3000];
+				random.nextBytes(data);
+				objects[i] = new ByteArrayVirtualizable(context, "o" + i, data);
+				store.store(objects[i], serializer);
+				
+				// the first two objects fit in the arena
+				assert store.hasSwapFile() == (i >= 2) : "object " + i;
+			}
+			assert store.getSpilledCount() == objects.length - 2;
+			
+			for (ByteArrayVirtualizable object : objects)
+			{
+				byte[] data = object.getVirtualData();
+				object.removeVirtualData();
+				store.retrieve(object, true, serializer);
+				assert Arrays.equals(object.getVirtualData(), data) : object.getUID();
+			}
+			assert arena.getUsedBytes() == 0;
+		}
+		finally
+		{
+			store.dispose();
+			context.dispose();
+		}
+	}
+}
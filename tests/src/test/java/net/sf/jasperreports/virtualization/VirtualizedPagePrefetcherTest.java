@@ -0,0 +1,201 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.base.JRBasePrintRectangle;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.StoreVirtualizer;
+import net.sf.jasperreports.engine.fill.VirtualizedPagePrefetcher;
+import net.sf.jasperreports.engine.fill.VirtualizerStore;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.engine.util.SwapFileVirtualizerStore;
+import net.sf.jasperreports.engine.util.VirtualizationSerializer;
+
+/**
+ * Tests that {@link VirtualizedPagePrefetcher} does not evict the page in use and does not lose pages
+ * that could not be queued.
+ */
+public class VirtualizedPagePrefetcherTest
+{
+	@Test
+	public void prefetchKeepsObjectInUse()
+	{
+		JRVirtualizationContext context = new JRVirtualizationContext(DefaultJasperReportsContext.getInstance());
+		StoreVirtualizer virtualizer = createVirtualizer(createStore());
+		try
+		{
+			ByteArrayVirtualizable[] objects = new ByteArrayVirtualizable[3];
+			for (int i = 0; i < objects.length; i++)
+			{
+				objects[i] = new ByteArrayVirtualizable(context, "o" + i, new byte[100]);
+				virtualizer.registerObject(objects[i]);
+			}
+			
+			virtualizer.requestData(objects[0]);
+			virtualizer.prefetchData(objects[1]);
+			assert objects[0].getVirtualData() != null;
+			
+			virtualizer.requestData(objects[1]);
+			assert objects[0].getVirtualData() == null;
+		}
+		finally
+		{
+			virtualizer.cleanup();
+			context.dispose();
+		}
+	}
+	
+	@Test
+	public void rejectedPagesScheduledAgain() throws InterruptedException
+	{
+		BlockingStore store = new BlockingStore(createStore());
+		StoreVirtualizer virtualizer = createVirtualizer(store);
+		JRVirtualizationContext context = new JRVirtualizationContext(DefaultJasperReportsContext.getInstance());
+		context.setVirtualizer(virtualizer);
+		VirtualizedPagePrefetcher prefetcher = new VirtualizedPagePrefetcher(2);
+		try
+		{
+			List<JRPrintPage> pages = new ArrayList<>();
+			for (int i = 0; i < 6; i++)
+			{
+				JRVirtualPrintPage page = new JRVirtualPrintPage(context);
+				page.addElement(new JRBasePrintRectangle(null));
+				pages.add(page);
+			}
+			
+			// page 1 is being loaded, pages 2 and 3 are queued and page 4 is rejected
+			prefetcher.prefetch(pages, 0);
+			assert store.loading.await(10, TimeUnit.SECONDS);
+			prefetcher.prefetch(pages, 1);
+			prefetcher.prefetch(pages, 2);
+			
+			store.release.countDown();
+			store.awaitRetrieved(3);
+			
+			prefetcher.prefetch(pages, 3);
+			store.awaitRetrieved(4);
+		}
+		finally
+		{
+			store.release.countDown();
+			prefetcher.dispose();
+			context.dispose();
+			virtualizer.cleanup();
+		}
+	}
+	
+	protected VirtualizerStore createStore()
+	{
+		JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 1024, 4);
+		return new SwapFileVirtualizerStore(swapFile, true);
+	}
+	
+	protected StoreVirtualizer createVirtualizer(VirtualizerStore store)
+	{
+		return new StoreVirtualizer(1, store);
+	}
+	
+	private static class BlockingStore implements VirtualizerStore
+	{
+		private final VirtualizerStore store;
+		private final CountDownLatch loading = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final AtomicInteger retrieved = new AtomicInteger();
+		
+		public BlockingStore(VirtualizerStore store)
+		{
+			this.store = store;
+		}
+
+		@Override
+		public boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer)
+		{
+			return store.store(o, serializer);
+		}
+
+		@Override
+		public boolean store(JRVirtualizable<?> o, byte[] data)
+		{
+			return store.store(o, data);
+		}
+
+		@Override
+		public void retrieve(JRVirtualizable<?> o, boolean remove, VirtualizationSerializer serializer)
+		{
+			loading.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			
+			store.retrieve(o, remove, serializer);
+			synchronized (retrieved)
+			{
+				retrieved.incrementAndGet();
+				retrieved.notifyAll();
+			}
+		}
+		
+		protected void awaitRetrieved(int count) throws InterruptedException
+		{
+			long end = System.currentTimeMillis() + 10000;
+			synchronized (retrieved)
+			{
+				while (retrieved.get() < count && System.currentTimeMillis() < end)
+				{
+					retrieved.wait(100);
+				}
+			}
+			assert retrieved.get() == count : retrieved.get();
+		}
+
+		@Override
+		public void remove(String objectId)
+		{
+			store.remove(objectId);
+		}
+
+		@Override
+		public void dispose()
+		{
+			store.dispose();
+		}
+	}
+}
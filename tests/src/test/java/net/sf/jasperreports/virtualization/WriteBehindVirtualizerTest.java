@@ -0,0 +1,272 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2023 Cloud Software Group, Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.StoreVirtualizer;
+import net.sf.jasperreports.engine.fill.VirtualizerStore;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.engine.util.SwapFileVirtualizerStore;
+import net.sf.jasperreports.engine.util.VirtualizationSerializer;
+
+/**
+ * Tests the write-behind mode of {@link JRAbstractLRUVirtualizer}.
+ */
+public class WriteBehindVirtualizerTest
+{
+	@Test
+	public void propertyEnablesWriteBehind() throws InterruptedException
+	{
+		SimpleJasperReportsContext jasperReportsContext = new SimpleJasperReportsContext();
+		jasperReportsContext.setProperty(JRAbstractLRUVirtualizer.PROPERTY_WRITE_BEHIND_QUEUE_SIZE, "4");
+		
+		StoreVirtualizer virtualizer = createVirtualizer();
+		assert !virtualizer.isWriteBehind();
+		
+		fillAndRead(virtualizer, jasperReportsContext);
+		assert virtualizer.isWriteBehind();
+		
+		virtualizer.cleanup();
+		assert !virtualizer.isWriteBehind();
+		assertNoPageOutThreads();
+	}
+	
+	@Test
+	public void explicitSettingOverridesProperty() throws InterruptedException
+	{
+		SimpleJasperReportsContext jasperReportsContext = new SimpleJasperReportsContext();
+		jasperReportsContext.setProperty(JRAbstractLRUVirtualizer.PROPERTY_WRITE_BEHIND_QUEUE_SIZE, "4");
+		
+		StoreVirtualizer virtualizer = createVirtualizer();
+		virtualizer.setWriteBehind(0);
+		fillAndRead(virtualizer, jasperReportsContext);
+		assert !virtualizer.isWriteBehind();
+		virtualizer.cleanup();
+		
+		virtualizer = createVirtualizer();
+		virtualizer.setWriteBehind(2);
+		fillAndRead(virtualizer, new SimpleJasperReportsContext());
+		assert virtualizer.isWriteBehind();
+		virtualizer.cleanup();
+		assertNoPageOutThreads();
+	}
+	
+	@Test
+	public void writeBehindDisabledByDefault()
+	{
+		StoreVirtualizer virtualizer = createVirtualizer();
+		fillAndRead(virtualizer, new SimpleJasperReportsContext());
+		assert !virtualizer.isWriteBehind();
+		virtualizer.cleanup();
+	}
+	
+	@Test
+	public void fillNotBlockedByWrite() throws Exception
+	{
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch released = new CountDownLatch(1);
+		BlockingWriteStore store = new BlockingWriteStore(writing, released);
+		StoreVirtualizer virtualizer = new StoreVirtualizer(3, store);
+		virtualizer.setWriteBehind(4);
+		
+		JRVirtualizationContext context = new JRVirtualizationContext(new SimpleJasperReportsContext());
+		Random random = new Random(1);
+		ByteArrayVirtualizable[] objects = new ByteArrayVirtualizable[5];
+		byte[][] data = new byte[objects.length][];
+		for (int i = 0; i < objects.length; i++)
+		{
+			data[i] = new byte[1000];
+			random.nextBytes(data[i]);
+			objects[i] = new ByteArrayVirtualizable(context, "o" + i, data[i].clone());
+		}
+		
+		// the fourth object evicts the first one, whose write blocks
+		for (int i = 0; i < 4; i++)
+		{
+			virtualizer.registerObject(objects[i]);
+		}
+		assert writing.await(10, TimeUnit.SECONDS);
+		
+		ExecutorService fillExecutor = Executors.newSingleThreadExecutor();
+		try
+		{
+			Future<?> fill = fillExecutor.submit(() -> 
+			{
+				// the context is not locked by the write
+				assert context.tryLock();
+				context.unlock();
+				
+				// the object being written is read from the serialized data
+				virtualizer.requestData(objects[0]);
+				assert Arrays.equals(objects[0].getVirtualData(), data[0]);
+				
+				// the next evicted objects are queued after the write in progress
+				virtualizer.registerObject(objects[4]);
+				// the queued write is cancelled
+				virtualizer.requestData(objects[1]);
+				assert Arrays.equals(objects[1].getVirtualData(), data[1]);
+				return null;
+			});
+			fill.get(10, TimeUnit.SECONDS);
+			assert store.writtenCount == 0 : store.writtenCount;
+		}
+		finally
+		{
+			released.countDown();
+			fillExecutor.shutdownNow();
+		}
+		
+		for (int i = 0; i < objects.length; i++)
+		{
+			virtualizer.requestData(objects[i]);
+			assert Arrays.equals(objects[i].getVirtualData(), data[i]) : "object " + i;
+		}
+		
+		context.dispose();
+		virtualizer.cleanup();
+	}
+	
+	/**
+	 * Swap file store whose first write of serialized data waits to be released.
+	 */
+	protected static class BlockingWriteStore implements VirtualizerStore
+	{
+		private final CountDownLatch writing;
+		private final CountDownLatch released;
+		private final SwapFileVirtualizerStore store;
+		private volatile int writtenCount;
+		
+		public BlockingWriteStore(CountDownLatch writing, CountDownLatch released)
+		{
+			this.writing = writing;
+			this.released = released;
+			this.store = new SwapFileVirtualizerStore(
+					new JRSwapFile(System.getProperty("java.io.tmpdir"), 1024, 4), true);
+		}
+
+		@Override
+		public boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer)
+		{
+			return store.store(o, serializer);
+		}
+
+		@Override
+		public boolean store(JRVirtualizable<?> o, byte[] data)
+		{
+			writing.countDown();
+			try
+			{
+				released.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			
+			boolean stored = store.store(o, data);
+			++writtenCount;
+			return stored;
+		}
+
+		@Override
+		public void retrieve(JRVirtualizable<?> o, boolean remove, VirtualizationSerializer serializer)
+		{
+			store.retrieve(o, remove, serializer);
+		}
+
+		@Override
+		public void remove(String objectId)
+		{
+			store.remove(objectId);
+		}
+
+		@Override
+		public void dispose()
+		{
+			store.dispose();
+		}
+	}
+	
+	protected StoreVirtualizer createVirtualizer()
+	{
+		JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 1024, 4);
+		return new StoreVirtualizer(2, new SwapFileVirtualizerStore(swapFile, true));
+	}
+	
+	protected void fillAndRead(StoreVirtualizer virtualizer, SimpleJasperReportsContext jasperReportsContext)
+	{
+		JRVirtualizationContext context = new JRVirtualizationContext(jasperReportsContext);
+		Random random = new Random(1);
+		ByteArrayVirtualizable[] objects = new ByteArrayVirtualizable[30];
+		byte[][] data = new byte[objects.length][];
+		for (int i = 0; i < objects.length; i++)
+		{
+			data[i] = new byte[500 + random.nextInt(3000)];
+			random.nextBytes(data[i]);
+			objects[i] = new ByteArrayVirtualizable(context, "o" + i, data[i].clone());
+			virtualizer.registerObject(objects[i]);
+			
+			if (i > 0 && random.nextInt(3) == 0)
+			{
+				// touching a recent object which might have a pending page out
+				int index = i - 1 - random.nextInt(Math.min(i, 4));
+				virtualizer.requestData(objects[index]);
+				assert Arrays.equals(objects[index].getVirtualData(), data[index]) : "object " + index;
+			}
+		}
+		
+		for (int i = 0; i < objects.length; i++)
+		{
+			virtualizer.requestData(objects[i]);
+			assert Arrays.equals(objects[i].getVirtualData(), data[i]) : "object " + i;
+		}
+		
+		context.dispose();
+	}
+	
+	protected void assertNoPageOutThreads() throws InterruptedException
+	{
+		for (Thread thread : Thread.getAllStackTraces().keySet())
+		{
+			if (thread.getName().startsWith("virtualizer page-out"))
+			{
+				thread.join(5000);
+				assert !thread.isAlive() : thread.getName();
+			}
+		}
+	}
+}